@@ -0,0 +1,13 @@
+package pe.edu.vallegrande.msdistribution.application.services;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CodeSequenceService {
+
+    // Siguiente código del prefijo (ej. PRG -> PRG001); único aun con creaciones concurrentes
+    Mono<String> nextCode(String prefix);
+
+    // Reserva count códigos consecutivos con una sola operación (creación masiva)
+    Flux<String> nextCodes(String prefix, int count);
+}
@@ -0,0 +1,15 @@
+package pe.edu.vallegrande.msdistribution.application.services;
+
+import java.time.Instant;
+
+public interface CollectionVersionService {
+
+    // Sube la versión de la colección y la de la organización tras una escritura (null = todas las organizaciones)
+    void bump(Class<?> entityClass, String organizationId);
+
+    // Versión vigente para un GET condicional; organizationId null = toda la colección. No consulta MongoDB
+    Version current(Class<?> entityClass, String organizationId);
+
+    record Version(String etag, Instant lastModified) {
+    }
+}
@@ -0,0 +1,12 @@
+package pe.edu.vallegrande.msdistribution.application.services;
+
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.ConflictReportResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface ConflictService {
+
+    // Cruces de programas y horarios de una organización entre fromDate y toDate (inclusive)
+    Mono<ConflictReportResponse> getReport(String organizationId, LocalDate fromDate, LocalDate toDate);
+}
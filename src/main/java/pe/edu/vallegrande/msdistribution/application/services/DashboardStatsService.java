@@ -0,0 +1,14 @@
+package pe.edu.vallegrande.msdistribution.application.services;
+
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.DashboardStatsResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.DashboardSummaryResponse;
+import reactor.core.publisher.Mono;
+
+public interface DashboardStatsService {
+
+    // Totales por colección calculados en MongoDB (sin leer documentos)
+    Mono<DashboardStatsResponse> getDashboardStats();
+
+    // Conteo de programas por estado agrupado en MongoDB ($group); organizationId es opcional
+    Mono<DashboardSummaryResponse> getSystemSummary(String organizationId, boolean byOrganization, boolean byMonth);
+}
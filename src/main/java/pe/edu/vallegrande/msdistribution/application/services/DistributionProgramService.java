@@ -1,15 +1,25 @@
 package pe.edu.vallegrande.msdistribution.application.services;
 
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionProgramCreateRequest;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.ProgramGenerationRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.DistributionProgramResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.ProgramGenerationResponse;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.EnrichedDistributionProgramResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface DistributionProgramService {
     
     Flux<DistributionProgramResponse> getAll();
     
+    // Paginación por cursor: hasta limit elementos con _id mayor que afterId (null = primera página)
+    Flux<DistributionProgramResponse> getPage(String afterId, int limit);
+    
+    // Solo los campos indicados (proyección en MongoDB); afterId/limit como en getPage, limit null = sin paginar
+    Flux<DistributionProgramResponse> getFields(Set<String> fields, String afterId, Integer limit);
+    
     Mono<DistributionProgramResponse> getById(String id);
     
     Mono<DistributionProgramResponse> save(DistributionProgramCreateRequest request);
@@ -35,4 +45,7 @@ public interface DistributionProgramService {
     
     // Method to get programs by organization ID
     Flux<DistributionProgramResponse> getByOrganizationId(String organizationId);
+    
+    // Genera los programas de todos los horarios ACTIVE de la organización en el rango de fechas
+    Mono<ProgramGenerationResponse> generate(ProgramGenerationRequest request);
 }
\ No newline at end of file
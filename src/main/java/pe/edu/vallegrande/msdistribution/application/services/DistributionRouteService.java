@@ -7,12 +7,23 @@ import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.En
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface DistributionRouteService {
     
     Flux<DistributionRoute> getAll();
     
+    // Paginación por cursor: hasta limit elementos con _id mayor que afterId (null = primera página)
+    Flux<DistributionRoute> getPage(String afterId, int limit);
+    
+    // Solo los campos indicados (proyección en MongoDB); afterId/limit como en getPage, limit null = sin paginar
+    Flux<DistributionRoute> getFields(Set<String> fields, String afterId, Integer limit);
+    
     Flux<DistributionRoute> getAllActive();
     
+    // Activos de una organización (índice organizationId_status o copia en memoria)
+    Flux<DistributionRoute> getAllActiveByOrganization(String organizationId);
+    
     Flux<DistributionRoute> getAllInactive();
     
     Mono<DistributionRoute> getById(String id);
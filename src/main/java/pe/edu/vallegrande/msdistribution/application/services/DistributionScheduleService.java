@@ -7,14 +7,28 @@ import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.En
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface DistributionScheduleService {
     
     Flux<DistributionSchedule> getAll();
     
+    // Paginación por cursor: hasta limit elementos con _id mayor que afterId (null = primera página)
+    Flux<DistributionSchedule> getPage(String afterId, int limit);
+    
+    // Solo los campos indicados (proyección en MongoDB); afterId/limit como en getPage, limit null = sin paginar
+    Flux<DistributionSchedule> getFields(Set<String> fields, String afterId, Integer limit);
+    
     Flux<DistributionSchedule> getAllActive();
     
+    // Activos de una organización (índice organizationId_status o copia en memoria)
+    Flux<DistributionSchedule> getAllActiveByOrganization(String organizationId);
+    
     Flux<DistributionSchedule> getAllInactive();
     
+    // Activos de una zona vigentes ese día a esa hora (forma compilada); organizationId opcional
+    Flux<DistributionSchedule> getActiveAt(String organizationId, String zoneId, String day, String time);
+    
     Mono<DistributionSchedule> getById(String id);
     
     Mono<DistributionScheduleResponse> save(DistributionScheduleCreateRequest request);
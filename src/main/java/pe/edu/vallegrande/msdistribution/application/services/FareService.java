@@ -3,14 +3,23 @@ package pe.edu.vallegrande.msdistribution.application.services;
 import pe.edu.vallegrande.msdistribution.domain.models.Fare;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.FareCreateRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.FareResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.FareTransitionResponse;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.EnrichedFareResponse;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Set;
+
 public interface FareService {
     
     Flux<FareResponse> getAllF();
     
+    // Paginación por cursor: hasta limit elementos con _id mayor que afterId (null = primera página)
+    Flux<FareResponse> getPageF(String afterId, int limit);
+    
+    // Solo los campos indicados (proyección en MongoDB); afterId/limit como en getPage, limit null = sin paginar
+    Flux<FareResponse> getFieldsF(Set<String> fields, String afterId, Integer limit);
+    
     Flux<FareResponse> getAllActiveF();
     
     Flux<FareResponse> getAllInactiveF();
@@ -42,6 +51,6 @@ public interface FareService {
     // Method to get fares by organization ID
     Flux<Fare> getByOrganizationId(String organizationId);
     
-    // Method to manually trigger fare transitions processing
-    void triggerFareTransitions();
+    // Method to trigger fare transitions processing; reports how many fares changed status
+    Mono<FareTransitionResponse> triggerFareTransitions();
 }
\ No newline at end of file
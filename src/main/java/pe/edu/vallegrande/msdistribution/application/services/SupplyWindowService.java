@@ -0,0 +1,10 @@
+package pe.edu.vallegrande.msdistribution.application.services;
+
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.SupplyWindowsResponse;
+import reactor.core.publisher.Mono;
+
+public interface SupplyWindowService {
+
+    // Ventana de abastecimiento en curso y las próximas limit de una zona (y calle, opcional); en memoria
+    Mono<SupplyWindowsResponse> getWindows(String organizationId, String zoneId, String streetId, Integer limit);
+}
@@ -0,0 +1,183 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Copia inmutable en memoria de las rutas y horarios ACTIVE, agrupada por organizationId.
+ *
+ * Un change stream por colección avisa de cualquier cambio; los avisos que llegan dentro de
+ * app.active-snapshot.rebuild-delay se agrupan en una sola reconstrucción (una consulta
+ * {status: ACTIVE}) y las reconstrucciones nunca se solapan. La copia nueva reemplaza a la anterior
+ * de forma atómica, así los lectores no toman candados ni ven una copia a medio construir. Tras
+ * cada reemplazo se sube la versión de la colección para que las ETag emitidas antes caduquen.
+ *
+ * Mientras la copia no está construida o el change stream está caído (servidor standalone, red),
+ * snapshot() devuelve null y los servicios consultan MongoDB como antes.
+ */
+@Component
+@Slf4j
+public class ActiveReferenceSnapshot {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CollectionVersionService collectionVersions;
+    private final Map<Class<?>, Holder<?>> holders = new LinkedHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @Value("${app.active-snapshot.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.active-snapshot.rebuild-delay:200ms}")
+    private Duration rebuildDelay = Duration.ofMillis(200);
+
+    public ActiveReferenceSnapshot(ReactiveMongoTemplate mongoTemplate, CollectionVersionService collectionVersions) {
+        this.mongoTemplate = mongoTemplate;
+        this.collectionVersions = collectionVersions;
+        holders.put(DistributionRoute.class,
+                new Holder<>(DistributionRoute.class, DistributionRoute::getOrganizationId));
+        holders.put(DistributionSchedule.class,
+                new Holder<>(DistributionSchedule.class, DistributionSchedule::getOrganizationId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Active route/schedule snapshot disabled, active listings will query MongoDB");
+            return;
+        }
+        holders.values().forEach(holder -> subscriptions.add(watch(holder)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    // ===============================
+    // LECTURA (sin acceso a MongoDB)
+    // ===============================
+
+    public Snapshot<DistributionRoute> routes() {
+        return snapshot(DistributionRoute.class);
+    }
+
+    public Snapshot<DistributionSchedule> schedules() {
+        return snapshot(DistributionSchedule.class);
+    }
+
+    /** Copia vigente, o null si no está construida o no se está manteniendo. */
+    @SuppressWarnings("unchecked")
+    <T> Snapshot<T> snapshot(Class<T> type) {
+        Holder<T> holder = (Holder<T>) holders.get(type);
+        return enabled && holder.live ? holder.current.get() : null;
+    }
+
+    // ===============================
+    // CHANGE STREAM Y RECONSTRUCCIÓN
+    // ===============================
+
+    private Disposable watch(Holder<?> holder) {
+        Flux<?> stream = Flux.defer(() -> {
+                    // Se escucha desde antes de la consulta: un cambio concurrente provoca otra reconstrucción
+                    ChangeStreamOptions options = ChangeStreamOptions.builder().resumeAt(Instant.now()).build();
+                    return mongoTemplate.changeStream(null, holder.collection, options, Document.class)
+                            .map(event -> Boolean.TRUE)
+                            .startWith(Boolean.TRUE);
+                })
+                .bufferTimeout(1024, rebuildDelay)
+                .concatMap(changes -> rebuild(holder.type));
+        return ChangeStreams.keepWatching(stream, e -> {
+                    holder.live = false;
+                    log.warn("Active snapshot of '{}' stopped, listings fall back to MongoDB: {}",
+                            holder.collection, e.getMessage());
+                }, e -> log.warn("Active snapshot of '{}' disabled: {}", holder.collection, e.getMessage()));
+    }
+
+    /** Lee los documentos ACTIVE y reemplaza la copia. Visible para pruebas. */
+    @SuppressWarnings("unchecked")
+    <T> Mono<Snapshot<T>> rebuild(Class<T> type) {
+        Holder<T> holder = (Holder<T>) holders.get(type);
+        return mongoTemplate.find(new Query(Criteria.where("status").is(Constants.ACTIVE.name())), type)
+                .collectList()
+                .map(holder::swap)
+                .doOnNext(snapshot -> {
+                    holder.live = true;
+                    collectionVersions.bump(type, null);
+                    log.debug("Active snapshot of '{}' v{} built: {} documents", holder.collection,
+                            snapshot.version(), snapshot.all().size());
+                });
+    }
+
+    /**
+     * Copia inmutable: todos los documentos ACTIVE y los mismos agrupados por organización.
+     * version crece con cada reemplazo.
+     */
+    public record Snapshot<T>(long version, Instant builtAt, List<T> all, Map<String, List<T>> byOrganization) {
+
+        public List<T> forOrganization(String organizationId) {
+            return byOrganization.getOrDefault(organizationId, List.of());
+        }
+
+        static <T> Snapshot<T> of(long version, List<T> items, Function<T, String> organizationOf) {
+            Map<String, List<T>> grouped = new HashMap<>();
+            for (T item : items) {
+                String organizationId = organizationOf.apply(item);
+                if (organizationId != null) {
+                    grouped.computeIfAbsent(organizationId, k -> new ArrayList<>()).add(item);
+                }
+            }
+            Map<String, List<T>> byOrganization = new HashMap<>();
+            grouped.forEach((organizationId, list) -> byOrganization.put(organizationId, List.copyOf(list)));
+            return new Snapshot<>(version, Instant.now(), List.copyOf(items), Map.copyOf(byOrganization));
+        }
+    }
+
+    private static final class Holder<T> {
+        final Class<T> type;
+        final String collection;
+        final Function<T, String> organizationOf;
+        final AtomicReference<Snapshot<T>> current = new AtomicReference<>();
+        volatile boolean live;
+
+        Holder(Class<T> type, Function<T, String> organizationOf) {
+            this.type = type;
+            this.collection = ChangeStreams.collectionOf(type);
+            this.organizationOf = organizationOf;
+        }
+
+        // Solo una reconstrucción a la vez (concatMap), el reemplazo no necesita compareAndSet
+        Snapshot<T> swap(List<T> items) {
+            Snapshot<T> previous = current.get();
+            Snapshot<T> next = Snapshot.of(previous != null ? previous.version() + 1 : 1, items, organizationOf);
+            current.set(next);
+            return next;
+        }
+    }
+}
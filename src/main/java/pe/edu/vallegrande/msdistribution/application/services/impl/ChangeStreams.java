@@ -0,0 +1,56 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.MongoCommandException;
+import org.springframework.data.mongodb.core.mapping.Document;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Piezas comunes de los change streams (DashboardCounterRegistry, EntityCache, ActiveReferenceSnapshot).
+ *
+ * keepWatching suscribe el flujo y lo vuelve a suscribir con espera creciente (1 s hasta 1 min) cada vez
+ * que falla; solo se rinde si el servidor no soporta change streams (standalone).
+ */
+final class ChangeStreams {
+
+    // $changeStream no soportado (servidor standalone)
+    static final Set<Integer> UNSUPPORTED_CODES = Set.of(40573);
+
+    private ChangeStreams() {
+    }
+
+    /**
+     * Suscribe stream y lo reconecta mientras falle. onFailure se llama en cada fallo; onDisabled cuando
+     * el servidor no soporta change streams y ya no se reintenta.
+     */
+    static Disposable keepWatching(Flux<?> stream, Consumer<Throwable> onFailure, Consumer<Throwable> onDisabled) {
+        return stream
+                .doOnError(onFailure)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMinutes(1))
+                        .filter(e -> !isErrorCode(e, UNSUPPORTED_CODES)))
+                .subscribe(value -> { }, onDisabled);
+    }
+
+    /** true si e o alguna de sus causas es un error de comando de MongoDB con uno de esos códigos. */
+    static boolean isErrorCode(Throwable e, Set<Integer> codes) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof MongoCommandException command && codes.contains(command.getErrorCode())) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /** Colección declarada en la anotación @Document del modelo. */
+    static String collectionOf(Class<?> type) {
+        return type.getAnnotation(Document.class).collection();
+    }
+}
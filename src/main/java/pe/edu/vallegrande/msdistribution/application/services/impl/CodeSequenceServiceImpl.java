@@ -0,0 +1,250 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.domain.models.CodeSequence;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Genera códigos con un contador por prefijo en la colección "counters".
+ *
+ * Cada nodo reserva bloques de N números con un único findAndModify ($inc N) y los entrega desde
+ * memoria sin bloqueos; cuando el bloque baja del 20% se reserva el siguiente en segundo plano.
+ * N se configura por prefijo en app.code-sequence.block-size.&lt;PREFIJO&gt; (por defecto .default).
+ *
+ * Los números de un bloque no usados se pierden si el nodo se reinicia o cae, por lo que pueden
+ * quedar huecos en la numeración (PRG041, PRG101...). Es un comportamiento permitido: los códigos
+ * son únicos y crecientes por nodo, pero no consecutivos ni ordenados entre nodos.
+ *
+ * La primera vez que se usa un prefijo en el proceso se asegura que el contador parta del mayor
+ * código ya existente ($max), para no repetir códigos creados antes de este contador.
+ */
+@Service
+@Slf4j
+public class CodeSequenceServiceImpl implements CodeSequenceService {
+
+    static final String BLOCK_SIZE_PROPERTY = "app.code-sequence.block-size.";
+
+    // Fracción restante del bloque a partir de la cual se reserva el siguiente
+    private static final double PREFETCH_RATIO = 0.2;
+
+    // Colección y campo donde buscar el mayor código existente de cada prefijo
+    private static final Map<String, CodeSource> SOURCES = Map.of(
+            "PRG", new CodeSource("program", "programCode"),
+            "RUT", new CodeSource("route", "routeCode"),
+            "HOR", new CodeSource("schedule", "scheduleCode"),
+            "TAR", new CodeSource("fare", "fareCode"));
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Environment environment;
+    private final Map<String, Mono<Void>> initialized = new ConcurrentHashMap<>();
+    private final Map<String, PrefixBlocks> blocks = new ConcurrentHashMap<>();
+
+    public CodeSequenceServiceImpl(ReactiveMongoTemplate mongoTemplate, Environment environment) {
+        this.mongoTemplate = mongoTemplate;
+        this.environment = environment;
+    }
+
+    @Override
+    public Mono<String> nextCode(String prefix) {
+        return Mono.defer(() -> {
+            PrefixBlocks sequence = blocks.computeIfAbsent(prefix, p -> new PrefixBlocks(blockSizeOf(p)));
+            long number = sequence.take();
+            if (number > 0) {
+                prefetchIfLow(prefix, sequence);
+                return Mono.just(format(prefix, number));
+            }
+            // Bloque agotado y sin reserva lista: esperar el siguiente y volver a intentar
+            return refill(prefix, sequence).then(nextCode(prefix));
+        });
+    }
+
+    @Override
+    public Flux<String> nextCodes(String prefix, int count) {
+        if (count <= 0) {
+            return Flux.empty();
+        }
+        return reserveRange(prefix, count)
+                .flatMapMany(last -> Flux.range(0, count)
+                        .map(offset -> format(prefix, last - count + 1 + offset)));
+    }
+
+    static String format(String prefix, long number) {
+        return String.format("%s%03d", prefix, number);
+    }
+
+    // ===============================
+    // BLOQUES EN MEMORIA
+    // ===============================
+
+    private void prefetchIfLow(String prefix, PrefixBlocks sequence) {
+        if (sequence.size > 1 && sequence.standby.get() == null
+                && sequence.current.get().remaining() <= sequence.size * PREFETCH_RATIO) {
+            refill(prefix, sequence).subscribe(block -> { },
+                    e -> log.warn("Could not prefetch code block for '{}': {}", prefix, e.getMessage()));
+        }
+    }
+
+    /** Reserva un bloque y lo deja en espera; las reservas concurrentes del mismo prefijo se comparten. */
+    private Mono<Block> refill(String prefix, PrefixBlocks sequence) {
+        Mono<Block> inFlight = sequence.inFlight.get();
+        if (inFlight != null) {
+            return inFlight;
+        }
+        Mono<Block> reservation = reserveRange(prefix, sequence.size)
+                .map(last -> new Block(last - sequence.size + 1, last))
+                .doOnNext(block -> {
+                    // Si ya había otro bloque en espera este se descarta (hueco permitido)
+                    if (!sequence.standby.compareAndSet(null, block)) {
+                        log.debug("Discarding extra code block for '{}'", prefix);
+                    }
+                })
+                .doFinally(signal -> sequence.inFlight.set(null))
+                .cache();
+        return sequence.inFlight.compareAndSet(null, reservation) ? reservation : refill(prefix, sequence);
+    }
+
+    /** Incrementa el contador en n con un único findAndModify y devuelve el último número reservado. */
+    private Mono<Long> reserveRange(String prefix, int n) {
+        return ensureInitialized(prefix)
+                .then(Mono.defer(() -> mongoTemplate.findAndModify(
+                        byPrefix(prefix),
+                        new Update().inc("seq", n),
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        CodeSequence.class)))
+                // Dos upserts simultáneos sobre un contador aún inexistente: el perdedor reintenta
+                .retryWhen(Retry.max(1).filter(DuplicateKeyException.class::isInstance))
+                .map(CodeSequence::getSeq);
+    }
+
+    private int blockSizeOf(String prefix) {
+        Integer size = environment.getProperty(BLOCK_SIZE_PROPERTY + prefix, Integer.class);
+        if (size == null) {
+            size = environment.getProperty(BLOCK_SIZE_PROPERTY + "default", Integer.class);
+        }
+        return size != null && size > 0 ? size : 1;
+    }
+
+    // ===============================
+    // INICIALIZACIÓN DEL CONTADOR
+    // ===============================
+
+    private Mono<Void> ensureInitialized(String prefix) {
+        return initialized.computeIfAbsent(prefix, p -> initialize(p)
+                .doOnError(e -> initialized.remove(p))
+                .cache());
+    }
+
+    /** Si el contador no existe, lo crea con el mayor número ya usado en la colección. */
+    private Mono<Void> initialize(String prefix) {
+        CodeSource source = SOURCES.get(prefix);
+        if (source == null) {
+            return Mono.empty();
+        }
+        return mongoTemplate.exists(byPrefix(prefix), CodeSequence.class)
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : maxExistingNumber(prefix, source)
+                                .flatMap(max -> mongoTemplate.upsert(byPrefix(prefix),
+                                        new Update().max("seq", max), CodeSequence.class))
+                                .retryWhen(Retry.max(1).filter(DuplicateKeyException.class::isInstance))
+                                .doOnSuccess(result -> log.info("Code sequence '{}' initialized", prefix))
+                                .then());
+    }
+
+    /** Mayor parte numérica de los códigos PREFIJO + dígitos; los códigos con otro formato se ignoran. */
+    private Mono<Long> maxExistingNumber(String prefix, CodeSource source) {
+        String field = "$" + source.field();
+        AggregationOperation match = context -> new Document("$match",
+                new Document(source.field(), new Document("$regex", "^" + prefix + "[0-9]+$")));
+        AggregationOperation group = context -> new Document("$group", new Document("_id", null)
+                .append("max", new Document("$max", new Document("$toLong",
+                        new Document("$substrCP", List.of(field, prefix.length(), 18))))));
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(match, group), source.collection(),
+                        Document.class)
+                .next()
+                .map(result -> ((Number) result.get("max")).longValue())
+                .defaultIfEmpty(0L);
+    }
+
+    private Query byPrefix(String prefix) {
+        return new Query(Criteria.where("_id").is(prefix));
+    }
+
+    private record CodeSource(String collection, String field) {
+    }
+
+    /** Rango [next, last] reservado en MongoDB; take() es atómico y no bloquea. */
+    static final class Block {
+        static final Block EMPTY = new Block(1, 0);
+
+        private final AtomicLong next;
+        private final long last;
+
+        Block(long first, long last) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+        }
+
+        long take() {
+            long number = next.getAndIncrement();
+            return number <= last ? number : -1;
+        }
+
+        long remaining() {
+            return Math.max(0, last - next.get() + 1);
+        }
+    }
+
+    /** Bloque en uso, bloque reservado por adelantado y reserva en curso de un prefijo. */
+    static final class PrefixBlocks {
+        final int size;
+        final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+        final AtomicReference<Block> standby = new AtomicReference<>();
+        final AtomicReference<Mono<Block>> inFlight = new AtomicReference<>();
+
+        PrefixBlocks(int size) {
+            this.size = size;
+        }
+
+        /** Siguiente número disponible, o -1 si el bloque actual se agotó y no hay otro en espera. */
+        long take() {
+            while (true) {
+                Block block = current.get();
+                long number = block.take();
+                if (number > 0) {
+                    return number;
+                }
+                Block next = standby.get();
+                if (next == null) {
+                    return -1;
+                }
+                // Promover el bloque en espera; si otro hilo ya lo hizo, solo liberar el hueco
+                current.compareAndSet(block, next);
+                if (current.get() == next) {
+                    standby.compareAndSet(next, null);
+                }
+            }
+        }
+    }
+}
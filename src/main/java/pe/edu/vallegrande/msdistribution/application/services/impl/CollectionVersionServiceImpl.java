@@ -0,0 +1,83 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Versión en memoria de cada colección y de cada (colección, organizationId), usada como ETag y
+ * Last-Modified de los listados. Los service impl la suben después de cada escritura; las tarifas
+ * la suben con el FareChangedEvent que ya se publica en cada cambio.
+ *
+ * La ETag incluye un identificador del proceso, así una ETag emitida antes de un reinicio o por
+ * otro nodo nunca se valida aquí. Las escrituras hechas en otros nodos no suben la versión local;
+ * por eso cada versión caduca tras app.collection-versions.ttl y se reemite, lo que acota el tiempo
+ * en que un nodo puede responder 304 con datos desactualizados.
+ */
+@Service
+public class CollectionVersionServiceImpl implements CollectionVersionService {
+
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Class<?>, Stamps> stamps = new ConcurrentHashMap<>();
+
+    @Value("${app.collection-versions.ttl:1m}")
+    private Duration ttl = Duration.ofMinutes(1);
+
+    @Override
+    public void bump(Class<?> entityClass, String organizationId) {
+        Stamps s = stampsOf(entityClass);
+        Stamp stamp = next();
+        if (organizationId == null) {
+            s.organizations.replaceAll((org, old) -> stamp);
+        } else {
+            s.organizations.put(organizationId, stamp);
+        }
+        s.collection.set(stamp);
+    }
+
+    @Override
+    public Version current(Class<?> entityClass, String organizationId) {
+        Stamps s = stampsOf(entityClass);
+        long now = System.currentTimeMillis();
+        Stamp stamp = organizationId == null
+                ? s.collection.updateAndGet(old -> isValid(old, now) ? old : next())
+                : s.organizations.compute(organizationId, (org, old) -> isValid(old, now) ? old : next());
+        return new Version(instanceId + "-" + stamp.version(), Instant.ofEpochMilli(stamp.modifiedAt()));
+    }
+
+    @EventListener
+    public void onFareChanged(FareChangedEvent event) {
+        bump(Fare.class, event.organizationId());
+    }
+
+    private boolean isValid(Stamp stamp, long now) {
+        return stamp != null && now - stamp.modifiedAt() < ttl.toMillis();
+    }
+
+    private Stamp next() {
+        return new Stamp(sequence.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    private Stamps stampsOf(Class<?> entityClass) {
+        return stamps.computeIfAbsent(entityClass, k -> new Stamps());
+    }
+
+    private record Stamp(long version, long modifiedAt) {
+    }
+
+    private static final class Stamps {
+        final AtomicReference<Stamp> collection = new AtomicReference<>();
+        final Map<String, Stamp> organizations = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,82 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.bulk.BulkWriteResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Mono;
+
+/**
+ * Migración de los horarios guardados antes de la forma compilada (dayMask, startMinute, endMinute).
+ *
+ * Al iniciar se leen solo los horarios sin dayMask (y de ellos solo daysOfWeek, startTime y endTime),
+ * se compilan con ScheduleCalendar y se actualizan en lotes de app.schedule-compilation.batch-size con
+ * bulkWrite no ordenado. Cada actualización vuelve a exigir que dayMask no exista, así no pisa una
+ * escritura hecha mientras tanto, y repetir la migración no hace nada.
+ */
+@Component
+@Slf4j
+public class CompiledScheduleBackfill {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CollectionVersionService collectionVersions;
+
+    @Value("${app.schedule-compilation.backfill:true}")
+    private boolean enabled = true;
+
+    @Value("${app.schedule-compilation.batch-size:500}")
+    private int batchSize = 500;
+
+    public CompiledScheduleBackfill(ReactiveMongoTemplate mongoTemplate, CollectionVersionService collectionVersions) {
+        this.mongoTemplate = mongoTemplate;
+        this.collectionVersions = collectionVersions;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Schedule compilation backfill disabled");
+            return;
+        }
+        backfill().subscribe(
+                updated -> log.info("Schedule compilation backfill completed: {} schedules compiled", updated),
+                error -> log.error("Schedule compilation backfill failed: ", error));
+    }
+
+    /** Compila los horarios que aún no tienen dayMask; devuelve cuántos se actualizaron. */
+    public Mono<Long> backfill() {
+        Query pending = new Query(Criteria.where("dayMask").exists(false));
+        pending.fields().include("daysOfWeek").include("startTime").include("endTime");
+        return mongoTemplate.find(pending, DistributionSchedule.class)
+                .map(ScheduleCalendar::compile)
+                .buffer(batchSize)
+                .concatMap(batch -> {
+                    ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                            DistributionSchedule.class);
+                    for (DistributionSchedule schedule : batch) {
+                        bulk.updateOne(new Query(Criteria.where("_id").is(schedule.getId()).and("dayMask").exists(false)),
+                                new Update()
+                                        .set("dayMask", schedule.getDayMask())
+                                        .set("startMinute", schedule.getStartMinute())
+                                        .set("endMinute", schedule.getEndMinute()));
+                    }
+                    return bulk.execute().map(BulkWriteResult::getModifiedCount);
+                })
+                .reduce(0L, (total, modified) -> total + modified)
+                .doOnNext(updated -> {
+                    if (updated > 0) {
+                        collectionVersions.bump(DistributionSchedule.class, null);
+                    }
+                });
+    }
+}
@@ -0,0 +1,504 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cruces entre programas y entre horarios de una organización.
+ *
+ * Hay cruce de zona cuando dos programas (o dos horarios) de la misma zona se solapan en el tiempo y
+ * coinciden en la calle o uno de ellos cubre toda la zona (sin calle); hay cruce de responsable cuando un
+ * mismo responsibleUserId tiene dos programas solapados. Los programas INACTIVE y los horarios no ACTIVE
+ * no cuentan. Programas contra horarios no se comparan: cada programa sale normalmente de un horario.
+ *
+ * Para validar una escritura (verify) se mantiene por organización un IntervalTree por zona, por calle y
+ * por responsable: los programas desde ayer, en minutos locales desde 1970-01-01, y los horarios en minutos
+ * de la semana (lunes 00:00 = 0). Se reconstruye como el de SupplyWindowIndex (OrganizationIndexCache,
+ * métrica conflict.index.lookups).
+ * Dos escrituras simultáneas que se cruzan entre sí pueden pasar ambas: la validación no es transaccional.
+ * Los lotes de programas generados (ProgramMaterializer) se filtran con admissible contra el mismo índice y
+ * contra el propio lote.
+ *
+ * report() recorre una sola vez, ordenadas por inicio, las ventanas de los programas y de los horarios de
+ * un rango de fechas, manteniendo las activas por zona y por responsable (barrido).
+ */
+@Component
+@Slf4j
+public class ConflictDetector {
+
+    static final String ZONE = "ZONE";
+    static final String RESPONSIBLE = "RESPONSIBLE";
+    static final String PROGRAM = "PROGRAM";
+    static final String SCHEDULE = "SCHEDULE";
+
+    private static final int MINUTES_PER_DAY = ScheduleCalendar.MINUTES_PER_DAY;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final Comparator<Slot> BY_START = Comparator.comparingLong(Slot::start)
+            .thenComparingLong(Slot::end);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final OrganizationIndexCache<Index> indexes;
+
+    @Value("${app.conflict-detection.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.conflict-detection.zone:America/Lima}")
+    private String zone = "America/Lima";
+
+    // Reemplazable en pruebas
+    Clock clock = Clock.systemUTC();
+
+    public ConflictDetector(ReactiveMongoTemplate mongoTemplate, ActiveReferenceSnapshot activeSnapshot,
+            CollectionVersionService collectionVersions, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexes = new OrganizationIndexCache<>("conflict.index", mongoTemplate, activeSnapshot,
+                collectionVersions, meterRegistry, (organizationId, today) -> load(organizationId, today.minusDays(1)));
+    }
+
+    /** Error 409 si el programa se cruza con otro de su organización; vacío si no. */
+    public Mono<Void> verify(DistributionProgram program) {
+        return conflictsOf(program).flatMap(conflicts -> reject("El programa", conflicts));
+    }
+
+    /** Error 409 si el horario (ya compilado) se cruza con otro activo de su organización; vacío si no. */
+    public Mono<Void> verify(DistributionSchedule schedule) {
+        return conflictsOf(schedule).flatMap(conflicts -> reject("El horario", conflicts));
+    }
+
+    Mono<List<Conflict>> conflictsOf(DistributionProgram program) {
+        Slot candidate = programSlot(program);
+        if (!enabled || candidate == null || program.getOrganizationId() == null) {
+            return Mono.just(List.of());
+        }
+        return indexOf(program.getOrganizationId()).map(index -> index.conflictsOf(candidate));
+    }
+
+    Mono<List<Conflict>> conflictsOf(DistributionSchedule schedule) {
+        List<Slot> candidate = weeklySlots(schedule);
+        if (!enabled || candidate.isEmpty() || schedule.getOrganizationId() == null) {
+            return Mono.just(List.of());
+        }
+        return indexOf(schedule.getOrganizationId()).map(index -> index.conflictsOf(candidate));
+    }
+
+    /**
+     * Programas de un lote aún sin guardar que pueden insertarse: los que no se cruzan con los de la
+     * organización ni con los que se admitieron antes en el mismo lote. Con la detección desactivada pasan
+     * todos.
+     */
+    Mono<List<DistributionProgram>> admissible(String organizationId, List<DistributionProgram> batch) {
+        if (!enabled || batch.isEmpty()) {
+            return Mono.just(batch);
+        }
+        return indexOf(organizationId).map(index -> index.admit(batch));
+    }
+
+    /** Cruces de programas y horarios de la organización entre from y to (inclusive), en un solo barrido. */
+    public Mono<List<Conflict>> report(String organizationId, LocalDate from, LocalDate to) {
+        Mono<List<DistributionProgram>> programs = mongoTemplate.find(programQuery(organizationId)
+                .addCriteria(Criteria.where("programDate").gte(from).lte(to)), DistributionProgram.class)
+                .collectList();
+        return Mono.zip(indexes.activeSchedules(organizationId), programs)
+                .map(loaded -> {
+                    List<Slot> slots = new ArrayList<>();
+                    for (DistributionProgram program : loaded.getT2()) {
+                        Slot slot = programSlot(program);
+                        if (slot != null) {
+                            slots.add(slot);
+                        }
+                    }
+                    for (DistributionSchedule schedule : loaded.getT1()) {
+                        slots.addAll(datedSlots(schedule, from, to));
+                    }
+                    return sweep(slots);
+                });
+    }
+
+    private Mono<Void> reject(String subject, List<Conflict> conflicts) {
+        if (conflicts.isEmpty()) {
+            return Mono.empty();
+        }
+        String details = conflicts.stream()
+                .map(conflict -> describe(conflict.second()) + (RESPONSIBLE.equals(conflict.type())
+                        ? " (mismo responsable)" : " (misma zona/calle)"))
+                .collect(Collectors.joining(", ", subject + " se cruza con: ", ""));
+        return Mono.error(CustomException.conflict(details));
+    }
+
+    private static String describe(Slot slot) {
+        String name = slot.code() != null ? slot.code() : slot.id();
+        return (PROGRAM.equals(slot.source()) ? "programa " : "horario ") + name;
+    }
+
+    /** Índice vigente de la organización. */
+    Mono<Index> indexOf(String organizationId) {
+        return indexes.get(organizationId, LocalDate.now(clock.withZone(ZoneId.of(zone))));
+    }
+
+    private Mono<Index> load(String organizationId, LocalDate from) {
+        Mono<List<DistributionProgram>> programs = mongoTemplate.find(programQuery(organizationId)
+                .addCriteria(Criteria.where("programDate").gte(from)), DistributionProgram.class)
+                .collectList();
+        return Mono.zip(indexes.activeSchedules(organizationId), programs)
+                .map(loaded -> Index.build(loaded.getT1(), loaded.getT2(), from))
+                .doOnNext(index -> log.debug("Conflict index of organization {} built", organizationId));
+    }
+
+    private static Query programQuery(String organizationId) {
+        Query query = new Query(Criteria.where("organizationId").is(organizationId)
+                .and("status").ne(Constants.INACTIVE.name()));
+        query.fields().include("programCode").include("zoneId").include("streetId").include("programDate")
+                .include("plannedStartTime").include("plannedEndTime").include("status")
+                .include("responsibleUserId");
+        return query;
+    }
+
+    // Ventana del programa en minutos locales; null si no cuenta o le faltan datos
+    static Slot programSlot(DistributionProgram program) {
+        Integer start = ScheduleCalendar.minuteOfDay(program.getPlannedStartTime());
+        Integer end = ScheduleCalendar.minuteOfDay(program.getPlannedEndTime());
+        if (Constants.INACTIVE.name().equals(program.getStatus()) || program.getZoneId() == null
+                || program.getProgramDate() == null || start == null || end == null) {
+            return null;
+        }
+        long day = program.getProgramDate().toEpochDay() * MINUTES_PER_DAY;
+        return new Slot(day + start, day + (end <= start ? end + MINUTES_PER_DAY : end), program.getId(),
+                program.getProgramCode(), PROGRAM, program.getZoneId(), street(program.getStreetId()),
+                blankToNull(program.getResponsibleUserId()));
+    }
+
+    // Ventanas del horario en minutos de la semana; la del domingo que pasa la medianoche se parte en dos
+    static List<Slot> weeklySlots(DistributionSchedule schedule) {
+        List<Slot> slots = new ArrayList<>();
+        Integer startMinute = startMinute(schedule);
+        Integer endMinute = endMinute(schedule);
+        if (!Constants.ACTIVE.name().equals(schedule.getStatus()) || schedule.getZoneId() == null
+                || startMinute == null || endMinute == null) {
+            return slots;
+        }
+        for (DayOfWeek day : ScheduleCalendar.daysOf(schedule)) {
+            long offset = (long) (day.getValue() - 1) * MINUTES_PER_DAY;
+            long start = offset + startMinute;
+            long end = offset + endMinute;
+            slots.add(scheduleSlot(schedule, start, Math.min(end, MINUTES_PER_WEEK)));
+            if (end > MINUTES_PER_WEEK) {
+                slots.add(scheduleSlot(schedule, 0, end - MINUTES_PER_WEEK));
+            }
+        }
+        return slots;
+    }
+
+    // Ocurrencias del horario entre from y to en minutos locales (para el reporte)
+    static List<Slot> datedSlots(DistributionSchedule schedule, LocalDate from, LocalDate to) {
+        List<Slot> slots = new ArrayList<>();
+        Integer startMinute = startMinute(schedule);
+        Integer endMinute = endMinute(schedule);
+        if (schedule.getZoneId() == null || startMinute == null || endMinute == null) {
+            return slots;
+        }
+        for (LocalDate date : ScheduleCalendar.dates(ScheduleCalendar.daysOf(schedule), from, to)) {
+            long day = date.toEpochDay() * MINUTES_PER_DAY;
+            slots.add(scheduleSlot(schedule, day + startMinute, day + endMinute));
+        }
+        return slots;
+    }
+
+    // Forma compilada si existe; si no, se interpretan los campos libres sin modificar el horario
+    private static Integer startMinute(DistributionSchedule schedule) {
+        return schedule.getStartMinute() != null
+                ? schedule.getStartMinute() : ScheduleCalendar.minuteOfDay(schedule.getStartTime());
+    }
+
+    private static Integer endMinute(DistributionSchedule schedule) {
+        if (schedule.getEndMinute() != null) {
+            return schedule.getEndMinute();
+        }
+        Integer start = ScheduleCalendar.minuteOfDay(schedule.getStartTime());
+        Integer end = ScheduleCalendar.minuteOfDay(schedule.getEndTime());
+        return start != null && end != null && end <= start ? end + MINUTES_PER_DAY : end;
+    }
+
+    private static Slot scheduleSlot(DistributionSchedule schedule, long start, long end) {
+        return new Slot(start, end, schedule.getId(), schedule.getScheduleCode(), SCHEDULE, schedule.getZoneId(),
+                street(schedule.getStreetId()), null);
+    }
+
+    /**
+     * Barrido por inicio: cada ventana se compara con las que siguen abiertas de su zona (mismo origen) y,
+     * si es un programa, con las de su responsable. Cada par se informa una vez, en su primer cruce.
+     */
+    static List<Conflict> sweep(List<Slot> slots) {
+        List<Slot> sorted = new ArrayList<>(slots);
+        sorted.sort(BY_START);
+        Map<String, List<Slot>> openByZone = new HashMap<>();
+        Map<String, List<Slot>> openByResponsible = new HashMap<>();
+        Set<String> reported = new HashSet<>();
+        List<Conflict> conflicts = new ArrayList<>();
+        for (Slot slot : sorted) {
+            List<Slot> zoneOpen = open(openByZone, slot.source() + "|" + slot.zoneId(), slot.start());
+            for (Slot other : zoneOpen) {
+                if (!other.id().equals(slot.id()) && sameStreet(other, slot)) {
+                    report(conflicts, reported, ZONE, other, slot);
+                }
+            }
+            zoneOpen.add(slot);
+            if (slot.responsibleUserId() != null) {
+                List<Slot> responsibleOpen = open(openByResponsible, slot.responsibleUserId(), slot.start());
+                for (Slot other : responsibleOpen) {
+                    report(conflicts, reported, RESPONSIBLE, other, slot);
+                }
+                responsibleOpen.add(slot);
+            }
+        }
+        return conflicts;
+    }
+
+    // Ventanas aún abiertas en at; las que ya terminaron se descartan
+    private static List<Slot> open(Map<String, List<Slot>> open, String key, long at) {
+        List<Slot> slots = open.computeIfAbsent(key, k -> new ArrayList<>());
+        slots.removeIf(slot -> slot.end() <= at);
+        return slots;
+    }
+
+    private static void report(List<Conflict> conflicts, Set<String> reported, String type, Slot first,
+            Slot second) {
+        if (reported.add(type + "|" + first.id() + "|" + second.id())
+                && !reported.contains(type + "|" + second.id() + "|" + first.id())) {
+            conflicts.add(new Conflict(type, first, second));
+        }
+    }
+
+    private static boolean sameStreet(Slot first, Slot second) {
+        return first.streetId() == null || second.streetId() == null || first.streetId().equals(second.streetId());
+    }
+
+    private static String street(String streetId) {
+        return blankToNull(streetId);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static IntervalTree<Slot> tree(List<Slot> slots) {
+        return IntervalTree.of(slots, Slot::start, Slot::end);
+    }
+
+    /**
+     * Ventana de un programa o de un horario; start y end en minutos (end exclusivo). streetId null = toda
+     * la zona.
+     */
+    record Slot(long start, long end, String id, String code, String source, String zoneId, String streetId,
+            String responsibleUserId) {
+    }
+
+    /** Cruce entre first (ya existente) y second; se solapan en [start, end). */
+    record Conflict(String type, Slot first, Slot second) {
+        long start() {
+            return Math.max(first.start(), second.start());
+        }
+
+        long end() {
+            return Math.min(first.end(), second.end());
+        }
+    }
+
+    /** Árboles de intervalos de una organización; inmutable una vez construido. */
+    static final class Index {
+        private final LocalDate from;
+        private final Lanes programs;
+        private final Lanes schedules;
+        private final Map<String, IntervalTree<Slot>> byResponsible;
+
+        private Index(LocalDate from, Lanes programs, Lanes schedules,
+                Map<String, IntervalTree<Slot>> byResponsible) {
+            this.from = from;
+            this.programs = programs;
+            this.schedules = schedules;
+            this.byResponsible = byResponsible;
+        }
+
+        static Index build(List<DistributionSchedule> schedules, List<DistributionProgram> programs,
+                LocalDate from) {
+            List<Slot> programSlots = new ArrayList<>();
+            for (DistributionProgram program : programs) {
+                Slot slot = programSlot(program);
+                if (slot != null) {
+                    programSlots.add(slot);
+                }
+            }
+            List<Slot> scheduleSlots = new ArrayList<>();
+            for (DistributionSchedule schedule : schedules) {
+                scheduleSlots.addAll(weeklySlots(schedule));
+            }
+            Map<String, List<Slot>> grouped = new HashMap<>();
+            for (Slot slot : programSlots) {
+                if (slot.responsibleUserId() != null) {
+                    grouped.computeIfAbsent(slot.responsibleUserId(), k -> new ArrayList<>()).add(slot);
+                }
+            }
+            Map<String, IntervalTree<Slot>> byResponsible = new HashMap<>();
+            grouped.forEach((userId, list) -> byResponsible.put(userId, tree(list)));
+            return new Index(from, Lanes.of(programSlots), Lanes.of(scheduleSlots), Map.copyOf(byResponsible));
+        }
+
+        // Los programas anteriores al inicio del índice no se validan
+        List<Conflict> conflictsOf(Slot candidate) {
+            if (candidate.end() <= from.toEpochDay() * MINUTES_PER_DAY) {
+                return List.of();
+            }
+            Map<String, Conflict> found = new LinkedHashMap<>();
+            for (Slot other : programs.overlapping(candidate)) {
+                found.putIfAbsent(ZONE + "|" + other.id(), new Conflict(ZONE, candidate, other));
+            }
+            IntervalTree<Slot> responsible = candidate.responsibleUserId() == null
+                    ? null : byResponsible.get(candidate.responsibleUserId());
+            if (responsible != null) {
+                for (Slot other : responsible.overlapping(candidate.start(), candidate.end())) {
+                    if (!other.id().equals(candidate.id())) {
+                        found.putIfAbsent(RESPONSIBLE + "|" + other.id(),
+                                new Conflict(RESPONSIBLE, candidate, other));
+                    }
+                }
+            }
+            return List.copyOf(found.values());
+        }
+
+        /**
+         * Barrido del lote por inicio: se admite cada programa que no se cruza con el índice ni con los ya
+         * admitidos que siguen abiertos en su zona o con su responsable. Se conserva el orden del lote.
+         */
+        List<DistributionProgram> admit(List<DistributionProgram> batch) {
+            List<Slot> slots = new ArrayList<>(batch.size());
+            List<Integer> order = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                slots.add(programSlot(batch.get(i)));
+                order.add(i);
+            }
+            order.sort(Comparator.comparing(slots::get, Comparator.nullsFirst(BY_START)));
+            Map<String, List<Slot>> openByZone = new HashMap<>();
+            Map<String, List<Slot>> openByResponsible = new HashMap<>();
+            boolean[] admitted = new boolean[batch.size()];
+            for (int i : order) {
+                Slot slot = slots.get(i);
+                if (slot == null) {
+                    admitted[i] = true;
+                    continue;
+                }
+                List<Slot> zoneOpen = open(openByZone, slot.zoneId(), slot.start());
+                List<Slot> responsibleOpen = slot.responsibleUserId() == null
+                        ? List.of() : open(openByResponsible, slot.responsibleUserId(), slot.start());
+                if (!responsibleOpen.isEmpty() || zoneOpen.stream().anyMatch(other -> sameStreet(other, slot))
+                        || !conflictsOf(slot).isEmpty()) {
+                    continue;
+                }
+                admitted[i] = true;
+                zoneOpen.add(slot);
+                if (slot.responsibleUserId() != null) {
+                    responsibleOpen.add(slot);
+                }
+            }
+            List<DistributionProgram> result = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (admitted[i]) {
+                    result.add(batch.get(i));
+                }
+            }
+            return result;
+        }
+
+        List<Conflict> conflictsOf(List<Slot> candidate) {
+            Map<String, Conflict> found = new LinkedHashMap<>();
+            for (Slot slot : candidate) {
+                for (Slot other : schedules.overlapping(slot)) {
+                    found.putIfAbsent(other.id(), new Conflict(ZONE, slot, other));
+                }
+            }
+            return List.copyOf(found.values());
+        }
+    }
+
+    /** Ventanas de una zona: todas, las de toda la zona y las de cada calle. */
+    private static final class Lanes {
+        private final Map<String, IntervalTree<Slot>> byZone;
+        private final Map<String, IntervalTree<Slot>> zoneWide;
+        private final Map<String, IntervalTree<Slot>> byStreet;
+
+        private Lanes(Map<String, IntervalTree<Slot>> byZone, Map<String, IntervalTree<Slot>> zoneWide,
+                Map<String, IntervalTree<Slot>> byStreet) {
+            this.byZone = byZone;
+            this.zoneWide = zoneWide;
+            this.byStreet = byStreet;
+        }
+
+        static Lanes of(List<Slot> slots) {
+            Map<String, List<Slot>> byZone = new HashMap<>();
+            Map<String, List<Slot>> zoneWide = new HashMap<>();
+            Map<String, List<Slot>> byStreet = new HashMap<>();
+            for (Slot slot : slots) {
+                byZone.computeIfAbsent(slot.zoneId(), k -> new ArrayList<>()).add(slot);
+                if (slot.streetId() == null) {
+                    zoneWide.computeIfAbsent(slot.zoneId(), k -> new ArrayList<>()).add(slot);
+                } else {
+                    byStreet.computeIfAbsent(slot.zoneId() + "|" + slot.streetId(), k -> new ArrayList<>())
+                            .add(slot);
+                }
+            }
+            return new Lanes(trees(byZone), trees(zoneWide), trees(byStreet));
+        }
+
+        private static Map<String, IntervalTree<Slot>> trees(Map<String, List<Slot>> grouped) {
+            Map<String, IntervalTree<Slot>> trees = new HashMap<>();
+            grouped.forEach((key, list) -> trees.put(key, tree(list)));
+            return Map.copyOf(trees);
+        }
+
+        // Con calle: las de esa calle y las de toda la zona; sin calle: todas las de la zona
+        List<Slot> overlapping(Slot candidate) {
+            List<Slot> found = new ArrayList<>();
+            if (candidate.streetId() == null) {
+                collect(byZone.get(candidate.zoneId()), candidate, found);
+            } else {
+                collect(byStreet.get(candidate.zoneId() + "|" + candidate.streetId()), candidate, found);
+                collect(zoneWide.get(candidate.zoneId()), candidate, found);
+            }
+            return found;
+        }
+
+        private static void collect(IntervalTree<Slot> tree, Slot candidate, List<Slot> found) {
+            if (tree == null) {
+                return;
+            }
+            for (Slot other : tree.overlapping(candidate.start(), candidate.end())) {
+                if (candidate.id() == null || !candidate.id().equals(other.id())) {
+                    found.add(other);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.msdistribution.application.services.ConflictService;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.ConflictReportResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+@Service
+public class ConflictServiceImpl implements ConflictService {
+
+    private final ConflictDetector detector;
+
+    @Value("${app.conflict-detection.max-report-days:366}")
+    private long maxReportDays = 366;
+
+    public ConflictServiceImpl(ConflictDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public Mono<ConflictReportResponse> getReport(String organizationId, LocalDate fromDate, LocalDate toDate) {
+        if (organizationId == null || organizationId.isBlank() || fromDate == null || toDate == null) {
+            return Mono.error(CustomException.badRequest("Invalid conflict report request",
+                    "organizationId, fromDate y toDate son obligatorios"));
+        }
+        long days = ChronoUnit.DAYS.between(fromDate, toDate) + 1;
+        if (days < 1 || days > maxReportDays) {
+            return Mono.error(CustomException.badRequest("Invalid date range",
+                    "toDate debe ser posterior a fromDate y el rango no puede superar " + maxReportDays + " días"));
+        }
+        return detector.report(organizationId, fromDate, toDate)
+                .map(conflicts -> ConflictReportResponse.builder()
+                        .organizationId(organizationId)
+                        .fromDate(fromDate)
+                        .toDate(toDate)
+                        .conflicts(conflicts.stream().map(ConflictServiceImpl::toResponse).toList())
+                        .build());
+    }
+
+    private static ConflictReportResponse.Conflict toResponse(ConflictDetector.Conflict conflict) {
+        ConflictDetector.Slot first = conflict.first();
+        ConflictDetector.Slot second = conflict.second();
+        return ConflictReportResponse.Conflict.builder()
+                .type(conflict.type())
+                .source(first.source())
+                .firstId(first.id())
+                .firstCode(first.code())
+                .secondId(second.id())
+                .secondCode(second.code())
+                .zoneId(first.zoneId())
+                .streetId(first.streetId() != null ? first.streetId() : second.streetId())
+                .responsibleUserId(first.responsibleUserId())
+                .startsAt(SupplyWindowIndex.timeOf(conflict.start()))
+                .endsAt(SupplyWindowIndex.timeOf(conflict.end()))
+                .build();
+    }
+}
@@ -0,0 +1,493 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores en memoria por (colección, organizationId, status) para el dashboard.
+ *
+ * Se siembran una sola vez con un $group por colección y luego se mantienen con un change stream
+ * sobre program, route, schedule y fare. Los conteos y el último resume token se guardan juntos en
+ * "dashboard_counters", así un reinicio retoma el stream desde el token sin recontar.
+ *
+ * Las actualizaciones y eliminaciones necesitan la imagen previa del documento
+ * (changeStreamPreAndPostImages); si no está disponible se recuenta solo esa colección. Mientras ese recuento
+ * está en curso los eventos se guardan y no se aplican; al terminar reemplaza los conteos y se aplican los
+ * eventos desde su inicio (al segundo, igual que resumeAt tras la siembra inicial), así el reemplazo no pisa
+ * los cambios concurrentes.
+ */
+@Component
+@Slf4j
+public class DashboardCounterRegistry {
+
+    static final String CHECKPOINT_COLLECTION = "dashboard_counters";
+    static final String UNKNOWN = "UNKNOWN";
+
+    private static final Set<String> COUNTED_FIELDS = Set.of("organizationId", "status");
+    // ChangeStreamHistoryLost / ChangeStreamFatalError: el token ya no está en el oplog
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(280, 286);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Map<String, CollectionCounters> counters = new LinkedHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @Value("${app.dashboard.counters.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.dashboard.counters.checkpoint-interval:10s}")
+    private Duration checkpointInterval = Duration.ofSeconds(10);
+
+    public DashboardCounterRegistry(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        for (Class<?> entityClass : List.of(DistributionProgram.class, DistributionRoute.class,
+                DistributionSchedule.class, Fare.class)) {
+            String collection = ChangeStreams.collectionOf(entityClass);
+            counters.put(collection, new CollectionCounters(collection));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Dashboard counters disabled, dashboard will query MongoDB");
+            return;
+        }
+        counters.values().forEach(c -> subscriptions.add(startCollection(c)));
+        subscriptions.add(Flux.interval(checkpointInterval, checkpointInterval)
+                .concatMap(tick -> Flux.fromIterable(counters.values()).concatMap(this::checkpoint))
+                .subscribe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    // ===============================
+    // LECTURA (sin acceso a MongoDB)
+    // ===============================
+
+    /** true cuando todas las colecciones están sembradas y su change stream está activo. */
+    public boolean isReady() {
+        return enabled && counters.values().stream().allMatch(CollectionCounters::isLive);
+    }
+
+    public long total(Class<?> entityClass) {
+        return count(entityClass, null, null);
+    }
+
+    /** Conteo filtrado; organizationId o status nulos actúan como comodín. */
+    public long count(Class<?> entityClass, String organizationId, String status) {
+        long total = 0;
+        for (Map.Entry<CounterKey, AtomicLong> entry : countersOf(entityClass).counts.entrySet()) {
+            if (matches(organizationId, entry.getKey().organizationId())
+                    && matches(status, entry.getKey().status())) {
+                total += entry.getValue().get();
+            }
+        }
+        return total;
+    }
+
+    public Map<String, Long> countByStatus(Class<?> entityClass, String organizationId) {
+        Map<String, Long> result = new TreeMap<>();
+        countersOf(entityClass).counts.forEach((key, value) -> {
+            if (matches(organizationId, key.organizationId()) && value.get() > 0) {
+                result.merge(key.status(), value.get(), Long::sum);
+            }
+        });
+        return result;
+    }
+
+    public Map<String, Map<String, Long>> countByOrganizationAndStatus(Class<?> entityClass, String organizationId) {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        countersOf(entityClass).counts.forEach((key, value) -> {
+            if (matches(organizationId, key.organizationId()) && value.get() > 0) {
+                result.computeIfAbsent(key.organizationId(), k -> new LinkedHashMap<>())
+                        .merge(key.status(), value.get(), Long::sum);
+            }
+        });
+        return result;
+    }
+
+    // ===============================
+    // SIEMBRA, CHANGE STREAM Y CHECKPOINT
+    // ===============================
+
+    private Disposable startCollection(CollectionCounters c) {
+        Flux<ChangeStreamEvent<Document>> stream = Mono.defer(() -> c.seeded
+                        ? Mono.<Void>empty()
+                        : enablePreImages(c.collection)
+                                .then(loadCheckpoint(c))
+                                .flatMap(restored -> restored ? Mono.<Void>empty() : seed(c)))
+                .thenMany(Flux.defer(() -> watch(c)))
+                .doOnNext(event -> applyEvent(c, event));
+        return ChangeStreams.keepWatching(stream, e -> {
+                    c.live.set(false);
+                    log.warn("Change stream on '{}' failed, dashboard falls back to MongoDB: {}",
+                            c.collection, e.getMessage());
+                }, e -> log.warn("Dashboard counters for '{}' disabled: {}", c.collection, e.getMessage()));
+    }
+
+    private Flux<ChangeStreamEvent<Document>> watch(CollectionCounters c) {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder options = ChangeStreamOptions.builder()
+                .fullDocumentBeforeChangeLookup(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        BsonValue token = c.resumeToken;
+        if (token != null) {
+            options.resumeAfter(token);
+        } else if (c.seededAt != null) {
+            options.resumeAt(c.seededAt);
+        }
+        return mongoTemplate.changeStream(null, c.collection, options.build(), Document.class)
+                .doOnSubscribe(s -> c.live.set(true))
+                .onErrorResume(e -> ChangeStreams.isErrorCode(e, HISTORY_LOST_CODES), e -> {
+                    log.warn("Resume token for '{}' expired, recounting", c.collection);
+                    c.resumeToken = null;
+                    return seed(c).thenMany(Flux.defer(() -> watch(c)));
+                });
+    }
+
+    private Mono<Void> enablePreImages(String collection) {
+        Document command = new Document("collMod", collection)
+                .append("changeStreamPreAndPostImages", new Document("enabled", true));
+        return mongoTemplate.executeCommand(command)
+                .doOnError(e -> log.warn("Could not enable pre-images on '{}', updates will trigger recounts: {}",
+                        collection, e.getMessage()))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    /** Recuenta la colección con un $group y reemplaza los contadores. */
+    Mono<Void> seed(CollectionCounters c) {
+        Instant startedAt = Instant.now();
+        return countGroups(c)
+                .doOnNext(seeded -> {
+                    c.replaceAll(seeded, startedAt);
+                    log.info("Dashboard counters for '{}' seeded ({} groups)", c.collection, seeded.size());
+                })
+                .then();
+    }
+
+    private Mono<Map<CounterKey, Long>> countGroups(CollectionCounters c) {
+        return mongoTemplate.aggregate(
+                        Aggregation.newAggregation(Aggregation.group("organizationId", "status").count().as("count")),
+                        c.collection, Document.class)
+                .collectList()
+                .map(groups -> {
+                    Map<CounterKey, Long> counted = new HashMap<>();
+                    for (Document group : groups) {
+                        Document id = group.get("_id", Document.class);
+                        CounterKey key = new CounterKey(
+                                keyOf(id != null ? id.get("organizationId") : null),
+                                keyOf(id != null ? id.get("status") : null));
+                        counted.merge(key, ((Number) group.get("count")).longValue(), Long::sum);
+                    }
+                    return counted;
+                });
+    }
+
+    /** Restaura conteos y resume token desde el último checkpoint; false si no existe. */
+    private Mono<Boolean> loadCheckpoint(CollectionCounters c) {
+        return mongoTemplate.findOne(new Query(Criteria.where("_id").is(c.collection)), Document.class,
+                        CHECKPOINT_COLLECTION)
+                .filter(doc -> doc.get("resumeToken") instanceof Document)
+                .map(doc -> {
+                    Map<CounterKey, Long> restored = new HashMap<>();
+                    for (Document entry : doc.getList("counts", Document.class, List.of())) {
+                        restored.put(new CounterKey(entry.getString("organizationId"), entry.getString("status")),
+                                ((Number) entry.get("count")).longValue());
+                    }
+                    c.replaceAll(restored, null);
+                    c.resumeToken = BsonDocument.parse(doc.get("resumeToken", Document.class).toJson());
+                    log.info("Dashboard counters for '{}' restored from checkpoint", c.collection);
+                    return true;
+                })
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Void> checkpoint(CollectionCounters c) {
+        Document snapshot = c.snapshotIfDirty();
+        if (snapshot == null) {
+            return Mono.empty();
+        }
+        return mongoTemplate.save(snapshot, CHECKPOINT_COLLECTION)
+                .doOnError(e -> {
+                    c.dirty.set(true);
+                    log.warn("Could not checkpoint dashboard counters for '{}': {}", c.collection, e.getMessage());
+                })
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    // ===============================
+    // APLICACIÓN DE EVENTOS
+    // ===============================
+
+    private void applyEvent(CollectionCounters c, ChangeStreamEvent<Document> event) {
+        ChangeStreamDocument<Document> raw = event.getRaw();
+        if (raw == null) {
+            return;
+        }
+        applyChange(c.collection, raw.getOperationType(), raw.getFullDocumentBeforeChange(), raw.getFullDocument(),
+                raw.getUpdateDescription(), event.getResumeToken(), event.getTimestamp());
+    }
+
+    /**
+     * Aplica un cambio a los contadores de la colección, o lo guarda si hay un recuento en curso.
+     * clusterTime es el instante del cambio en el servidor. Visible para pruebas.
+     */
+    void applyChange(String collection, OperationType operation, Document before, Document after,
+            UpdateDescription update, BsonValue resumeToken, Instant clusterTime) {
+        CollectionCounters c = counters.get(collection);
+        Change change = new Change(operation, before, after, update, resumeToken, clusterTime);
+        boolean recount;
+        synchronized (c) {
+            if (c.pending != null) {
+                c.pending.add(change);
+                return;
+            }
+            recount = apply(c, change);
+        }
+        if (recount) {
+            requestRecount(c);
+        }
+    }
+
+    // Con el candado de c; true si el cambio no se puede aplicar sin recontar
+    private boolean apply(CollectionCounters c, Change change) {
+        Document before = change.before();
+        boolean recount = false;
+        switch (change.operation()) {
+            case INSERT -> c.add(keyOf(change.after()), 1);
+            case REPLACE -> {
+                if (before == null) {
+                    recount = true;
+                } else {
+                    c.add(keyOf(before), -1);
+                    c.add(keyOf(change.after()), 1);
+                }
+            }
+            case UPDATE -> {
+                if (touchesCountedFields(change.update())) {
+                    if (before == null) {
+                        recount = true;
+                    } else {
+                        c.add(keyOf(before), -1);
+                        c.add(keyOf(overlay(before, change.update())), 1);
+                    }
+                }
+            }
+            case DELETE -> {
+                if (before == null) {
+                    recount = true;
+                } else {
+                    c.add(keyOf(before), -1);
+                }
+            }
+            default -> recount = true;
+        }
+        advance(c, change);
+        return recount;
+    }
+
+    private static void advance(CollectionCounters c, Change change) {
+        if (change.resumeToken() != null) {
+            c.resumeToken = change.resumeToken();
+        }
+        c.dirty.set(true);
+    }
+
+    // Los eventos que llegan mientras tanto quedan en pending; el resume token no avanza hasta aplicarlos
+    private void requestRecount(CollectionCounters c) {
+        synchronized (c) {
+            if (c.pending != null) {
+                return;
+            }
+            c.pending = new ArrayList<>();
+        }
+        Instant startedAt = Instant.now();
+        countGroups(c).subscribe(counted -> finishRecount(c, counted, startedAt), e -> {
+            log.warn("Recount of '{}' failed: {}", c.collection, e.getMessage());
+            finishRecount(c, null, startedAt);
+        });
+    }
+
+    /**
+     * Reemplaza los conteos por el recuento (null si falló) y aplica los eventos guardados: con recuento,
+     * solo los del segundo de inicio en adelante, que el $group puede no haber visto; sin él, todos.
+     */
+    private void finishRecount(CollectionCounters c, Map<CounterKey, Long> counted, Instant startedAt) {
+        Instant replayFrom = startedAt.truncatedTo(ChronoUnit.SECONDS);
+        boolean recount = false;
+        synchronized (c) {
+            List<Change> pending = c.pending;
+            c.pending = null;
+            if (counted != null) {
+                c.replaceAll(counted, startedAt);
+                log.info("Dashboard counters for '{}' recounted ({} groups, {} changes replayed)", c.collection,
+                        counted.size(), pending.stream().filter(change -> replays(change, replayFrom)).count());
+            }
+            for (Change change : pending) {
+                if (counted == null || replays(change, replayFrom)) {
+                    recount |= apply(c, change);
+                } else {
+                    advance(c, change);
+                }
+            }
+        }
+        if (recount) {
+            requestRecount(c);
+        }
+    }
+
+    private static boolean replays(Change change, Instant replayFrom) {
+        return change.clusterTime() == null || !change.clusterTime().isBefore(replayFrom);
+    }
+
+    private boolean touchesCountedFields(UpdateDescription update) {
+        if (update == null) {
+            return true;
+        }
+        if (update.getUpdatedFields() != null
+                && update.getUpdatedFields().keySet().stream().anyMatch(COUNTED_FIELDS::contains)) {
+            return true;
+        }
+        return update.getRemovedFields() != null
+                && update.getRemovedFields().stream().anyMatch(COUNTED_FIELDS::contains);
+    }
+
+    private Document overlay(Document before, UpdateDescription update) {
+        Document after = new Document();
+        for (String field : COUNTED_FIELDS) {
+            Object value = before.get(field);
+            if (update.getRemovedFields() != null && update.getRemovedFields().contains(field)) {
+                value = null;
+            }
+            BsonDocument updated = update.getUpdatedFields();
+            if (updated != null && updated.containsKey(field)) {
+                BsonValue bson = updated.get(field);
+                value = bson.isString() ? bson.asString().getValue() : null;
+            }
+            after.put(field, value);
+        }
+        return after;
+    }
+
+    // ===============================
+    // AUXILIARES
+    // ===============================
+
+    private CollectionCounters countersOf(Class<?> entityClass) {
+        return counters.get(ChangeStreams.collectionOf(entityClass));
+    }
+
+    private static CounterKey keyOf(Document document) {
+        return new CounterKey(keyOf(document != null ? document.get("organizationId") : null),
+                keyOf(document != null ? document.get("status") : null));
+    }
+
+    private static String keyOf(Object value) {
+        return value != null ? value.toString() : UNKNOWN;
+    }
+
+    private static boolean matches(String filter, String value) {
+        return filter == null || filter.equals(value);
+    }
+
+    record CounterKey(String organizationId, String status) {
+    }
+
+    private record Change(OperationType operation, Document before, Document after, UpdateDescription update,
+            BsonValue resumeToken, Instant clusterTime) {
+    }
+
+    static final class CollectionCounters {
+        final String collection;
+        final Map<CounterKey, AtomicLong> counts = new ConcurrentHashMap<>();
+        final AtomicBoolean live = new AtomicBoolean(false);
+        final AtomicBoolean dirty = new AtomicBoolean(false);
+        // Eventos recibidos durante un recuento; null si no hay uno en curso. Con el candado de la instancia
+        List<Change> pending;
+        volatile BsonValue resumeToken;
+        volatile Instant seededAt;
+        volatile boolean seeded;
+
+        CollectionCounters(String collection) {
+            this.collection = collection;
+        }
+
+        boolean isLive() {
+            return seeded && live.get();
+        }
+
+        void add(CounterKey key, long delta) {
+            counts.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+        }
+
+        synchronized void replaceAll(Map<CounterKey, Long> values, Instant seededAt) {
+            counts.clear();
+            values.forEach((key, value) -> counts.put(key, new AtomicLong(value)));
+            this.seededAt = seededAt;
+            this.seeded = true;
+            dirty.set(true);
+        }
+
+        /** Conteos y resume token tomados bajo el mismo candado para que el checkpoint sea consistente. */
+        synchronized Document snapshotIfDirty() {
+            if (resumeToken == null || !dirty.compareAndSet(true, false)) {
+                return null;
+            }
+            List<Document> entries = new ArrayList<>();
+            counts.forEach((key, value) -> {
+                if (value.get() != 0) {
+                    entries.add(new Document("organizationId", key.organizationId())
+                            .append("status", key.status())
+                            .append("count", value.get()));
+                }
+            });
+            return new Document("_id", collection)
+                    .append("resumeToken", Document.parse(resumeToken.asDocument().toJson()))
+                    .append("counts", entries)
+                    .append("updatedAt", new Date());
+        }
+    }
+}
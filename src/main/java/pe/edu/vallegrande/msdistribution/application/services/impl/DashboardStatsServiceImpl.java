@@ -0,0 +1,205 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.msdistribution.application.services.DashboardStatsService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.DashboardStatsResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.DashboardSummaryResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardStatsServiceImpl implements DashboardStatsService {
+
+    // Estados conocidos de un programa; siempre se reportan aunque su conteo sea 0
+    static final List<String> PROGRAM_STATUSES = List.of("PLANNED", "IN_PROGRESS", "ACTIVE", "INACTIVE");
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DashboardCounterRegistry counterRegistry;
+
+    // true: estimatedDocumentCount (metadatos de la colección, O(1))
+    // false: countDocuments (conteo exacto, resuelto en el servidor)
+    @Value("${app.dashboard.estimated-counts:true}")
+    private boolean estimatedCounts = true;
+
+    @Override
+    public Mono<DashboardStatsResponse> getDashboardStats() {
+        if (counterRegistry.isReady()) {
+            // Servido desde memoria: cero consultas a MongoDB
+            return Mono.just(DashboardStatsResponse.builder()
+                    .totalPrograms(counterRegistry.total(DistributionProgram.class))
+                    .totalRoutes(counterRegistry.total(DistributionRoute.class))
+                    .totalSchedules(counterRegistry.total(DistributionSchedule.class))
+                    .totalFares(counterRegistry.total(Fare.class))
+                    .lastUpdated(LocalDateTime.now())
+                    .systemStatus(Constants.ACTIVE.name())
+                    .build());
+        }
+        return Mono.zip(
+                        count(DistributionProgram.class),
+                        count(DistributionRoute.class),
+                        count(DistributionSchedule.class),
+                        count(Fare.class))
+                .map(tuple -> DashboardStatsResponse.builder()
+                        .totalPrograms(tuple.getT1())
+                        .totalRoutes(tuple.getT2())
+                        .totalSchedules(tuple.getT3())
+                        .totalFares(tuple.getT4())
+                        .lastUpdated(LocalDateTime.now())
+                        .systemStatus(Constants.ACTIVE.name())
+                        .build());
+    }
+
+    @Override
+    public Mono<DashboardSummaryResponse> getSystemSummary(String organizationId, boolean byOrganization,
+            boolean byMonth) {
+        // El desglose mensual no está en los contadores; solo ese caso consulta MongoDB
+        if (!byMonth && counterRegistry.isReady()) {
+            return Mono.just(summaryFromCounters(organizationId, byOrganization));
+        }
+        Query activeQuery = new Query(Criteria.where("status").is(Constants.ACTIVE.name()));
+
+        return Mono.zip(
+                        aggregateProgramStatus(organizationId, byOrganization, byMonth),
+                        mongoTemplate.count(activeQuery, DistributionRoute.class),
+                        mongoTemplate.count(activeQuery, DistributionSchedule.class))
+                .map(tuple -> DashboardSummaryResponse.builder()
+                        .programs(tuple.getT1())
+                        .infrastructure(DashboardSummaryResponse.InfrastructureSummary.builder()
+                                .activeRoutes(tuple.getT2())
+                                .activeSchedules(tuple.getT3())
+                                .build())
+                        .timestamp(LocalDateTime.now())
+                        .build());
+    }
+
+    /**
+     * Una sola agregación sobre "program": $match opcional por organización y un $facet
+     * con los $group solicitados. Solo viajan los conteos, nunca los documentos.
+     */
+    private Mono<DashboardSummaryResponse.ProgramSummary> aggregateProgramStatus(String organizationId,
+            boolean byOrganization, boolean byMonth) {
+        FacetOperation facet = Aggregation.facet(Aggregation.group("status").count().as("count")).as("byStatus");
+        if (byOrganization) {
+            facet = facet.and(Aggregation.group("organizationId", "status").count().as("count"))
+                    .as("byOrganization");
+        }
+        if (byMonth) {
+            facet = facet.and(
+                    Aggregation.project("status")
+                            .and(DateOperators.DateToString.dateOf("programDate").toString("%Y-%m"))
+                            .as("month"),
+                    Aggregation.group("month", "status").count().as("count"))
+                    .as("byMonth");
+        }
+
+        List<AggregationOperation> operations = new ArrayList<>();
+        if (organizationId != null && !organizationId.isBlank()) {
+            operations.add(Aggregation.match(Criteria.where("organizationId").is(organizationId)));
+        }
+        operations.add(facet);
+
+        return mongoTemplate.aggregate(Aggregation.newAggregation(operations), DistributionProgram.class,
+                        Document.class)
+                .next()
+                .defaultIfEmpty(new Document())
+                .map(result -> toProgramSummary(result, byOrganization, byMonth));
+    }
+
+    private DashboardSummaryResponse summaryFromCounters(String organizationId, boolean byOrganization) {
+        String orgFilter = organizationId != null && !organizationId.isBlank() ? organizationId : null;
+        return DashboardSummaryResponse.builder()
+                .programs(buildProgramSummary(
+                        counterRegistry.countByStatus(DistributionProgram.class, orgFilter),
+                        byOrganization
+                                ? counterRegistry.countByOrganizationAndStatus(DistributionProgram.class, orgFilter)
+                                : null,
+                        null))
+                .infrastructure(DashboardSummaryResponse.InfrastructureSummary.builder()
+                        .activeRoutes(counterRegistry.count(DistributionRoute.class, null, Constants.ACTIVE.name()))
+                        .activeSchedules(
+                                counterRegistry.count(DistributionSchedule.class, null, Constants.ACTIVE.name()))
+                        .build())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private DashboardSummaryResponse.ProgramSummary toProgramSummary(Document result, boolean byOrganization,
+            boolean byMonth) {
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        for (Document bucket : buckets(result, "byStatus")) {
+            statusCounts.merge(keyOf(bucket.get("_id")), ((Number) bucket.get("count")).longValue(), Long::sum);
+        }
+        return buildProgramSummary(statusCounts,
+                byOrganization ? nestedCounts(result, "byOrganization", "organizationId") : null,
+                byMonth ? nestedCounts(result, "byMonth", "month") : null);
+    }
+
+    private DashboardSummaryResponse.ProgramSummary buildProgramSummary(Map<String, Long> statusCounts,
+            Map<String, Map<String, Long>> byOrganization, Map<String, Map<String, Long>> byMonth) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        PROGRAM_STATUSES.forEach(status -> byStatus.put(status, 0L));
+        statusCounts.forEach((status, count) -> byStatus.merge(status, count, Long::sum));
+        long total = byStatus.values().stream().mapToLong(Long::longValue).sum();
+
+        return DashboardSummaryResponse.ProgramSummary.builder()
+                .total(total)
+                .active(byStatus.get("ACTIVE"))
+                .planned(byStatus.get("PLANNED"))
+                .byStatus(byStatus)
+                .byOrganization(byOrganization)
+                .byMonth(byMonth)
+                .build();
+    }
+
+    private Map<String, Map<String, Long>> nestedCounts(Document result, String facetName, String groupField) {
+        Map<String, Map<String, Long>> counts = new TreeMap<>();
+        for (Document bucket : buckets(result, facetName)) {
+            Document id = bucket.get("_id", Document.class);
+            String group = keyOf(id != null ? id.get(groupField) : null);
+            String status = keyOf(id != null ? id.get("status") : null);
+            counts.computeIfAbsent(group, k -> new LinkedHashMap<>())
+                    .merge(status, ((Number) bucket.get("count")).longValue(), Long::sum);
+        }
+        return counts;
+    }
+
+    private List<Document> buckets(Document result, String facetName) {
+        return result.getList(facetName, Document.class, List.of());
+    }
+
+    private String keyOf(Object value) {
+        return value != null ? value.toString() : UNKNOWN;
+    }
+
+    private Mono<Long> count(Class<?> entityClass) {
+        return estimatedCounts
+                ? mongoTemplate.estimatedCount(entityClass)
+                : mongoTemplate.count(new Query(), entityClass);
+    }
+}
@@ -2,19 +2,31 @@ package pe.edu.vallegrande.msdistribution.application.services.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionProgramService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionProgramCreateRequest;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.ProgramGenerationRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.DistributionProgramResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.ProgramGenerationResponse;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.EnrichedDistributionProgramResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
 import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionProgramRepository;
+import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionScheduleRepository;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.stereotype.Service;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,19 +34,53 @@ import java.time.Instant;
 public class DistributionProgramServiceImpl implements DistributionProgramService {
 
     private final DistributionProgramRepository repository;
+    private final CodeSequenceService codeSequenceService;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CollectionVersionService collectionVersions;
+    private final EntityCache entityCache;
+    private final ExternalReferenceEnricher enricher;
+    private final DistributionScheduleRepository scheduleRepository;
+    private final ProgramMaterializer materializer;
+    private final ConflictDetector conflictDetector;
+
+    @Value("${app.program-generation.max-days:366}")
+    private long maxGenerationDays = 366;
     
     private static final String PROGRAM_PREFIX = "PRG";
+    private static final ExternalReferenceEnricher.Binding<EnrichedDistributionProgramResponse> ENRICHMENT =
+            ExternalReferenceEnricher.<EnrichedDistributionProgramResponse>binding()
+                    .organization(EnrichedDistributionProgramResponse::getOrganizationId,
+                            EnrichedDistributionProgramResponse::setOrganization)
+                    .user(EnrichedDistributionProgramResponse::getResponsibleUserId,
+                            EnrichedDistributionProgramResponse::setResponsibleUser)
+                    .zone(EnrichedDistributionProgramResponse::getZoneId,
+                            EnrichedDistributionProgramResponse::setZone);
 
     @Override
     public Flux<DistributionProgramResponse> getAll() {
         return repository.findAll()
                 .map(this::toResponse);
     }
+
+    @Override
+    public Flux<DistributionProgramResponse> getPage(String afterId, int limit) {
+        return (afterId == null
+                ? repository.findAllByOrderByIdAsc(Limit.of(limit))
+                : repository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)))
+                .map(this::toResponse);
+    }
+
+    @Override
+    public Flux<DistributionProgramResponse> getFields(Set<String> fields, String afterId, Integer limit) {
+        return mongoTemplate.find(ProjectionQueries.of(fields, afterId, limit), DistributionProgram.class)
+                .map(this::toResponse);
+    }
     
     @Override
     public Flux<EnrichedDistributionProgramResponse> getAllEnriched() {
         return repository.findAll()
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
@@ -42,6 +88,34 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
         return repository.findByOrganizationId(organizationId)
                 .map(this::toResponse);
     }
+
+    @Override
+    public Mono<ProgramGenerationResponse> generate(ProgramGenerationRequest request) {
+        if (request.getOrganizationId() == null || request.getOrganizationId().isBlank()
+                || request.getFromDate() == null || request.getToDate() == null) {
+            return Mono.error(CustomException.badRequest("Invalid generation request",
+                    "organizationId, fromDate y toDate son obligatorios"));
+        }
+        long days = ChronoUnit.DAYS.between(request.getFromDate(), request.getToDate()) + 1;
+        if (days < 1 || days > maxGenerationDays) {
+            return Mono.error(CustomException.badRequest("Invalid date range",
+                    "toDate debe ser posterior a fromDate y el rango no puede superar " + maxGenerationDays + " días"));
+        }
+        return scheduleRepository.findAllByOrganizationIdAndStatus(request.getOrganizationId(), Constants.ACTIVE.name())
+                .collectList()
+                .flatMap(schedules -> materializer.materialize(request.getOrganizationId(), schedules,
+                                request.getFromDate(), request.getToDate(),
+                                request.getRouteId(), request.getResponsibleUserId())
+                        .map(result -> ProgramGenerationResponse.builder()
+                                .organizationId(request.getOrganizationId())
+                                .fromDate(request.getFromDate())
+                                .toDate(request.getToDate())
+                                .schedules(schedules.size())
+                                .created(result.created())
+                                .skipped(result.skipped())
+                                .conflicts(result.conflicts())
+                                .build()));
+    }
     
     // Método auxiliar para obtener todos los programas activos (no eliminados)
     public Flux<DistributionProgramResponse> getAllActive() {
@@ -57,13 +131,13 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
 
     @Override
     public Mono<DistributionProgramResponse> getById(String id) {
-        return repository.findById(id)
+        return entityCache.findById(DistributionProgram.class, id, repository::findById)
                 .map(this::toResponse);
     }
 
     @Override
     public Mono<DistributionProgramResponse> save(DistributionProgramCreateRequest request) {
-        return generateNextProgramCode()
+        return codeSequenceService.nextCode(PROGRAM_PREFIX)
                 .flatMap(generatedCode -> {
                     DistributionProgram program = DistributionProgram.builder()
                             .organizationId(request.getOrganizationId())
@@ -83,7 +157,7 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
                             .createdAt(Instant.now())
                             .build();
 
-                    return repository.save(program)
+                    return persist(program, null)
                             .map(this::toResponse);
                 });
     }
@@ -92,6 +166,7 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
     public Mono<DistributionProgramResponse> update(String id, DistributionProgramCreateRequest request) {
         return repository.findById(id)
                 .flatMap(existing -> {
+                    String previousOrganizationId = existing.getOrganizationId();
                     existing.setOrganizationId(request.getOrganizationId());
                     // No actualizar programCode ya que se genera automáticamente
                     existing.setScheduleId(request.getScheduleId());
@@ -104,14 +179,18 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
                     existing.setResponsibleUserId(request.getResponsibleUserId());
                     existing.setObservations(request.getObservations());
                     
-                    return repository.save(existing);
+                    return persist(existing, previousOrganizationId);
                 })
                 .map(this::toResponse);
     }
 
     @Override
     public Mono<Void> delete(String id) {
-        return repository.deleteById(id);
+        return repository.deleteById(id)
+                .then(Mono.fromRunnable(() -> {
+                    entityCache.invalidate(DistributionProgram.class, id);
+                    collectionVersions.bump(DistributionProgram.class, null);
+                }));
     }
 
     @Override
@@ -119,7 +198,7 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
         return repository.findById(id)
                 .flatMap(program -> {
                     program.setStatus("ACTIVE");
-                    return repository.save(program);
+                    return persist(program, null);
                 })
                 .map(this::toResponse);
     }
@@ -129,14 +208,35 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
         return repository.findById(id)
                 .flatMap(program -> {
                     program.setStatus("INACTIVE");
-                    return repository.save(program);
+                    return persist(program, null);
                 })
                 .map(this::toResponse);
     }
 
     @Override
     public Mono<Void> physicalDelete(String id) {
-        return repository.deleteById(id);
+        return repository.deleteById(id)
+                .then(Mono.fromRunnable(() -> {
+                    entityCache.invalidate(DistributionProgram.class, id);
+                    collectionVersions.bump(DistributionProgram.class, null);
+                }));
+    }
+
+    /**
+     * Rechaza con 409 si se cruza con otro programa (zona/calle o responsable); si no, guarda, invalida la
+     * caché por id y sube la versión usada en los ETag; previousOrganizationId (si cambió) también se
+     * invalida.
+     */
+    private Mono<DistributionProgram> persist(DistributionProgram program, String previousOrganizationId) {
+        return conflictDetector.verify(program)
+                .then(Mono.defer(() -> repository.save(program)))
+                .doOnNext(saved -> {
+                    entityCache.invalidate(DistributionProgram.class, saved.getId());
+                    if (previousOrganizationId != null && !previousOrganizationId.equals(saved.getOrganizationId())) {
+                        collectionVersions.bump(DistributionProgram.class, previousOrganizationId);
+                    }
+                    collectionVersions.bump(DistributionProgram.class, saved.getOrganizationId());
+                });
     }
 
     private DistributionProgramResponse toResponse(DistributionProgram program) {
@@ -164,13 +264,14 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
     
     @Override
     public Mono<EnrichedDistributionProgramResponse> getEnrichedById(String id) {
-        return repository.findById(id)
-                .map(this::toEnrichedResponse);
+        return entityCache.findById(DistributionProgram.class, id, repository::findById)
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Mono<EnrichedDistributionProgramResponse> saveAndEnrich(DistributionProgramCreateRequest request) {
-        return generateNextProgramCode()
+        return codeSequenceService.nextCode(PROGRAM_PREFIX)
                 .flatMap(generatedCode -> {
                     DistributionProgram program = DistributionProgram.builder()
                             .organizationId(request.getOrganizationId())
@@ -190,8 +291,9 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
                             .createdAt(Instant.now())
                             .build();
 
-                    return repository.save(program)
-                            .map(this::toEnrichedResponse);
+                    return persist(program, null)
+                            .map(this::toEnrichedResponse)
+                            .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
                 });
     }
     
@@ -215,17 +317,4 @@ public class DistributionProgramServiceImpl implements DistributionProgramServic
                 .createdAt(program.getCreatedAt())
                 .build();
     }
-    
-    private Mono<String> generateNextProgramCode() {
-        return repository.findTopByOrderByProgramCodeDesc()
-                .map(last -> {
-                    String lastCode = last.getProgramCode();
-                    int number = 0;
-                    try {
-                        number = Integer.parseInt(lastCode.replace(PROGRAM_PREFIX, ""));
-                    } catch (NumberFormatException ignored) {}
-                    return String.format(PROGRAM_PREFIX + "%03d", number + 1);
-                })
-                .defaultIfEmpty(PROGRAM_PREFIX + "001");
-    }
 }
\ No newline at end of file
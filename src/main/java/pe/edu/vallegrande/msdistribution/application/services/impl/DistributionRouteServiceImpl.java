@@ -2,9 +2,13 @@ package pe.edu.vallegrande.msdistribution.application.services.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionRouteService;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
@@ -17,6 +21,8 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -25,14 +31,70 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
     @Autowired
     private DistributionRouteRepository repository;
 
+    @Autowired
+    private CodeSequenceService codeSequenceService;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CollectionVersionService collectionVersions;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    @Autowired
+    private ExternalReferenceEnricher enricher;
+
+    private static final ExternalReferenceEnricher.Binding<EnrichedDistributionRouteResponse> ENRICHMENT =
+            ExternalReferenceEnricher.<EnrichedDistributionRouteResponse>binding()
+                    .organization(EnrichedDistributionRouteResponse::getOrganizationId,
+                            EnrichedDistributionRouteResponse::setOrganization)
+                    .user(EnrichedDistributionRouteResponse::getResponsibleUserId,
+                            EnrichedDistributionRouteResponse::setResponsibleUser)
+                    .zone(EnrichedDistributionRouteResponse::getZoneId,
+                            EnrichedDistributionRouteResponse::setZone);
+
     @Override
     public Flux<DistributionRoute> getAll() {
         return repository.findAll();
     }
 
+    @Override
+    public Flux<DistributionRoute> getPage(String afterId, int limit) {
+        return afterId == null
+                ? repository.findAllByOrderByIdAsc(Limit.of(limit))
+                : repository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    @Override
+    public Flux<DistributionRoute> getFields(Set<String> fields, String afterId, Integer limit) {
+        // zoneId de la respuesta se obtiene de la primera zona de la lista
+        List<String> projected = fields.stream()
+                .map(field -> "zoneId".equals(field) ? "zones" : field)
+                .distinct()
+                .toList();
+        return mongoTemplate.find(ProjectionQueries.of(projected, afterId, limit), DistributionRoute.class);
+    }
+
     @Override
     public Flux<DistributionRoute> getAllActive() {
-        return repository.findAllByStatus(Constants.ACTIVE.name());
+        // Servido desde la copia en memoria mientras se mantiene; si no, desde MongoDB
+        ActiveReferenceSnapshot.Snapshot<DistributionRoute> snapshot = activeSnapshot.routes();
+        return snapshot != null
+                ? Flux.fromIterable(snapshot.all())
+                : repository.findAllByStatus(Constants.ACTIVE.name());
+    }
+
+    @Override
+    public Flux<DistributionRoute> getAllActiveByOrganization(String organizationId) {
+        ActiveReferenceSnapshot.Snapshot<DistributionRoute> snapshot = activeSnapshot.routes();
+        return snapshot != null
+                ? Flux.fromIterable(snapshot.forOrganization(organizationId))
+                : repository.findAllByOrganizationIdAndStatus(organizationId, Constants.ACTIVE.name());
     }
 
     @Override
@@ -42,7 +104,7 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
 
     @Override
     public Mono<DistributionRoute> getById(String id) {
-        return repository.findById(id)
+        return entityCache.findById(DistributionRoute.class, id, repository::findById)
                 .switchIfEmpty(Mono.error(new CustomException(
                         HttpStatus.NOT_FOUND.value(),
                         "Route not found",
@@ -51,93 +113,70 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
 
     @Override
     public Mono<DistributionRouteResponse> save(DistributionRouteCreateRequest request) {
-        return generateNextRouteCode()
-                .flatMap(generatedCode ->
-                        repository.existsByRouteCode(generatedCode)
-                                .flatMap(exists -> {
-                                    if (exists) {
-                                        return Mono.error(new CustomException(
-                                                HttpStatus.BAD_REQUEST.value(),
-                                                "Route code already exists",
-                                                "Route code " + generatedCode + " already exists"));
-                                    }
-
-                                    // Convertir las zonas del DTO al modelo
-                                    java.util.List<DistributionRoute.ZoneOrder> zoneOrders = 
-                                        java.util.Collections.emptyList();
-                                    if (request.getZones() != null) {
-                                        zoneOrders = request.getZones().stream()
-                                            .map(zone -> new DistributionRoute.ZoneOrder(
-                                                zone.getZoneId(),
-                                                zone.getOrder() != null ? zone.getOrder() : 0,
-                                                zone.getEstimatedDuration() != null ? zone.getEstimatedDuration() : 0))
-                                            .collect(java.util.stream.Collectors.toList());
-                                    }
+        return codeSequenceService.nextCode(ROUTE_PREFIX)
+                .flatMap(generatedCode -> {
+                    // Convertir las zonas del DTO al modelo
+                    java.util.List<DistributionRoute.ZoneOrder> zoneOrders = 
+                        java.util.Collections.emptyList();
+                    if (request.getZones() != null) {
+                        zoneOrders = request.getZones().stream()
+                            .map(zone -> new DistributionRoute.ZoneOrder(
+                                zone.getZoneId(),
+                                zone.getOrder() != null ? zone.getOrder() : 0,
+                                zone.getEstimatedDuration() != null ? zone.getEstimatedDuration() : 0))
+                            .collect(java.util.stream.Collectors.toList());
+                    }
 
-                                    DistributionRoute route = DistributionRoute.builder()
-                                            .organizationId(request.getOrganizationId())
-                                            .routeCode(generatedCode)
-                                            .routeName(request.getRouteName())
-                                            .zones(zoneOrders)
-                                            .totalEstimatedDuration(request.getTotalEstimatedDuration() != null ? 
-                                                request.getTotalEstimatedDuration() : 0)
-                                            .responsibleUserId(request.getResponsibleUserId())
-                                            .status(Constants.ACTIVE.name())
-                                            .createdAt(Instant.now())
-                                            .build();
+                    DistributionRoute route = DistributionRoute.builder()
+                            .organizationId(request.getOrganizationId())
+                            .routeCode(generatedCode)
+                            .routeName(request.getRouteName())
+                            .zones(zoneOrders)
+                            .totalEstimatedDuration(request.getTotalEstimatedDuration() != null ? 
+                                request.getTotalEstimatedDuration() : 0)
+                            .responsibleUserId(request.getResponsibleUserId())
+                            .status(Constants.ACTIVE.name())
+                            .createdAt(Instant.now())
+                            .build();
 
-                                    return repository.save(route)
-                                            .map(saved -> {
-                                                // Convertir las zonas para la respuesta
-                                                String firstZoneId = null;
-                                                java.util.List<DistributionRouteResponse.ZoneDetail> zoneDetails = 
-                                                    java.util.Collections.emptyList();
-                                                    
-                                                if (saved.getZones() != null && !saved.getZones().isEmpty()) {
-                                                    // Primer zoneId para compatibilidad
-                                                    firstZoneId = saved.getZones().get(0).getZoneId();
-                                                    
-                                                    // Lista completa de zonas
-                                                    zoneDetails = saved.getZones().stream()
-                                                        .map(zone -> new DistributionRouteResponse.ZoneDetail(
-                                                            zone.getZoneId(),
-                                                            zone.getOrder(),
-                                                            zone.getEstimatedDuration()))
-                                                        .collect(java.util.stream.Collectors.toList());
-                                                }
-                                                
-                                                return DistributionRouteResponse.builder()
-                                                        .id(saved.getId())
-                                                        .organizationId(saved.getOrganizationId())
-                                                        .routeCode(saved.getRouteCode())
-                                                        .routeName(saved.getRouteName())
-                                                        .zoneId(firstZoneId)
-                                                        .zones(zoneDetails)
-                                                        .totalEstimatedDuration(saved.getTotalEstimatedDuration())
-                                                        .responsibleUserId(saved.getResponsibleUserId())
-                                                        .status(saved.getStatus())
-                                                        .createdAt(saved.getCreatedAt())
-                                                        .build();
-                                            });
-                                })
-                );
+                    return persist(route, null)
+                            .map(saved -> {
+                                // Convertir las zonas para la respuesta
+                                String firstZoneId = null;
+                                java.util.List<DistributionRouteResponse.ZoneDetail> zoneDetails = 
+                                    java.util.Collections.emptyList();
+                                    
+                                if (saved.getZones() != null && !saved.getZones().isEmpty()) {
+                                    // Primer zoneId para compatibilidad
+                                    firstZoneId = saved.getZones().get(0).getZoneId();
+                                    
+                                    // Lista completa de zonas
+                                    zoneDetails = saved.getZones().stream()
+                                        .map(zone -> new DistributionRouteResponse.ZoneDetail(
+                                            zone.getZoneId(),
+                                            zone.getOrder(),
+                                            zone.getEstimatedDuration()))
+                                        .collect(java.util.stream.Collectors.toList());
+                                }
+                                
+                                return DistributionRouteResponse.builder()
+                                        .id(saved.getId())
+                                        .organizationId(saved.getOrganizationId())
+                                        .routeCode(saved.getRouteCode())
+                                        .routeName(saved.getRouteName())
+                                        .zoneId(firstZoneId)
+                                        .zones(zoneDetails)
+                                        .totalEstimatedDuration(saved.getTotalEstimatedDuration())
+                                        .responsibleUserId(saved.getResponsibleUserId())
+                                        .status(saved.getStatus())
+                                        .createdAt(saved.getCreatedAt())
+                                        .build();
+                            });
+                });
     }
 
     private static final String ROUTE_PREFIX = "RUT";
 
-    private Mono<String> generateNextRouteCode() {
-        return repository.findTopByOrderByRouteCodeDesc()
-                .map(last -> {
-                    String lastCode = last.getRouteCode();
-                    int number = 0;
-                    try {
-                        number = Integer.parseInt(lastCode.replace(ROUTE_PREFIX, ""));
-                    } catch (NumberFormatException ignored) {}
-                    return String.format(ROUTE_PREFIX + "%03d", number + 1);
-                })
-                .defaultIfEmpty(ROUTE_PREFIX + "001");
-    }
-
     @Override
     public Mono<DistributionRoute> update(String id, DistributionRoute route) {
         return repository.findById(id)
@@ -150,7 +189,7 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
                     existing.setZones(route.getZones());
                     existing.setTotalEstimatedDuration(route.getTotalEstimatedDuration());
                     existing.setResponsibleUserId(route.getResponsibleUserId());
-                    return repository.save(existing);
+                    return persist(existing, null);
                 });
     }
 
@@ -161,7 +200,11 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
                         HttpStatus.NOT_FOUND.value(),
                         "Route not found",
                         "Cannot delete route with id " + id)))
-                .flatMap(repository::delete);
+                .flatMap(route -> repository.delete(route)
+                        .then(Mono.fromRunnable(() -> {
+                            entityCache.invalidate(DistributionRoute.class, route.getId());
+                            collectionVersions.bump(DistributionRoute.class, route.getOrganizationId());
+                        })));
     }
 
     @Override
@@ -182,38 +225,57 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
                         "Cannot change status of route with id " + id)))
                 .flatMap(route -> {
                     route.setStatus(status);
-                    return repository.save(route);
+                    return persist(route, null);
                 });
     }
     
+    /**
+     * Guarda, invalida la caché por id y sube la versión usada en los ETag; previousOrganizationId
+     * (si cambió) también se invalida.
+     */
+    private Mono<DistributionRoute> persist(DistributionRoute route, String previousOrganizationId) {
+        return repository.save(route)
+                .doOnNext(saved -> {
+                    entityCache.invalidate(DistributionRoute.class, saved.getId());
+                    if (previousOrganizationId != null && !previousOrganizationId.equals(saved.getOrganizationId())) {
+                        collectionVersions.bump(DistributionRoute.class, previousOrganizationId);
+                    }
+                    collectionVersions.bump(DistributionRoute.class, saved.getOrganizationId());
+                });
+    }
+
     // New methods for enriched distribution route data
     
     @Override
     public Mono<EnrichedDistributionRouteResponse> getEnrichedById(String id) {
-        return repository.findById(id)
+        return entityCache.findById(DistributionRoute.class, id, repository::findById)
                 .switchIfEmpty(Mono.error(new CustomException(
                         HttpStatus.NOT_FOUND.value(),
                         "Route not found",
                         "No route found with id " + id)))
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedDistributionRouteResponse> getAllEnriched() {
         return repository.findAll()
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedDistributionRouteResponse> getAllActiveEnriched() {
-        return repository.findAllByStatus(Constants.ACTIVE.name())
-                .map(this::toEnrichedResponse);
+        return getAllActive()
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedDistributionRouteResponse> getAllInactiveEnriched() {
         return repository.findAllByStatus(Constants.INACTIVE.name())
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     private EnrichedDistributionRouteResponse toEnrichedResponse(DistributionRoute route) {
@@ -257,6 +319,7 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
                         "Route not found",
                         "No route found with id " + id)))
                 .flatMap(existing -> {
+                    String previousOrganizationId = existing.getOrganizationId();
                     // Convertir las zonas del DTO al modelo
                     java.util.List<DistributionRoute.ZoneOrder> zoneOrders = 
                         java.util.Collections.emptyList();
@@ -276,7 +339,7 @@ public class DistributionRouteServiceImpl implements DistributionRouteService {
                     existing.setResponsibleUserId(request.getResponsibleUserId());
                     existing.setOrganizationId(request.getOrganizationId());
                     
-                    return repository.save(existing)
+                    return persist(existing, previousOrganizationId)
                             .map(updated -> {
                                 // Convertir las zonas para la respuesta
                                 String firstZoneId = null;
@@ -2,10 +2,18 @@ package pe.edu.vallegrande.msdistribution.application.services.impl;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionScheduleService;
+import pe.edu.vallegrande.msdistribution.domain.events.ScheduleChangedEvent;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionScheduleCreateRequest;
@@ -16,7 +24,10 @@ import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionS
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.DayOfWeek;
 import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -25,14 +36,69 @@ public class DistributionScheduleServiceImpl implements DistributionScheduleServ
     @Autowired
     private DistributionScheduleRepository repository;
 
+    @Autowired
+    private CodeSequenceService codeSequenceService;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Autowired
+    private CollectionVersionService collectionVersions;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    @Autowired
+    private ExternalReferenceEnricher enricher;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ConflictDetector conflictDetector;
+
+    private static final ExternalReferenceEnricher.Binding<EnrichedDistributionScheduleResponse> ENRICHMENT =
+            ExternalReferenceEnricher.<EnrichedDistributionScheduleResponse>binding()
+                    .organization(EnrichedDistributionScheduleResponse::getOrganizationId,
+                            EnrichedDistributionScheduleResponse::setOrganization)
+                    .zone(EnrichedDistributionScheduleResponse::getZoneId,
+                            EnrichedDistributionScheduleResponse::setZone);
+
     @Override
     public Flux<DistributionSchedule> getAll() {
         return repository.findAll();
     }
 
+    @Override
+    public Flux<DistributionSchedule> getPage(String afterId, int limit) {
+        return afterId == null
+                ? repository.findAllByOrderByIdAsc(Limit.of(limit))
+                : repository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    @Override
+    public Flux<DistributionSchedule> getFields(Set<String> fields, String afterId, Integer limit) {
+        return mongoTemplate.find(ProjectionQueries.of(fields, afterId, limit), DistributionSchedule.class);
+    }
+
     @Override
     public Flux<DistributionSchedule> getAllActive() {
-        return repository.findAllByStatus(Constants.ACTIVE.name());
+        // Servido desde la copia en memoria mientras se mantiene; si no, desde MongoDB
+        ActiveReferenceSnapshot.Snapshot<DistributionSchedule> snapshot = activeSnapshot.schedules();
+        return snapshot != null
+                ? Flux.fromIterable(snapshot.all())
+                : repository.findAllByStatus(Constants.ACTIVE.name());
+    }
+
+    @Override
+    public Flux<DistributionSchedule> getAllActiveByOrganization(String organizationId) {
+        ActiveReferenceSnapshot.Snapshot<DistributionSchedule> snapshot = activeSnapshot.schedules();
+        return snapshot != null
+                ? Flux.fromIterable(snapshot.forOrganization(organizationId))
+                : repository.findAllByOrganizationIdAndStatus(organizationId, Constants.ACTIVE.name());
     }
 
     @Override
@@ -40,9 +106,36 @@ public class DistributionScheduleServiceImpl implements DistributionScheduleServ
         return repository.findAllByStatus(Constants.INACTIVE.name());
     }
 
+    @Override
+    public Flux<DistributionSchedule> getActiveAt(String organizationId, String zoneId, String day, String time) {
+        DayOfWeek dayOfWeek = day == null ? null : ScheduleCalendar.day(day);
+        Integer minute = ScheduleCalendar.minuteOfDay(time);
+        if (zoneId == null || zoneId.isBlank() || dayOfWeek == null || minute == null) {
+            return Flux.error(CustomException.badRequest("Invalid schedule query",
+                    "Se requieren zoneId, day (MONDAY o LUNES) y time (HH:mm)"));
+        }
+        // En memoria: comparación de bits y enteros sobre la copia de activos
+        ActiveReferenceSnapshot.Snapshot<DistributionSchedule> snapshot = activeSnapshot.schedules();
+        if (snapshot != null) {
+            List<DistributionSchedule> candidates = organizationId == null
+                    ? snapshot.all()
+                    : snapshot.forOrganization(organizationId);
+            return Flux.fromIterable(candidates)
+                    .filter(schedule -> zoneId.equals(schedule.getZoneId())
+                            && ScheduleCalendar.activeAt(schedule, dayOfWeek, minute));
+        }
+        // En MongoDB: índice zoneId_status_startMinute y $bitsAllSet sobre dayMask
+        Criteria criteria = Criteria.where("zoneId").is(zoneId).and("status").is(Constants.ACTIVE.name());
+        if (organizationId != null) {
+            criteria = criteria.and("organizationId").is(organizationId);
+        }
+        return mongoTemplate.find(new Query(new Criteria().andOperator(criteria,
+                ScheduleCalendar.activeAt(dayOfWeek, minute))), DistributionSchedule.class);
+    }
+
     @Override
     public Mono<DistributionSchedule> getById(String id) {
-        return repository.findById(id)
+        return entityCache.findById(DistributionSchedule.class, id, repository::findById)
                 .switchIfEmpty(Mono.error(new CustomException(
                         HttpStatus.NOT_FOUND.value(),
                         "Schedule not found",
@@ -51,66 +144,43 @@ public class DistributionScheduleServiceImpl implements DistributionScheduleServ
 
 @Override
 public Mono<DistributionScheduleResponse> save(DistributionScheduleCreateRequest request) {
-    return generateNextScheduleCode() // ← usamos el generador
-        .flatMap(generatedCode ->
-            repository.existsByScheduleCode(generatedCode)
-                .flatMap(exists -> {
-                    if (exists) {
-                        return Mono.error(new CustomException(
-                                HttpStatus.BAD_REQUEST.value(),
-                                "Schedule code already exists",
-                                "Schedule code " + generatedCode + " already exists"));
-                    }
+    return codeSequenceService.nextCode(SCHEDULE_PREFIX) // ← usamos el generador
+        .flatMap(generatedCode -> {
+            DistributionSchedule schedule = DistributionSchedule.builder()
+                    .organizationId(request.getOrganizationId())
+                    .scheduleCode(generatedCode) // ← usamos el código generado
+                    .zoneId(request.getZoneId())
+                    .streetId(request.getStreetId())
+                    .scheduleName(request.getScheduleName())
+                    .daysOfWeek(request.getDaysOfWeek())
+                    .startTime(request.getStartTime())
+                    .endTime(request.getEndTime())
+                    .durationHours(request.getDurationHours())
+                    .status(Constants.ACTIVE.name())
+                    .createdAt(Instant.now())
+                    .build();
 
-                    DistributionSchedule schedule = DistributionSchedule.builder()
-                            .organizationId(request.getOrganizationId())
-                            .scheduleCode(generatedCode) // ← usamos el código generado
-                            .zoneId(request.getZoneId())
-                            .streetId(request.getStreetId())
-                            .scheduleName(request.getScheduleName())
-                            .daysOfWeek(request.getDaysOfWeek())
-                            .startTime(request.getStartTime())
-                            .endTime(request.getEndTime())
-                            .durationHours(request.getDurationHours())
-                            .status(Constants.ACTIVE.name())
-                            .createdAt(Instant.now())
-                            .build();
-
-                    return repository.save(schedule)
-                            .map(saved -> DistributionScheduleResponse.builder()
-                                    .id(saved.getId())
-                                    .organizationId(saved.getOrganizationId())
-                                    .scheduleCode(saved.getScheduleCode())
-                                    .scheduleName(saved.getScheduleName())
-                                    .zoneId(saved.getZoneId())
-                                    .streetId(saved.getStreetId()) // Fixed: was incorrectly using getZoneId()
-                                    .daysOfWeek(saved.getDaysOfWeek())
-                                    .startTime(saved.getStartTime())
-                                    .endTime(saved.getEndTime())
-                                    .durationHours(saved.getDurationHours())
-                                    .status(saved.getStatus())
-                                    .createdAt(saved.getCreatedAt())
-                                    .build());
-                })
-        );
+            return persist(schedule, null)
+                    .map(saved -> DistributionScheduleResponse.builder()
+                            .id(saved.getId())
+                            .organizationId(saved.getOrganizationId())
+                            .scheduleCode(saved.getScheduleCode())
+                            .scheduleName(saved.getScheduleName())
+                            .zoneId(saved.getZoneId())
+                            .streetId(saved.getStreetId()) // Fixed: was incorrectly using getZoneId()
+                            .daysOfWeek(saved.getDaysOfWeek())
+                            .startTime(saved.getStartTime())
+                            .endTime(saved.getEndTime())
+                            .durationHours(saved.getDurationHours())
+                            .status(saved.getStatus())
+                            .createdAt(saved.getCreatedAt())
+                            .build());
+        });
 }
 
 
     private static final String SCHEDULE_PREFIX = "HOR";
 
-private Mono<String> generateNextScheduleCode() {
-    return repository.findTopByOrderByScheduleCodeDesc()
-            .map(last -> {
-                String lastCode = last.getScheduleCode(); // ej. HOR007
-                int number = 0;
-                try {
-                    number = Integer.parseInt(lastCode.replace(SCHEDULE_PREFIX, ""));
-                } catch (NumberFormatException ignored) {}
-                return String.format(SCHEDULE_PREFIX + "%03d", number + 1);
-            })
-            .defaultIfEmpty(SCHEDULE_PREFIX + "001");
-}
-
 
     @Override
     public Mono<DistributionSchedule> update(String id, DistributionSchedule schedule) {
@@ -125,7 +195,7 @@ private Mono<String> generateNextScheduleCode() {
                     existing.setStartTime(schedule.getStartTime());
                     existing.setEndTime(schedule.getEndTime());
                     existing.setDurationHours(schedule.getDurationHours());
-                    return repository.save(existing);
+                    return persist(existing, null);
                 });
     }
 
@@ -136,7 +206,12 @@ private Mono<String> generateNextScheduleCode() {
                         HttpStatus.NOT_FOUND.value(),
                         "Schedule not found",
                         "Cannot delete schedule with id " + id)))
-                .flatMap(repository::delete);
+                .flatMap(schedule -> repository.delete(schedule)
+                        .then(Mono.fromRunnable(() -> {
+                            entityCache.invalidate(DistributionSchedule.class, schedule.getId());
+                            collectionVersions.bump(DistributionSchedule.class, schedule.getOrganizationId());
+                            eventPublisher.publishEvent(new ScheduleChangedEvent(schedule.getId(), schedule.getOrganizationId()));
+                        })));
     }
 
     @Override
@@ -157,71 +232,87 @@ private Mono<String> generateNextScheduleCode() {
                         "Cannot change status of schedule with id " + id)))
                 .flatMap(schedule -> {
                     schedule.setStatus(status);
-                    return repository.save(schedule);
+                    return persist(schedule, null);
                 });
     }
     
+    /**
+     * Guarda, invalida la caché por id y sube la versión usada en los ETag; previousOrganizationId
+     * (si cambió) también se invalida. La forma compilada (dayMask, startMinute, endMinute) se recalcula
+     * siempre antes de guardar y se rechaza con 409 si se cruza con otro horario activo de la misma
+     * zona/calle. El evento permite ajustar los programas ya planificados.
+     */
+    private Mono<DistributionSchedule> persist(DistributionSchedule schedule, String previousOrganizationId) {
+        ScheduleCalendar.compile(schedule);
+        return conflictDetector.verify(schedule)
+                .then(Mono.defer(() -> repository.save(schedule)))
+                .doOnNext(saved -> {
+                    entityCache.invalidate(DistributionSchedule.class, saved.getId());
+                    if (previousOrganizationId != null && !previousOrganizationId.equals(saved.getOrganizationId())) {
+                        collectionVersions.bump(DistributionSchedule.class, previousOrganizationId);
+                    }
+                    collectionVersions.bump(DistributionSchedule.class, saved.getOrganizationId());
+                    eventPublisher.publishEvent(new ScheduleChangedEvent(saved.getId(),
+                            previousOrganizationId != null ? previousOrganizationId : saved.getOrganizationId()));
+                });
+    }
+
     // New methods for enriched distribution schedule data
     
     @Override
     public Mono<EnrichedDistributionScheduleResponse> getEnrichedById(String id) {
-        return repository.findById(id)
+        return entityCache.findById(DistributionSchedule.class, id, repository::findById)
                 .switchIfEmpty(Mono.error(new CustomException(
                         HttpStatus.NOT_FOUND.value(),
                         "Schedule not found",
                         "No schedule found with id " + id)))
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedDistributionScheduleResponse> getAllEnriched() {
         return repository.findAll()
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedDistributionScheduleResponse> getAllActiveEnriched() {
-        return repository.findAllByStatus(Constants.ACTIVE.name())
-                .map(this::toEnrichedResponse);
+        return getAllActive()
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedDistributionScheduleResponse> getAllInactiveEnriched() {
         return repository.findAllByStatus(Constants.INACTIVE.name())
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Mono<EnrichedDistributionScheduleResponse> saveAndEnrich(DistributionScheduleCreateRequest request) {
-        return generateNextScheduleCode()
-            .flatMap(generatedCode ->
-                repository.existsByScheduleCode(generatedCode)
-                    .flatMap(exists -> {
-                        if (exists) {
-                            return Mono.error(new CustomException(
-                                    HttpStatus.BAD_REQUEST.value(),
-                                    "Schedule code already exists",
-                                    "Schedule code " + generatedCode + " already exists"));
-                        }
-
-                        DistributionSchedule schedule = DistributionSchedule.builder()
-                                .organizationId(request.getOrganizationId())
-                                .scheduleCode(generatedCode)
-                                .zoneId(request.getZoneId())
-                                .streetId(request.getStreetId())
-                                .scheduleName(request.getScheduleName())
-                                .daysOfWeek(request.getDaysOfWeek())
-                                .startTime(request.getStartTime())
-                                .endTime(request.getEndTime())
-                                .durationHours(request.getDurationHours())
-                                .status(Constants.ACTIVE.name())
-                                .createdAt(Instant.now())
-                                .build();
-
-                        return repository.save(schedule)
-                                .map(this::toEnrichedResponse);
-                    })
-            );
+        return codeSequenceService.nextCode(SCHEDULE_PREFIX)
+            .flatMap(generatedCode -> {
+                DistributionSchedule schedule = DistributionSchedule.builder()
+                        .organizationId(request.getOrganizationId())
+                        .scheduleCode(generatedCode)
+                        .zoneId(request.getZoneId())
+                        .streetId(request.getStreetId())
+                        .scheduleName(request.getScheduleName())
+                        .daysOfWeek(request.getDaysOfWeek())
+                        .startTime(request.getStartTime())
+                        .endTime(request.getEndTime())
+                        .durationHours(request.getDurationHours())
+                        .status(Constants.ACTIVE.name())
+                        .createdAt(Instant.now())
+                        .build();
+
+                return persist(schedule, null)
+                        .map(this::toEnrichedResponse)
+                        .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
+            });
     }
     
     private EnrichedDistributionScheduleResponse toEnrichedResponse(DistributionSchedule schedule) {
@@ -249,6 +340,7 @@ private Mono<String> generateNextScheduleCode() {
                         "Schedule not found",
                         "No schedule found with id " + id)))
                 .flatMap(existing -> {
+                    String previousOrganizationId = existing.getOrganizationId();
                     existing.setScheduleName(request.getScheduleName());
                     existing.setDaysOfWeek(request.getDaysOfWeek());
                     existing.setStartTime(request.getStartTime());
@@ -257,7 +349,7 @@ private Mono<String> generateNextScheduleCode() {
                     existing.setZoneId(request.getZoneId());
                     existing.setStreetId(request.getStreetId());
                     existing.setOrganizationId(request.getOrganizationId());
-                    return repository.save(existing)
+                    return persist(existing, previousOrganizationId)
                             .map(saved -> DistributionScheduleResponse.builder()
                                     .id(saved.getId())
                                     .organizationId(saved.getOrganizationId())
@@ -0,0 +1,223 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caché de lectura por id delante de los repositorios de program, route, schedule y fare.
+ *
+ * Cada colección tiene su propia caché asíncrona acotada por tamaño y TTL; las búsquedas
+ * concurrentes del mismo id comparten una sola consulta. Los ids inexistentes también se guardan
+ * (caché negativa) con un TTL más corto, así los 404 repetidos no llegan a MongoDB.
+ *
+ * Las escrituras propias invalidan la entrada al instante. Las hechas por otras réplicas llegan por
+ * un change stream de cada colección, que invalida por documentKey. Al (re)conectar se vacía la
+ * colección y el stream se abre desde ese mismo instante (resumeAt), así una escritura hecha mientras
+ * el stream se abre llega como evento en lugar de perderse. Sin change streams (servidor standalone)
+ * solo el TTL acota la desactualización.
+ */
+@Component
+@Slf4j
+public class EntityCache {
+
+    private static final List<Class<?>> CACHED_TYPES = List.of(DistributionProgram.class,
+            DistributionRoute.class, DistributionSchedule.class, Fare.class);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, AsyncCache<String, Optional<Object>>> caches = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @Value("${app.entity-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.entity-cache.maximum-size:10000}")
+    private long maximumSize = 10_000;
+
+    @Value("${app.entity-cache.ttl:10m}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    @Value("${app.entity-cache.negative-ttl:30s}")
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    public EntityCache(ReactiveMongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Entity cache disabled, lookups by id will query MongoDB");
+            return;
+        }
+        CACHED_TYPES.forEach(type -> subscriptions.add(watch(type)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscriptions.dispose();
+    }
+
+    /**
+     * Entidad con el id indicado; si no está en caché se carga con loader. Vacío si no existe.
+     * Los errores del loader no se guardan: la siguiente consulta vuelve a intentarlo.
+     */
+    public <T> Mono<T> findById(Class<T> type, String id, Function<String, Mono<T>> loader) {
+        if (!enabled || id == null) {
+            return loader.apply(id);
+        }
+        // suppressCancel: la carga es compartida, cancelar un suscriptor no la cancela para los demás
+        return Mono.fromFuture(() -> cacheOf(type).get(id, (key, executor) -> loader.apply(key)
+                                .map(value -> Optional.<Object>of(value))
+                                .defaultIfEmpty(Optional.empty())
+                                .toFuture()), true)
+                .flatMap(cached -> Mono.justOrEmpty(cached.map(type::cast)));
+    }
+
+    public void invalidate(Class<?> type, String id) {
+        AsyncCache<String, Optional<Object>> cache = caches.get(type);
+        if (cache != null && id != null) {
+            cache.synchronous().invalidate(id);
+        }
+    }
+
+    public void invalidateAll(Class<?> type) {
+        AsyncCache<String, Optional<Object>> cache = caches.get(type);
+        if (cache != null) {
+            cache.synchronous().invalidateAll();
+        }
+    }
+
+    // Las tarifas no se invalidan por id: al crear o editar una se desactivan las demás de la organización
+    @EventListener
+    public void onFareChanged(FareChangedEvent event) {
+        invalidateAll(Fare.class);
+    }
+
+    // ===============================
+    // INVALIDACIÓN POR CHANGE STREAM
+    // ===============================
+
+    private Disposable watch(Class<?> type) {
+        String collection = ChangeStreams.collectionOf(type);
+        Flux<ChangeStreamEvent<Document>> stream = Flux.defer(() -> {
+                    // Lo cargado antes de este instante se descarta; lo escrito después llega por el stream
+                    ChangeStreamOptions options = ChangeStreamOptions.builder().resumeAt(Instant.now()).build();
+                    invalidateAll(type);
+                    return mongoTemplate.changeStream(null, collection, options, Document.class);
+                })
+                .doOnNext(event -> applyEvent(type, event));
+        return ChangeStreams.keepWatching(stream,
+                e -> log.warn("Entity cache change stream on '{}' failed, reconnecting: {}",
+                        collection, e.getMessage()),
+                e -> log.warn("Entity cache for '{}' relies on TTL only: {}", collection, e.getMessage()));
+    }
+
+    private void applyEvent(Class<?> type, ChangeStreamEvent<Document> event) {
+        ChangeStreamDocument<Document> raw = event.getRaw();
+        if (raw != null) {
+            applyChange(type, raw.getOperationType(), raw.getDocumentKey());
+        }
+    }
+
+    /**
+     * Invalida la entrada del documento afectado; los eventos sin documentKey (drop, rename,
+     * invalidate) vacían la colección. Visible para pruebas.
+     */
+    void applyChange(Class<?> type, OperationType operation, BsonDocument documentKey) {
+        String id = idOf(documentKey);
+        switch (operation) {
+            case INSERT, UPDATE, REPLACE, DELETE -> {
+                if (id != null) {
+                    invalidate(type, id);
+                } else {
+                    invalidateAll(type);
+                }
+            }
+            default -> invalidateAll(type);
+        }
+    }
+
+    // ===============================
+    // AUXILIARES
+    // ===============================
+
+    private AsyncCache<String, Optional<Object>> cacheOf(Class<?> type) {
+        return caches.computeIfAbsent(type, this::build);
+    }
+
+    private AsyncCache<String, Optional<Object>> build(Class<?> type) {
+        AsyncCache<String, Optional<Object>> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Optional<Object>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<Object> value, long currentTime) {
+                        return (value.isPresent() ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<Object> value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<Object> value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        new CaffeineCacheMetrics<>(cache.synchronous(), "entity." + ChangeStreams.collectionOf(type), List.of())
+                .bindTo(meterRegistry);
+        return cache;
+    }
+
+    // Los ids se guardan como ObjectId cuando son hexadecimales válidos
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : null;
+    }
+}
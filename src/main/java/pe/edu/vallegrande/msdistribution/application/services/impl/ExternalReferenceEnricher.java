@@ -0,0 +1,148 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalOrganization;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalUser;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalZone;
+import pe.edu.vallegrande.msdistribution.infrastructure.service.ExternalServiceClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Completa las respuestas enriquecidas con la organización, el usuario responsable y la zona.
+ *
+ * Los elementos se procesan en ventanas de app.enrichment.window-size: de cada ventana se toman los
+ * ids que aún no se resolvieron en esta respuesta y se consultan (vía ExternalServiceClient y su
+ * caché) con a lo sumo app.enrichment.concurrency llamadas a la vez. Así un listado de 1000
+ * programas hace una consulta por organización, usuario y zona distintos, no una por programa, y
+ * la respuesta sigue saliendo por partes (NDJSON). Lo que no se pueda resolver queda en null.
+ */
+@Component
+public class ExternalReferenceEnricher {
+
+    private final ExternalServiceClient externalServiceClient;
+
+    @Value("${app.enrichment.window-size:256}")
+    private int windowSize = 256;
+
+    @Value("${app.enrichment.concurrency:8}")
+    private int concurrency = 8;
+
+    public ExternalReferenceEnricher(ExternalServiceClient externalServiceClient) {
+        this.externalServiceClient = externalServiceClient;
+    }
+
+    public static <T> Binding<T> binding() {
+        return new Binding<>();
+    }
+
+    public <T> Mono<T> enrich(Mono<T> item, Binding<T> binding) {
+        return enrich(item.flux(), binding).next();
+    }
+
+    public <T> Flux<T> enrich(Flux<T> items, Binding<T> binding) {
+        return Flux.defer(() -> {
+            Resolved resolved = new Resolved();
+            return items.buffer(windowSize)
+                    .concatMap(window -> resolve(window, binding, resolved)
+                            .thenMany(Flux.fromIterable(window))
+                            .doOnNext(item -> apply(item, binding, resolved)));
+        });
+    }
+
+    // ===============================
+    // AUXILIARES
+    // ===============================
+
+    private <T> Mono<Void> resolve(List<T> window, Binding<T> binding, Resolved resolved) {
+        List<Mono<?>> lookups = new ArrayList<>();
+        lookups(window, binding.organizationId, resolved.organizations,
+                externalServiceClient::getOrganizationById, lookups);
+        lookups(window, binding.userId, resolved.users, externalServiceClient::getUserById, lookups);
+        lookups(window, binding.zoneId, resolved.zones, externalServiceClient::getZoneById, lookups);
+        return Flux.fromIterable(lookups)
+                .flatMap(lookup -> lookup, concurrency)
+                .then();
+    }
+
+    private static <T, V> void lookups(List<T> window, Function<T, String> idOf, Map<String, Optional<V>> resolved,
+            Function<String, Mono<V>> fetch, List<Mono<?>> lookups) {
+        if (idOf == null) {
+            return;
+        }
+        window.stream()
+                .map(idOf)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(id -> !resolved.containsKey(id))
+                .forEach(id -> lookups.add(fetch.apply(id)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .doOnNext(value -> resolved.put(id, value))));
+    }
+
+    private static <T> void apply(T item, Binding<T> binding, Resolved resolved) {
+        set(item, binding.organizationId, binding.organization, resolved.organizations);
+        set(item, binding.userId, binding.user, resolved.users);
+        set(item, binding.zoneId, binding.zone, resolved.zones);
+    }
+
+    private static <T, V> void set(T item, Function<T, String> idOf, BiConsumer<T, V> setter,
+            Map<String, Optional<V>> resolved) {
+        if (idOf == null) {
+            return;
+        }
+        String id = idOf.apply(item);
+        if (id != null) {
+            resolved.getOrDefault(id, Optional.empty()).ifPresent(value -> setter.accept(item, value));
+        }
+    }
+
+    /** Ids ya consultados en una respuesta; vacío si el servicio externo no los encontró. */
+    private static final class Resolved {
+        final Map<String, Optional<ExternalOrganization>> organizations = new ConcurrentHashMap<>();
+        final Map<String, Optional<ExternalUser>> users = new ConcurrentHashMap<>();
+        final Map<String, Optional<ExternalZone>> zones = new ConcurrentHashMap<>();
+    }
+
+    /** Qué ids lee cada tipo de respuesta y dónde deja el valor resuelto. */
+    public static final class Binding<T> {
+        private Function<T, String> organizationId;
+        private BiConsumer<T, ExternalOrganization> organization;
+        private Function<T, String> userId;
+        private BiConsumer<T, ExternalUser> user;
+        private Function<T, String> zoneId;
+        private BiConsumer<T, ExternalZone> zone;
+
+        private Binding() {
+        }
+
+        public Binding<T> organization(Function<T, String> id, BiConsumer<T, ExternalOrganization> setter) {
+            this.organizationId = id;
+            this.organization = setter;
+            return this;
+        }
+
+        public Binding<T> user(Function<T, String> id, BiConsumer<T, ExternalUser> setter) {
+            this.userId = id;
+            this.user = setter;
+            return this;
+        }
+
+        public Binding<T> zone(Function<T, String> id, BiConsumer<T, ExternalZone> setter) {
+            this.zoneId = id;
+            this.zone = setter;
+            return this;
+        }
+    }
+}
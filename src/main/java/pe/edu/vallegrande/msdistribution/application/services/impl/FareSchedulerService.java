@@ -1,101 +1,128 @@
-package pe.edu.vallegrande.msdistribution.application.services.impl;
-
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.stereotype.Service;
-import pe.edu.vallegrande.msdistribution.domain.models.Fare;
-import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
-import pe.edu.vallegrande.msdistribution.infrastructure.repository.FareRepository;
-import reactor.core.publisher.Mono;
-
-import java.util.Date;
-
-@Service
-@Slf4j
-public class FareSchedulerService {
-
-    @Autowired
-    private FareRepository fareRepository;
-    
-    @Autowired
-    private FareServiceImpl fareService;
-
-    /**
-     * Scheduled task that runs every hour to check for fare transitions
-     * This will activate/deactivate fares based on their effective dates
-     */
-    @Scheduled(cron = "0 0 * * * ?") // cada hora
-    public void processFareTransitions() {
-        log.info("Processing fare transitions...");
-        
-        Date now = new Date();
-        
-        // Process automatic fare transitions (deactivate old fares after Nov 1st)
-        fareService.processAutomaticFareTransitions();
-        
-        // Activar tarifas cuya vigencia comenzó
-        activateScheduledFares(now)
-                .then(deactivateExpiredFares(now))
-                .subscribe(
-                    unused -> log.info("Fare transition processing completed."),
-                    error -> log.error("Error processing fare transitions: ", error)
-                );
-    }
-
-    /**
-     * Manual trigger for fare transitions processing
-     * This allows immediate activation/deactivation of fares based on their effective dates
-     */
-    public void triggerFareTransitions() {
-        log.info("Manually triggering fare transitions...");
-        
-        Date now = new Date();
-        
-        // Process automatic fare transitions (deactivate old fares after Nov 1st)
-        fareService.processAutomaticFareTransitions();
-        
-        // Activar tarifas cuya vigencia comenzó
-        activateScheduledFares(now)
-                .then(deactivateExpiredFares(now))
-                .subscribe(
-                    unused -> log.info("Manual fare transition processing completed."),
-                    error -> log.error("Error processing manual fare transitions: ", error)
-                );
-    }
-
-    private Mono<Void> activateScheduledFares(Date now) {
-        return fareRepository.findAllByStatus(Constants.INACTIVE.name())
-                .filter(fare -> fare.getEffectiveDate() != null &&
-                            (fare.getEffectiveDate().before(now) || fare.getEffectiveDate().equals(now)))
-                .flatMap(fare -> {
-                    fare.setStatus(Constants.ACTIVE.name());
-                    return fareRepository.save(fare)
-                            .flatMap(this::handleFareActivation);
-                })
-                .then();
-    }
-
-    private Mono<Void> deactivateExpiredFares(Date now) {
-        return fareRepository.findAllByStatus(Constants.ACTIVE.name())
-                .filter(fare -> fare.getEffectiveDate() != null && 
-                       fare.getEffectiveDate().before(now) && 
-                       !fare.getEffectiveDate().equals(now))
-                .flatMap(fare -> {
-                    fare.setStatus(Constants.INACTIVE.name());
-                    return fareRepository.save(fare);
-                })
-                .then();
-    }
-
-    private Mono<Fare> handleFareActivation(Fare activatedFare) {
-        return fareRepository.findByOrganizationIdAndStatusOrderByEffectiveDateDesc(
-                        activatedFare.getOrganizationId(), Constants.ACTIVE.name())
-                .filter(fare -> !fare.getId().equals(activatedFare.getId()))
-                .flatMap(fare -> {
-                    fare.setStatus(Constants.INACTIVE.name());
-                    return fareRepository.save(fare);
-                })
-                .then(Mono.just(activatedFare));
-    }
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.msdistribution.application.services.FareService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies fare transitions exactly when the next effective date is reached.
+ *
+ * Instead of scanning every hour, a single timer is armed for the nearest future effectiveDate
+ * (one indexed findOne on {status, effectiveDate}). When it fires the transition pass runs and
+ * the timer is armed again for the following boundary. Any fare created, updated or deleted
+ * (FareChangedEvent) re-arms the timer. On startup the timer is only armed: the pass covers the
+ * window since the previous pass, which starts with the service, so boundaries passed while the
+ * service was down are not replayed.
+ */
+@Service
+@Slf4j
+public class FareSchedulerService {
+
+    @Autowired
+    private FareService fareService;
+
+    @Autowired
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private final Disposable.Swap timer = Disposables.swap();
+
+    // Solo se aplica el resultado del cálculo más reciente (eventos concurrentes)
+    private final AtomicLong armGeneration = new AtomicLong();
+
+    private volatile Date armedBoundary;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rearm();
+    }
+
+    @EventListener
+    public void onFareChanged(FareChangedEvent event) {
+        if (event.fareId() == null) {
+            // Transición masiva: no cambia fechas de vigencia, el temporizador sigue siendo válido
+            return;
+        }
+        log.debug("Fare {} changed, re-arming fare transition timer", event.fareId());
+        rearm();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.dispose();
+    }
+
+    /**
+     * Manual trigger for fare transitions processing
+     * Runs the pass now (bulk commands in FareServiceImpl) and arms the timer for the next boundary
+     */
+    public void triggerFareTransitions() {
+        fareService.triggerFareTransitions()
+                .doOnNext(result -> log.info("Fare transition processing completed: {} activated, {} deactivated.",
+                        result.getActivated(), result.getDeactivated()))
+                .doOnError(error -> log.error("Error processing fare transitions: ", error))
+                .onErrorResume(error -> Mono.empty())
+                .subscribe(null, null, this::rearm);
+    }
+
+    /** Próxima fecha de vigencia pendiente, o null si no hay ninguna. */
+    Date getArmedBoundary() {
+        return armedBoundary;
+    }
+
+    void rearm() {
+        long generation = armGeneration.incrementAndGet();
+        nextBoundary()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .subscribe(
+                    boundary -> arm(generation, boundary.orElse(null)),
+                    error -> log.error("Could not compute next fare transition: ", error)
+                );
+    }
+
+    /** Menor effectiveDate posterior a ahora entre las tarifas activas o inactivas. */
+    Mono<Date> nextBoundary() {
+        Query query = new Query(Criteria.where("status").in(Constants.ACTIVE.name(), Constants.INACTIVE.name())
+                .and("effectiveDate").gt(new Date()))
+                .with(Sort.by(Sort.Direction.ASC, "effectiveDate"))
+                .limit(1);
+        query.fields().include("effectiveDate");
+        return mongoTemplate.findOne(query, Fare.class).map(Fare::getEffectiveDate);
+    }
+
+    private synchronized void arm(long generation, Date boundary) {
+        if (generation != armGeneration.get()) {
+            return;
+        }
+        armedBoundary = boundary;
+        if (boundary == null) {
+            timer.update(Disposables.disposed());
+            log.info("No upcoming fare transitions");
+            return;
+        }
+        // +1 ms: las tarifas que vencen en la fecha (effectiveDate < ahora) y las que empiezan (<= ahora) se
+        // aplican en la misma pasada; la pasada no vence las que activa, así cada una queda en un solo estado
+        Duration delay = Duration.ofMillis(Math.max(0, boundary.getTime() + 1 - System.currentTimeMillis()));
+        timer.update(Mono.delay(delay).subscribe(tick -> triggerFareTransitions()));
+        log.info("Next fare transition at {}", boundary.toInstant());
+    }
 }
\ No newline at end of file
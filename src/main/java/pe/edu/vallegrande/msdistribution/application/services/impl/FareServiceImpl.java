@@ -1,21 +1,42 @@
 package pe.edu.vallegrande.msdistribution.application.services.impl;
 
 import lombok.RequiredArgsConstructor;
+import com.mongodb.client.result.UpdateResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.EnrichedFareResponse;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
 import pe.edu.vallegrande.msdistribution.application.services.FareService;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
 import pe.edu.vallegrande.msdistribution.domain.models.Fare;
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.FareCreateRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.FareResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.FareTransitionResponse;
 import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
 import pe.edu.vallegrande.msdistribution.infrastructure.repository.FareRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
@@ -23,12 +44,41 @@ import java.util.Date;
 public class FareServiceImpl implements FareService {
 
     private final FareRepository fareRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CodeSequenceService codeSequenceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FareTimelineIndex fareTimelineIndex;
+    private final EntityCache entityCache;
+    private final ExternalReferenceEnricher enricher;
+
+    // Reemplazable en pruebas
+    Clock clock = Clock.systemDefaultZone();
+
+    // Hasta dónde se aplicaron las transiciones; la primera pasada empieza al iniciar el servicio
+    final AtomicReference<Instant> transitionsAppliedUntil = new AtomicReference<>(Instant.now());
+
+    private static final ExternalReferenceEnricher.Binding<EnrichedFareResponse> ENRICHMENT =
+            ExternalReferenceEnricher.<EnrichedFareResponse>binding()
+                    .organization(EnrichedFareResponse::getOrganizationId, EnrichedFareResponse::setOrganization);
 
     @Override
     public Flux<FareResponse> getAllF() {
         return fareRepository.findAll()
-                .map(this::toResponse)
-                .doOnNext(fare -> System.out.println("Fare retrieved: " + fare));
+                .map(this::toResponse);
+    }
+
+    @Override
+    public Flux<FareResponse> getPageF(String afterId, int limit) {
+        return (afterId == null
+                ? fareRepository.findAllByOrderByIdAsc(Limit.of(limit))
+                : fareRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit)))
+                .map(this::toResponse);
+    }
+
+    @Override
+    public Flux<FareResponse> getFieldsF(Set<String> fields, String afterId, Integer limit) {
+        return mongoTemplate.find(ProjectionQueries.of(fields, afterId, limit), Fare.class)
+                .map(this::toResponse);
     }
 
     @Override
@@ -45,102 +95,81 @@ public class FareServiceImpl implements FareService {
 
     @Override
     public Mono<FareResponse> getByIdF(String id) {
-        return fareRepository.findById(id)
+        return entityCache.findById(Fare.class, id, fareRepository::findById)
                 .map(this::toResponse)
                 .switchIfEmpty(Mono.error(CustomException.notFound("Fare", id)));
     }
 
     @Override
     public Mono<FareResponse> saveF(FareCreateRequest request) {
-        return generateNextFareCode()
-                .flatMap(generatedCode -> fareRepository.existsByFareCode(generatedCode)
-                        .flatMap(exists -> {
-                            if (exists) {
-                                return Mono.error(CustomException.conflict("Fare code already exists"));
-                            }
+        return codeSequenceService.nextCode(FARE_PREFIX)
+                .flatMap(generatedCode -> {
+                    Date now = Date.from(clock.instant());
+                    // Set fare amount based on current date
+                    // Before November 1st: 15 soles, After November 1st: 20 soles
+                    java.util.Calendar nov1 = java.util.Calendar.getInstance();
+                    nov1.set(2025, java.util.Calendar.NOVEMBER, 1, 0, 0, 0);
+                    nov1.set(java.util.Calendar.MILLISECOND, 0);
+                    Date novFirst = nov1.getTime();
+
+                    BigDecimal fareAmount = "MENSUAL".equalsIgnoreCase(request.getFareType())
+                            ? (now.before(novFirst)  // Before November 1st
+                                ? BigDecimal.valueOf(15.00)
+                                : BigDecimal.valueOf(20.00))
+                            : request.getFareAmount();
+
+                    // Effective date is always November 1st for new fares
+                    Date effectiveDate = novFirst;
+
+                    // ⚡ Estado inicial según fecha de vigencia
+                    String status = now.before(effectiveDate) || now.equals(effectiveDate)
+                            ? Constants.ACTIVE.name()
+                            : Constants.INACTIVE.name();
+
+                    Fare fare = Fare.builder()
+                        .organizationId(request.getOrganizationId())
+                        .fareCode(generatedCode)
+                        .fareName(request.getFareName())
+                        .fareType(request.getFareType())
+                        .fareAmount(fareAmount)
+                        .effectiveDate(effectiveDate)
+                        .status(status)
+                        .createdAt(now.toInstant())
+                        .build();
 
-                            Date now = new Date();
-                            // Set fare amount based on current date
-                            // Before November 1st: 15 soles, After November 1st: 20 soles
-                            java.util.Calendar nov1 = java.util.Calendar.getInstance();
-                            nov1.set(2025, java.util.Calendar.NOVEMBER, 1, 0, 0, 0);
-                            nov1.set(java.util.Calendar.MILLISECOND, 0);
-                            Date novFirst = nov1.getTime();
-
-                            BigDecimal fareAmount = "MENSUAL".equalsIgnoreCase(request.getFareType())
-                                    ? (now.before(novFirst)  // Before November 1st
-                                        ? BigDecimal.valueOf(15.00)
-                                        : BigDecimal.valueOf(20.00))
-                                    : request.getFareAmount();
-
-                            // Effective date is always November 1st for new fares
-                            Date effectiveDate = novFirst;
-
-                            // ⚡ Estado inicial según fecha de vigencia
-                            String status = now.before(effectiveDate) || now.equals(effectiveDate)
-                                    ? Constants.ACTIVE.name()
-                                    : Constants.INACTIVE.name();
-
-                            Fare fare = Fare.builder()
-                                .organizationId(request.getOrganizationId())
-                                .fareCode(generatedCode)
-                                .fareName(request.getFareName())
-                                .fareType(request.getFareType())
-                                .fareAmount(fareAmount)
-                                .effectiveDate(effectiveDate)
-                                .status(status)
-                                .createdAt(now.toInstant())
-                                .build();
-
-                            return fareRepository.save(fare)
-                                    .flatMap(this::handleTimeBasedFareActivation)
-                                    .map(this::toResponse);
-                        }));
+                    return fareRepository.save(fare)
+                            .flatMap(this::handleTimeBasedFareActivation)
+                            .doOnNext(this::publishFareChanged)
+                            .map(this::toResponse);
+                });
     }
 
     /**
      * Handles time-based fare activation:
      * - Deactivates current active fares that will be replaced by this new fare
      * - Schedules future activation if the effective date is in the future
+     * One updateMany on {organizationId, status} (index organizationId_status_effectiveDate)
      */
     private Mono<Fare> handleTimeBasedFareActivation(Fare newFare) {
         // For simplicity, we'll deactivate all active fares for the same organization
         // In a more complex system, you might want to filter by fare type or other criteria
         // But exclude the newly created fare
-        return fareRepository.findAllByStatus(Constants.ACTIVE.name())
-                .filter(fare -> fare.getOrganizationId().equals(newFare.getOrganizationId()))
-                .filter(fare -> !fare.getId().equals(newFare.getId())) // Exclude the new fare
-                .flatMap(fare -> {
-                    // Deactivate the current fare
-                    fare.setStatus(Constants.INACTIVE.name());
-                    return fareRepository.save(fare);
-                })
-                .then(Mono.just(newFare));
+        Query superseded = new Query(Criteria.where("organizationId").is(newFare.getOrganizationId())
+                .and("status").is(Constants.ACTIVE.name())
+                .and("_id").ne(newFare.getId()));
+        return mongoTemplate.updateMulti(superseded, Update.update("status", Constants.INACTIVE.name()), Fare.class)
+                .thenReturn(newFare);
     }
 
     private static final String FARE_PREFIX = "TAR";
 
-    private Mono<String> generateNextFareCode() {
-        return fareRepository.findTopByOrderByFareCodeDesc()
-                .map(last -> {
-                    String lastCode = last.getFareCode(); // ej. "TAR003"
-                    int number = 0;
-                    try {
-                        number = Integer.parseInt(lastCode.replace(FARE_PREFIX, ""));
-                    } catch (NumberFormatException e) {
-                        // Si el código no sigue el patrón, asumimos 0
-                    }
-                    return String.format(FARE_PREFIX + "%03d", number + 1);
-                })
-                .defaultIfEmpty(FARE_PREFIX + "001");
-    }
-
     @Override
     public Mono<FareResponse> updateF(String id, FareCreateRequest request) {
         return fareRepository.findById(id)
                 .switchIfEmpty(Mono.error(CustomException.notFound("Fare", id)))
                 .flatMap(existingFare -> {
-                    Date now = new Date();
+                    Date now = Date.from(clock.instant());
+                    String previousOrganizationId = existingFare.getOrganizationId();
                     existingFare.setOrganizationId(request.getOrganizationId());
                     existingFare.setFareName(request.getFareName());
                     existingFare.setFareType(request.getFareType());
@@ -173,6 +202,14 @@ public class FareServiceImpl implements FareService {
 
                     return fareRepository.save(existingFare)
                         .flatMap(this::handleTimeBasedFareActivation)
+                        .doOnNext(saved -> {
+                            // Si cambió de organización también se descarta la línea de tiempo anterior
+                            if (previousOrganizationId != null
+                                    && !previousOrganizationId.equals(saved.getOrganizationId())) {
+                                eventPublisher.publishEvent(new FareChangedEvent(saved.getId(), previousOrganizationId));
+                            }
+                            publishFareChanged(saved);
+                        })
                         .map(this::toResponse);
                 });
     }
@@ -181,7 +218,8 @@ public class FareServiceImpl implements FareService {
     public Mono<Void> deleteF(String id) {
         return fareRepository.findById(id)
                 .switchIfEmpty(Mono.error(CustomException.notFound("Fare", id)))
-                .flatMap(fareRepository::delete);
+                .flatMap(fare -> fareRepository.delete(fare)
+                        .doOnSuccess(unused -> publishFareChanged(fare)));
     }
 
     @Override
@@ -220,6 +258,7 @@ public class FareServiceImpl implements FareService {
                 fare.setStatus(newStatus);
                 return fareRepository.save(fare);
             })
+            .doOnNext(this::publishFareChanged)
             .doOnSuccess(f -> log.info("✅ Estado de tarifa {} actualizado a {}", id, newStatus))
             .doOnError(e -> log.error("❌ Error cambiando estado de tarifa {}: {}", id, e.getMessage(), e))
             .onErrorMap(e -> {
@@ -235,27 +274,31 @@ public class FareServiceImpl implements FareService {
     
     @Override
     public Mono<EnrichedFareResponse> getEnrichedById(String id) {
-        return fareRepository.findById(id)
+        return entityCache.findById(Fare.class, id, fareRepository::findById)
                 .switchIfEmpty(Mono.error(CustomException.notFound("Fare", id)))
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedFareResponse> getAllEnriched() {
         return fareRepository.findAll()
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedFareResponse> getAllActiveEnriched() {
         return fareRepository.findAllByStatus(Constants.ACTIVE.name())
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     @Override
     public Flux<EnrichedFareResponse> getAllInactiveEnriched() {
         return fareRepository.findAllByStatus(Constants.INACTIVE.name())
-                .map(this::toEnrichedResponse);
+                .map(this::toEnrichedResponse)
+                .as(enriched -> enricher.enrich(enriched, ENRICHMENT));
     }
     
     private EnrichedFareResponse toEnrichedResponse(Fare fare) {
@@ -287,53 +330,123 @@ public class FareServiceImpl implements FareService {
     
     /**
      * Gets the current active fare based on the effective date
+     * Served from the per-organization in-memory timeline (FareTimelineIndex)
      * @param organizationId the organization ID
      * @return the current active fare
      */
     public Mono<Fare> getCurrentActiveFare(String organizationId) {
-        Date now = new Date();
-        return fareRepository.findAllByStatus(Constants.ACTIVE.name())
-                .filter(fare -> fare.getOrganizationId().equals(organizationId))
-                .filter(fare -> fare.getEffectiveDate() == null || fare.getEffectiveDate().after(now) || fare.getEffectiveDate().equals(now))
-                .sort((f1, f2) -> f2.getEffectiveDate().compareTo(f1.getEffectiveDate()))
-                .next();
+        return fareTimelineIndex.currentFare(organizationId, new Date());
     }
     
     @Override
     public Flux<Fare> getByOrganizationId(String organizationId) {
-        return fareRepository.findAll()
-                .filter(fare -> fare.getOrganizationId().equals(organizationId));
-    }
-    
-    @Override
-    public void triggerFareTransitions() {
-        // Implementation would go here
+        return fareRepository.findAllByOrganizationId(organizationId);
     }
     
     /**
-     * Automatically deactivate old fares after November 1st
-     * and set new fares to active with updated pricing
+     * Applies the fare transitions whose effective date was reached since the previous pass, with a
+     * fixed number of commands regardless of how many fares exist ({status, effectiveDate} index).
+     * Each pass covers the window from the previous pass to now, so every boundary is applied once:
+     * - Deactivates ACTIVE fares whose effective date passed in the window (one updateMany)
+     * - Activates, per organization, the INACTIVE fare with the latest effective date in the window
+     *   (one find plus one updateMany); the others of that organization stay INACTIVE
+     * - Deactivates the other ACTIVE fares of each organization whose new fare is still ACTIVE after the
+     *   update (one find plus one unordered bulkWrite)
+     * A fare changes at most once per pass, so each document is counted once. The first window starts
+     * when the service starts: boundaries passed while it was down are not replayed.
      */
-    public void processAutomaticFareTransitions() {
-        Date now = new Date();
-        
-        // Set the transition date (November 1st, 2025)
-        java.util.Calendar nov1 = java.util.Calendar.getInstance();
-        nov1.set(2025, java.util.Calendar.NOVEMBER, 1, 0, 0, 0);
-        nov1.set(java.util.Calendar.MILLISECOND, 0);
-        Date novFirst = nov1.getTime();
-        
-        // If we're past November 1st, deactivate old fares
-        if (now.after(novFirst)) {
-            // Find all active fares with effective date before November 1st
-            fareRepository.findAllByStatus(Constants.ACTIVE.name())
-                .filter(fare -> fare.getEffectiveDate() != null && fare.getEffectiveDate().before(novFirst))
-                .flatMap(fare -> {
-                    // Deactivate old fares
-                    fare.setStatus(Constants.INACTIVE.name());
-                    return fareRepository.save(fare);
-                })
-                .subscribe();
+    @Override
+    public Mono<FareTransitionResponse> triggerFareTransitions() {
+        Date now = Date.from(clock.instant());
+        Date from = Date.from(transitionsAppliedUntil.get());
+        return deactivateExpiredFares(from, now)
+                .flatMap(expired -> activateScheduledFares(from, now)
+                        .map(activation -> FareTransitionResponse.builder()
+                                .activated(activation.activated())
+                                .deactivated(expired + activation.superseded())
+                                .executedAt(LocalDateTime.ofInstant(now.toInstant(), ZoneId.systemDefault()))
+                                .build()))
+                .doOnSuccess(result -> {
+                    transitionsAppliedUntil.accumulateAndGet(now.toInstant(),
+                            (current, next) -> next.isAfter(current) ? next : current);
+                    log.info("Fare transitions applied: {} activated, {} deactivated",
+                            result.getActivated(), result.getDeactivated());
+                    if (result.getActivated() + result.getDeactivated() > 0) {
+                        eventPublisher.publishEvent(FareChangedEvent.allOrganizations());
+                    }
+                });
+    }
+
+    /** ACTIVE fares whose effective date is in [from, now): the previous pass left those equal to from. */
+    private Mono<Long> deactivateExpiredFares(Date from, Date now) {
+        Query expired = new Query(Criteria.where("status").is(Constants.ACTIVE.name())
+                .and("effectiveDate").gte(from).lt(now));
+        return mongoTemplate.updateMulti(expired, Update.update("status", Constants.INACTIVE.name()), Fare.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+
+    private Mono<FareActivation> activateScheduledFares(Date from, Date now) {
+        Query started = new Query(Criteria.where("status").is(Constants.INACTIVE.name())
+                .and("effectiveDate").gt(from).lte(now));
+        started.fields().include("organizationId").include("effectiveDate");
+
+        return mongoTemplate.find(started, Fare.class)
+                .collectList()
+                .flatMap(fares -> {
+                    List<String> ids = latestPerOrganization(fares);
+                    if (ids.isEmpty()) {
+                        return Mono.just(new FareActivation(0, 0));
+                    }
+                    // Se repite el filtro de estado por si alguna tarifa cambió entre la consulta y la escritura
+                    Query toActivate = new Query(Criteria.where("_id").in(ids)
+                            .and("status").is(Constants.INACTIVE.name()));
+                    return mongoTemplate.updateMulti(toActivate,
+                                    Update.update("status", Constants.ACTIVE.name()), Fare.class)
+                            .flatMap(activated -> stillActive(ids)
+                                    .flatMap(this::supersedeOtherActiveFares)
+                                    .map(superseded -> new FareActivation(activated.getModifiedCount(), superseded)));
+                });
+    }
+
+    /** Ids de la tarifa con la fecha de vigencia más reciente de cada organización. */
+    private static List<String> latestPerOrganization(List<Fare> fares) {
+        Map<String, Fare> latest = new HashMap<>();
+        for (Fare fare : fares) {
+            latest.merge(fare.getOrganizationId(), fare,
+                    (current, candidate) -> candidate.getEffectiveDate().after(current.getEffectiveDate())
+                            ? candidate : current);
+        }
+        return latest.values().stream().map(Fare::getId).toList();
+    }
+
+    // Solo se reemplazan las demás tarifas de una organización si su tarifa nueva quedó ACTIVE
+    private Mono<List<Fare>> stillActive(List<String> ids) {
+        Query active = new Query(Criteria.where("_id").in(ids).and("status").is(Constants.ACTIVE.name()));
+        active.fields().include("organizationId");
+        return mongoTemplate.find(active, Fare.class).collectList();
+    }
+
+    /** Una operación updateMany por organización, enviadas juntas en un solo bulkWrite. */
+    private Mono<Long> supersedeOtherActiveFares(List<Fare> activatedFares) {
+        if (activatedFares.isEmpty()) {
+            return Mono.just(0L);
+        }
+        ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Fare.class);
+        for (Fare fare : activatedFares) {
+            bulk.updateMulti(new Query(Criteria.where("organizationId").is(fare.getOrganizationId())
+                            .and("status").is(Constants.ACTIVE.name())
+                            .and("_id").ne(fare.getId())),
+                    Update.update("status", Constants.INACTIVE.name()));
         }
+        return bulk.execute().map(result -> (long) result.getModifiedCount());
+    }
+
+    // Reprograma la próxima transición (FareSchedulerService) y descarta la línea de tiempo (FareTimelineIndex)
+    // y las tarifas en caché (EntityCache)
+    private void publishFareChanged(Fare fare) {
+        eventPublisher.publishEvent(new FareChangedEvent(fare.getId(), fare.getOrganizationId()));
+    }
+
+    private record FareActivation(long activated, long superseded) {
     }
 }
\ No newline at end of file
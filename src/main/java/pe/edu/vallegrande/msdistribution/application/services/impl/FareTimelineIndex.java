@@ -0,0 +1,134 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import pe.edu.vallegrande.msdistribution.infrastructure.repository.FareRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Línea de tiempo en memoria de las tarifas ACTIVE de cada organización, ordenada por effectiveDate.
+ *
+ * Se carga la primera vez que se consulta una organización (una consulta por organización) y se
+ * descarta cuando llega un FareChangedEvent de esa organización, o de todas tras una transición
+ * masiva. Las demás consultas se resuelven en memoria en O(log n).
+ *
+ * Los cambios hechos por otros nodos no generan eventos aquí; por eso cada línea de tiempo
+ * caduca tras app.fare-timeline.ttl y se vuelve a cargar.
+ */
+@Component
+@Slf4j
+public class FareTimelineIndex {
+
+    private final FareRepository fareRepository;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<String, CachedTimeline> timelines = new ConcurrentHashMap<>();
+
+    @Value("${app.fare-timeline.ttl:5m}")
+    private Duration ttl = Duration.ofMinutes(5);
+
+    public FareTimelineIndex(FareRepository fareRepository, MeterRegistry meterRegistry) {
+        this.fareRepository = fareRepository;
+        this.hits = Counter.builder("fare.timeline.lookups")
+                .description("Current fare lookups answered by the in-memory timeline")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("fare.timeline.lookups")
+                .description("Current fare lookups that had to load the timeline from MongoDB")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tarifa vigente de la organización en el instante indicado: la tarifa ACTIVE con la fecha de
+     * vigencia más reciente que aún no ha pasado; si no hay ninguna, una tarifa ACTIVE sin fecha.
+     */
+    public Mono<Fare> currentFare(String organizationId, Date at) {
+        return timelineOf(organizationId).mapNotNull(timeline -> timeline.at(at));
+    }
+
+    @EventListener
+    public void onFareChanged(FareChangedEvent event) {
+        if (event.organizationId() == null) {
+            timelines.clear();
+        } else {
+            timelines.remove(event.organizationId());
+        }
+    }
+
+    private Mono<Timeline> timelineOf(String organizationId) {
+        long now = System.currentTimeMillis();
+        CachedTimeline cached = timelines.get(organizationId);
+        if (cached != null && now - cached.loadedAt() < ttl.toMillis()) {
+            hits.increment();
+            return cached.timeline();
+        }
+        misses.increment();
+        CachedTimeline loaded = new CachedTimeline(load(organizationId), now);
+        // Si otra petición ya la cargó se usa esa; las cargas en curso se comparten
+        CachedTimeline existing = cached != null
+                ? (timelines.replace(organizationId, cached, loaded) ? null : timelines.get(organizationId))
+                : timelines.putIfAbsent(organizationId, loaded);
+        CachedTimeline current = existing != null ? existing : loaded;
+        // Una carga fallida no se conserva: la siguiente consulta vuelve a intentarlo
+        return current.timeline().doOnError(e -> timelines.remove(organizationId, current));
+    }
+
+    private Mono<Timeline> load(String organizationId) {
+        return fareRepository.findByOrganizationIdAndStatusOrderByEffectiveDateDesc(organizationId,
+                        Constants.ACTIVE.name())
+                .collectList()
+                .map(Timeline::of)
+                .cache();
+    }
+
+    private record CachedTimeline(Mono<Timeline> timeline, long loadedAt) {
+    }
+
+    /** Tarifas ACTIVE de una organización; inmutable una vez construida. */
+    static final class Timeline {
+        private final NavigableMap<Date, Fare> byEffectiveDate;
+        private final Fare undated;
+
+        private Timeline(NavigableMap<Date, Fare> byEffectiveDate, Fare undated) {
+            this.byEffectiveDate = byEffectiveDate;
+            this.undated = undated;
+        }
+
+        static Timeline of(List<Fare> fares) {
+            NavigableMap<Date, Fare> byEffectiveDate = new TreeMap<>();
+            Fare undated = null;
+            for (Fare fare : fares) {
+                if (fare.getEffectiveDate() == null) {
+                    undated = undated != null ? undated : fare;
+                } else {
+                    // Con la misma fecha se conserva la primera (orden del repositorio)
+                    byEffectiveDate.putIfAbsent(fare.getEffectiveDate(), fare);
+                }
+            }
+            return new Timeline(Collections.unmodifiableNavigableMap(byEffectiveDate), undated);
+        }
+
+        Fare at(Date instant) {
+            // Tarifas con vigencia >= instant; de ellas la más reciente
+            Map.Entry<Date, Fare> latest = byEffectiveDate.tailMap(instant, true).lastEntry();
+            return latest != null ? latest.getValue() : undated;
+        }
+    }
+}
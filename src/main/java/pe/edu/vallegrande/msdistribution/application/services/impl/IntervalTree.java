@@ -0,0 +1,103 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Árbol de intervalos estático [inicio, fin) sobre enteros (minutos).
+ *
+ * Los elementos se ordenan por inicio y el árbol es implícito sobre ese arreglo: el nodo de [lo, hi) es el
+ * elemento central y guarda el mayor fin de su subárbol. Una consulta descarta los subárboles cuyo mayor
+ * fin no alcanza el inicio buscado y los que empiezan después del fin buscado: O(log n + k). Inmutable una
+ * vez construido; quien lo usa lo reconstruye cuando cambian los datos.
+ */
+final class IntervalTree<T> {
+
+    private final List<T> items;
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnd;
+
+    private IntervalTree(List<T> items, ToLongFunction<T> start, ToLongFunction<T> end) {
+        this.items = items;
+        this.starts = new long[items.size()];
+        this.ends = new long[items.size()];
+        this.maxEnd = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            starts[i] = start.applyAsLong(items.get(i));
+            ends[i] = end.applyAsLong(items.get(i));
+        }
+        build(0, items.size());
+    }
+
+    static <T> IntervalTree<T> of(Collection<T> items, ToLongFunction<T> start, ToLongFunction<T> end) {
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparingLong(start).thenComparingLong(end));
+        return new IntervalTree<>(List.copyOf(sorted), start, end);
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    /** Intervalos que se cruzan con [from, to), ordenados por inicio. */
+    List<T> overlapping(long from, long to) {
+        List<T> found = new ArrayList<>();
+        if (from < to) {
+            collect(0, items.size(), from, to, found);
+        }
+        return found;
+    }
+
+    /** Intervalos que contienen at, ordenados por inicio. */
+    List<T> containing(long at) {
+        return overlapping(at, at + 1);
+    }
+
+    /** Los limit primeros intervalos que empiezan después de at. */
+    List<T> startingAfter(long at, int limit) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= at) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return items.subList(low, Math.min(items.size(), low + limit));
+    }
+
+    private long build(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(build(lo, mid), build(mid + 1, hi)));
+        maxEnd[mid] = max;
+        return max;
+    }
+
+    private void collect(int lo, int hi, long from, long to, List<T> found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (maxEnd[mid] <= from) {
+            return;
+        }
+        collect(lo, mid, from, to, found);
+        // Los de la derecha empiezan en o después de este; si este ya empieza en to, ninguno se cruza
+        if (starts[mid] >= to) {
+            return;
+        }
+        if (ends[mid] > from) {
+            found.add(items.get(mid));
+        }
+        collect(mid + 1, hi, from, to, found);
+    }
+}
@@ -0,0 +1,89 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Índice en memoria por organización construido a partir de sus horarios y programas.
+ *
+ * La versión de cada índice combina la de los horarios y la de los programas de la organización
+ * (CollectionVersionService: escrituras propias al instante, las de otros nodos al caducar la versión) y
+ * el día; el índice se construye la primera vez que se consulta la organización y se reconstruye cuando esa
+ * versión cambia. Las consultas concurrentes comparten la carga y una carga fallida no se conserva. La
+ * métrica {name}.lookups{result=hit|miss} cuenta las consultas respondidas sin ir a MongoDB.
+ */
+final class OrganizationIndexCache<T> {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ActiveReferenceSnapshot activeSnapshot;
+    private final CollectionVersionService collectionVersions;
+    private final BiFunction<String, LocalDate, Mono<T>> loader;
+    private final Counter hits;
+    private final Counter misses;
+    private final Map<String, Cached<T>> indexes = new ConcurrentHashMap<>();
+
+    /** loader construye el índice de (organización, hoy); se llama solo cuando cambia la versión. */
+    OrganizationIndexCache(String name, ReactiveMongoTemplate mongoTemplate, ActiveReferenceSnapshot activeSnapshot,
+            CollectionVersionService collectionVersions, MeterRegistry meterRegistry,
+            BiFunction<String, LocalDate, Mono<T>> loader) {
+        this.mongoTemplate = mongoTemplate;
+        this.activeSnapshot = activeSnapshot;
+        this.collectionVersions = collectionVersions;
+        this.loader = loader;
+        this.hits = Counter.builder(name + ".lookups")
+                .description("Lookups answered by the in-memory index of the organization")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder(name + ".lookups")
+                .description("Lookups that had to build the index of the organization from MongoDB")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /** Índice vigente de la organización para el día today. */
+    Mono<T> get(String organizationId, LocalDate today) {
+        String version = collectionVersions.current(DistributionSchedule.class, organizationId).etag()
+                + "|" + collectionVersions.current(DistributionProgram.class, organizationId).etag()
+                + "|" + today;
+        Cached<T> cached = indexes.get(organizationId);
+        if (cached != null && cached.version().equals(version)) {
+            hits.increment();
+            return cached.index();
+        }
+        misses.increment();
+        Cached<T> loaded = new Cached<>(loader.apply(organizationId, today).cache(), version);
+        // Si otra petición ya la reemplazó se usa esa; las cargas en curso se comparten
+        Cached<T> existing = cached != null
+                ? (indexes.replace(organizationId, cached, loaded) ? null : indexes.get(organizationId))
+                : indexes.putIfAbsent(organizationId, loaded);
+        Cached<T> current = existing != null ? existing : loaded;
+        // Una carga fallida no se conserva: la siguiente consulta vuelve a intentarlo
+        return current.index().doOnError(e -> indexes.remove(organizationId, current));
+    }
+
+    /** Horarios activos de la organización, desde la copia en memoria si se mantiene. */
+    Mono<List<DistributionSchedule>> activeSchedules(String organizationId) {
+        ActiveReferenceSnapshot.Snapshot<DistributionSchedule> snapshot = activeSnapshot.schedules();
+        return snapshot != null
+                ? Mono.just(snapshot.forOrganization(organizationId))
+                : mongoTemplate.find(new Query(Criteria.where("organizationId").is(organizationId)
+                        .and("status").is(Constants.ACTIVE.name())), DistributionSchedule.class).collectList();
+    }
+
+    private record Cached<T>(Mono<T> index, String version) {
+    }
+}
@@ -0,0 +1,348 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.events.ScheduleChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.PlanningWatermark;
+import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionScheduleRepository;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Mantiene generados los programas de los próximos app.program-planner.horizon-days días de cada organización.
+ *
+ * La colección planning_watermarks guarda hasta qué fecha está planificada cada organización. Al iniciar
+ * y cada medianoche (zona app.program-planner.zone) solo se generan los días entre esa marca y el nuevo
+ * horizonte, normalmente uno, y la marca avanza después de insertarlos: si la réplica cae a mitad, el
+ * siguiente intento repite esos días y el generador omite los que ya se insertaron. Cuando un horario
+ * cambia (ScheduleChangedEvent) se ajustan solo sus programas PLANNED entre hoy y la marca: se borran las
+ * fechas que ya no le corresponden, se actualizan zona, calle y horas y se crean las que faltan. Los
+ * programas en curso, completados o posteriores a la marca no se tocan.
+ *
+ * En esta réplica las tareas se ejecutan de una en una; entre réplicas, cada organización se planifica con
+ * un lease (dueño y vencimiento en el mismo documento de la marca). Si la réplica que lo tiene cae, vence a
+ * los app.program-planner.lease y otra lo toma.
+ */
+@Component
+@Slf4j
+public class ProgramHorizonPlanner {
+
+    private static final String PLANNED = "PLANNED";
+    private static final Duration LEASE_RETRY = Duration.ofSeconds(1);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final DistributionScheduleRepository scheduleRepository;
+    private final ProgramMaterializer materializer;
+    private final CollectionVersionService collectionVersions;
+    private final EntityCache entityCache;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${app.program-planner.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.program-planner.horizon-days:30}")
+    private int horizonDays = 30;
+
+    @Value("${app.program-planner.zone:America/Lima}")
+    private String zone = "America/Lima";
+
+    @Value("${app.program-planner.lease:5m}")
+    private Duration lease = Duration.ofMinutes(5);
+
+    // Reemplazable en pruebas
+    Clock clock = Clock.systemUTC();
+
+    private final Disposable.Swap timer = Disposables.swap();
+    private final Sinks.Many<Mono<Void>> tasks = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable worker;
+
+    public ProgramHorizonPlanner(ReactiveMongoTemplate mongoTemplate, DistributionScheduleRepository scheduleRepository,
+            ProgramMaterializer materializer, CollectionVersionService collectionVersions, EntityCache entityCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.scheduleRepository = scheduleRepository;
+        this.materializer = materializer;
+        this.collectionVersions = collectionVersions;
+        this.entityCache = entityCache;
+        this.worker = tasks.asFlux()
+                .concatMap(task -> task.onErrorResume(error -> {
+                    log.error("Program planning failed: ", error);
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.info("Program planner disabled");
+            return;
+        }
+        submit(planAll());
+        arm();
+    }
+
+    @EventListener
+    public void onScheduleChanged(ScheduleChangedEvent event) {
+        if (enabled) {
+            submit(patch(event.scheduleId(), event.organizationId()));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.dispose();
+        worker.dispose();
+    }
+
+    /** Extiende el horizonte de todas las organizaciones con horarios activos; devuelve los programas creados. */
+    public Mono<Long> planAll() {
+        return mongoTemplate.findDistinct(new Query(Criteria.where("status").is(Constants.ACTIVE.name())),
+                        "organizationId", DistributionSchedule.class, String.class)
+                .concatMap(this::extend)
+                .reduce(0L, Long::sum)
+                .doOnNext(created -> log.info("Program horizon planned through {}: {} programs created",
+                        today().plusDays(horizonDays - 1L), created));
+    }
+
+    /** Genera solo los días entre la marca de la organización y el horizonte; devuelve los programas creados. */
+    public Mono<Long> extend(String organizationId) {
+        LocalDate today = today();
+        return watermark(organizationId).flatMap(current -> {
+            if (pendingFrom(current, today).isAfter(horizon(today))) {
+                return Mono.just(0L);
+            }
+            return leased(organizationId, false, Mono.defer(() -> plan(organizationId)))
+                    .switchIfEmpty(Mono.fromCallable(() -> {
+                        log.debug("Planning of organization {} taken by another instance", organizationId);
+                        return 0L;
+                    }));
+        });
+    }
+
+    /**
+     * Ajusta los programas PLANNED futuros del horario a su estado actual. Si el horario ya no existe o
+     * está inactivo se borran; si cambió de organización se borran los de la anterior. Devuelve los
+     * programas creados, modificados o borrados.
+     */
+    public Mono<Long> patch(String scheduleId, String organizationId) {
+        return scheduleRepository.findById(scheduleId)
+                .filter(schedule -> Constants.ACTIVE.name().equals(schedule.getStatus()))
+                .flatMap(schedule -> {
+                    Mono<Long> moved = organizationId == null || organizationId.equals(schedule.getOrganizationId())
+                            ? Mono.just(0L)
+                            : discard(scheduleId, organizationId);
+                    return moved.flatMap(removed -> reconcile(schedule).map(changed -> removed + changed));
+                })
+                .switchIfEmpty(Mono.defer(() -> discard(scheduleId, organizationId)))
+                .doOnNext(changed -> log.debug("Schedule {} changed: {} planned programs adjusted", scheduleId, changed));
+    }
+
+    // Con el lease: otra réplica no puede estar generando los mismos días de la organización
+    private Mono<Long> reconcile(DistributionSchedule schedule) {
+        String organizationId = schedule.getOrganizationId();
+        return leased(organizationId, true, Mono.defer(() -> {
+            LocalDate today = today();
+            return plannedThrough(organizationId, today)
+                    .flatMap(through -> {
+                        Set<DayOfWeek> days = ScheduleCalendar.daysOf(schedule);
+                        List<LocalDate> stale = new ArrayList<>();
+                        for (LocalDate date = today; !date.isAfter(through); date = date.plusDays(1)) {
+                            if (!days.contains(date.getDayOfWeek())) {
+                                stale.add(date);
+                            }
+                        }
+                        Mono<Long> removed = stale.isEmpty()
+                                ? Mono.just(0L)
+                                : mongoTemplate.remove(new Query(planned(schedule.getId(), organizationId)
+                                                .and("programDate").in(stale)), DistributionProgram.class)
+                                        .map(DeleteResult::getDeletedCount);
+                        Update update = new Update()
+                                .set("zoneId", schedule.getZoneId())
+                                .set("streetId", schedule.getStreetId())
+                                .set("plannedStartTime", schedule.getStartTime())
+                                .set("plannedEndTime", schedule.getEndTime());
+                        Mono<Long> updated = mongoTemplate.updateMulti(new Query(planned(schedule.getId(), organizationId)
+                                        .and("programDate").gte(today).lte(through)), update, DistributionProgram.class)
+                                .map(UpdateResult::getModifiedCount);
+                        return removed.flatMap(deleted -> updated.map(modified -> deleted + modified))
+                                .doOnNext(changed -> changed(organizationId, changed))
+                                .flatMap(changed -> materializer.materialize(organizationId, List.of(schedule), today,
+                                                through, null, null)
+                                        .map(result -> changed + result.created()));
+                    })
+                    .defaultIfEmpty(0L)
+                    // Organización sin planificar todavía (primer horario) o marca atrasada
+                    .flatMap(changed -> plan(organizationId).map(created -> changed + created));
+        }));
+    }
+
+    private Mono<Long> discard(String scheduleId, String organizationId) {
+        if (organizationId == null) {
+            return Mono.just(0L);
+        }
+        return leased(organizationId, true, Mono.defer(() -> {
+            LocalDate today = today();
+            return plannedThrough(organizationId, today)
+                    .flatMap(through -> mongoTemplate.remove(new Query(planned(scheduleId, organizationId)
+                            .and("programDate").gte(today).lte(through)), DistributionProgram.class))
+                    .map(DeleteResult::getDeletedCount)
+                    .doOnNext(removed -> changed(organizationId, removed))
+                    .defaultIfEmpty(0L);
+        }));
+    }
+
+    // Con el lease: genera desde la marca hasta el horizonte y solo después avanza la marca
+    private Mono<Long> plan(String organizationId) {
+        LocalDate today = today();
+        LocalDate target = horizon(today);
+        return watermark(organizationId).flatMap(current -> {
+            LocalDate from = pendingFrom(current, today);
+            if (from.isAfter(target)) {
+                return Mono.just(0L);
+            }
+            return scheduleRepository.findAllByOrganizationIdAndStatus(organizationId, Constants.ACTIVE.name())
+                    .collectList()
+                    .flatMap(schedules -> materializer.materialize(organizationId, schedules, from, target, null, null))
+                    .flatMap(result -> advance(organizationId, target).thenReturn(result.created()));
+        });
+    }
+
+    private LocalDate horizon(LocalDate today) {
+        return today.plusDays(horizonDays - 1L);
+    }
+
+    private static LocalDate pendingFrom(Optional<LocalDate> current, LocalDate today) {
+        return current.filter(through -> !through.isBefore(today))
+                .map(through -> through.plusDays(1))
+                .orElse(today);
+    }
+
+    private static Criteria planned(String scheduleId, String organizationId) {
+        return Criteria.where("scheduleId").is(scheduleId)
+                .and("organizationId").is(organizationId)
+                .and("status").is(PLANNED);
+    }
+
+    // Los programas se borran y actualizan por consulta, sin ids: se vacía la caché de programas
+    private void changed(String organizationId, long changed) {
+        if (changed > 0) {
+            collectionVersions.bump(DistributionProgram.class, organizationId);
+            entityCache.invalidateAll(DistributionProgram.class);
+        }
+    }
+
+    // Marca de la organización si cubre hoy; vacío si no hay días futuros planificados
+    private Mono<LocalDate> plannedThrough(String organizationId, LocalDate today) {
+        return watermark(organizationId)
+                .flatMap(current -> Mono.justOrEmpty(current.filter(through -> !through.isBefore(today))));
+    }
+
+    private Mono<Optional<LocalDate>> watermark(String organizationId) {
+        return mongoTemplate.findById(organizationId, PlanningWatermark.class)
+                .map(watermark -> Optional.ofNullable(watermark.getPlannedThrough()))
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    /**
+     * Ejecuta work con el lease de la organización y lo libera al terminar, falle o no. Vacío si otra
+     * réplica lo tiene; con wait reintenta hasta que vence el lease ajeno.
+     */
+    private <T> Mono<T> leased(String organizationId, boolean wait, Mono<T> work) {
+        Mono<Boolean> acquired = acquire(organizationId).filter(Boolean::booleanValue);
+        if (wait) {
+            acquired = acquired
+                    .repeatWhenEmpty(attempts -> attempts.take(lease.dividedBy(LEASE_RETRY)).delayElements(LEASE_RETRY))
+                    .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                            "Planning lease of organization " + organizationId + " not available")));
+        }
+        return Mono.usingWhen(acquired, held -> work,
+                held -> release(organizationId),
+                (held, error) -> release(organizationId),
+                held -> release(organizationId));
+    }
+
+    // Toma el lease si está libre o vencido; si el documento no existe lo crea sin marca
+    private Mono<Boolean> acquire(String organizationId) {
+        Instant now = clock.instant();
+        Query free = new Query(Criteria.where("_id").is(organizationId)
+                .orOperator(Criteria.where("leaseUntil").is(null), Criteria.where("leaseUntil").lte(now)));
+        return mongoTemplate.upsert(free,
+                        new Update().set("leaseOwner", instanceId).set("leaseUntil", now.plus(lease)),
+                        PlanningWatermark.class)
+                .thenReturn(true)
+                // Existe con un lease vigente: el upsert intenta insertar el mismo _id
+                .onErrorResume(DuplicateKeyException.class, error -> Mono.just(false));
+    }
+
+    private Mono<Void> release(String organizationId) {
+        return mongoTemplate.updateFirst(owned(organizationId),
+                        new Update().unset("leaseOwner").unset("leaseUntil"), PlanningWatermark.class)
+                .then();
+    }
+
+    private Mono<Void> advance(String organizationId, LocalDate target) {
+        return mongoTemplate.updateFirst(owned(organizationId),
+                        new Update().set("plannedThrough", target).set("updatedAt", Instant.now()),
+                        PlanningWatermark.class)
+                .doOnNext(result -> {
+                    if (result.getModifiedCount() == 0) {
+                        log.warn("Planning lease of organization {} expired before advancing to {}", organizationId, target);
+                    }
+                })
+                .then();
+    }
+
+    private Query owned(String organizationId) {
+        return new Query(Criteria.where("_id").is(organizationId).and("leaseOwner").is(instanceId));
+    }
+
+    private void submit(Mono<?> task) {
+        tasks.emitNext(task.then(), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+
+    // Un segundo después de la medianoche local, para que today() ya sea el nuevo día
+    private void arm() {
+        ZoneId zoneId = ZoneId.of(zone);
+        ZonedDateTime now = ZonedDateTime.now(clock.withZone(zoneId));
+        ZonedDateTime next = now.toLocalDate().plusDays(1).atStartOfDay(zoneId).plusSeconds(1);
+        timer.update(Mono.delay(Duration.between(now, next)).subscribe(tick -> {
+            submit(planAll());
+            arm();
+        }));
+        log.info("Next program planning at {}", next);
+    }
+
+    LocalDate today() {
+        return LocalDate.now(clock.withZone(ZoneId.of(zone)));
+    }
+}
@@ -0,0 +1,188 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.MongoBulkWriteException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Convierte horarios (DistributionSchedule) en programas (DistributionProgram) para un rango de fechas.
+ *
+ * Cada horario produce un programa PLANNED por fecha que cae en sus daysOfWeek, con el horario
+ * planificado y la zona/calle del horario. Las fechas que ya tienen programa para el mismo horario se
+ * omiten. Esa lectura no basta si dos generaciones se cruzan (planificador y generación manual): el índice
+ * único parcial DistributionProgram.GENERATED_SLOT_INDEX rechaza el segundo programa del mismo horario y
+ * fecha, y como el bulkWrite no es ordenado el resto del lote se inserta igual; esas claves duplicadas se
+ * cuentan como omitidas. Los códigos se reservan de una vez (CodeSequenceService.nextCodes) y los programas
+ * se escriben en lotes de app.program-generation.chunk-size, varios lotes en paralelo.
+ * Antes de insertar, el lote pasa por ConflictDetector.admissible: que los horarios no se crucen entre sí no
+ * basta, porque la generación manual pone el mismo responsibleUserId en todos los programas y los
+ * programas existentes pueden haberse editado. Los que se cruzan no se insertan y se cuentan aparte.
+ */
+@Component
+@Slf4j
+public class ProgramMaterializer {
+
+    private static final String PROGRAM_PREFIX = "PRG";
+    private static final String PLANNED = "PLANNED";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final CodeSequenceService codeSequenceService;
+    private final CollectionVersionService collectionVersions;
+    private final ConflictDetector conflictDetector;
+
+    @Value("${app.program-generation.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${app.program-generation.concurrency:4}")
+    private int concurrency = 4;
+
+    public ProgramMaterializer(ReactiveMongoTemplate mongoTemplate, CodeSequenceService codeSequenceService,
+            CollectionVersionService collectionVersions, ConflictDetector conflictDetector) {
+        this.mongoTemplate = mongoTemplate;
+        this.codeSequenceService = codeSequenceService;
+        this.collectionVersions = collectionVersions;
+        this.conflictDetector = conflictDetector;
+    }
+
+    /**
+     * Inserta los programas de los horarios indicados entre from y to (inclusive).
+     * routeId y responsibleUserId son opcionales y se copian a todos los programas.
+     */
+    public Mono<Result> materialize(String organizationId, List<DistributionSchedule> schedules,
+            LocalDate from, LocalDate to, String routeId, String responsibleUserId) {
+        if (schedules.isEmpty() || to.isBefore(from)) {
+            return Mono.just(new Result(0, 0, 0));
+        }
+        return existingSlots(organizationId, schedules, from, to)
+                .flatMap(existing -> {
+                    List<DistributionProgram> programs = new ArrayList<>();
+                    long skipped = 0;
+                    Instant now = Instant.now();
+                    for (DistributionSchedule schedule : schedules) {
+                        for (LocalDate date : ScheduleCalendar.dates(
+                                ScheduleCalendar.daysOf(schedule), from, to)) {
+                            if (existing.contains(slot(schedule.getId(), date))) {
+                                skipped++;
+                            } else {
+                                programs.add(program(schedule, date, routeId, responsibleUserId, now));
+                            }
+                        }
+                    }
+                    long alreadyPlanned = skipped;
+                    return conflictDetector.admissible(organizationId, programs)
+                            .flatMap(admitted -> insert(admitted)
+                                    .map(written -> new Result(written.created(), alreadyPlanned + written.skipped(),
+                                            programs.size() - admitted.size())));
+                })
+                .doOnNext(result -> {
+                    if (result.created() > 0) {
+                        collectionVersions.bump(DistributionProgram.class, organizationId);
+                    }
+                    log.info("Programs for organization {} from {} to {}: {} created, {} already planned, {} conflicting",
+                            organizationId, from, to, result.created(), result.skipped(), result.conflicts());
+                });
+    }
+
+    // (horario, fecha) que ya tienen programa; solo se leen esos dos campos
+    private Mono<Set<String>> existingSlots(String organizationId, List<DistributionSchedule> schedules,
+            LocalDate from, LocalDate to) {
+        Query query = new Query(Criteria.where("organizationId").is(organizationId)
+                .and("programDate").gte(from).lte(to)
+                .and("scheduleId").in(schedules.stream().map(DistributionSchedule::getId).toList()));
+        query.fields().include("scheduleId").include("programDate");
+        return mongoTemplate.find(query, DistributionProgram.class)
+                .map(program -> slot(program.getScheduleId(), program.getProgramDate()))
+                .collect(Collectors.toSet());
+    }
+
+    private Mono<Result> insert(List<DistributionProgram> programs) {
+        if (programs.isEmpty()) {
+            return Mono.just(new Result(0, 0, 0));
+        }
+        return codeSequenceService.nextCodes(PROGRAM_PREFIX, programs.size())
+                .index()
+                .doOnNext(code -> programs.get(code.getT1().intValue()).setProgramCode(code.getT2()))
+                .thenMany(Flux.fromIterable(programs).buffer(chunkSize))
+                .flatMap(chunk -> {
+                    ReactiveBulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                            DistributionProgram.class);
+                    bulk.insert(chunk);
+                    return bulk.execute()
+                            .map(result -> new Result(result.getInsertedCount(), 0, 0))
+                            .onErrorResume(error -> {
+                                MongoBulkWriteException duplicates = duplicateSlots(error);
+                                if (duplicates == null) {
+                                    return Mono.error(error);
+                                }
+                                log.debug("{} programs already generated by a concurrent run", duplicates.getWriteErrors().size());
+                                return Mono.just(new Result(duplicates.getWriteResult().getInsertedCount(),
+                                        duplicates.getWriteErrors().size(), 0));
+                            });
+                }, concurrency)
+                .reduce(new Result(0, 0, 0), (total, chunk) ->
+                        new Result(total.created() + chunk.created(), total.skipped() + chunk.skipped(), 0));
+    }
+
+    // El error del lote si todos sus fallos son claves duplicadas de (horario, fecha); null si hay otros
+    private static MongoBulkWriteException duplicateSlots(Throwable error) {
+        Throwable cause = error;
+        while (cause != null && !(cause instanceof MongoBulkWriteException)) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof MongoBulkWriteException bulkError && bulkError.getWriteErrors().stream()
+                .allMatch(writeError -> writeError.getCode() == DUPLICATE_KEY
+                        && writeError.getMessage().contains(DistributionProgram.GENERATED_SLOT_INDEX))) {
+            return bulkError;
+        }
+        return null;
+    }
+
+    private static DistributionProgram program(DistributionSchedule schedule, LocalDate date, String routeId,
+            String responsibleUserId, Instant now) {
+        return DistributionProgram.builder()
+                .organizationId(schedule.getOrganizationId())
+                .scheduleId(schedule.getId())
+                .routeId(routeId)
+                .zoneId(schedule.getZoneId())
+                .streetId(schedule.getStreetId())
+                .programDate(date)
+                .plannedStartTime(schedule.getStartTime())
+                .plannedEndTime(schedule.getEndTime())
+                .status(PLANNED)
+                .responsibleUserId(responsibleUserId)
+                .generated(true)
+                .createdAt(now)
+                .build();
+    }
+
+    private static String slot(String scheduleId, LocalDate date) {
+        return scheduleId + "|" + date;
+    }
+
+    /**
+     * created: programas insertados; skipped: fechas que ya tenían programa del mismo horario; conflicts:
+     * programas no insertados porque se cruzaban con otro (ConflictDetector).
+     */
+    public record Result(long created, long skipped, long conflicts) {
+    }
+}
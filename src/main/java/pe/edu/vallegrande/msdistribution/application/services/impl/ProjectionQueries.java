@@ -0,0 +1,33 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+
+/**
+ * Consultas con proyección para los listados con ?fields=: MongoDB solo devuelve los campos
+ * indicados, así no viajan ni se decodifican zonas, observaciones, etc. que el cliente no pidió.
+ * Los nombres son de propiedades de la entidad; el QueryMapper los traduce a los del documento.
+ */
+final class ProjectionQueries {
+
+    private ProjectionQueries() {
+    }
+
+    /**
+     * afterId y limit se usan igual que en getPage (keyset sobre _id); con limit null no se pagina.
+     */
+    static Query of(Collection<String> fields, String afterId, Integer limit) {
+        Query query = new Query();
+        fields.forEach(field -> query.fields().include(field));
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(afterId));
+        }
+        if (limit != null) {
+            query.with(Sort.by(Sort.Direction.ASC, "id")).limit(limit);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,195 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+
+import java.text.Normalizer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interpretación de los campos libres de DistributionSchedule (daysOfWeek, startTime, endTime).
+ *
+ * Los días se guardan en inglés o en español, con o sin tilde, completos o abreviados
+ * ("MONDAY", "LUNES", "Miércoles", "MIE") e incluso varios en un mismo elemento separados por comas.
+ * Las horas aceptan "6:30", "06:30", "06:30:00" y "6:30 AM". Lo que no se reconoce se ignora.
+ *
+ * compile() guarda el resultado en el propio horario (dayMask, startMinute, endMinute) para que las
+ * consultas por día y hora sean comparaciones de enteros, en memoria o en MongoDB.
+ */
+final class ScheduleCalendar {
+
+    private static final Map<String, DayOfWeek> DAY_NAMES = Map.ofEntries(
+            Map.entry("MONDAY", DayOfWeek.MONDAY), Map.entry("LUNES", DayOfWeek.MONDAY),
+            Map.entry("TUESDAY", DayOfWeek.TUESDAY), Map.entry("MARTES", DayOfWeek.TUESDAY),
+            Map.entry("WEDNESDAY", DayOfWeek.WEDNESDAY), Map.entry("MIERCOLES", DayOfWeek.WEDNESDAY),
+            Map.entry("THURSDAY", DayOfWeek.THURSDAY), Map.entry("JUEVES", DayOfWeek.THURSDAY),
+            Map.entry("FRIDAY", DayOfWeek.FRIDAY), Map.entry("VIERNES", DayOfWeek.FRIDAY),
+            Map.entry("SATURDAY", DayOfWeek.SATURDAY), Map.entry("SABADO", DayOfWeek.SATURDAY),
+            Map.entry("SUNDAY", DayOfWeek.SUNDAY), Map.entry("DOMINGO", DayOfWeek.SUNDAY));
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final List<DateTimeFormatter> TIME_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("H:mm[:ss]"),
+            DateTimeFormatter.ofPattern("h:mm[:ss] a", Locale.ENGLISH));
+
+    private ScheduleCalendar() {
+    }
+
+    /** Días de la semana del horario; vacío si ninguno se reconoce. */
+    static Set<DayOfWeek> days(List<String> daysOfWeek) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        if (daysOfWeek == null) {
+            return days;
+        }
+        for (String value : daysOfWeek) {
+            if (value == null) {
+                continue;
+            }
+            for (String name : value.split("[,;/]")) {
+                DayOfWeek day = day(name);
+                if (day != null) {
+                    days.add(day);
+                }
+            }
+        }
+        return days;
+    }
+
+    static DayOfWeek day(String name) {
+        String key = normalize(name);
+        if (key.isEmpty()) {
+            return null;
+        }
+        DayOfWeek day = DAY_NAMES.get(key);
+        if (day != null || key.length() < 2) {
+            return day;
+        }
+        // Abreviaturas: "LUN", "MON", "MIE", "SA"...; solo si el prefijo identifica un único día
+        DayOfWeek match = null;
+        for (Map.Entry<String, DayOfWeek> entry : DAY_NAMES.entrySet()) {
+            if (entry.getKey().startsWith(key)) {
+                if (match != null && match != entry.getValue()) {
+                    return null;
+                }
+                match = entry.getValue();
+            }
+        }
+        return match;
+    }
+
+    /** Minuto del día (0-1439) de una hora, o null si no se puede interpretar. */
+    static Integer minuteOfDay(String time) {
+        if (time == null || time.isBlank()) {
+            return null;
+        }
+        String value = time.trim().toUpperCase(Locale.ROOT).replace(".", "");
+        for (DateTimeFormatter format : TIME_FORMATS) {
+            try {
+                LocalTime parsed = LocalTime.parse(value, format);
+                return parsed.getHour() * 60 + parsed.getMinute();
+            } catch (DateTimeParseException ignored) {
+                // se prueba el siguiente formato
+            }
+        }
+        return null;
+    }
+
+    /** Bit del día en dayMask: lunes = 1, martes = 2, ... domingo = 64. */
+    static int bit(DayOfWeek day) {
+        return 1 << (day.getValue() - 1);
+    }
+
+    static int mask(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= bit(day);
+        }
+        return mask;
+    }
+
+    /** Días del horario: de dayMask si ya está compilado, si no de daysOfWeek. */
+    static Set<DayOfWeek> daysOf(DistributionSchedule schedule) {
+        Integer mask = schedule.getDayMask();
+        if (mask == null) {
+            return days(schedule.getDaysOfWeek());
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((mask & bit(day)) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Calcula dayMask, startMinute y endMinute a partir de los campos libres. Si la hora de fin no es
+     * posterior a la de inicio el horario termina al día siguiente y endMinute supera 1440.
+     */
+    static DistributionSchedule compile(DistributionSchedule schedule) {
+        Integer start = minuteOfDay(schedule.getStartTime());
+        Integer end = minuteOfDay(schedule.getEndTime());
+        if (start != null && end != null && end <= start) {
+            end += MINUTES_PER_DAY;
+        }
+        schedule.setDayMask(mask(days(schedule.getDaysOfWeek())));
+        schedule.setStartMinute(start);
+        schedule.setEndMinute(end);
+        return schedule;
+    }
+
+    /** Si el horario compilado está vigente ese día a ese minuto (incluye lo que sigue del día anterior). */
+    static boolean activeAt(DistributionSchedule schedule, DayOfWeek day, int minute) {
+        Integer mask = schedule.getDayMask();
+        Integer start = schedule.getStartMinute();
+        Integer end = schedule.getEndMinute();
+        if (mask == null || start == null || end == null) {
+            return false;
+        }
+        boolean today = (mask & bit(day)) != 0 && start <= minute && minute < end;
+        boolean fromYesterday = (mask & bit(day.minus(1))) != 0 && minute + MINUTES_PER_DAY < end;
+        return today || fromYesterday;
+    }
+
+    /** Mismo criterio que activeAt(schedule, day, minute) como consulta de MongoDB. */
+    static Criteria activeAt(DayOfWeek day, int minute) {
+        return new Criteria().orOperator(
+                Criteria.where("dayMask").bits().allSet(bit(day))
+                        .and("startMinute").lte(minute)
+                        .and("endMinute").gt(minute),
+                Criteria.where("dayMask").bits().allSet(bit(day.minus(1)))
+                        .and("endMinute").gt(minute + MINUTES_PER_DAY));
+    }
+
+    /** Fechas entre from y to (inclusive) que caen en alguno de los días indicados. */
+    static List<LocalDate> dates(Set<DayOfWeek> days, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        if (days.isEmpty()) {
+            return dates;
+        }
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (days.contains(date.getDayOfWeek())) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    private static String normalize(String name) {
+        String trimmed = name == null ? "" : name.trim().toUpperCase(Locale.ROOT);
+        return Normalizer.normalize(trimmed, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("[^A-Z]", "");
+    }
+}
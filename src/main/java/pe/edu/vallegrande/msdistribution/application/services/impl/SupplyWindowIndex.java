@@ -0,0 +1,251 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ventanas de abastecimiento de cada organización en memoria, por zona y calle, para responder
+ * "cuándo llega el agua" sin consultar MongoDB.
+ *
+ * El índice de una organización cubre desde ayer (horarios que cruzan la medianoche) hasta
+ * app.supply-index.lookahead-days días adelante. Cada programa no INACTIVE es una ventana; cada horario
+ * ACTIVE se expande por sus días salvo en las fechas que ya tienen programa (un programa INACTIVE anula
+ * esa fecha). Las ventanas de cada calle se guardan en un IntervalTree, así la ventana en curso y las
+ * siguientes se obtienen en O(log n).
+ *
+ * El índice se reconstruye cuando cambian los horarios o programas de la organización o cambia el día
+ * (OrganizationIndexCache, métrica supply.index.lookups).
+ */
+@Component
+@Slf4j
+public class SupplyWindowIndex {
+
+    static final String PROGRAM = "PROGRAM";
+    static final String SCHEDULE = "SCHEDULE";
+
+    private static final int MINUTES_PER_DAY = ScheduleCalendar.MINUTES_PER_DAY;
+    private static final Comparator<Window> BY_START = Comparator.comparingLong(Window::start)
+            .thenComparingLong(Window::end);
+    private static final IntervalTree<Window> NONE = tree(List.of());
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final OrganizationIndexCache<Index> indexes;
+
+    @Value("${app.supply-index.lookahead-days:14}")
+    private int lookaheadDays = 14;
+
+    @Value("${app.supply-index.zone:America/Lima}")
+    private String zone = "America/Lima";
+
+    // Reemplazable en pruebas
+    Clock clock = Clock.systemUTC();
+
+    public SupplyWindowIndex(ReactiveMongoTemplate mongoTemplate, ActiveReferenceSnapshot activeSnapshot,
+            CollectionVersionService collectionVersions, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.indexes = new OrganizationIndexCache<>("supply.index", mongoTemplate, activeSnapshot,
+                collectionVersions, meterRegistry, this::load);
+    }
+
+    /** Hora local actual en la zona configurada. */
+    LocalDateTime now() {
+        return LocalDateTime.now(clock.withZone(ZoneId.of(zone)));
+    }
+
+    /** Índice vigente de la organización. */
+    Mono<Index> indexOf(String organizationId) {
+        return indexes.get(organizationId, now().toLocalDate());
+    }
+
+    private Mono<Index> load(String organizationId, LocalDate today) {
+        LocalDate from = today.minusDays(1);
+        LocalDate until = today.plusDays(lookaheadDays);
+        Query programQuery = new Query(Criteria.where("organizationId").is(organizationId)
+                .and("programDate").gte(from).lt(until));
+        programQuery.fields().include("scheduleId").include("zoneId").include("streetId").include("programDate")
+                .include("plannedStartTime").include("plannedEndTime").include("status");
+        Mono<List<DistributionProgram>> programs = mongoTemplate.find(programQuery, DistributionProgram.class)
+                .collectList();
+        return Mono.zip(indexes.activeSchedules(organizationId), programs)
+                .map(loaded -> Index.build(loaded.getT1(), loaded.getT2(), from, until))
+                .doOnNext(index -> log.debug("Supply index of organization {} built: {} windows until {}",
+                        organizationId, index.size(), until));
+    }
+
+    static long minuteOf(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60L + time.getMinute();
+    }
+
+    static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(Math.floorDiv(minute, MINUTES_PER_DAY)),
+                LocalTime.ofSecondOfDay(Math.floorMod(minute, MINUTES_PER_DAY) * 60L));
+    }
+
+    private static IntervalTree<Window> tree(List<Window> windows) {
+        return IntervalTree.of(windows, Window::start, Window::end);
+    }
+
+    /**
+     * Ventana de abastecimiento; start y end en minutos locales desde 1970-01-01 (end exclusivo).
+     * programId es null si sale de un horario sin programa para esa fecha.
+     */
+    record Window(long start, long end, String zoneId, String streetId, String scheduleId, String programId,
+            String source) {
+    }
+
+    /** Ventanas en curso y siguientes de una consulta. */
+    record Lookup(List<Window> current, List<Window> next) {
+    }
+
+    /** Ventanas de una organización por zona y calle; inmutable una vez construido. */
+    static final class Index {
+        private final Map<String, ZoneWindows> byZone;
+        private final int size;
+
+        private Index(Map<String, ZoneWindows> byZone, int size) {
+            this.byZone = byZone;
+            this.size = size;
+        }
+
+        static Index build(List<DistributionSchedule> schedules, List<DistributionProgram> programs,
+                LocalDate from, LocalDate until) {
+            List<Window> windows = new ArrayList<>();
+            Set<String> programmed = new HashSet<>();
+            for (DistributionProgram program : programs) {
+                if (program.getProgramDate() == null || program.getZoneId() == null) {
+                    continue;
+                }
+                if (program.getScheduleId() != null) {
+                    programmed.add(program.getScheduleId() + "|" + program.getProgramDate());
+                }
+                if (!Constants.INACTIVE.name().equals(program.getStatus())) {
+                    add(windows, program.getProgramDate(),
+                            ScheduleCalendar.minuteOfDay(program.getPlannedStartTime()),
+                            ScheduleCalendar.minuteOfDay(program.getPlannedEndTime()),
+                            program.getZoneId(), program.getStreetId(), program.getScheduleId(), program.getId(),
+                            PROGRAM);
+                }
+            }
+            for (DistributionSchedule schedule : schedules) {
+                if (schedule.getZoneId() == null) {
+                    continue;
+                }
+                // Forma compilada si existe; si no, se interpretan los campos libres
+                Integer start = schedule.getStartMinute() != null
+                        ? schedule.getStartMinute() : ScheduleCalendar.minuteOfDay(schedule.getStartTime());
+                Integer end = schedule.getEndMinute() != null
+                        ? schedule.getEndMinute() : ScheduleCalendar.minuteOfDay(schedule.getEndTime());
+                Set<DayOfWeek> days = ScheduleCalendar.daysOf(schedule);
+                for (LocalDate date : ScheduleCalendar.dates(days, from, until.minusDays(1))) {
+                    if (!programmed.contains(schedule.getId() + "|" + date)) {
+                        add(windows, date, start, end, schedule.getZoneId(), schedule.getStreetId(),
+                                schedule.getId(), null, SCHEDULE);
+                    }
+                }
+            }
+            Map<String, List<Window>> grouped = new HashMap<>();
+            for (Window window : windows) {
+                grouped.computeIfAbsent(window.zoneId(), k -> new ArrayList<>()).add(window);
+            }
+            Map<String, ZoneWindows> byZone = new HashMap<>();
+            grouped.forEach((zoneId, list) -> byZone.put(zoneId, ZoneWindows.of(list)));
+            return new Index(Map.copyOf(byZone), windows.size());
+        }
+
+        // Si la hora de fin no es posterior a la de inicio la ventana termina al día siguiente
+        private static void add(List<Window> windows, LocalDate date, Integer startMinute, Integer endMinute,
+                String zoneId, String streetId, String scheduleId, String programId, String source) {
+            if (startMinute == null || endMinute == null) {
+                return;
+            }
+            long day = date.toEpochDay() * MINUTES_PER_DAY;
+            long start = day + startMinute;
+            long end = day + (endMinute <= startMinute ? endMinute + MINUTES_PER_DAY : endMinute);
+            String street = streetId == null || streetId.isBlank() ? null : streetId;
+            windows.add(new Window(start, end, zoneId, street, scheduleId, programId, source));
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Ventanas en curso en at y las limit siguientes. Con streetId se consideran las de esa calle y
+         * las de toda la zona (sin calle); sin streetId, todas las de la zona.
+         */
+        Lookup lookup(String zoneId, String streetId, long at, int limit) {
+            ZoneWindows zoneWindows = byZone.get(zoneId);
+            if (zoneWindows == null) {
+                return new Lookup(List.of(), List.of());
+            }
+            if (streetId == null) {
+                return new Lookup(zoneWindows.all.containing(at), zoneWindows.all.startingAfter(at, limit));
+            }
+            IntervalTree<Window> street = zoneWindows.byStreet.getOrDefault(streetId, NONE);
+            return new Lookup(merge(street.containing(at), zoneWindows.zoneWide.containing(at), Integer.MAX_VALUE),
+                    merge(street.startingAfter(at, limit), zoneWindows.zoneWide.startingAfter(at, limit), limit));
+        }
+
+        private static List<Window> merge(List<Window> first, List<Window> second, int limit) {
+            if (second.isEmpty()) {
+                return first;
+            }
+            List<Window> merged = new ArrayList<>(first);
+            merged.addAll(second);
+            merged.sort(BY_START);
+            return merged.size() > limit ? List.copyOf(merged.subList(0, limit)) : List.copyOf(merged);
+        }
+    }
+
+    private static final class ZoneWindows {
+        final IntervalTree<Window> all;
+        final IntervalTree<Window> zoneWide;
+        final Map<String, IntervalTree<Window>> byStreet;
+
+        private ZoneWindows(IntervalTree<Window> all, IntervalTree<Window> zoneWide,
+                Map<String, IntervalTree<Window>> byStreet) {
+            this.all = all;
+            this.zoneWide = zoneWide;
+            this.byStreet = byStreet;
+        }
+
+        static ZoneWindows of(List<Window> windows) {
+            List<Window> zoneWide = new ArrayList<>();
+            Map<String, List<Window>> grouped = new HashMap<>();
+            for (Window window : windows) {
+                if (window.streetId() == null) {
+                    zoneWide.add(window);
+                } else {
+                    grouped.computeIfAbsent(window.streetId(), k -> new ArrayList<>()).add(window);
+                }
+            }
+            Map<String, IntervalTree<Window>> byStreet = new HashMap<>();
+            grouped.forEach((streetId, list) -> byStreet.put(streetId, tree(list)));
+            return new ZoneWindows(tree(windows), tree(zoneWide), Map.copyOf(byStreet));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.edu.vallegrande.msdistribution.application.services.SupplyWindowService;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.SupplyWindowsResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class SupplyWindowServiceImpl implements SupplyWindowService {
+
+    private static final int DEFAULT_LIMIT = 3;
+
+    private final SupplyWindowIndex index;
+
+    @Value("${app.supply-index.max-limit:50}")
+    private int maxLimit = 50;
+
+    public SupplyWindowServiceImpl(SupplyWindowIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public Mono<SupplyWindowsResponse> getWindows(String organizationId, String zoneId, String streetId,
+            Integer limit) {
+        int size = limit == null ? DEFAULT_LIMIT : limit;
+        if (isBlank(organizationId) || isBlank(zoneId) || size < 1 || size > maxLimit) {
+            return Mono.error(CustomException.badRequest("Invalid supply window query",
+                    "Se requieren organizationId y zoneId; limit debe estar entre 1 y " + maxLimit));
+        }
+        String street = isBlank(streetId) ? null : streetId;
+        LocalDateTime at = index.now();
+        return index.indexOf(organizationId)
+                .map(current -> current.lookup(zoneId, street, SupplyWindowIndex.minuteOf(at), size))
+                .map(lookup -> SupplyWindowsResponse.builder()
+                        .organizationId(organizationId)
+                        .zoneId(zoneId)
+                        .streetId(street)
+                        .at(at)
+                        .current(toResponse(lookup.current()))
+                        .next(toResponse(lookup.next()))
+                        .build());
+    }
+
+    private static List<SupplyWindowsResponse.Window> toResponse(List<SupplyWindowIndex.Window> windows) {
+        return windows.stream()
+                .map(window -> SupplyWindowsResponse.Window.builder()
+                        .startsAt(SupplyWindowIndex.timeOf(window.start()))
+                        .endsAt(SupplyWindowIndex.timeOf(window.end()))
+                        .zoneId(window.zoneId())
+                        .streetId(window.streetId())
+                        .scheduleId(window.scheduleId())
+                        .programId(window.programId())
+                        .source(window.source())
+                        .build())
+                .toList();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,15 @@
+package pe.edu.vallegrande.msdistribution.domain.events;
+
+/**
+ * Se publica cuando una tarifa se crea, actualiza, cambia de estado o se elimina.
+ * Permite reprogramar la próxima transición de tarifas y descartar los índices en memoria
+ * de la organización afectada sin consultar periódicamente.
+ *
+ * organizationId nulo indica un cambio masivo que puede afectar a cualquier organización.
+ */
+public record FareChangedEvent(String fareId, String organizationId) {
+
+    public static FareChangedEvent allOrganizations() {
+        return new FareChangedEvent(null, null);
+    }
+}
@@ -0,0 +1,11 @@
+package pe.edu.vallegrande.msdistribution.domain.events;
+
+/**
+ * Se publica cuando un horario se crea, actualiza, cambia de estado o se elimina.
+ * Permite ajustar solo los programas futuros de ese horario sin regenerar el calendario.
+ *
+ * organizationId es la organización a la que pertenecía el horario antes del cambio
+ * (la actual si no cambió).
+ */
+public record ScheduleChangedEvent(String scheduleId, String organizationId) {
+}
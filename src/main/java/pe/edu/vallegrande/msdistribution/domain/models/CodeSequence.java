@@ -0,0 +1,24 @@
+package pe.edu.vallegrande.msdistribution.domain.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Último número asignado para un prefijo de código (PRG, RUT, HOR, TAR).
+ * El _id es el prefijo y seq se incrementa atómicamente con findAndModify.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "counters")
+public class CodeSequence {
+    @Id
+    private String id;
+    private long seq;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -15,23 +17,37 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Builder
 @Document(collection = "program")
+@CompoundIndex(name = "organizationId_status", def = "{'organizationId': 1, 'status': 1}")
+// Programas de una organización en un rango de fechas (generación masiva y planificación)
+@CompoundIndex(name = "organizationId_programDate", def = "{'organizationId': 1, 'programDate': 1}")
+// Un solo programa generado por horario y fecha, aunque dos generaciones se crucen
+@CompoundIndex(name = DistributionProgram.GENERATED_SLOT_INDEX, def = "{'scheduleId': 1, 'programDate': 1}",
+        unique = true, partialFilter = "{'generated': true}")
 public class DistributionProgram {
 
+    public static final String GENERATED_SLOT_INDEX = "scheduleId_programDate_generated";
+
     @Id
     private String id;
     private String organizationId; 
+    @Indexed(unique = true)
     private String programCode;
     private String scheduleId;
+    @Indexed
     private String routeId; 
     private String zoneId;            
     private String streetId;    
+    @Indexed
     private LocalDate programDate;
     private String plannedStartTime;
     private String plannedEndTime;
     private String actualStartTime;
     private String actualEndTime;
+    @Indexed
     private String status;
     private String responsibleUserId;
     private String observations;
+    // true en los programas creados desde un horario por ProgramMaterializer
+    private Boolean generated;
     private Instant createdAt;
 }
\ No newline at end of file
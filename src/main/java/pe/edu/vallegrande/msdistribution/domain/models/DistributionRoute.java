@@ -4,6 +4,8 @@ import java.time.Instant;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -16,15 +18,18 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 @Document(collection = "route")
+@CompoundIndex(name = "organizationId_status", def = "{'organizationId': 1, 'status': 1}")
 public class DistributionRoute {
     @Id
     private String id;
     private String organizationId;
+    @Indexed(unique = true)
     private String routeCode;
     private String routeName;
     private List<ZoneOrder> zones;
     private int totalEstimatedDuration; 
     private String responsibleUserId;
+    @Indexed
     private String status;
     private Instant createdAt;
 
@@ -5,6 +5,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import lombok.AllArgsConstructor;
@@ -17,10 +19,14 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @Builder
 @Document(collection = "schedule")
+@CompoundIndex(name = "organizationId_status", def = "{'organizationId': 1, 'status': 1}")
+// Horarios vigentes en una zona a una hora (forma compilada)
+@CompoundIndex(name = "zoneId_status_startMinute", def = "{'zoneId': 1, 'status': 1, 'startMinute': 1}")
 public class DistributionSchedule {
     @Id
     private String id;
     private String organizationId;
+    @Indexed(unique = true)
     private String scheduleCode;
     private String zoneId;
     private String streetId;
@@ -30,6 +36,13 @@ public class DistributionSchedule {
     private String startTime;   
     private String endTime;     
     private Integer durationHours;
+    // Forma compilada de daysOfWeek/startTime/endTime, recalculada en cada escritura:
+    // dayMask bit 0 = lunes ... bit 6 = domingo; minutos desde las 00:00, endMinute > 1440
+    // si el horario termina al día siguiente
+    private Integer dayMask;
+    private Integer startMinute;
+    private Integer endMinute;
+    @Indexed
     private String status;
     private Instant createdAt;
 }
\ No newline at end of file
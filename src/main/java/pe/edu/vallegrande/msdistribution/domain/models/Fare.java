@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.math.BigDecimal;
@@ -16,10 +18,15 @@ import java.util.Date;
 @AllArgsConstructor
 @Builder 
 @Document(collection = "fare")
+// Rangos de vigencia por estado usados por el proceso de transición de tarifas
+@CompoundIndex(name = "status_effectiveDate", def = "{'status': 1, 'effectiveDate': 1}")
+// Consultas por organización: tarifas vigentes, reemplazo de tarifas activas y línea de tiempo
+@CompoundIndex(name = "organizationId_status_effectiveDate", def = "{'organizationId': 1, 'status': 1, 'effectiveDate': 1}")
 public class Fare {
     @Id
     private String id;
     private String organizationId;
+    @Indexed(unique = true)
     private String fareCode;
     private String fareName;
     private String fareType;
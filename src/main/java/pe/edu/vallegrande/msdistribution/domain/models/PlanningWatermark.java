@@ -0,0 +1,31 @@
+package pe.edu.vallegrande.msdistribution.domain.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Hasta qué fecha (inclusive) están generados los programas de una organización.
+ * El _id es el organizationId; plannedThrough avanza después de insertar los programas de esos días.
+ * leaseOwner y leaseUntil son el lease de la réplica que está planificando la organización; sin ellos,
+ * o vencido, cualquier réplica puede tomarlo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "planning_watermarks")
+public class PlanningWatermark {
+    @Id
+    private String organizationId;
+    private LocalDate plannedThrough;
+    private Instant updatedAt;
+    private String leaseOwner;
+    private Instant leaseUntil;
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -14,10 +16,13 @@ import java.time.Instant;
 @AllArgsConstructor
 @Builder
 @Document(collection = "user")
+@CompoundIndex(name = "organizationId_status", def = "{'organizationId': 1, 'status': 1}")
 public class User {
     @Id
     private String id;
     private String organizationId;
+    // Sin unique: la colección "user" la administra el servicio de usuarios
+    @Indexed
     private String userCode;
     private String fullName;
     private String documentType;
@@ -25,6 +30,7 @@ public class User {
     private String email;
     private String phone;
     private String role;
+    @Indexed
     private String status;
     private Instant createdAt;
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Crea los índices declarados en los modelos (@Indexed / @CompoundIndex) al iniciar la aplicación.
+ *
+ * Reemplaza spring.data.mongodb.auto-index-creation: los índices se crean de forma explícita,
+ * uno por uno, y si alguno falla (por ejemplo un índice único sobre datos con códigos duplicados)
+ * se registra el error y se continúa con los demás en lugar de detener el arranque.
+ */
+@Component
+@Slf4j
+public class IndexBootstrap {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Value("${app.indexes.bootstrap:true}")
+    private boolean enabled = true;
+
+    public IndexBootstrap(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!enabled) {
+            log.info("Index bootstrap disabled");
+            return;
+        }
+        ensureIndexes()
+                .count()
+                .subscribe(
+                    count -> log.info("Index bootstrap completed: {} indexes ready", count),
+                    error -> log.error("Index bootstrap failed: ", error)
+                );
+    }
+
+    /** Nombre de cada índice creado o ya existente; los que fallan se registran y se omiten. */
+    public Flux<String> ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        return Flux.fromIterable(documentTypes())
+                .concatMap(type -> Flux.fromIterable(resolver.resolveIndexFor(type))
+                        .concatMap(index -> mongoTemplate.indexOps(type).ensureIndex(index)
+                                .doOnNext(name -> log.debug("Index {} ready on {}", name,
+                                        mongoTemplate.getCollectionName(type)))
+                                .onErrorResume(e -> {
+                                    log.error("Could not create index {} on {}: {}", index.getIndexKeys(),
+                                            mongoTemplate.getCollectionName(type), e.getMessage());
+                                    return Mono.empty();
+                                })));
+    }
+
+    private List<Class<?>> documentTypes() {
+        return mongoTemplate.getConverter().getMappingContext().getPersistentEntities().stream()
+                .filter(entity -> entity.isAnnotationPresent(Document.class))
+                .<Class<?>>map(MongoPersistentEntity::getType)
+                .toList();
+    }
+}
@@ -0,0 +1,177 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.config;
+
+import org.bson.Document;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint /actuator/indexes: uso de cada índice ($indexStats) y plan de cada consulta derivada
+ * de los repositorios (explain queryPlanner). Las consultas cuyo plan ganador sigue siendo
+ * COLLSCAN se listan en "collscanQueries".
+ *
+ * Los planes se obtienen derivando el filtro y el orden del nombre del método (findAllByStatus,
+ * findTopByOrderBy...Desc); los valores son de prueba, solo interesa la forma de la consulta.
+ */
+@Component
+@Endpoint(id = "indexes")
+public class IndexReportEndpoint {
+
+    private static final String COLLSCAN = "COLLSCAN";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ListableBeanFactory beanFactory;
+
+    public IndexReportEndpoint(ReactiveMongoTemplate mongoTemplate, ListableBeanFactory beanFactory) {
+        this.mongoTemplate = mongoTemplate;
+        this.beanFactory = beanFactory;
+    }
+
+    @ReadOperation
+    public Mono<Map<String, Object>> report() {
+        List<RepositoryInformation> repositories = repositoryInformation();
+
+        Mono<Map<String, Object>> indexStats = Flux.fromIterable(repositories)
+                .map(info -> mongoTemplate.getCollectionName(info.getDomainType()))
+                .distinct()
+                .concatMap(collection -> indexStats(collection).map(stats -> Map.entry(collection, stats)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+
+        Mono<List<Map<String, Object>>> plans = Flux.fromIterable(repositories)
+                .concatMap(info -> Flux.fromIterable(info.getQueryMethods())
+                        .concatMap(method -> queryPlan(info, method)))
+                .collectList();
+
+        return Mono.zip(indexStats, plans).map(tuple -> {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("collections", tuple.getT1());
+            report.put("queries", tuple.getT2());
+            report.put("collscanQueries", tuple.getT2().stream()
+                    .filter(plan -> Boolean.TRUE.equals(plan.get("collscan")))
+                    .map(plan -> plan.get("query"))
+                    .toList());
+            return report;
+        });
+    }
+
+    private List<RepositoryInformation> repositoryInformation() {
+        Repositories repositories = new Repositories(beanFactory);
+        List<RepositoryInformation> result = new ArrayList<>();
+        repositories.forEach(type -> repositories.getRepositoryInformationFor(type).ifPresent(result::add));
+        return result;
+    }
+
+    private Mono<List<Map<String, Object>>> indexStats(String collection) {
+        return mongoTemplate.aggregate(
+                        Aggregation.newAggregation(context -> new Document("$indexStats", new Document())),
+                        collection, Document.class)
+                .map(stats -> {
+                    Document accesses = stats.get("accesses", new Document());
+                    Map<String, Object> index = new LinkedHashMap<>();
+                    index.put("name", stats.get("name"));
+                    index.put("key", stats.get("key"));
+                    index.put("ops", accesses.get("ops"));
+                    index.put("since", accesses.get("since"));
+                    return index;
+                })
+                .collectList();
+    }
+
+    private Mono<Map<String, Object>> queryPlan(RepositoryInformation info, Method method) {
+        String name = info.getRepositoryInterface().getSimpleName() + "." + method.getName();
+        String collection = mongoTemplate.getCollectionName(info.getDomainType());
+        PartTree tree = new PartTree(method.getName(), info.getDomainType());
+
+        Document find = new Document("find", collection).append("filter", filterOf(tree));
+        Document sort = sortOf(tree.getSort());
+        if (!sort.isEmpty()) {
+            find.append("sort", sort);
+        }
+        if (tree.getMaxResults() != null) {
+            find.append("limit", tree.getMaxResults());
+        }
+
+        return mongoTemplate.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner"))
+                .map(explain -> {
+                    List<String> stages = new ArrayList<>();
+                    collectStages(explain.get("queryPlanner", new Document()).get("winningPlan"), stages);
+                    Map<String, Object> plan = new LinkedHashMap<>();
+                    plan.put("query", name);
+                    plan.put("collection", collection);
+                    plan.put("filter", find.get("filter"));
+                    plan.put("sort", sort);
+                    plan.put("stages", stages);
+                    plan.put("collscan", stages.contains(COLLSCAN));
+                    return plan;
+                })
+                .onErrorResume(e -> {
+                    Map<String, Object> plan = new LinkedHashMap<>();
+                    plan.put("query", name);
+                    plan.put("collection", collection);
+                    plan.put("error", e.getMessage());
+                    return Mono.just(plan);
+                });
+    }
+
+    /** Filtro con la forma de la consulta derivada; los operadores distintos de igualdad usan $exists. */
+    static Document filterOf(PartTree tree) {
+        List<Document> alternatives = new ArrayList<>();
+        tree.forEach(orPart -> {
+            Document and = new Document();
+            for (Part part : orPart) {
+                and.append(fieldOf(part.getProperty().toDotPath()), part.getType() == Part.Type.SIMPLE_PROPERTY
+                        ? probeValue(part.getProperty().getType())
+                        : new Document("$exists", true));
+            }
+            alternatives.add(and);
+        });
+        if (alternatives.isEmpty()) {
+            return new Document();
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Document("$or", alternatives);
+    }
+
+    static Document sortOf(Sort sort) {
+        Document document = new Document();
+        sort.forEach(order -> document.append(fieldOf(order.getProperty()), order.isAscending() ? 1 : -1));
+        return document;
+    }
+
+    /** Recorre el plan ganador (incluido el formato anidado de SBE) y reúne el nombre de cada etapa. */
+    static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if (stage instanceof String name) {
+                stages.add(name);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    /** Nombre del campo en MongoDB: la propiedad id se guarda como _id. */
+    private static String fieldOf(String path) {
+        return "id".equals(path) ? "_id" : path;
+    }
+
+    private static Object probeValue(Class<?> type) {
+        return String.class.equals(type) ? "" : null;
+    }
+}
@@ -1,15 +1,36 @@
 package pe.edu.vallegrande.msdistribution.infrastructure.config;
 
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * WebClient de cada microservicio externo, cada uno con su propio pool de conexiones Reactor Netty.
+ *
+ * El pool y los tiempos se leen de microservices.{nombre}.* (ver application.yml): conexiones
+ * máximas, cola de espera por una conexión, expulsión de conexiones ociosas y timeouts de conexión
+ * y de respuesta. Un servicio lento solo agota su propio pool. Cada pool publica sus métricas en
+ * Micrometer (reactor.netty.connection.provider.*{name=...}: activas, ociosas, pendientes).
+ */
 @Configuration
+@Slf4j
 public class WebClientConfig {
 
+    private static final String PROPERTY = "microservices.";
+
+    private final Environment environment;
+
     @Value("${user-service.base-url}")
     private String userServiceBaseUrl;
 
@@ -19,23 +40,53 @@ public class WebClientConfig {
     @Value("${organization-service.token}")
     private String organizationServiceToken;
 
+    public WebClientConfig(Environment environment) {
+        this.environment = environment;
+    }
+
     @Bean
     @Qualifier("userWebClient")
     public WebClient userWebClient() {
-        return WebClient.builder().baseUrl(userServiceBaseUrl).build();
+        return WebClient.builder()
+                .baseUrl(userServiceBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient("users")))
+                .build();
     }
 
     @Bean
     @Qualifier("organizationWebClient")
     public WebClient organizationWebClient() {
-        System.out.println("Organization service base URL: " + organizationServiceBaseUrl);
-        System.out.println("Organization service token: " + organizationServiceToken);
-        System.out.println(
-                "Token length: " + (organizationServiceToken != null ? organizationServiceToken.length() : "null"));
-
         return WebClient.builder()
                 .baseUrl(organizationServiceBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient("organization")))
                 .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + organizationServiceToken)
                 .build();
     }
-}
\ No newline at end of file
+
+    private HttpClient httpClient(String name) {
+        int maxConnections = property(name, "max-connections", Integer.class, 50);
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(property(name, "pending-acquire-max", Integer.class, 200))
+                .pendingAcquireTimeout(property(name, "pending-acquire-timeout", Duration.class, Duration.ofSeconds(2)))
+                .maxIdleTime(property(name, "max-idle-time", Duration.class, Duration.ofSeconds(30)))
+                .maxLifeTime(property(name, "max-life-time", Duration.class, Duration.ofMinutes(5)))
+                .evictInBackground(property(name, "evict-interval", Duration.class, Duration.ofSeconds(30)))
+                .metrics(true)
+                .build();
+        Duration connectTimeout = property(name, "connect-timeout", Duration.class, Duration.ofSeconds(2));
+        Duration responseTimeout = property(name, "timeout", Duration.class, Duration.ofSeconds(5));
+        log.info("HTTP client '{}': max {} connections, connect timeout {}, response timeout {}",
+                name, maxConnections, connectTimeout, responseTimeout);
+        return HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(responseTimeout);
+    }
+
+    // Sin unidad se interpreta en milisegundos (microservices.organization.timeout: 5000)
+    private <T> T property(String name, String key, Class<T> type, T defaultValue) {
+        return environment.getProperty(PROPERTY + name + "." + key, type, defaultValue);
+    }
+}
@@ -0,0 +1,26 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Generación masiva de programas: cada horario ACTIVE de la organización se expande en un programa
+ * por cada fecha de [fromDate, toDate] que cae en sus daysOfWeek.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProgramGenerationRequest {
+
+    private String organizationId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    // Opcionales: se copian a todos los programas generados
+    private String routeId;
+    private String responsibleUserId;
+}
@@ -0,0 +1,44 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConflictReportResponse {
+    private String organizationId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    // Ordenados por inicio del cruce
+    private List<Conflict> conflicts;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Conflict {
+        // ZONE (misma zona/calle) o RESPONSIBLE (mismo responsable)
+        private String type;
+        // PROGRAM o SCHEDULE
+        private String source;
+        private String firstId;
+        private String firstCode;
+        private String secondId;
+        private String secondCode;
+        private String zoneId;
+        // null = toda la zona
+        private String streetId;
+        private String responsibleUserId;
+        // Tramo en que se solapan (para horarios, la primera vez dentro del rango)
+        private LocalDateTime startsAt;
+        private LocalDateTime endsAt;
+    }
+}
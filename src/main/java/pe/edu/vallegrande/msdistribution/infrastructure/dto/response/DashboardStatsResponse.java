@@ -0,0 +1,21 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DashboardStatsResponse {
+    private long totalPrograms;
+    private long totalRoutes;
+    private long totalSchedules;
+    private long totalFares;
+    private LocalDateTime lastUpdated;
+    private String systemStatus;
+}
@@ -0,0 +1,47 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DashboardSummaryResponse {
+    private ProgramSummary programs;
+    private InfrastructureSummary infrastructure;
+    private LocalDateTime timestamp;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ProgramSummary {
+        private long total;
+        private long active;
+        private long planned;
+        private Map<String, Long> byStatus;
+        // organizationId -> (status -> count)
+        private Map<String, Map<String, Long>> byOrganization;
+        // yyyy-MM de programDate -> (status -> count)
+        private Map<String, Map<String, Long>> byMonth;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class InfrastructureSummary {
+        private long activeRoutes;
+        private long activeSchedules;
+    }
+}
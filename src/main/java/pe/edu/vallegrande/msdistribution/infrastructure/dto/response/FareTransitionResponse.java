@@ -0,0 +1,20 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FareTransitionResponse {
+    // Tarifas pasadas a ACTIVE en esta ejecución
+    private long activated;
+    // Tarifas pasadas a INACTIVE (reemplazadas por otra de su organización o vencidas)
+    private long deactivated;
+    private LocalDateTime executedAt;
+}
@@ -0,0 +1,67 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Campos pedidos con ?fields=a,b,c sobre un DTO de respuesta (sparse fieldsets).
+ * Los nombres se validan contra las propiedades del DTO; "id" siempre se incluye y va primero.
+ * trim() devuelve solo esos campos, en el orden pedido, para no serializar el resto.
+ */
+public final class FieldSelection {
+
+    private static final String ID = "id";
+
+    private final Set<String> fields;
+
+    private FieldSelection(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    public static FieldSelection of(String fields, Class<?> responseType) {
+        Set<String> allowed = Arrays.stream(BeanUtils.getPropertyDescriptors(responseType))
+                .filter(descriptor -> descriptor.getReadMethod() != null)
+                .map(PropertyDescriptor::getName)
+                .filter(name -> !"class".equals(name))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add(ID);
+        if (fields != null) {
+            Arrays.stream(fields.split(","))
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .forEach(selected::add);
+        }
+
+        Set<String> unknown = new LinkedHashSet<>(selected);
+        unknown.removeAll(allowed);
+        if (!unknown.isEmpty()) {
+            throw CustomException.badRequest("Invalid fields",
+                    "Campos no válidos: " + String.join(",", unknown) + ". Permitidos: " + String.join(",", allowed));
+        }
+        return new FieldSelection(selected);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public Map<String, Object> trim(Object response) {
+        BeanWrapper wrapper = new BeanWrapperImpl(response);
+        Map<String, Object> trimmed = new LinkedHashMap<>();
+        fields.forEach(field -> trimmed.put(field, wrapper.getPropertyValue(field)));
+        return trimmed;
+    }
+}
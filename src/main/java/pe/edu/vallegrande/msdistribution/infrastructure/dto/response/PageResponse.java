@@ -0,0 +1,62 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado con paginación por cursor (keyset sobre _id).
+ * nextCursor es opaco para el cliente; se envía tal cual para pedir la página siguiente
+ * y es nulo cuando no hay más elementos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageResponse<T> {
+    private List<T> items;
+    private int limit;
+    private String nextCursor;
+
+    /**
+     * Construye la página a partir de hasta limit + 1 elementos leídos: el elemento extra solo
+     * indica que existe otra página y no se devuelve.
+     */
+    public static <T> PageResponse<T> of(List<T> fetched, int limit, Function<T, String> idOf) {
+        boolean hasMore = fetched.size() > limit;
+        List<T> items = hasMore ? fetched.subList(0, limit) : fetched;
+        return PageResponse.<T>builder()
+                .items(items)
+                .limit(limit)
+                .nextCursor(hasMore ? encodeCursor(idOf.apply(items.get(items.size() - 1))) : null)
+                .build();
+    }
+
+    public static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Devuelve el _id codificado en el cursor, o null si no se envió cursor (primera página). */
+    public static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String id = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (ObjectId.isValid(id)) {
+                return id;
+            }
+        } catch (IllegalArgumentException e) {
+            // se responde igual que un cursor con contenido inválido
+        }
+        throw CustomException.badRequest("Invalid cursor", "El cursor no corresponde a una página de este listado");
+    }
+}
@@ -0,0 +1,26 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProgramGenerationResponse {
+    private String organizationId;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    // Horarios ACTIVE expandidos
+    private int schedules;
+    // Programas insertados
+    private long created;
+    // Fechas que ya tenían programa para el mismo horario (no se duplican)
+    private long skipped;
+    // Programas no creados porque se cruzaban con otro (misma zona/calle o mismo responsable)
+    private long conflicts;
+}
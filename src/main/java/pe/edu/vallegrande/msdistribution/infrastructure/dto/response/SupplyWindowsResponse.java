@@ -0,0 +1,42 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SupplyWindowsResponse {
+    private String organizationId;
+    private String zoneId;
+    private String streetId;
+    // Hora local de la consulta
+    private LocalDateTime at;
+    // Ventanas en curso (puede haber más de una si se solapan)
+    private List<Window> current;
+    // Próximas ventanas, ordenadas por inicio
+    private List<Window> next;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Window {
+        private LocalDateTime startsAt;
+        private LocalDateTime endsAt;
+        private String zoneId;
+        // null = toda la zona
+        private String streetId;
+        private String scheduleId;
+        // null si la ventana sale del horario y aún no hay programa para esa fecha
+        private String programId;
+        // PROGRAM o SCHEDULE
+        private String source;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalOrganization;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalUser;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalZone;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -22,6 +24,7 @@ public class EnrichedDistributionProgramResponse {
     private String scheduleId;
     private String routeId;
     private String zoneId;
+    private ExternalZone zone; // Zone details
     private String streetId;
     private LocalDate programDate;
     private String plannedStartTime;
@@ -30,6 +33,7 @@ public class EnrichedDistributionProgramResponse {
     private String actualEndTime;
     private String status;
     private String responsibleUserId;
+    private ExternalUser responsibleUser; // Responsible user details
     private String observations;
     private Instant createdAt;
 }
\ No newline at end of file
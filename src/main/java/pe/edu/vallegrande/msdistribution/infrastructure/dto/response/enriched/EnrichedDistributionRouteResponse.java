@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalOrganization;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalUser;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalZone;
 
 import java.time.Instant;
 import java.util.List;
@@ -20,9 +22,11 @@ public class EnrichedDistributionRouteResponse {
     private String routeCode;
     private String routeName;
     private String zoneId;
+    private ExternalZone zone; // Details of the first zone
     private List<ZoneDetail> zones; // Nuevo campo para la lista de zonas
     private Integer totalEstimatedDuration;
     private String responsibleUserId;
+    private ExternalUser responsibleUser; // Responsible user details
     private String status;
     private Instant createdAt;
     
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalOrganization;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalZone;
 
 import java.time.Instant;
 import java.util.List;
@@ -20,6 +21,7 @@ public class EnrichedDistributionScheduleResponse {
     private ExternalOrganization organization; // Organization details
     private String scheduleCode;
     private String zoneId;
+    private ExternalZone zone; // Zone details
     private String streetId;
     private String scheduleName;
     private List<String> daysOfWeek;
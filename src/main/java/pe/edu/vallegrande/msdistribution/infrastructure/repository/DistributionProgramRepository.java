@@ -1,4 +1,5 @@
 package pe.edu.vallegrande.msdistribution.infrastructure.repository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,9 +13,10 @@ public interface DistributionProgramRepository extends ReactiveMongoRepository<D
 
     Mono<DistributionProgram> findFirstByProgramCode(String programCode);
 
-    Mono<DistributionProgram> findTopByOrderByProgramCodeDesc();
-    
     Flux<DistributionProgram> findByOrganizationId(String organizationId);
-    
-    Mono<Boolean> existsByProgramCode(String programCode);
+
+    // Paginación por cursor: primera página y páginas siguientes ordenadas por _id
+    Flux<DistributionProgram> findAllByOrderByIdAsc(Limit limit);
+
+    Flux<DistributionProgram> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
\ No newline at end of file
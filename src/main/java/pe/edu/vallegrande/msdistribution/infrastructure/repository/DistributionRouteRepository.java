@@ -1,17 +1,20 @@
 package pe.edu.vallegrande.msdistribution.infrastructure.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 @Repository
 public interface DistributionRouteRepository extends ReactiveMongoRepository<DistributionRoute, String> {
 
     Flux<DistributionRoute> findAllByStatus(String status);
 
-    Mono<Boolean> existsByRouteCode(String routeCode);
+    Flux<DistributionRoute> findAllByOrganizationIdAndStatus(String organizationId, String status);
 
-    Mono<DistributionRoute> findTopByOrderByRouteCodeDesc();
+    // Paginación por cursor: primera página y páginas siguientes ordenadas por _id
+    Flux<DistributionRoute> findAllByOrderByIdAsc(Limit limit);
+
+    Flux<DistributionRoute> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
@@ -1,17 +1,20 @@
 package pe.edu.vallegrande.msdistribution.infrastructure.repository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 @Repository
 public interface DistributionScheduleRepository extends ReactiveMongoRepository<DistributionSchedule, String> {
 
     Flux<DistributionSchedule> findAllByStatus(String status);
 
-    Mono<Boolean> existsByScheduleCode(String scheduleCode);
+    Flux<DistributionSchedule> findAllByOrganizationIdAndStatus(String organizationId, String status);
 
-    Mono<DistributionSchedule> findTopByOrderByScheduleCodeDesc();
+    // Paginación por cursor: primera página y páginas siguientes ordenadas por _id
+    Flux<DistributionSchedule> findAllByOrderByIdAsc(Limit limit);
+
+    Flux<DistributionSchedule> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
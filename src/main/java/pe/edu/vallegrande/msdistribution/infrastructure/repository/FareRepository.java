@@ -1,10 +1,10 @@
 package pe.edu.vallegrande.msdistribution.infrastructure.repository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import org.springframework.stereotype.Repository;
 
 import pe.edu.vallegrande.msdistribution.domain.models.Fare;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 
 @Repository
@@ -12,9 +12,12 @@ public interface FareRepository extends ReactiveMongoRepository<Fare, String> {
 
     Flux<Fare> findAllByStatus(String status);
 
-    Mono<Boolean> existsByFareCode(String fareCode);
+    Flux<Fare> findAllByOrganizationId(String organizationId);
 
-    Mono<Fare> findTopByOrderByFareCodeDesc(); // <- CORRECTO
-    
     Flux<Fare> findByOrganizationIdAndStatusOrderByEffectiveDateDesc(String organizationId, String status);
+
+    // Paginación por cursor: primera página y páginas siguientes ordenadas por _id
+    Flux<Fare> findAllByOrderByIdAsc(Limit limit);
+
+    Flux<Fare> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 }
\ No newline at end of file
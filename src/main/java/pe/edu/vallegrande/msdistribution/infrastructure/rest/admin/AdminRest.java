@@ -4,14 +4,25 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.application.services.ConflictService;
+import pe.edu.vallegrande.msdistribution.application.services.DashboardStatsService;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionProgramService;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionRouteService;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionScheduleService;
 import pe.edu.vallegrande.msdistribution.application.services.FareService;
+import pe.edu.vallegrande.msdistribution.application.services.SupplyWindowService;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
 
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.ErrorMessage;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.ResponseDto;
@@ -19,11 +30,15 @@ import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.*;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.*;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.EnrichedDistributionProgramResponse;
 import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
@@ -33,11 +48,32 @@ import java.util.Map;
 @Slf4j
 public class AdminRest {
 
+        // Los listados responden con ResponseDto<List<...>> (application/json, por defecto) o como
+        // flujo de elementos sin envoltorio si el cliente pide application/x-ndjson o text/event-stream:
+        // cada elemento se escribe al llegar de MongoDB, sin acumular la lista en memoria.
+
+        // Con ?fields=a,b (también combinable con limit/cursor) se consultan en MongoDB solo esos campos
+        // y cada elemento se devuelve con únicamente ellos más "id"; un campo desconocido responde 400.
+
+        // Los GET en JSON de programas, rutas, horarios y tarifas (salvo los enriquecidos) devuelven
+        // ETag/Last-Modified según la versión de la colección que suben las escrituras; con
+        // If-None-Match vigente se responde 304 sin tocar MongoDB.
+
+        // /route/active y /schedule/active (también con ?organizationId=) se sirven desde la copia en
+        // memoria de ActiveReferenceSnapshot mientras su change stream está activo.
+
+        // Tamaño máximo de página en los listados paginados (?limit=&cursor=)
+        private static final int MAX_PAGE_SIZE = 500;
+
         // Distribution Services
         private final DistributionProgramService programService;
         private final DistributionRouteService routeService;
         private final DistributionScheduleService scheduleService;
         private final FareService fareService;
+        private final DashboardStatsService dashboardStatsService;
+        private final SupplyWindowService supplyWindowService;
+        private final ConflictService conflictService;
+        private final CollectionVersionService collectionVersions;
 
         // ===============================
         // DASHBOARD & STATISTICS
@@ -45,27 +81,14 @@ public class AdminRest {
 
         @GetMapping("/dashboard/stats")
         @Operation(summary = "Get comprehensive dashboard statistics")
-        public Mono<ResponseDto<Map<String, Object>>> getDashboardStats() {
+        public Mono<ResponseDto<DashboardStatsResponse>> getDashboardStats() {
                 log.debug("Fetching comprehensive dashboard statistics");
 
-                return Mono.zip(
-                                programService.getAll().count(),
-                                routeService.getAll().count(),
-                                scheduleService.getAll().count(),
-                                fareService.getAllF().count())
-                                .map(tuple -> {
-                                        Map<String, Object> stats = Map.of(
-                                                        "totalPrograms", tuple.getT1(),
-                                                        "totalRoutes", tuple.getT2(),
-                                                        "totalSchedules", tuple.getT3(),
-                                                        "totalFares", tuple.getT4(),
-                                                        "lastUpdated", LocalDateTime.now(),
-                                                        "systemStatus", "ACTIVE");
-                                        return new ResponseDto<Map<String, Object>>(true, stats, null);
-                                })
+                return dashboardStatsService.getDashboardStats()
+                                .map(stats -> new ResponseDto<DashboardStatsResponse>(true, stats, null))
                                 .onErrorResume(e -> {
                                         log.error("Error fetching dashboard stats: {}", e.getMessage());
-                                        return Mono.just(new ResponseDto<Map<String, Object>>(false, null,
+                                        return Mono.just(new ResponseDto<DashboardStatsResponse>(false, null,
                                                         new ErrorMessage(500,
                                                                         "Error al obtener estadísticas del dashboard",
                                                                         e.getMessage())));
@@ -74,34 +97,19 @@ public class AdminRest {
 
         @GetMapping("/dashboard/summary")
         @Operation(summary = "Get distribution system summary")
-        public Mono<ResponseDto<Map<String, Object>>> getSystemSummary() {
+        public Mono<ResponseDto<DashboardSummaryResponse>> getSystemSummary(
+                        @RequestParam(required = false) String organizationId,
+                        @RequestParam(required = false) List<String> groupBy) {
                 log.debug("Fetching system summary for admin dashboard");
 
-                return Mono.zip(
-                                programService.getAll().collectList(),
-                                routeService.getAllActive().count(),
-                                scheduleService.getAllActive().count())
-                                .map(tuple -> {
-                                        var programs = tuple.getT1();
-                                        long activePrograms = programs.stream()
-                                                        .filter(p -> "ACTIVE".equals(p.getStatus())).count();
-                                        long plannedPrograms = programs.stream()
-                                                        .filter(p -> "PLANNED".equals(p.getStatus())).count();
-
-                                        Map<String, Object> summary = Map.of(
-                                                        "programs", Map.of(
-                                                                        "total", programs.size(),
-                                                                        "active", activePrograms,
-                                                                        "planned", plannedPrograms),
-                                                        "infrastructure", Map.of(
-                                                                        "activeRoutes", tuple.getT2(),
-                                                                        "activeSchedules", tuple.getT3()),
-                                                        "timestamp", LocalDateTime.now());
-                                        return new ResponseDto<Map<String, Object>>(true, summary, null);
-                                })
+                boolean byOrganization = groupBy != null && groupBy.contains("organization");
+                boolean byMonth = groupBy != null && groupBy.contains("month");
+
+                return dashboardStatsService.getSystemSummary(organizationId, byOrganization, byMonth)
+                                .map(summary -> new ResponseDto<DashboardSummaryResponse>(true, summary, null))
                                 .onErrorResume(e -> {
                                         log.error("Error fetching system summary: {}", e.getMessage());
-                                        return Mono.just(new ResponseDto<Map<String, Object>>(false, null,
+                                        return Mono.just(new ResponseDto<DashboardSummaryResponse>(false, null,
                                                         new ErrorMessage(500, "Error al obtener resumen del sistema",
                                                                         e.getMessage())));
                                 });
@@ -111,24 +119,72 @@ public class AdminRest {
         // DISTRIBUTION PROGRAM ENDPOINTS
         // ===============================
 
-        @GetMapping("/program")
+        @GetMapping(value = "/program", produces = MediaType.APPLICATION_JSON_VALUE)
         @Operation(summary = "Get all distribution programs")
-        public Mono<ResponseDto<List<DistributionProgramResponse>>> getAllPrograms() {
-                return programService.getAll()
+        public Mono<ResponseDto<List<DistributionProgramResponse>>> getAllPrograms(ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionProgram.class, null, () -> programService.getAll()
+                                .collectList()
+                                .map(this::success));
+        }
+
+        @GetMapping(value = "/program", params = { "limit", "!organizationId" }, produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of distribution programs (cursor pagination over _id)")
+        public Mono<ResponseDto<PageResponse<DistributionProgramResponse>>> getProgramPage(@RequestParam int limit,
+                        @RequestParam(required = false) String cursor, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionProgram.class, null,
+                                () -> page(cursor, limit, programService::getPage, DistributionProgramResponse::getId));
+        }
+
+        @GetMapping(value = "/program", params = { "fields", "!organizationId" }, produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get distribution programs with only the requested fields (?fields=programCode,status)")
+        public Mono<ResponseDto<List<Map<String, Object>>>> getProgramFields(@RequestParam String fields,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, DistributionProgramResponse.class);
+                return ifModified(exchange, DistributionProgram.class, null,
+                                () -> programService.getFields(selection.getFields(), null, null)
+                                .map(selection::trim)
                                 .collectList()
-                                .map(this::success);
+                                .map(this::success));
         }
 
-        @GetMapping(value = "/program", params = "organizationId")
+        @GetMapping(value = "/program", params = { "fields", "limit", "!organizationId" }, produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of distribution programs with only the requested fields")
+        public Mono<ResponseDto<PageResponse<Map<String, Object>>>> getProgramFieldsPage(@RequestParam String fields,
+                        @RequestParam int limit, @RequestParam(required = false) String cursor,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, DistributionProgramResponse.class);
+                BiFunction<String, Integer, Flux<Map<String, Object>>> fetch = (afterId, size) -> programService
+                                .getFields(selection.getFields(), afterId, size)
+                                .map(selection::trim);
+                return ifModified(exchange, DistributionProgram.class, null,
+                                () -> page(cursor, limit, fetch, AdminRest::idOf));
+        }
+
+        @GetMapping(value = "/program",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all distribution programs (NDJSON / SSE)")
+        public Flux<DistributionProgramResponse> streamAllPrograms() {
+                return programService.getAll();
+        }
+
+        @GetMapping(value = "/program", params = "organizationId", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get programs by organization ID")
         public Mono<ResponseDto<List<DistributionProgramResponse>>> getProgramsByOrganizationId(
-                        @RequestParam String organizationId) {
-                return programService.getByOrganizationId(organizationId)
+                        @RequestParam String organizationId, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionProgram.class, organizationId,
+                                () -> programService.getByOrganizationId(organizationId)
                                 .collectList()
-                                .map(list -> new ResponseDto<List<DistributionProgramResponse>>(true, list, null));
+                                .map(list -> new ResponseDto<List<DistributionProgramResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/program", params = "organizationId",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream programs by organization ID (NDJSON / SSE)")
+        public Flux<DistributionProgramResponse> streamProgramsByOrganizationId(@RequestParam String organizationId) {
+                return programService.getByOrganizationId(organizationId);
         }
 
-        @GetMapping("/program/enriched")
+        @GetMapping(value = "/program/enriched", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all enriched distribution programs")
         public Mono<ResponseDto<List<EnrichedDistributionProgramResponse>>> getAllEnrichedPrograms() {
                 return programService.getAllEnriched()
@@ -137,12 +193,20 @@ public class AdminRest {
                                                 null));
         }
 
+        @GetMapping(value = "/program/enriched",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all enriched distribution programs (NDJSON / SSE)")
+        public Flux<EnrichedDistributionProgramResponse> streamAllEnrichedPrograms() {
+                return programService.getAllEnriched();
+        }
+
         @GetMapping("/program/{id}")
         // @Operation(summary = "Get distribution program by ID")
-        public Mono<ResponseDto<DistributionProgramResponse>> getProgramById(@PathVariable String id) {
-                return programService.getById(id)
+        public Mono<ResponseDto<DistributionProgramResponse>> getProgramById(@PathVariable String id,
+                        ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionProgram.class, null, () -> programService.getById(id)
                                 .map(data -> new ResponseDto<DistributionProgramResponse>(true, data, null))
-                                .switchIfEmpty(Mono.error(CustomException.notFound("DistributionProgram", id)));
+                                .switchIfEmpty(Mono.error(CustomException.notFound("DistributionProgram", id))));
         }
 
         @PostMapping("/program")
@@ -154,6 +218,15 @@ public class AdminRest {
                                                 .body(new ResponseDto<DistributionProgramResponse>(true, data, null)));
         }
 
+        @PostMapping("/program/generate")
+        @Operation(summary = "Generate the programs of every active schedule of an organization in a date range")
+        public Mono<ResponseEntity<ResponseDto<ProgramGenerationResponse>>> generatePrograms(
+                        @RequestBody ProgramGenerationRequest request) {
+                return programService.generate(request)
+                                .map(data -> ResponseEntity.status(HttpStatus.CREATED)
+                                                .body(new ResponseDto<ProgramGenerationResponse>(true, data, null)));
+        }
+
         @PutMapping("/program/{id}")
         // @Operation(summary = "Update a distribution program")
         public Mono<ResponseDto<DistributionProgramResponse>> updateProgram(@PathVariable String id,
@@ -190,13 +263,57 @@ public class AdminRest {
         // DISTRIBUTION ROUTE ENDPOINTS
         // ===============================
 
-        @GetMapping("/route")
+        @GetMapping(value = "/route", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all distribution routes")
-        public Mono<ResponseDto<List<DistributionRouteResponse>>> getAllRoutes() {
-                return routeService.getAll()
+        public Mono<ResponseDto<List<DistributionRouteResponse>>> getAllRoutes(ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionRoute.class, null, () -> routeService.getAll()
+                                .map(this::convertToResponse)
+                                .collectList()
+                                .map(list -> new ResponseDto<List<DistributionRouteResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/route", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of distribution routes (cursor pagination over _id)")
+        public Mono<ResponseDto<PageResponse<DistributionRouteResponse>>> getRoutePage(@RequestParam int limit,
+                        @RequestParam(required = false) String cursor, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionRoute.class, null, () -> page(cursor, limit,
+                                (afterId, size) -> routeService.getPage(afterId, size).map(this::convertToResponse),
+                                DistributionRouteResponse::getId));
+        }
+
+        @GetMapping(value = "/route", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get distribution routes with only the requested fields (?fields=routeCode,routeName,status)")
+        public Mono<ResponseDto<List<Map<String, Object>>>> getRouteFields(@RequestParam String fields,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, DistributionRouteResponse.class);
+                return ifModified(exchange, DistributionRoute.class, null,
+                                () -> routeService.getFields(selection.getFields(), null, null)
                                 .map(this::convertToResponse)
+                                .map(selection::trim)
                                 .collectList()
-                                .map(list -> new ResponseDto<List<DistributionRouteResponse>>(true, list, null));
+                                .map(this::success));
+        }
+
+        @GetMapping(value = "/route", params = { "fields", "limit" }, produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of distribution routes with only the requested fields")
+        public Mono<ResponseDto<PageResponse<Map<String, Object>>>> getRouteFieldsPage(@RequestParam String fields,
+                        @RequestParam int limit, @RequestParam(required = false) String cursor,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, DistributionRouteResponse.class);
+                BiFunction<String, Integer, Flux<Map<String, Object>>> fetch = (afterId, size) -> routeService
+                                .getFields(selection.getFields(), afterId, size)
+                                .map(this::convertToResponse)
+                                .map(selection::trim);
+                return ifModified(exchange, DistributionRoute.class, null,
+                                () -> page(cursor, limit, fetch, AdminRest::idOf));
+        }
+
+        @GetMapping(value = "/route",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all distribution routes (NDJSON / SSE)")
+        public Flux<DistributionRouteResponse> streamAllRoutes() {
+                return routeService.getAll()
+                                .map(this::convertToResponse);
         }
 
         private DistributionRouteResponse convertToResponse(
@@ -260,22 +377,74 @@ public class AdminRest {
                 return new ResponseDto<>(true, data, null);
         }
 
-        @GetMapping("/route/active")
+        /**
+         * Paginación por cursor (keyset sobre _id): se leen limit + 1 elementos a partir del cursor
+         * para saber si hay otra página, así cualquier página cuesta lo mismo que la primera.
+         */
+        private <T> Mono<ResponseDto<PageResponse<T>>> page(String cursor, int limit,
+                        BiFunction<String, Integer, Flux<T>> fetch, Function<T, String> idOf) {
+                if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                        return Mono.error(CustomException.badRequest("Invalid limit",
+                                        "limit debe estar entre 1 y " + MAX_PAGE_SIZE));
+                }
+                return Mono.defer(() -> fetch.apply(PageResponse.decodeCursor(cursor), limit + 1).collectList())
+                                .map(items -> success(PageResponse.of(items, limit, idOf)));
+        }
+
+        /**
+         * GET condicional: ETag y Last-Modified salen de la versión en memoria de la colección (o de la
+         * organización), así un If-None-Match / If-Modified-Since vigente responde 304 sin consultar MongoDB.
+         */
+        private <T> Mono<T> ifModified(ServerWebExchange exchange, Class<?> entityClass, String organizationId,
+                        Supplier<Mono<T>> response) {
+                CollectionVersionService.Version version = collectionVersions.current(entityClass, organizationId);
+                if (exchange.checkNotModified(version.etag(), version.lastModified())) {
+                        return Mono.empty();
+                }
+                return response.get();
+        }
+
+        // Los listados con ?fields= siempre incluyen "id", que también sirve de cursor
+        private static String idOf(Map<String, Object> item) {
+                return (String) item.get("id");
+        }
+
+        @GetMapping(value = "/route/active", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all active distribution routes")
-        public Mono<ResponseDto<List<DistributionRouteResponse>>> getAllActiveRoutes() {
-                return routeService.getAllActive()
+        public Mono<ResponseDto<List<DistributionRouteResponse>>> getAllActiveRoutes(ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionRoute.class, null, () -> routeService.getAllActive()
+                                .map(this::convertToResponse)
+                                .collectList()
+                                .map(list -> new ResponseDto<List<DistributionRouteResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/route/active", params = "organizationId", produces = MediaType.APPLICATION_JSON_VALUE)
+        // @Operation(summary = "Get active distribution routes by organization ID")
+        public Mono<ResponseDto<List<DistributionRouteResponse>>> getActiveRoutesByOrganizationId(
+                        @RequestParam String organizationId, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionRoute.class, organizationId,
+                                () -> routeService.getAllActiveByOrganization(organizationId)
                                 .map(this::convertToResponse)
                                 .collectList()
-                                .map(list -> new ResponseDto<List<DistributionRouteResponse>>(true, list, null));
+                                .map(list -> new ResponseDto<List<DistributionRouteResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/route/active",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all active distribution routes (NDJSON / SSE)")
+        public Flux<DistributionRouteResponse> streamAllActiveRoutes() {
+                return routeService.getAllActive()
+                                .map(this::convertToResponse);
         }
 
         @GetMapping("/route/{id}")
         // @Operation(summary = "Get distribution route by ID")
-        public Mono<ResponseDto<DistributionRouteResponse>> getRouteById(@PathVariable String id) {
-                return routeService.getById(id)
+        public Mono<ResponseDto<DistributionRouteResponse>> getRouteById(@PathVariable String id,
+                        ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionRoute.class, null, () -> routeService.getById(id)
                                 .map(this::convertToResponse)
                                 .map(data -> new ResponseDto<DistributionRouteResponse>(true, data, null))
-                                .switchIfEmpty(Mono.error(CustomException.notFound("DistributionRoute", id)));
+                                .switchIfEmpty(Mono.error(CustomException.notFound("DistributionRoute", id))));
         }
 
         @PostMapping("/route")
@@ -325,31 +494,108 @@ public class AdminRest {
         // DISTRIBUTION SCHEDULE ENDPOINTS
         // ===============================
 
-        @GetMapping("/schedule")
+        @GetMapping(value = "/schedule", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all distribution schedules")
-        public Mono<ResponseDto<List<DistributionScheduleResponse>>> getAllSchedules() {
-                return scheduleService.getAll()
+        public Mono<ResponseDto<List<DistributionScheduleResponse>>> getAllSchedules(ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionSchedule.class, null, () -> scheduleService.getAll()
                                 .map(this::convertToScheduleResponse)
                                 .collectList()
-                                .map(list -> new ResponseDto<List<DistributionScheduleResponse>>(true, list, null));
+                                .map(list -> new ResponseDto<List<DistributionScheduleResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/schedule", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of distribution schedules (cursor pagination over _id)")
+        public Mono<ResponseDto<PageResponse<DistributionScheduleResponse>>> getSchedulePage(@RequestParam int limit,
+                        @RequestParam(required = false) String cursor, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionSchedule.class, null, () -> page(cursor, limit,
+                                (afterId, size) -> scheduleService.getPage(afterId, size)
+                                                .map(this::convertToScheduleResponse),
+                                DistributionScheduleResponse::getId));
+        }
+
+        @GetMapping(value = "/schedule", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get distribution schedules with only the requested fields (?fields=scheduleCode,status)")
+        public Mono<ResponseDto<List<Map<String, Object>>>> getScheduleFields(@RequestParam String fields,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, DistributionScheduleResponse.class);
+                return ifModified(exchange, DistributionSchedule.class, null,
+                                () -> scheduleService.getFields(selection.getFields(), null, null)
+                                .map(this::convertToScheduleResponse)
+                                .map(selection::trim)
+                                .collectList()
+                                .map(this::success));
         }
 
-        @GetMapping("/schedule/active")
+        @GetMapping(value = "/schedule", params = { "fields", "limit" }, produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of distribution schedules with only the requested fields")
+        public Mono<ResponseDto<PageResponse<Map<String, Object>>>> getScheduleFieldsPage(@RequestParam String fields,
+                        @RequestParam int limit, @RequestParam(required = false) String cursor,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, DistributionScheduleResponse.class);
+                BiFunction<String, Integer, Flux<Map<String, Object>>> fetch = (afterId, size) -> scheduleService
+                                .getFields(selection.getFields(), afterId, size)
+                                .map(this::convertToScheduleResponse)
+                                .map(selection::trim);
+                return ifModified(exchange, DistributionSchedule.class, null,
+                                () -> page(cursor, limit, fetch, AdminRest::idOf));
+        }
+
+        @GetMapping(value = "/schedule",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all distribution schedules (NDJSON / SSE)")
+        public Flux<DistributionScheduleResponse> streamAllSchedules() {
+                return scheduleService.getAll()
+                                .map(this::convertToScheduleResponse);
+        }
+
+        @GetMapping(value = "/schedule/active", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all active distribution schedules")
-        public Mono<ResponseDto<List<DistributionScheduleResponse>>> getAllActiveSchedules() {
+        public Mono<ResponseDto<List<DistributionScheduleResponse>>> getAllActiveSchedules(ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionSchedule.class, null, () -> scheduleService.getAllActive()
+                                .map(this::convertToScheduleResponse)
+                                .collectList()
+                                .map(list -> new ResponseDto<List<DistributionScheduleResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/schedule/active", params = "organizationId", produces = MediaType.APPLICATION_JSON_VALUE)
+        // @Operation(summary = "Get active distribution schedules by organization ID")
+        public Mono<ResponseDto<List<DistributionScheduleResponse>>> getActiveSchedulesByOrganizationId(
+                        @RequestParam String organizationId, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionSchedule.class, organizationId,
+                                () -> scheduleService.getAllActiveByOrganization(organizationId)
+                                .map(this::convertToScheduleResponse)
+                                .collectList()
+                                .map(list -> new ResponseDto<List<DistributionScheduleResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/schedule/active",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all active distribution schedules (NDJSON / SSE)")
+        public Flux<DistributionScheduleResponse> streamAllActiveSchedules() {
                 return scheduleService.getAllActive()
+                                .map(this::convertToScheduleResponse);
+        }
+
+        @GetMapping(value = "/schedule/active-at", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get the active schedules of a zone in effect on a day at a time (?zoneId=&day=TUESDAY&time=06:30)")
+        public Mono<ResponseDto<List<DistributionScheduleResponse>>> getSchedulesActiveAt(
+                        @RequestParam String zoneId, @RequestParam String day, @RequestParam String time,
+                        @RequestParam(required = false) String organizationId, ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionSchedule.class, organizationId,
+                                () -> scheduleService.getActiveAt(organizationId, zoneId, day, time)
                                 .map(this::convertToScheduleResponse)
                                 .collectList()
-                                .map(list -> new ResponseDto<List<DistributionScheduleResponse>>(true, list, null));
+                                .map(list -> new ResponseDto<List<DistributionScheduleResponse>>(true, list, null)));
         }
 
         @GetMapping("/schedule/{id}")
         // @Operation(summary = "Get distribution schedule by ID")
-        public Mono<ResponseDto<DistributionScheduleResponse>> getScheduleById(@PathVariable String id) {
-                return scheduleService.getById(id)
+        public Mono<ResponseDto<DistributionScheduleResponse>> getScheduleById(@PathVariable String id,
+                        ServerWebExchange exchange) {
+                return ifModified(exchange, DistributionSchedule.class, null, () -> scheduleService.getById(id)
                                 .map(this::convertToScheduleResponse)
                                 .map(data -> new ResponseDto<DistributionScheduleResponse>(true, data, null))
-                                .switchIfEmpty(Mono.error(CustomException.notFound("DistributionSchedule", id)));
+                                .switchIfEmpty(Mono.error(CustomException.notFound("DistributionSchedule", id))));
         }
 
         @PostMapping("/schedule")
@@ -409,32 +655,106 @@ public class AdminRest {
                                 .switchIfEmpty(Mono.error(CustomException.notFound("DistributionSchedule", id)));
         }
 
+        // ===============================
+        // SUPPLY WINDOWS
+        // ===============================
+
+        // Se responde desde el índice en memoria de SupplyWindowIndex; no lleva ETag porque cambia con la hora
+        @GetMapping(value = "/supply/windows", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get the current and next water supply windows of a zone or street")
+        public Mono<ResponseDto<SupplyWindowsResponse>> getSupplyWindows(@RequestParam String organizationId,
+                        @RequestParam String zoneId, @RequestParam(required = false) String streetId,
+                        @RequestParam(required = false) Integer limit) {
+                return supplyWindowService.getWindows(organizationId, zoneId, streetId, limit)
+                                .map(data -> new ResponseDto<SupplyWindowsResponse>(true, data, null));
+        }
+
+        // ===============================
+        // CONFLICTS
+        // ===============================
+
+        @GetMapping(value = "/conflicts", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Report overlapping programs and schedules of an organization in a date range")
+        public Mono<ResponseDto<ConflictReportResponse>> getConflicts(@RequestParam String organizationId,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+                return conflictService.getReport(organizationId, fromDate, toDate)
+                                .map(data -> new ResponseDto<ConflictReportResponse>(true, data, null));
+        }
+
         // ===============================
         // FARE ENDPOINTS
         // ===============================
 
-        @GetMapping("/fare")
+        @GetMapping(value = "/fare", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all fares")
-        public Mono<ResponseDto<List<FareResponse>>> getAllFares() {
-                return fareService.getAllF()
+        public Mono<ResponseDto<List<FareResponse>>> getAllFares(ServerWebExchange exchange) {
+                return ifModified(exchange, Fare.class, null, () -> fareService.getAllF()
+                                .collectList()
+                                .map(list -> new ResponseDto<List<FareResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/fare", params = "limit", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of fares (cursor pagination over _id)")
+        public Mono<ResponseDto<PageResponse<FareResponse>>> getFarePage(@RequestParam int limit,
+                        @RequestParam(required = false) String cursor, ServerWebExchange exchange) {
+                return ifModified(exchange, Fare.class, null,
+                                () -> page(cursor, limit, fareService::getPageF, FareResponse::getId));
+        }
+
+        @GetMapping(value = "/fare", params = "fields", produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get fares with only the requested fields (?fields=fareCode,fareAmount,status)")
+        public Mono<ResponseDto<List<Map<String, Object>>>> getFareFields(@RequestParam String fields,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, FareResponse.class);
+                return ifModified(exchange, Fare.class, null,
+                                () -> fareService.getFieldsF(selection.getFields(), null, null)
+                                .map(selection::trim)
                                 .collectList()
-                                .map(list -> new ResponseDto<List<FareResponse>>(true, list, null));
+                                .map(this::success));
+        }
+
+        @GetMapping(value = "/fare", params = { "fields", "limit" }, produces = MediaType.APPLICATION_JSON_VALUE)
+        @Operation(summary = "Get a page of fares with only the requested fields")
+        public Mono<ResponseDto<PageResponse<Map<String, Object>>>> getFareFieldsPage(@RequestParam String fields,
+                        @RequestParam int limit, @RequestParam(required = false) String cursor,
+                        ServerWebExchange exchange) {
+                FieldSelection selection = FieldSelection.of(fields, FareResponse.class);
+                BiFunction<String, Integer, Flux<Map<String, Object>>> fetch = (afterId, size) -> fareService
+                                .getFieldsF(selection.getFields(), afterId, size)
+                                .map(selection::trim);
+                return ifModified(exchange, Fare.class, null,
+                                () -> page(cursor, limit, fetch, AdminRest::idOf));
         }
 
-        @GetMapping("/fare/active")
+        @GetMapping(value = "/fare",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all fares (NDJSON / SSE)")
+        public Flux<FareResponse> streamAllFares() {
+                return fareService.getAllF();
+        }
+
+        @GetMapping(value = "/fare/active", produces = MediaType.APPLICATION_JSON_VALUE)
         // @Operation(summary = "Get all active fares")
-        public Mono<ResponseDto<List<FareResponse>>> getAllActiveFares() {
-                return fareService.getAllActiveF()
+        public Mono<ResponseDto<List<FareResponse>>> getAllActiveFares(ServerWebExchange exchange) {
+                return ifModified(exchange, Fare.class, null, () -> fareService.getAllActiveF()
                                 .collectList()
-                                .map(list -> new ResponseDto<List<FareResponse>>(true, list, null));
+                                .map(list -> new ResponseDto<List<FareResponse>>(true, list, null)));
+        }
+
+        @GetMapping(value = "/fare/active",
+                        produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE })
+        @Operation(summary = "Stream all active fares (NDJSON / SSE)")
+        public Flux<FareResponse> streamAllActiveFares() {
+                return fareService.getAllActiveF();
         }
 
         @GetMapping("/fare/{id}")
         // @Operation(summary = "Get fare by ID")
-        public Mono<ResponseDto<FareResponse>> getFareById(@PathVariable String id) {
-                return fareService.getByIdF(id)
+        public Mono<ResponseDto<FareResponse>> getFareById(@PathVariable String id, ServerWebExchange exchange) {
+                return ifModified(exchange, Fare.class, null, () -> fareService.getByIdF(id)
                                 .map(data -> new ResponseDto<FareResponse>(true, data, null))
-                                .switchIfEmpty(Mono.error(CustomException.notFound("Fare", id)));
+                                .switchIfEmpty(Mono.error(CustomException.notFound("Fare", id))));
         }
 
         @PostMapping("/fare")
@@ -479,8 +799,15 @@ public class AdminRest {
         
         @PostMapping("/fare/process-transitions")
         @Operation(summary = "Process fare transitions based on effective dates")
-        public Mono<ResponseDto<String>> processFareTransitions() {
-                fareService.triggerFareTransitions();
-                return Mono.just(new ResponseDto<String>(true, "Fare transitions processing triggered successfully", null));
+        public Mono<ResponseDto<FareTransitionResponse>> processFareTransitions() {
+                return fareService.triggerFareTransitions()
+                                .map(result -> new ResponseDto<FareTransitionResponse>(true, result, null))
+                                .onErrorResume(e -> {
+                                        log.error("Error processing fare transitions: {}", e.getMessage());
+                                        return Mono.just(new ResponseDto<FareTransitionResponse>(false, null,
+                                                        new ErrorMessage(500,
+                                                                        "Error al procesar las transiciones de tarifas",
+                                                                        e.getMessage())));
+                                });
         }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Caché asíncrona de una consulta por id a otro microservicio.
+ *
+ * - Las consultas concurrentes del mismo id comparten una sola llamada HTTP (single-flight).
+ * - Pasado refreshAfter, la siguiente lectura devuelve el valor guardado y lo renueva en segundo
+ *   plano (stale-while-revalidate); si la renovación falla se sigue usando el valor anterior hasta ttl.
+ * - Un id inexistente (fetch vacío) se guarda negativeTtl; los errores no se guardan.
+ * - Si la carga falla (servicio caído, circuito abierto) se responde con el último valor bueno
+ *   conocido, que se conserva staleTtl aunque haya salido de la caché principal.
+ *
+ * Exporta las métricas de la caché (cache.gets, cache.evictions...) con cache=external.{name} y
+ * las llamadas al servicio como external.calls{client, outcome=success|not_found|stale|error}.
+ */
+class ExternalLookupCache<V> {
+
+    private final AsyncLoadingCache<String, Optional<V>> cache;
+    private final Cache<String, V> lastKnown;
+    private final Counter found;
+    private final Counter notFound;
+    private final Counter stale;
+    private final Counter failed;
+
+    ExternalLookupCache(String name, Function<String, Mono<V>> fetch, Settings settings, MeterRegistry meterRegistry) {
+        this.found = calls(meterRegistry, name, "success");
+        this.notFound = calls(meterRegistry, name, "not_found");
+        this.stale = calls(meterRegistry, name, "stale");
+        this.failed = calls(meterRegistry, name, "error");
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(settings.maximumSize())
+                .expireAfterWrite(settings.staleTtl())
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(settings.maximumSize())
+                .expireAfter(new Expiry<String, Optional<V>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<V> value, long currentTime) {
+                        return (value.isPresent() ? settings.ttl() : settings.negativeTtl()).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<V> value, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<V> value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .refreshAfterWrite(settings.refreshAfter())
+                .recordStats()
+                .buildAsync((key, executor) -> fetch.apply(key)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .doOnNext(value -> remember(key, value))
+                        .onErrorResume(e -> fallback(key, e))
+                        .toFuture());
+        new CaffeineCacheMetrics<>(cache.synchronous(), "external." + name, List.of()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Valor en caché o cargado del servicio; vacío si no existe. Si la carga falla devuelve el último
+     * valor bueno conocido o, si no lo hay, propaga el error.
+     */
+    Mono<V> get(String key) {
+        if (key == null) {
+            return Mono.empty();
+        }
+        // suppressCancel: la llamada es compartida, cancelar un suscriptor no la cancela para los demás
+        return Mono.fromFuture(() -> cache.get(key), true)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /** Guarda un valor obtenido por otra vía (p. ej. embebido en otra respuesta). */
+    void put(String key, V value) {
+        if (key != null && value != null) {
+            cache.put(key, CompletableFuture.completedFuture(Optional.of(value)));
+            lastKnown.put(key, value);
+        }
+    }
+
+    private void remember(String key, Optional<V> value) {
+        if (value.isPresent()) {
+            found.increment();
+            lastKnown.put(key, value.get());
+        } else {
+            notFound.increment();
+            lastKnown.invalidate(key);
+        }
+    }
+
+    private Mono<Optional<V>> fallback(String key, Throwable error) {
+        V value = lastKnown.getIfPresent(key);
+        if (value == null) {
+            failed.increment();
+            return Mono.error(error);
+        }
+        stale.increment();
+        return Mono.just(Optional.of(value));
+    }
+
+    private static Counter calls(MeterRegistry meterRegistry, String name, String outcome) {
+        return Counter.builder("external.calls")
+                .description("Downstream lookups made on cache misses and refreshes, by outcome")
+                .tag("client", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    record Settings(long maximumSize, Duration ttl, Duration refreshAfter, Duration negativeTtl, Duration staleTtl) {
+    }
+}
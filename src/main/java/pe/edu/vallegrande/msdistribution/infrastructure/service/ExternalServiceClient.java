@@ -1,69 +1,180 @@
 package pe.edu.vallegrande.msdistribution.infrastructure.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalOrganization;
 import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalUser;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalZone;
 import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.UserApiResponse;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.ResponseDto;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cliente de los microservicios de usuarios y organizaciones.
+ *
+ * Las búsquedas por id (usuario, organización) pasan por una caché en memoria (ExternalLookupCache):
+ * las consultas concurrentes del mismo id comparten una llamada, los valores se renuevan en segundo
+ * plano y los ids inexistentes se recuerdan un tiempo corto. Cada respuesta que trae usuarios,
+ * organizaciones o zonas embebidos también alimenta la caché. Los errores se registran y se devuelve vacío.
+ *
+ * Las zonas no se consultan: este servicio no conoce un endpoint de zonas de ms-organization, así que
+ * solo se conocen las que llegan embebidas en los usuarios; una zona que no llegó así queda sin resolver.
+ *
+ * Las llamadas a ms-users pasan por un circuit breaker y un bulkhead de Resilience4j (resilience4j.* en
+ * application.yml): si el servicio falla o responde lento el circuito se abre y las llamadas fallan al
+ * instante, y nunca hay más de maxConcurrentCalls llamadas en curso. En ambos casos se responde con el
+ * último valor bueno de la caché.
+ */
 @Service
+@Slf4j
 public class ExternalServiceClient {
 
+    private static final ParameterizedTypeReference<ResponseDto<ExternalUser>> USER_RESPONSE =
+            new ParameterizedTypeReference<>() { };
+
     private final WebClient userWebClient;
     private final WebClient organizationWebClient;
+    // El bulkhead va dentro del circuit breaker; BulkheadFullException está en ignore-exceptions,
+    // así un pico de concurrencia no abre el circuito. Los 404 llegan ya convertidos en vacío
+    private final Bulkhead usersBulkhead;
+    private final CircuitBreaker usersCircuitBreaker;
+    private final ExternalLookupCache<ExternalUser> users;
+    private final ExternalLookupCache<ExternalOrganization> organizations;
+    private final Cache<String, ExternalZone> zones;
 
     public ExternalServiceClient(
             @Qualifier("userWebClient") WebClient userWebClient,
-            @Qualifier("organizationWebClient") WebClient organizationWebClient) {
+            @Qualifier("organizationWebClient") WebClient organizationWebClient,
+            MeterRegistry meterRegistry,
+            CircuitBreakerRegistry circuitBreakers,
+            BulkheadRegistry bulkheads,
+            @Value("${app.external-cache.maximum-size:5000}") long maximumSize,
+            @Value("${app.external-cache.ttl:10m}") Duration ttl,
+            @Value("${app.external-cache.refresh-after:1m}") Duration refreshAfter,
+            @Value("${app.external-cache.negative-ttl:30s}") Duration negativeTtl,
+            @Value("${app.external-cache.stale-ttl:24h}") Duration staleTtl) {
         this.userWebClient = userWebClient;
         this.organizationWebClient = organizationWebClient;
+        this.usersBulkhead = bulkheads.bulkhead("users");
+        this.usersCircuitBreaker = circuitBreakers.circuitBreaker("users");
+        ExternalLookupCache.Settings settings =
+                new ExternalLookupCache.Settings(maximumSize, ttl, refreshAfter, negativeTtl, staleTtl);
+        this.users = new ExternalLookupCache<>("users", this::fetchUser, settings, meterRegistry);
+        this.organizations = new ExternalLookupCache<>("organizations", this::fetchOrganization,
+                settings, meterRegistry);
+        this.zones = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        new CaffeineCacheMetrics<>(zones, "external.zones", List.of()).bindTo(meterRegistry);
     }
 
     public Flux<ExternalUser> getAdminsByOrganization(String organizationId) {
-        return userWebClient.get()
-                .uri("/internal/organizations/" + organizationId + "/admins")
-                .retrieve()
-                .bodyToMono(UserApiResponse.class)
-                .flatMapMany(response -> Flux.fromIterable(response.getData()))
+        return fetchAdmins(organizationId)
                 .onErrorResume(e -> {
-                    System.err.println("Error fetching admins for organization " + organizationId + ": " + e.getMessage());
+                    log.warn("Error fetching admins for organization {}: {}", organizationId, e.getMessage());
                     return Flux.empty();
                 });
     }
 
     public Mono<ExternalUser> getUserById(String userId) {
-        return userWebClient.get()
-                .uri("/api/users/" + userId)
-                .retrieve()
-                .bodyToMono(ResponseDto.class)
-                .map(response -> (ExternalUser) response.getData())
+        return users.get(userId)
                 .onErrorResume(e -> {
-                    System.err.println("Error fetching user " + userId + ": " + e.getMessage());
+                    log.warn("Error fetching user {}: {}", userId, e.getMessage());
                     return Mono.empty();
                 });
     }
 
     public Mono<ExternalOrganization> getOrganizationById(String organizationId) {
-        // Instead of calling the organization service directly, we'll get organization data through users
-        // First, get admins for the organization
-        return getAdminsByOrganization(organizationId)
-                .next() // Get the first admin user
-                .flatMap(adminUser -> {
-                    if (adminUser != null && adminUser.getOrganization() != null) {
-                        System.out.println("Successfully fetched organization from user: " + adminUser.getOrganization().getOrganizationName());
-                        return Mono.just(adminUser.getOrganization());
-                    } else {
-                        System.out.println("No organization data found in user for organization ID: " + organizationId);
-                        return Mono.empty();
-                    }
-                })
+        return organizations.get(organizationId)
                 .onErrorResume(e -> {
-                    System.err.println("Error fetching organization through users for organization " + organizationId + ": " + e.getMessage());
+                    log.warn("Error fetching organization {} through users: {}", organizationId, e.getMessage());
                     return Mono.empty();
                 });
     }
-}
\ No newline at end of file
+
+    /** Zona ya vista embebida en un usuario; vacío si no se conoce (no hay endpoint de zonas). */
+    public Mono<ExternalZone> getZoneById(String zoneId) {
+        return zoneId == null ? Mono.empty() : Mono.justOrEmpty(zones.getIfPresent(zoneId));
+    }
+
+    // ===============================
+    // LLAMADAS HTTP (solo en fallos de caché y renovaciones)
+    // ===============================
+
+    private Flux<ExternalUser> fetchAdmins(String organizationId) {
+        return userWebClient.get()
+                .uri("/internal/organizations/{organizationId}/admins", organizationId)
+                .retrieve()
+                .bodyToMono(UserApiResponse.class)
+                .flatMapMany(response -> Flux.fromIterable(
+                        response.getData() != null ? response.getData() : List.<ExternalUser>of()))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Flux.empty())
+                .transformDeferred(BulkheadOperator.of(usersBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(usersCircuitBreaker))
+                .doOnNext(this::remember);
+    }
+
+    private Mono<ExternalUser> fetchUser(String userId) {
+        return userWebClient.get()
+                .uri("/api/users/{userId}", userId)
+                .retrieve()
+                .bodyToMono(USER_RESPONSE)
+                .mapNotNull(ResponseDto::getData)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .transformDeferred(BulkheadOperator.of(usersBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(usersCircuitBreaker))
+                .doOnNext(user -> {
+                    remember(user.getOrganization());
+                    remember(user.getZone());
+                });
+    }
+
+    // No se usa organizationWebClient: no hay un endpoint de organización por id acordado con ms-organization
+    // (igual que con las zonas), y el único contrato conocido es la lista de admins de ms-users, que trae la
+    // organización embebida. La lista se descarga completa, pero cada admin queda en la caché de usuarios y la
+    // organización se guarda por id, así que se pide a lo sumo una vez por organización mientras dure el ttl
+    private Mono<ExternalOrganization> fetchOrganization(String organizationId) {
+        return fetchAdmins(organizationId)
+                .mapNotNull(ExternalUser::getOrganization)
+                .next();
+    }
+
+    private void remember(ExternalUser user) {
+        users.put(user.getId(), user);
+        remember(user.getOrganization());
+        remember(user.getZone());
+    }
+
+    private void remember(ExternalOrganization organization) {
+        if (organization != null) {
+            organizations.put(organization.getOrganizationId(), organization);
+        }
+    }
+
+    private void remember(ExternalZone zone) {
+        if (zone != null && zone.getZoneId() != null) {
+            zones.put(zone.getZoneId(), zone);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ActiveReferenceSnapshot.
+ * Verifica que cada reconstrucción reemplaza la copia completa, la agrupa por organización
+ * y sube la versión de la colección para invalidar las ETag.
+ */
+public class ActiveReferenceSnapshotTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        activeSnapshot = new ActiveReferenceSnapshot(mongoTemplate, collectionVersions);
+    }
+
+    @Test
+    void routes_ShouldBeNull_UntilFirstRebuild() {
+        assertNull(activeSnapshot.routes());
+        assertNull(activeSnapshot.schedules());
+    }
+
+    @Test
+    void rebuild_ShouldGroupByOrganization_AndBumpVersion() {
+        // Arrange
+        DistributionRoute first = route("route-1", "org-1");
+        DistributionRoute second = route("route-2", "org-1");
+        DistributionRoute other = route("route-3", "org-2");
+        when(mongoTemplate.find(any(Query.class), eq(DistributionRoute.class)))
+                .thenReturn(Flux.just(first, second, other));
+
+        // Act
+        activeSnapshot.rebuild(DistributionRoute.class).block();
+
+        // Assert
+        ActiveReferenceSnapshot.Snapshot<DistributionRoute> snapshot = activeSnapshot.routes();
+        assertNotNull(snapshot);
+        assertEquals(List.of(first, second, other), snapshot.all());
+        assertEquals(List.of(first, second), snapshot.forOrganization("org-1"));
+        assertEquals(List.of(), snapshot.forOrganization("org-unknown"));
+        assertNull(activeSnapshot.schedules());
+        verify(collectionVersions).bump(DistributionRoute.class, null);
+    }
+
+    @Test
+    void rebuild_ShouldSwapWholeSnapshot_WithNewVersion() {
+        // Arrange
+        DistributionSchedule before = DistributionSchedule.builder().id("schedule-1").organizationId("org-1").build();
+        DistributionSchedule after = DistributionSchedule.builder().id("schedule-2").organizationId("org-1").build();
+        when(mongoTemplate.find(any(Query.class), eq(DistributionSchedule.class)))
+                .thenReturn(Flux.just(before), Flux.just(after));
+        activeSnapshot.rebuild(DistributionSchedule.class).block();
+        ActiveReferenceSnapshot.Snapshot<DistributionSchedule> previous = activeSnapshot.schedules();
+
+        // Act
+        activeSnapshot.rebuild(DistributionSchedule.class).block();
+
+        // Assert - la copia anterior no cambia, la nueva la reemplaza
+        ActiveReferenceSnapshot.Snapshot<DistributionSchedule> current = activeSnapshot.schedules();
+        assertEquals(List.of(before), previous.all());
+        assertEquals(List.of(after), current.all());
+        assertEquals(previous.version() + 1, current.version());
+    }
+
+    private DistributionRoute route(String id, String organizationId) {
+        return DistributionRoute.builder()
+                .id(id)
+                .organizationId(organizationId)
+                .status(Constants.ACTIVE.name())
+                .build();
+    }
+}
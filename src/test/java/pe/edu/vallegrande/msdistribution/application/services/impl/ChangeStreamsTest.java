@@ -0,0 +1,67 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import reactor.core.publisher.Flux;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ChangeStreams.
+ * Verifica la búsqueda del código de error en la cadena de causas, que sin soporte de change streams
+ * no se reintenta y el nombre de colección tomado de @Document.
+ */
+public class ChangeStreamsTest {
+
+    @Test
+    void isErrorCode_ShouldLookThroughCauses() {
+        // Arrange
+        RuntimeException wrapped = new RuntimeException("stream failed", commandError(286));
+
+        // Act & Assert
+        assertTrue(ChangeStreams.isErrorCode(wrapped, Set.of(280, 286)));
+        assertFalse(ChangeStreams.isErrorCode(wrapped, ChangeStreams.UNSUPPORTED_CODES));
+        assertFalse(ChangeStreams.isErrorCode(new IllegalStateException("other"), Set.of(286)));
+    }
+
+    @Test
+    void keepWatching_ShouldGiveUp_WhenChangeStreamsAreNotSupported() {
+        // Arrange
+        AtomicInteger subscriptions = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<Throwable> disabled = new AtomicReference<>();
+        Flux<Object> stream = Flux.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Flux.error(commandError(40573));
+        });
+
+        // Act
+        ChangeStreams.keepWatching(stream, e -> failures.incrementAndGet(), disabled::set);
+
+        // Assert
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, failures.get());
+        assertTrue(ChangeStreams.isErrorCode(disabled.get(), ChangeStreams.UNSUPPORTED_CODES));
+    }
+
+    @Test
+    void collectionOf_ShouldReadDocumentAnnotation() {
+        assertEquals("program", ChangeStreams.collectionOf(DistributionProgram.class));
+    }
+
+    private static MongoCommandException commandError(int code) {
+        BsonDocument response = new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(code))
+                .append("errmsg", new BsonString("error " + code));
+        return new MongoCommandException(response, new ServerAddress());
+    }
+}
@@ -0,0 +1,182 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import pe.edu.vallegrande.msdistribution.domain.models.CodeSequence;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CodeSequenceServiceImpl.
+ * Verifica que los códigos salen de bloques reservados con un único findAndModify
+ * y que el contador se inicializa una sola vez a partir del mayor código existente.
+ */
+public class CodeSequenceServiceImplTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private Environment environment;
+
+    @InjectMocks
+    private CodeSequenceServiceImpl codeSequenceService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void nextCode_ShouldIncrementExistingCounter_WithoutScanningCollection() {
+        // Arrange - el contador ya existe
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(new CodeSequence("RUT", 6)));
+
+        // Act & Assert
+        StepVerifier.create(codeSequenceService.nextCode("RUT"))
+                .expectNext("RUT006")
+                .verifyComplete();
+
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), anyString(), eq(Document.class));
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(UpdateDefinition.class), eq(CodeSequence.class));
+    }
+
+    @Test
+    void nextCode_ShouldSeedCounterFromHighestExistingCode_WhenCounterMissing() {
+        // Arrange - no hay contador, el mayor código existente es PRG041
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(false));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("program"), eq(Document.class)))
+                .thenReturn(Flux.just(new Document("_id", null).append("max", 41L)));
+        when(mongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(new CodeSequence("PRG", 42)));
+
+        // Act & Assert
+        StepVerifier.create(codeSequenceService.nextCode("PRG"))
+                .expectNext("PRG042")
+                .verifyComplete();
+
+        // El contador se crea con $max para no retroceder si otro nodo ya lo incrementó
+        ArgumentCaptor<UpdateDefinition> captor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate).upsert(any(Query.class), captor.capture(), eq(CodeSequence.class));
+        assertEquals(new Document("seq", 41L), captor.getValue().getUpdateObject().get("$max"));
+    }
+
+    @Test
+    void nextCode_ShouldInitializeOnlyOncePerPrefix() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(new CodeSequence("HOR", 1)), Mono.just(new CodeSequence("HOR", 2)));
+
+        // Act & Assert
+        StepVerifier.create(codeSequenceService.nextCode("HOR")).expectNext("HOR001").verifyComplete();
+        StepVerifier.create(codeSequenceService.nextCode("HOR")).expectNext("HOR002").verifyComplete();
+
+        verify(mongoTemplate, times(1)).exists(any(Query.class), eq(CodeSequence.class));
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class));
+    }
+
+    @Test
+    void nextCode_ShouldRetryOnce_WhenConcurrentUpsertCollides() {
+        // Arrange - dos nodos crean el contador al mismo tiempo
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000")), Mono.just(new CodeSequence("TAR", 2)));
+
+        // Act & Assert
+        StepVerifier.create(codeSequenceService.nextCode("TAR"))
+                .expectNext("TAR002")
+                .verifyComplete();
+    }
+
+    @Test
+    void format_ShouldKeepGrowing_PastThreeDigits() {
+        assertEquals("PRG001", CodeSequenceServiceImpl.format("PRG", 1));
+        assertEquals("PRG1000", CodeSequenceServiceImpl.format("PRG", 1000));
+    }
+
+    @Test
+    void nextCode_ShouldServeWholeBlockFromMemory_WithOneRoundTrip() {
+        // Arrange - bloques de 10 códigos para PRG
+        when(environment.getProperty("app.code-sequence.block-size.PRG", Integer.class)).thenReturn(10);
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(new CodeSequence("PRG", 50)));
+
+        // Act & Assert - el bloque reservado es PRG041..PRG050
+        StepVerifier.create(Flux.range(0, 5).concatMap(i -> codeSequenceService.nextCode("PRG")))
+                .expectNext("PRG041", "PRG042", "PRG043", "PRG044", "PRG045")
+                .verifyComplete();
+
+        ArgumentCaptor<UpdateDefinition> captor = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), captor.capture(),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class));
+        assertEquals(new Document("seq", 10), captor.getValue().getUpdateObject().get("$inc"));
+    }
+
+    @Test
+    void nextCode_ShouldPrefetchNextBlock_BeforeCurrentRunsOut() {
+        // Arrange - bloques de 5: se reserva el siguiente al quedar 1 código
+        when(environment.getProperty("app.code-sequence.block-size.RUT", Integer.class)).thenReturn(5);
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(new CodeSequence("RUT", 5)), Mono.just(new CodeSequence("RUT", 20)));
+
+        // Act & Assert - el segundo bloque (otro nodo reservó 6..15) continúa en RUT016
+        StepVerifier.create(Flux.range(0, 7).concatMap(i -> codeSequenceService.nextCode("RUT")))
+                .expectNext("RUT001", "RUT002", "RUT003", "RUT004", "RUT005", "RUT016", "RUT017")
+                .verifyComplete();
+
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class));
+    }
+
+    @Test
+    void nextCodes_ShouldReserveConsecutiveRange_InSingleCall() {
+        // Arrange
+        when(mongoTemplate.exists(any(Query.class), eq(CodeSequence.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class)))
+                .thenReturn(Mono.just(new CodeSequence("PRG", 103)));
+
+        // Act & Assert
+        StepVerifier.create(codeSequenceService.nextCodes("PRG", 4))
+                .expectNext("PRG100", "PRG101", "PRG102", "PRG103")
+                .verifyComplete();
+
+        verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(CodeSequence.class));
+    }
+}
@@ -0,0 +1,71 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService.Version;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CollectionVersionServiceImpl.
+ * Verifica que las ETag solo cambian cuando se escribe en la colección u organización consultada.
+ */
+public class CollectionVersionServiceImplTest {
+
+    private CollectionVersionServiceImpl versions;
+
+    @BeforeEach
+    void setUp() {
+        versions = new CollectionVersionServiceImpl();
+    }
+
+    @Test
+    void current_ShouldBeStable_UntilBumped() {
+        Version first = versions.current(DistributionRoute.class, null);
+
+        assertEquals(first, versions.current(DistributionRoute.class, null));
+
+        versions.bump(DistributionRoute.class, "org-1");
+        assertNotEquals(first.etag(), versions.current(DistributionRoute.class, null).etag());
+    }
+
+    @Test
+    void bump_ShouldOnlyInvalidateAffectedOrganization_AndCollection() {
+        Version org1 = versions.current(DistributionRoute.class, "org-1");
+        Version org2 = versions.current(DistributionRoute.class, "org-2");
+        Version fares = versions.current(Fare.class, null);
+
+        versions.bump(DistributionRoute.class, "org-1");
+
+        assertNotEquals(org1.etag(), versions.current(DistributionRoute.class, "org-1").etag());
+        assertEquals(org2.etag(), versions.current(DistributionRoute.class, "org-2").etag());
+        assertEquals(fares.etag(), versions.current(Fare.class, null).etag());
+    }
+
+    @Test
+    void onFareChanged_ShouldInvalidateEveryOrganization_WhenBulkChange() {
+        Version org1 = versions.current(Fare.class, "org-1");
+        Version org2 = versions.current(Fare.class, "org-2");
+
+        versions.onFareChanged(FareChangedEvent.allOrganizations());
+
+        assertNotEquals(org1.etag(), versions.current(Fare.class, "org-1").etag());
+        assertNotEquals(org2.etag(), versions.current(Fare.class, "org-2").etag());
+    }
+
+    @Test
+    void current_ShouldReissueVersion_AfterTtl() {
+        // Sin vigencia cada consulta emite una versión nueva (cubre escrituras de otros nodos)
+        ReflectionTestUtils.setField(versions, "ttl", Duration.ZERO);
+
+        Version first = versions.current(Fare.class, null);
+
+        assertNotEquals(first.etag(), versions.current(Fare.class, null).etag());
+    }
+}
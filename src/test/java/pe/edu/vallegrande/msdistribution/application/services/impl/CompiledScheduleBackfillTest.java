@@ -0,0 +1,82 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CompiledScheduleBackfill.
+ * Verifica que solo se actualizan los campos compilados de los horarios pendientes y que sin
+ * pendientes no se escribe nada.
+ */
+public class CompiledScheduleBackfillTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    @Mock
+    private ReactiveBulkOperations bulk;
+
+    private CompiledScheduleBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        backfill = new CompiledScheduleBackfill(mongoTemplate, collectionVersions);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DistributionSchedule.class)).thenReturn(bulk);
+    }
+
+    @Test
+    void backfill_ShouldCompilePendingSchedules() {
+        // Arrange
+        DistributionSchedule legacy = DistributionSchedule.builder()
+                .id("schedule-1").daysOfWeek(List.of("LUNES", "JUEVES")).startTime("06:00").endTime("8:30").build();
+        when(mongoTemplate.find(any(Query.class), eq(DistributionSchedule.class))).thenReturn(Flux.just(legacy));
+        when(bulk.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of())));
+
+        // Act & Assert
+        StepVerifier.create(backfill.backfill()).expectNext(1L).verifyComplete();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulk).updateOne(any(Query.class), update.capture());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(0b0001001, set.get("dayMask"));
+        assertEquals(360, set.get("startMinute"));
+        assertEquals(510, set.get("endMinute"));
+        verify(collectionVersions).bump(DistributionSchedule.class, null);
+    }
+
+    @Test
+    void backfill_ShouldDoNothing_WhenAllSchedulesAreCompiled() {
+        when(mongoTemplate.find(any(Query.class), eq(DistributionSchedule.class))).thenReturn(Flux.empty());
+
+        StepVerifier.create(backfill.backfill()).expectNext(0L).verifyComplete();
+
+        verify(bulk, never()).execute();
+        verifyNoInteractions(collectionVersions);
+    }
+}
@@ -0,0 +1,188 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ConflictDetector.
+ * Verifica los cruces por calle (y contra toda la zona), por responsable y entre horarios que pasan la
+ * medianoche del domingo, que un programa no se cruza consigo mismo al editarse y que el reporte informa
+ * cada par una sola vez.
+ */
+public class ConflictDetectorTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    // 2024-01-02 es martes
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void conflictsOf_ShouldMatchSameStreetAndWholeZone_ButNotOtherStreets() {
+        // Arrange
+        ConflictDetector.Index index = ConflictDetector.Index.build(List.of(), List.of(
+                program("p-1", "street-1", "08:00", "10:00", "user-1"),
+                program("p-2", null, "09:30", "11:00", "user-2"),
+                program("p-3", "street-2", "08:00", "10:00", "user-3")), FROM);
+
+        // Act
+        List<ConflictDetector.Conflict> conflicts = index.conflictsOf(
+                ConflictDetector.programSlot(program(null, "street-1", "09:00", "09:45", "user-4")));
+
+        // Assert
+        assertEquals(List.of("p-1", "p-2"), conflicts.stream().map(c -> c.second().id()).toList());
+        assertTrue(conflicts.stream().allMatch(c -> ConflictDetector.ZONE.equals(c.type())));
+    }
+
+    @Test
+    void conflictsOf_ShouldMatchResponsibleInAnotherZone_AndIgnoreItself() {
+        // Arrange - el mismo responsable tiene otro programa en otra zona
+        DistributionProgram other = program("p-2", "street-9", "09:00", "10:00", "user-1");
+        other.setZoneId("zone-2");
+        ConflictDetector.Index index = ConflictDetector.Index.build(List.of(), List.of(
+                program("p-1", "street-1", "08:00", "10:00", "user-1"), other), FROM);
+
+        // Act - se edita p-1 sin moverlo
+        List<ConflictDetector.Conflict> conflicts = index.conflictsOf(
+                ConflictDetector.programSlot(program("p-1", "street-1", "08:30", "09:30", "user-1")));
+
+        // Assert
+        assertEquals(1, conflicts.size());
+        assertEquals(ConflictDetector.RESPONSIBLE, conflicts.get(0).type());
+        assertEquals("p-2", conflicts.get(0).second().id());
+    }
+
+    @Test
+    void conflictsOf_ShouldMatchSchedulesAcrossSundayMidnight() {
+        // Arrange - domingo 22:00-02:00 se cruza con lunes 01:00-03:00, no con lunes 03:00-05:00
+        ConflictDetector.Index index = ConflictDetector.Index.build(List.of(
+                schedule("s-1", List.of("DOMINGO"), "22:00", "02:00"),
+                schedule("s-2", List.of("LUNES"), "03:00", "05:00")), List.of(), FROM);
+
+        // Act
+        List<ConflictDetector.Conflict> conflicts = index.conflictsOf(
+                ConflictDetector.weeklySlots(schedule("s-3", List.of("LUNES"), "01:00", "03:00")));
+
+        // Assert
+        assertEquals(List.of("s-1"), conflicts.stream().map(c -> c.second().id()).toList());
+    }
+
+    @Test
+    void verify_ShouldRejectWithConflict_UsingIndexBuiltFromMongo() {
+        // Arrange
+        ConflictDetector detector = new ConflictDetector(mongoTemplate, activeSnapshot, collectionVersions,
+                new SimpleMeterRegistry());
+        detector.clock = Clock.fixed(Instant.parse("2024-01-02T12:00:00Z"), ZoneOffset.UTC);
+        when(collectionVersions.current(any(), anyString()))
+                .thenReturn(new CollectionVersionService.Version("v1", Instant.EPOCH));
+        when(mongoTemplate.find(any(Query.class), eq(DistributionSchedule.class))).thenReturn(Flux.empty());
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class)))
+                .thenReturn(Flux.just(program("p-1", "street-1", "08:00", "10:00", "user-1")));
+
+        // Act & Assert
+        StepVerifier.create(detector.verify(program(null, "street-1", "09:00", "11:00", null)))
+                .expectErrorSatisfies(error -> {
+                    assertEquals(409, ((CustomException) error).getErrorMessage().getErrorCode());
+                    assertTrue(((CustomException) error).getErrorMessage().getDetails().contains("PRG-p-1"));
+                })
+                .verify();
+        StepVerifier.create(detector.verify(program(null, "street-1", "10:00", "11:00", null)))
+                .verifyComplete();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(DistributionProgram.class));
+    }
+
+    @Test
+    void admit_ShouldDropProgramsCrossingTheIndexOrEarlierOnesOfTheBatch() {
+        // Arrange - p-1 ya existe en street-1; el lote trae el mismo responsable en dos zonas a la vez
+        ConflictDetector.Index index = ConflictDetector.Index.build(List.of(), List.of(
+                program("p-1", "street-1", "08:00", "10:00", null)), FROM);
+        DistributionProgram crossesIndex = program(null, "street-1", "09:00", "11:00", "user-1");
+        DistributionProgram first = program(null, "street-2", "06:00", "08:00", "user-1");
+        DistributionProgram otherZone = program(null, "street-9", "07:00", "09:00", "user-1");
+        otherZone.setZoneId("zone-2");
+        DistributionProgram later = program(null, "street-2", "08:00", "09:00", "user-1");
+
+        // Act
+        List<DistributionProgram> admitted = index.admit(List.of(crossesIndex, later, otherZone, first));
+
+        // Assert - otherZone empieza después de first y comparte responsable; later empieza cuando first termina
+        assertEquals(List.of(later, first), admitted);
+    }
+
+    @Test
+    void sweep_ShouldReportEachPairOnce() {
+        // Arrange - los horarios s-1 y s-2 se cruzan todos los martes; p-1 y p-2 comparten responsable
+        List<ConflictDetector.Slot> slots = new ArrayList<>();
+        slots.addAll(ConflictDetector.datedSlots(
+                schedule("s-1", List.of("MARTES"), "06:00", "08:00"), FROM, FROM.plusDays(20)));
+        slots.addAll(ConflictDetector.datedSlots(
+                schedule("s-2", List.of("MARTES"), "07:00", "09:00"), FROM, FROM.plusDays(20)));
+        DistributionProgram other = program("p-2", "street-9", "09:00", "10:00", "user-1");
+        other.setZoneId("zone-2");
+        slots.add(ConflictDetector.programSlot(program("p-1", "street-1", "08:00", "10:00", "user-1")));
+        slots.add(ConflictDetector.programSlot(other));
+
+        // Act
+        List<ConflictDetector.Conflict> conflicts = ConflictDetector.sweep(slots);
+
+        // Assert
+        assertEquals(2, conflicts.size());
+        assertEquals(ConflictDetector.ZONE, conflicts.get(0).type());
+        assertEquals("s-1", conflicts.get(0).first().id());
+        assertEquals(DAY.toEpochDay() * 1440 + 7 * 60, conflicts.get(0).start());
+        assertEquals(ConflictDetector.RESPONSIBLE, conflicts.get(1).type());
+        assertEquals(DAY.toEpochDay() * 1440 + 9 * 60, conflicts.get(1).start());
+    }
+
+    private DistributionProgram program(String id, String streetId, String start, String end, String userId) {
+        return DistributionProgram.builder()
+                .id(id).programCode(id == null ? null : "PRG-" + id).organizationId("org-1")
+                .zoneId("zone-1").streetId(streetId).programDate(DAY)
+                .plannedStartTime(start).plannedEndTime(end).status("PLANNED").responsibleUserId(userId)
+                .build();
+    }
+
+    private DistributionSchedule schedule(String id, List<String> days, String start, String end) {
+        return ScheduleCalendar.compile(DistributionSchedule.builder()
+                .id(id).organizationId("org-1").zoneId("zone-1")
+                .daysOfWeek(days).startTime(start).endTime(end).status(Constants.ACTIVE.name())
+                .build());
+    }
+}
@@ -0,0 +1,150 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para DashboardCounterRegistry.
+ * Verifica que cada evento del change stream ajusta solo los contadores afectados y que un recuento no pisa
+ * los eventos que llegan mientras se ejecuta.
+ */
+public class DashboardCounterRegistryTest {
+
+    private static final String PROGRAM = "program";
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    private DashboardCounterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        registry = new DashboardCounterRegistry(mongoTemplate);
+    }
+
+    @Test
+    void applyChange_ShouldIncrement_OnInsert() {
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-1", "PLANNED"), null, null, null);
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-1", "ACTIVE"), null, null, null);
+
+        assertEquals(2L, registry.total(DistributionProgram.class));
+        assertEquals(1L, registry.count(DistributionProgram.class, "org-1", "PLANNED"));
+    }
+
+    @Test
+    void applyChange_ShouldMoveCount_WhenStatusUpdated() {
+        Document before = program("org-1", "PLANNED");
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, before, null, null, null);
+
+        UpdateDescription update = new UpdateDescription(null,
+                new BsonDocument("status", new BsonString("ACTIVE")));
+        registry.applyChange(PROGRAM, OperationType.UPDATE, before, null, update, null, null);
+
+        assertEquals(0L, registry.count(DistributionProgram.class, "org-1", "PLANNED"));
+        assertEquals(1L, registry.count(DistributionProgram.class, "org-1", "ACTIVE"));
+        assertEquals(1L, registry.total(DistributionProgram.class));
+    }
+
+    @Test
+    void applyChange_ShouldIgnoreUpdate_WhenCountedFieldsUntouched() {
+        Document before = program("org-1", "PLANNED");
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, before, null, null, null);
+
+        UpdateDescription update = new UpdateDescription(null,
+                new BsonDocument("observations", new BsonString("Sin novedad")));
+        registry.applyChange(PROGRAM, OperationType.UPDATE, null, null, update, null, null);
+
+        assertEquals(1L, registry.count(DistributionProgram.class, "org-1", "PLANNED"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void applyChange_ShouldDecrement_OnDeleteWithPreImage() {
+        Document program = program("org-2", "ACTIVE");
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program, null, null, null);
+        registry.applyChange(PROGRAM, OperationType.DELETE, program, null, null, null, null);
+
+        assertEquals(0L, registry.total(DistributionProgram.class));
+        assertTrue(registry.countByStatus(DistributionProgram.class, null).isEmpty());
+    }
+
+    @Test
+    void applyChange_ShouldRecount_WhenPreImageMissing() {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(PROGRAM), eq(Document.class)))
+                .thenReturn(Flux.just(new Document("_id",
+                        new Document("organizationId", "org-1").append("status", "ACTIVE"))
+                        .append("count", 10)));
+
+        registry.applyChange(PROGRAM, OperationType.DELETE, null, null, null, null, null);
+
+        assertEquals(10L, registry.count(DistributionProgram.class, "org-1", "ACTIVE"));
+        verify(mongoTemplate).aggregate(any(Aggregation.class), eq(PROGRAM), eq(Document.class));
+    }
+
+    @Test
+    void applyChange_ShouldReplayChangesSinceRecountStarted_OverRecountedValues() {
+        // Arrange - el $group no termina hasta que se emite
+        Sinks.Many<Document> groups = Sinks.many().unicast().onBackpressureBuffer();
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(PROGRAM), eq(Document.class)))
+                .thenReturn(groups.asFlux());
+        Instant now = Instant.now();
+        registry.applyChange(PROGRAM, OperationType.DELETE, null, null, null, null, now);
+
+        // Act - llegan cambios con el recuento en curso: uno anterior a su inicio y dos posteriores
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-1", "ACTIVE"), null, null,
+                now.minus(1, ChronoUnit.HOURS));
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-1", "ACTIVE"), null, null,
+                now.plus(1, ChronoUnit.HOURS));
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-2", "PLANNED"), null, null,
+                now.plus(1, ChronoUnit.HOURS));
+        long duringRecount = registry.total(DistributionProgram.class);
+        groups.tryEmitNext(new Document("_id", new Document("organizationId", "org-1").append("status", "ACTIVE"))
+                .append("count", 10));
+        groups.tryEmitComplete();
+
+        // Assert - el anterior ya estaba en el $group; los posteriores se suman al recuento
+        assertEquals(0L, duringRecount);
+        assertEquals(11L, registry.count(DistributionProgram.class, "org-1", "ACTIVE"));
+        assertEquals(1L, registry.count(DistributionProgram.class, "org-2", "PLANNED"));
+        verify(mongoTemplate, times(1)).aggregate(any(Aggregation.class), eq(PROGRAM), eq(Document.class));
+    }
+
+    @Test
+    void countByOrganizationAndStatus_ShouldGroupCounters() {
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-1", "ACTIVE"), null, null, null);
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-2", "ACTIVE"), null, null, null);
+        registry.applyChange(PROGRAM, OperationType.INSERT, null, program("org-2", "PLANNED"), null, null, null);
+
+        var grouped = registry.countByOrganizationAndStatus(DistributionProgram.class, null);
+
+        assertEquals(List.of("org-1", "org-2"), List.copyOf(grouped.keySet()));
+        assertEquals(1L, grouped.get("org-2").get("PLANNED"));
+        assertFalse(registry.isReady());
+    }
+
+    private Document program(String organizationId, String status) {
+        return new Document("organizationId", organizationId).append("status", status);
+    }
+}
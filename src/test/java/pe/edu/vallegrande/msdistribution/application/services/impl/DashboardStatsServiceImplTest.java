@@ -0,0 +1,248 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para DashboardStatsServiceImpl.
+ * Verifica que los totales se obtienen con conteos de MongoDB
+ * y nunca leyendo los documentos de cada colección.
+ */
+public class DashboardStatsServiceImplTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private DashboardCounterRegistry counterRegistry;
+
+    @InjectMocks
+    private DashboardStatsServiceImpl dashboardStatsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getDashboardStats_ShouldUseEstimatedCounts_ByDefault() {
+        // Arrange
+        when(mongoTemplate.estimatedCount(DistributionProgram.class)).thenReturn(Mono.just(120L));
+        when(mongoTemplate.estimatedCount(DistributionRoute.class)).thenReturn(Mono.just(8L));
+        when(mongoTemplate.estimatedCount(DistributionSchedule.class)).thenReturn(Mono.just(15L));
+        when(mongoTemplate.estimatedCount(Fare.class)).thenReturn(Mono.just(4L));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getDashboardStats())
+                .assertNext(stats -> {
+                    assertEquals(120L, stats.getTotalPrograms());
+                    assertEquals(8L, stats.getTotalRoutes());
+                    assertEquals(15L, stats.getTotalSchedules());
+                    assertEquals(4L, stats.getTotalFares());
+                    assertEquals("ACTIVE", stats.getSystemStatus());
+                    assertNotNull(stats.getLastUpdated());
+                })
+                .verifyComplete();
+
+        // Nunca se deben recorrer los documentos
+        verify(mongoTemplate, never()).findAll(any());
+        verify(mongoTemplate, never()).count(any(Query.class), any(Class.class));
+    }
+
+    @Test
+    void getDashboardStats_ShouldUseExactCounts_WhenEstimatedDisabled() {
+        // Arrange
+        ReflectionTestUtils.setField(dashboardStatsService, "estimatedCounts", false);
+        when(mongoTemplate.count(any(Query.class), eq(DistributionProgram.class))).thenReturn(Mono.just(3L));
+        when(mongoTemplate.count(any(Query.class), eq(DistributionRoute.class))).thenReturn(Mono.just(2L));
+        when(mongoTemplate.count(any(Query.class), eq(DistributionSchedule.class))).thenReturn(Mono.just(1L));
+        when(mongoTemplate.count(any(Query.class), eq(Fare.class))).thenReturn(Mono.just(0L));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getDashboardStats())
+                .assertNext(stats -> {
+                    assertEquals(3L, stats.getTotalPrograms());
+                    assertEquals(2L, stats.getTotalRoutes());
+                    assertEquals(1L, stats.getTotalSchedules());
+                    assertEquals(0L, stats.getTotalFares());
+                })
+                .verifyComplete();
+
+        verify(mongoTemplate, never()).estimatedCount(any(Class.class));
+    }
+
+    @Test
+    void getDashboardStats_ShouldPropagateError_WhenCountFails() {
+        // Arrange
+        when(mongoTemplate.estimatedCount(any(Class.class))).thenReturn(Mono.just(1L));
+        when(mongoTemplate.estimatedCount(Fare.class)).thenReturn(Mono.error(new RuntimeException("DB down")));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getDashboardStats())
+                .expectErrorMessage("DB down")
+                .verify();
+    }
+
+    @Test
+    void getSystemSummary_ShouldCountEveryStatus_FromAggregation() {
+        // Arrange - resultado del $facet tal como lo devuelve MongoDB
+        Document facetResult = new Document("byStatus", List.of(
+                new Document("_id", "ACTIVE").append("count", 5),
+                new Document("_id", "PLANNED").append("count", 7),
+                new Document("_id", "CANCELLED").append("count", 1)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DistributionProgram.class), eq(Document.class)))
+                .thenReturn(Flux.just(facetResult));
+        when(mongoTemplate.count(any(Query.class), eq(DistributionRoute.class))).thenReturn(Mono.just(3L));
+        when(mongoTemplate.count(any(Query.class), eq(DistributionSchedule.class))).thenReturn(Mono.just(6L));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getSystemSummary(null, false, false))
+                .assertNext(summary -> {
+                    assertEquals(13L, summary.getPrograms().getTotal());
+                    assertEquals(5L, summary.getPrograms().getActive());
+                    assertEquals(7L, summary.getPrograms().getPlanned());
+                    // Los estados conocidos se reportan aunque no existan documentos
+                    assertEquals(0L, summary.getPrograms().getByStatus().get("IN_PROGRESS"));
+                    assertEquals(0L, summary.getPrograms().getByStatus().get("INACTIVE"));
+                    assertEquals(1L, summary.getPrograms().getByStatus().get("CANCELLED"));
+                    assertNull(summary.getPrograms().getByOrganization());
+                    assertNull(summary.getPrograms().getByMonth());
+                    assertEquals(3L, summary.getInfrastructure().getActiveRoutes());
+                    assertEquals(6L, summary.getInfrastructure().getActiveSchedules());
+                })
+                .verifyComplete();
+
+        // Nunca se cargan entidades DistributionProgram
+        verify(mongoTemplate, never()).findAll(DistributionProgram.class);
+    }
+
+    @Test
+    void getSystemSummary_ShouldGroupByOrganizationAndMonth_WhenRequested() {
+        // Arrange
+        Document facetResult = new Document("byStatus", List.of(
+                new Document("_id", "PLANNED").append("count", 3)))
+                .append("byOrganization", List.of(
+                        new Document("_id", new Document("organizationId", "org-1").append("status", "PLANNED"))
+                                .append("count", 2),
+                        new Document("_id", new Document("organizationId", "org-2").append("status", "PLANNED"))
+                                .append("count", 1)))
+                .append("byMonth", List.of(
+                        new Document("_id", new Document("month", "2025-10").append("status", "PLANNED"))
+                                .append("count", 3)));
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DistributionProgram.class), eq(Document.class)))
+                .thenReturn(Flux.just(facetResult));
+        when(mongoTemplate.count(any(Query.class), any(Class.class))).thenReturn(Mono.just(0L));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getSystemSummary("org-1", true, true))
+                .assertNext(summary -> {
+                    assertEquals(2L, summary.getPrograms().getByOrganization().get("org-1").get("PLANNED"));
+                    assertEquals(1L, summary.getPrograms().getByOrganization().get("org-2").get("PLANNED"));
+                    assertEquals(3L, summary.getPrograms().getByMonth().get("2025-10").get("PLANNED"));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getSystemSummary_ShouldReturnZeros_WhenNoPrograms() {
+        // Arrange
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DistributionProgram.class), eq(Document.class)))
+                .thenReturn(Flux.empty());
+        when(mongoTemplate.count(any(Query.class), any(Class.class))).thenReturn(Mono.just(0L));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getSystemSummary(null, false, false))
+                .assertNext(summary -> {
+                    assertEquals(0L, summary.getPrograms().getTotal());
+                    assertEquals(4, summary.getPrograms().getByStatus().size());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getDashboardStats_ShouldServeFromCounters_WhenRegistryReady() {
+        // Arrange
+        when(counterRegistry.isReady()).thenReturn(true);
+        when(counterRegistry.total(DistributionProgram.class)).thenReturn(42L);
+        when(counterRegistry.total(DistributionRoute.class)).thenReturn(5L);
+        when(counterRegistry.total(DistributionSchedule.class)).thenReturn(9L);
+        when(counterRegistry.total(Fare.class)).thenReturn(2L);
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getDashboardStats())
+                .assertNext(stats -> {
+                    assertEquals(42L, stats.getTotalPrograms());
+                    assertEquals(5L, stats.getTotalRoutes());
+                    assertEquals(9L, stats.getTotalSchedules());
+                    assertEquals(2L, stats.getTotalFares());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void getSystemSummary_ShouldServeFromCounters_WhenRegistryReady() {
+        // Arrange
+        when(counterRegistry.isReady()).thenReturn(true);
+        when(counterRegistry.countByStatus(DistributionProgram.class, "org-1"))
+                .thenReturn(Map.of("ACTIVE", 4L, "PLANNED", 1L));
+        when(counterRegistry.countByOrganizationAndStatus(DistributionProgram.class, "org-1"))
+                .thenReturn(Map.of("org-1", Map.of("ACTIVE", 4L, "PLANNED", 1L)));
+        when(counterRegistry.count(DistributionRoute.class, null, "ACTIVE")).thenReturn(3L);
+        when(counterRegistry.count(DistributionSchedule.class, null, "ACTIVE")).thenReturn(7L);
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getSystemSummary("org-1", true, false))
+                .assertNext(summary -> {
+                    assertEquals(5L, summary.getPrograms().getTotal());
+                    assertEquals(4L, summary.getPrograms().getActive());
+                    assertEquals(0L, summary.getPrograms().getByStatus().get("IN_PROGRESS"));
+                    assertEquals(4L, summary.getPrograms().getByOrganization().get("org-1").get("ACTIVE"));
+                    assertEquals(3L, summary.getInfrastructure().getActiveRoutes());
+                    assertEquals(7L, summary.getInfrastructure().getActiveSchedules());
+                })
+                .verifyComplete();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void getSystemSummary_ShouldAggregate_WhenMonthRequestedEvenIfRegistryReady() {
+        // Arrange - el desglose por mes no se mantiene en memoria
+        when(counterRegistry.isReady()).thenReturn(true);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(DistributionProgram.class), eq(Document.class)))
+                .thenReturn(Flux.just(new Document()));
+        when(mongoTemplate.count(any(Query.class), any(Class.class))).thenReturn(Mono.just(0L));
+
+        // Act & Assert
+        StepVerifier.create(dashboardStatsService.getSystemSummary(null, false, true))
+                .assertNext(summary -> assertNotNull(summary.getPrograms().getByMonth()))
+                .verifyComplete();
+
+        verify(mongoTemplate).aggregate(any(Aggregation.class), eq(DistributionProgram.class), eq(Document.class));
+    }
+}
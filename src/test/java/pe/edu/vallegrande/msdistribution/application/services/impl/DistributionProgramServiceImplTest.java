@@ -6,6 +6,12 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionProgramCreateRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionProgramRepository;
@@ -27,6 +33,26 @@ public class DistributionProgramServiceImplTest {
     @Mock
     private DistributionProgramRepository programRepository;
 
+    // Simulación del generador de códigos
+    @Mock
+    private CodeSequenceService codeSequenceService;
+
+    // Simulación de las versiones usadas en los ETag
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    // Caché por id real (sin change streams); cada prueba parte de una caché vacía
+    @Spy
+    private EntityCache entityCache = new EntityCache(mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+
+    // Detección de cruces; por defecto no encuentra ninguno
+    @Mock
+    private ConflictDetector conflictDetector;
+
+    // Enriquecimiento con datos externos; por defecto devuelve la respuesta tal cual
+    @Mock
+    private ExternalReferenceEnricher enricher;
+
     // Inyección del servicio a probar
     @InjectMocks
     private DistributionProgramServiceImpl distributionProgramService;
@@ -37,6 +63,8 @@ public class DistributionProgramServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(conflictDetector.verify(any(DistributionProgram.class))).thenReturn(Mono.empty());
+        when(enricher.enrich(any(Mono.class), any())).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     /**
@@ -118,8 +146,7 @@ public class DistributionProgramServiceImplTest {
                 .createdAt(java.time.Instant.now())
                 .build();
         
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         when(programRepository.save(any(DistributionProgram.class))).thenReturn(Mono.just(program));
 
         // Act & Assert
@@ -128,6 +155,30 @@ public class DistributionProgramServiceImplTest {
                 .verifyComplete();
     }
 
+    /**
+     * Escenario positivo:
+     * Guardar y enriquecer pasa por la misma escritura que save: valida cruces, invalida la caché y sube
+     * la versión de la organización.
+     */
+    @Test
+    void saveAndEnrich_shouldVerifyAndBumpVersion() {
+        // Arrange
+        DistributionProgramCreateRequest req = validRequestFor(LocalDate.parse("2024-01-02"));
+        DistributionProgram saved = DistributionProgram.builder()
+                .id("new").organizationId("org-1").programCode("PRG001").status("PLANNED").build();
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
+        when(programRepository.save(any(DistributionProgram.class))).thenReturn(Mono.just(saved));
+
+        // Act & Assert
+        StepVerifier.create(distributionProgramService.saveAndEnrich(req))
+                .assertNext(resp -> org.junit.jupiter.api.Assertions.assertEquals("PRG001", resp.getProgramCode()))
+                .verifyComplete();
+
+        verify(conflictDetector, times(1)).verify(any(DistributionProgram.class));
+        verify(entityCache).invalidate(DistributionProgram.class, "new");
+        verify(collectionVersions).bump(DistributionProgram.class, "org-1");
+    }
+
     /**
      * Escenario positivo:
      * Debe actualizar un programa existente correctamente.
@@ -306,8 +357,7 @@ public class DistributionProgramServiceImplTest {
                 .observations("Test observation")
                 .build();
 
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         // Simulamos un fallo en la base de datos
         when(programRepository.save(ArgumentMatchers.any(DistributionProgram.class)))
                 .thenReturn(Mono.error(new RuntimeException("Database error")));
@@ -323,4 +373,29 @@ public class DistributionProgramServiceImplTest {
 
         System.out.println("Test completed: Repository error was correctly detected\n");
     }
-}
\ No newline at end of file
+
+    /**
+     * Paginación por cursor:
+     * La primera página no filtra por _id; las siguientes continúan desde el último _id entregado.
+     */
+    @Test
+    void getPage_shouldUseKeysetQueries() {
+        // Arrange
+        DistributionProgram p1 = DistributionProgram.builder().id("65a000000000000000000001").programCode("PRG001").build();
+        DistributionProgram p2 = DistributionProgram.builder().id("65a000000000000000000002").programCode("PRG002").build();
+        when(programRepository.findAllByOrderByIdAsc(Limit.of(2))).thenReturn(Flux.just(p1));
+        when(programRepository.findByIdGreaterThanOrderByIdAsc("65a000000000000000000001", Limit.of(2)))
+                .thenReturn(Flux.just(p2));
+
+        // Act & Assert
+        StepVerifier.create(distributionProgramService.getPage(null, 2))
+                .assertNext(resp -> org.junit.jupiter.api.Assertions.assertEquals("PRG001", resp.getProgramCode()))
+                .verifyComplete();
+        StepVerifier.create(distributionProgramService.getPage("65a000000000000000000001", 2))
+                .assertNext(resp -> org.junit.jupiter.api.Assertions.assertEquals("PRG002", resp.getProgramCode()))
+                .verifyComplete();
+
+        // Nunca se recorre la colección completa
+        verify(programRepository, never()).findAll();
+    }
+}
@@ -6,6 +6,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Spy;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionRouteCreateRequest;
@@ -19,10 +26,12 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.LinkedHashSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -36,6 +45,26 @@ public class DistributionRouteServiceImplTest {
     @Mock
     private DistributionRouteRepository routeRepository;
 
+    // Se simula el generador de códigos (contador atómico en MongoDB)
+    @Mock
+    private CodeSequenceService codeSequenceService;
+
+    // Se simulan las versiones de colección usadas en los ETag
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    // Caché por id real (sin change streams); cada prueba parte de una caché vacía
+    @Spy
+    private EntityCache entityCache = new EntityCache(mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+
+    // Copia en memoria de los activos; sin configurar devuelve null y se consulta el repositorio
+    @Mock
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    // Se simula el template para las consultas con proyección (?fields=)
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
     // Se inyecta el mock del repositorio en el servicio a probar
     @InjectMocks
     private DistributionRouteServiceImpl routeService;
@@ -76,15 +105,12 @@ public class DistributionRouteServiceImplTest {
         request.setTotalEstimatedDuration(5);
         request.setResponsibleUserId("user-1");
 
-        // Simula que no existen rutas previas (para que genere el código RUT001)
-        when(routeRepository.findTopByOrderByRouteCodeDesc()).thenReturn(Mono.empty());
+        // Simula el primer código entregado por el contador
+        when(codeSequenceService.nextCode("RUT")).thenReturn(Mono.just("RUT001"));
 
         // Captura del objeto que se guardará (para validarlo luego)
         ArgumentCaptor<DistributionRoute> routeCaptor = ArgumentCaptor.forClass(DistributionRoute.class);
 
-        // Simula que no existe una ruta con el mismo código
-        when(routeRepository.existsByRouteCode(anyString())).thenReturn(Mono.just(false));
-
         // Crea una ruta simulada como si se hubiera guardado correctamente
         DistributionRoute savedRoute = DistributionRoute.builder()
                 .id("route-1")
@@ -140,8 +166,7 @@ public class DistributionRouteServiceImplTest {
                 .verifyComplete();
 
         // Verifica que los métodos del repositorio se hayan llamado correctamente
-        verify(routeRepository).findTopByOrderByRouteCodeDesc();
-        verify(routeRepository).existsByRouteCode("RUT001");
+        verify(codeSequenceService).nextCode("RUT");
         verify(routeRepository).save(routeCaptor.capture());
 
         // Valida los datos enviados al repositorio antes de guardar
@@ -175,18 +200,13 @@ public class DistributionRouteServiceImplTest {
 
     /**
      * ✅ Escenario positivo:
-     * Debe generar el siguiente código secuencial correctamente (ej: RUT005 → RUT006).
+     * Debe usar el código entregado por el contador (ej: RUT005 → RUT006).
      */
     @Test
     void save_ShouldGenerateNextRouteCode_WhenPreviousRoutesExist() {
         System.out.println("Starting test: Sequential code generation");
         
-        // Arrange - Simula una ruta existente con código RUT005
-        DistributionRoute existingRoute = DistributionRoute.builder()
-                .routeCode("RUT005")
-                .build();
-
-        // Nueva solicitud
+        // Arrange - Nueva solicitud
         DistributionRouteCreateRequest request = new DistributionRouteCreateRequest();
         request.setOrganizationId("org-1");
         request.setRouteName("Nueva Ruta");
@@ -200,9 +220,8 @@ public class DistributionRouteServiceImplTest {
         request.setTotalEstimatedDuration(3);
         request.setResponsibleUserId("user-1");
 
-        // Mock de repositorio
-        when(routeRepository.findTopByOrderByRouteCodeDesc()).thenReturn(Mono.just(existingRoute));
-        when(routeRepository.existsByRouteCode("RUT006")).thenReturn(Mono.just(false));
+        // El contador ya entregó RUT005, el siguiente es RUT006
+        when(codeSequenceService.nextCode("RUT")).thenReturn(Mono.just("RUT006"));
 
         // Simula la ruta guardada
         when(routeRepository.save(any(DistributionRoute.class))).thenReturn(Mono.just(
@@ -259,8 +278,7 @@ public class DistributionRouteServiceImplTest {
         request.setResponsibleUserId("user-1");
 
         // Simula fallo en la base de datos
-        when(routeRepository.findTopByOrderByRouteCodeDesc()).thenReturn(Mono.empty());
-        when(routeRepository.existsByRouteCode("RUT001")).thenReturn(Mono.just(false));
+        when(codeSequenceService.nextCode("RUT")).thenReturn(Mono.just("RUT001"));
         when(routeRepository.save(any(DistributionRoute.class)))
                 .thenReturn(Mono.error(new RuntimeException("Database error")));
 
@@ -634,58 +652,59 @@ public class DistributionRouteServiceImplTest {
     }
 
     /**
-     * 🧩 Escenario de validación:
-     * Debe lanzar NumberFormatException si el código existente no tiene formato válido.
+     * ✅ Escenario positivo:
+     * Con ?fields= solo se proyectan los campos pedidos; zoneId se resuelve desde zones.
      */
     @Test
-    void generateNextRouteCode_ShouldThrowNumberFormatException_WhenInvalidCodeFormat() {
-        System.out.println("Starting test: Invalid code parsing error");
-        
-        // Arrange - Simulate a code with invalid format
-        DistributionRoute existingRoute = DistributionRoute.builder()
-                .routeCode("RUTINVALID")
-                .build();
+    void getFields_ShouldProjectOnlyRequestedFields_AndPageByIdAfterCursor() {
+        // Arrange
+        DistributionRoute route = new DistributionRoute();
+        route.setId("65f000000000000000000002");
+        route.setRouteCode("RUT002");
+        when(mongoTemplate.find(any(Query.class), eq(DistributionRoute.class))).thenReturn(Flux.just(route));
+        Set<String> fields = new LinkedHashSet<>(List.of("id", "routeCode", "zoneId", "status"));
 
-        DistributionRouteCreateRequest request = new DistributionRouteCreateRequest();
-        request.setOrganizationId("org-1");
-        request.setRouteName("Ruta de Prueba");
-        request.setZones(Collections.singletonList(
-            DistributionRouteCreateRequest.ZoneEntry.builder()
-                .zoneId("zone-1")
-                .order(1)
-                .estimatedDuration(2)
-                .build()
-        ));
-        request.setTotalEstimatedDuration(2);
-        request.setResponsibleUserId("user-1");
+        // Act & Assert
+        StepVerifier.create(routeService.getFields(fields, "65f000000000000000000001", 50))
+                .expectNext(route)
+                .verifyComplete();
 
-        when(routeRepository.findTopByOrderByRouteCodeDesc()).thenReturn(Mono.just(existingRoute));
-        when(routeRepository.existsByRouteCode("RUT001")).thenReturn(Mono.just(false));
-        when(routeRepository.save(any(DistributionRoute.class))).thenReturn(Mono.just(
-                DistributionRoute.builder()
-                        .id("route-1")
-                        .routeCode("RUT001")
-                        .organizationId("org-1")
-                        .routeName("Ruta de Prueba")
-                        .zones(Collections.singletonList(
-                            DistributionRoute.ZoneOrder.builder()
-                                .zoneId("zone-1")
-                                .order(1)
-                                .estimatedDuration(2)
-                                .build()
-                        ))
-                        .totalEstimatedDuration(2)
-                        .responsibleUserId("user-1")
-                        .status(Constants.ACTIVE.name())
-                        .createdAt(Instant.now())
-                        .build()
-        ));
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(captor.capture(), eq(DistributionRoute.class));
+        Query query = captor.getValue();
+        assertEquals(new Document("id", 1).append("routeCode", 1).append("zones", 1).append("status", 1),
+                query.getFieldsObject());
+        assertEquals(new Document("id", new Document("$gt", "65f000000000000000000001")), query.getQueryObject());
+        assertEquals(new Document("id", 1), query.getSortObject());
+        assertEquals(50, query.getLimit());
+        verifyNoInteractions(routeRepository);
+    }
+
+    /**
+     * ✅ Escenario positivo:
+     * Al mover una ruta a otra organización se invalidan las versiones (ETag) de ambas.
+     */
+    @Test
+    void update_ShouldBumpBothOrganizations_WhenOrganizationChanges() {
+        // Arrange
+        DistributionRoute existing = DistributionRoute.builder()
+                .id("route-1")
+                .organizationId("org-1")
+                .routeCode("RUT001")
+                .build();
+        DistributionRouteCreateRequest request = DistributionRouteCreateRequest.builder()
+                .organizationId("org-2")
+                .routeName("Ruta Norte")
+                .build();
+        when(routeRepository.findById("route-1")).thenReturn(Mono.just(existing));
+        when(routeRepository.save(any(DistributionRoute.class))).thenAnswer(inv -> Mono.just(inv.getArgument(0)));
 
         // Act & Assert
-        StepVerifier.create(routeService.save(request))
-                .expectNextCount(1)
+        StepVerifier.create(routeService.update("route-1", request))
+                .expectNextMatches(response -> "org-2".equals(response.getOrganizationId()))
                 .verifyComplete();
 
-        System.out.println("Parsing error test completed\n");
+        verify(collectionVersions).bump(DistributionRoute.class, "org-1");
+        verify(collectionVersions).bump(DistributionRoute.class, "org-2");
     }
-}
\ No newline at end of file
+}
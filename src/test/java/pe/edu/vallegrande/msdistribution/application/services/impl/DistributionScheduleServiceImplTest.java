@@ -6,7 +6,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Spy;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.events.ScheduleChangedEvent;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionScheduleCreateRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
@@ -33,6 +40,30 @@ public class DistributionScheduleServiceImplTest {
     @Mock
     private DistributionScheduleRepository scheduleRepository;
 
+    // Se simula el generador de códigos (contador atómico en MongoDB)
+    @Mock
+    private CodeSequenceService codeSequenceService;
+
+    // Se simulan las versiones de colección usadas en los ETag
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    // Caché por id real (sin change streams); cada prueba parte de una caché vacía
+    @Spy
+    private EntityCache entityCache = new EntityCache(mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+
+    // Copia en memoria de los activos; sin configurar devuelve null y se consulta el repositorio
+    @Mock
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    // Se simula el publicador de eventos (ajuste de programas planificados)
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // Se simula la detección de cruces; por defecto no encuentra ninguno
+    @Mock
+    private ConflictDetector conflictDetector;
+
     // Se inyecta el mock dentro del servicio que se probará
     @InjectMocks
     private DistributionScheduleServiceImpl scheduleService;
@@ -41,6 +72,7 @@ public class DistributionScheduleServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(conflictDetector.verify(any(DistributionSchedule.class))).thenReturn(Mono.empty());
     }
 
     // ================================================================
@@ -64,9 +96,8 @@ public class DistributionScheduleServiceImplTest {
         request.setEndTime("12:00");
         request.setDurationHours(6);
 
-        // Se simula que no hay horarios previos → generará el código HOR001
-        when(scheduleRepository.findTopByOrderByScheduleCodeDesc()).thenReturn(Mono.empty());
-        when(scheduleRepository.existsByScheduleCode("HOR001")).thenReturn(Mono.just(false));
+        // El contador entrega el primer código → HOR001
+        when(codeSequenceService.nextCode("HOR")).thenReturn(Mono.just("HOR001"));
 
         // Capturamos el objeto que se guardará en la base (para validarlo después)
         ArgumentCaptor<DistributionSchedule> scheduleCaptor = ArgumentCaptor.forClass(DistributionSchedule.class);
@@ -112,8 +143,7 @@ public class DistributionScheduleServiceImplTest {
                 .verifyComplete();
 
         // Verificamos que los métodos del repositorio fueron llamados correctamente
-        verify(scheduleRepository).findTopByOrderByScheduleCodeDesc();
-        verify(scheduleRepository).existsByScheduleCode("HOR001");
+        verify(codeSequenceService).nextCode("HOR");
         verify(scheduleRepository).save(scheduleCaptor.capture());
 
         // Validamos lo que se envió a guardar
@@ -150,11 +180,6 @@ public class DistributionScheduleServiceImplTest {
         System.out.println("Starting test: Sequential code generation");
         
         // Arrange 
-        // Se simula que ya existe el código HOR007
-        DistributionSchedule existingSchedule = DistributionSchedule.builder()
-                .scheduleCode("HOR007")
-                .build();
-
         // Se construye el nuevo request
         DistributionScheduleCreateRequest request = new DistributionScheduleCreateRequest();
         request.setOrganizationId("org-1");
@@ -166,8 +191,8 @@ public class DistributionScheduleServiceImplTest {
         request.setDurationHours(8);
 
         // Mock del comportamiento
-        when(scheduleRepository.findTopByOrderByScheduleCodeDesc()).thenReturn(Mono.just(existingSchedule));
-        when(scheduleRepository.existsByScheduleCode("HOR008")).thenReturn(Mono.just(false));
+        // El contador ya entregó HOR007
+        when(codeSequenceService.nextCode("HOR")).thenReturn(Mono.just("HOR008"));
         when(scheduleRepository.save(any(DistributionSchedule.class))).thenReturn(Mono.just(
                 DistributionSchedule.builder().id("schedule-2").scheduleCode("HOR008").build()
         ));
@@ -185,11 +210,11 @@ public class DistributionScheduleServiceImplTest {
     }
 
     // ================================================================
-    // ❌ Caso negativo: el código ya existe
+    // ❌ Caso negativo: el contador no responde
     // ================================================================
     @Test
-    void save_ShouldReturnError_WhenScheduleCodeAlreadyExists() {
-        System.out.println("Starting negative test: Schedule code already exists");
+    void save_ShouldReturnError_WhenCodeSequenceFails() {
+        System.out.println("Starting negative test: Code sequence unavailable");
 
         // Arrange - Se construye el request
         DistributionScheduleCreateRequest request = new DistributionScheduleCreateRequest();
@@ -201,18 +226,12 @@ public class DistributionScheduleServiceImplTest {
         request.setEndTime("17:00");
         request.setDurationHours(8);
 
-        // Mock: el código HOR001 ya existe
-        when(scheduleRepository.findTopByOrderByScheduleCodeDesc()).thenReturn(Mono.empty());
-        when(scheduleRepository.existsByScheduleCode("HOR001")).thenReturn(Mono.just(true));
+        // Mock: falla el findAndModify del contador
+        when(codeSequenceService.nextCode("HOR")).thenReturn(Mono.error(new RuntimeException("Counter unavailable")));
 
-        // Act & Assert - Verificamos que se lanza la excepción esperada
+        // Act & Assert - Verificamos que se propaga el error
         StepVerifier.create(scheduleService.save(request))
-                .expectErrorSatisfies(error -> {
-                    assertTrue(error instanceof CustomException);
-                    CustomException ce = (CustomException) error;
-                    assertEquals("Schedule code already exists", ce.getErrorMessage().getMessage());
-                    System.out.println("Expected error: " + ce.getMessage());
-                })
+                .expectErrorMessage("Counter unavailable")
                 .verify();
 
         // Se valida que no se intentó guardar nada
@@ -238,8 +257,7 @@ public class DistributionScheduleServiceImplTest {
         request.setDurationHours(8);
 
         // Mock de error simulado
-        when(scheduleRepository.findTopByOrderByScheduleCodeDesc()).thenReturn(Mono.empty());
-        when(scheduleRepository.existsByScheduleCode("HOR001")).thenReturn(Mono.just(false));
+        when(codeSequenceService.nextCode("HOR")).thenReturn(Mono.just("HOR001"));
         when(scheduleRepository.save(any(DistributionSchedule.class)))
                 .thenReturn(Mono.error(new RuntimeException("Database error")));
 
@@ -255,6 +273,35 @@ public class DistributionScheduleServiceImplTest {
         System.out.println("Negative test completed successfully\n");
     }
 
+    // ================================================================
+    // ❌ Caso negativo: el horario se cruza con otro de la misma zona
+    // ================================================================
+    @Test
+    void save_ShouldReturnConflict_WhenScheduleOverlapsAnother() {
+        // Arrange
+        DistributionScheduleCreateRequest request = new DistributionScheduleCreateRequest();
+        request.setOrganizationId("org-1");
+        request.setZoneId("zone-1");
+        request.setDaysOfWeek(Arrays.asList("LUNES"));
+        request.setStartTime("08:00");
+        request.setEndTime("10:00");
+
+        when(codeSequenceService.nextCode("HOR")).thenReturn(Mono.just("HOR002"));
+        when(conflictDetector.verify(any(DistributionSchedule.class)))
+                .thenReturn(Mono.error(CustomException.conflict("El horario se cruza con: horario HOR001")));
+
+        // Act & Assert - No se guarda y la forma compilada ya estaba calculada al validar
+        StepVerifier.create(scheduleService.save(request))
+                .expectErrorSatisfies(error -> assertEquals(409,
+                        ((CustomException) error).getErrorMessage().getErrorCode()))
+                .verify();
+
+        ArgumentCaptor<DistributionSchedule> checked = ArgumentCaptor.forClass(DistributionSchedule.class);
+        verify(conflictDetector).verify(checked.capture());
+        assertEquals(480, checked.getValue().getStartMinute());
+        verify(scheduleRepository, never()).save(any(DistributionSchedule.class));
+    }
+
     // ================================================================
     // ✅ Activación de un horario existente
     // ================================================================
@@ -358,9 +405,8 @@ public class DistributionScheduleServiceImplTest {
         request.setEndTime("18:00");
         request.setDurationHours(8);
 
-        // Simulamos que no hay códigos previos y se generará HOR001
-        when(scheduleRepository.findTopByOrderByScheduleCodeDesc()).thenReturn(Mono.empty());
-        when(scheduleRepository.existsByScheduleCode("HOR001")).thenReturn(Mono.just(false));
+        // Simulamos que el contador entrega HOR001
+        when(codeSequenceService.nextCode("HOR")).thenReturn(Mono.just("HOR001"));
 
         // Simulamos guardado exitoso del horario
         when(scheduleRepository.save(any(DistributionSchedule.class))).thenReturn(Mono.just(
@@ -475,6 +521,62 @@ public class DistributionScheduleServiceImplTest {
         System.out.println("Get active schedules test completed\n");
     }
 
+    // ================================================================
+    // ✅ Activos servidos desde la copia en memoria
+    // ================================================================
+    @Test
+    void getAllActiveByOrganization_ShouldServeFromSnapshot_WhenAvailable() {
+        // Arrange
+        DistributionSchedule org1 = DistributionSchedule.builder()
+                .id("schedule-1").organizationId("org-1").status(Constants.ACTIVE.name()).build();
+        DistributionSchedule org2 = DistributionSchedule.builder()
+                .id("schedule-2").organizationId("org-2").status(Constants.ACTIVE.name()).build();
+        when(activeSnapshot.schedules()).thenReturn(ActiveReferenceSnapshot.Snapshot.of(1,
+                List.of(org1, org2), DistributionSchedule::getOrganizationId));
+
+        // Act & Assert
+        StepVerifier.create(scheduleService.getAllActiveByOrganization("org-2"))
+                .expectNext(org2)
+                .verifyComplete();
+        StepVerifier.create(scheduleService.getAllActive())
+                .expectNext(org1, org2)
+                .verifyComplete();
+
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    // ================================================================
+    // ✅ Horarios vigentes en una zona un día a una hora
+    // ================================================================
+    @Test
+    void getActiveAt_ShouldFilterSnapshotByZoneDayAndTime() {
+        // Arrange
+        DistributionSchedule morning = ScheduleCalendar.compile(DistributionSchedule.builder()
+                .id("schedule-1").organizationId("org-1").zoneId("zone-1").status(Constants.ACTIVE.name())
+                .daysOfWeek(List.of("MARTES")).startTime("06:00").endTime("08:00").build());
+        DistributionSchedule otherZone = ScheduleCalendar.compile(DistributionSchedule.builder()
+                .id("schedule-2").organizationId("org-1").zoneId("zone-2").status(Constants.ACTIVE.name())
+                .daysOfWeek(List.of("MARTES")).startTime("06:00").endTime("08:00").build());
+        when(activeSnapshot.schedules()).thenReturn(ActiveReferenceSnapshot.Snapshot.of(1,
+                List.of(morning, otherZone), DistributionSchedule::getOrganizationId));
+
+        // Act & Assert
+        StepVerifier.create(scheduleService.getActiveAt("org-1", "zone-1", "TUESDAY", "06:30"))
+                .expectNext(morning)
+                .verifyComplete();
+        StepVerifier.create(scheduleService.getActiveAt(null, "zone-1", "miércoles", "06:30"))
+                .verifyComplete();
+
+        verifyNoInteractions(scheduleRepository);
+    }
+
+    @Test
+    void getActiveAt_ShouldReturnBadRequest_WhenTimeIsInvalid() {
+        StepVerifier.create(scheduleService.getActiveAt(null, "zone-1", "TUESDAY", "temprano"))
+                .expectErrorMatches(error -> error instanceof CustomException)
+                .verify();
+    }
+
     // ================================================================
     // ✅ Listado de los horarios inactivos
     // ================================================================
@@ -591,6 +693,7 @@ public class DistributionScheduleServiceImplTest {
 
         verify(scheduleRepository).findById(scheduleId);
         verify(scheduleRepository).delete(any(DistributionSchedule.class));
+        verify(eventPublisher).publishEvent(new ScheduleChangedEvent(scheduleId, null));
         System.out.println("Schedule deleted correctly");
         System.out.println("Deletion test completed\n");
     }
@@ -644,43 +747,4 @@ public class DistributionScheduleServiceImplTest {
 
         System.out.println("Negative deactivation test completed\n");
     }
-
-    // ================================================================
-    // 🔹 Validación con errores de formato al generar el código
-    // ================================================================
-    @Test
-    void generateNextScheduleCode_ShouldHandleParsingError_WhenInvalidCodeFormat() {
-        System.out.println("Starting test: Handling parsing error");
-        
-        // Arrange - Se simula un código previo con formato inválido
-        DistributionSchedule existingSchedule = DistributionSchedule.builder()
-                .scheduleCode("HORINVALID")
-                .build();
-
-        DistributionScheduleCreateRequest request = new DistributionScheduleCreateRequest();
-        request.setOrganizationId("org-1");
-        request.setZoneId("zone-1");
-        request.setScheduleName("Horario de Prueba");
-        request.setDaysOfWeek(Arrays.asList("LUNES"));
-        request.setStartTime("08:00");
-        request.setEndTime("16:00");
-        request.setDurationHours(8);
-
-         // Simulaciones del repositorio
-        when(scheduleRepository.findTopByOrderByScheduleCodeDesc()).thenReturn(Mono.just(existingSchedule));
-        when(scheduleRepository.existsByScheduleCode("HOR001")).thenReturn(Mono.just(false));
-        when(scheduleRepository.save(any(DistributionSchedule.class))).thenReturn(Mono.just(
-                DistributionSchedule.builder().id("schedule-1").scheduleCode("HOR001").build()
-        ));
-
-        // Act & Assert
-        StepVerifier.create(scheduleService.save(request))
-                .assertNext(response -> {
-                    assertEquals("HOR001", response.getScheduleCode());
-                    System.out.println("Code generated correctly after parsing error: " + response.getScheduleCode());
-                })
-                .verifyComplete();
-
-        System.out.println("Parsing error handling test completed\n");
-    }
 }
\ No newline at end of file
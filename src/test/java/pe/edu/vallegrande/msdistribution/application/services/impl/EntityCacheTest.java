@@ -0,0 +1,104 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionRoute;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pruebas unitarias para EntityCache.
+ * Verifica que las búsquedas por id se cargan una sola vez (también los ids inexistentes)
+ * y que las escrituras y los eventos del change stream invalidan solo la entrada afectada.
+ */
+public class EntityCacheTest {
+
+    private static final String ID = new ObjectId().toHexString();
+
+    private EntityCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EntityCache(mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void findById_ShouldLoadOnce_AndServeFromMemory() {
+        DistributionRoute route = DistributionRoute.builder().id(ID).routeName("Ruta Centro").build();
+
+        StepVerifier.create(cache.findById(DistributionRoute.class, ID, loader(route))).expectNext(route).verifyComplete();
+        StepVerifier.create(cache.findById(DistributionRoute.class, ID, loader(route))).expectNext(route).verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void findById_ShouldCacheMissingIds() {
+        StepVerifier.create(cache.findById(DistributionRoute.class, "missing", loader(null))).verifyComplete();
+        StepVerifier.create(cache.findById(DistributionRoute.class, "missing", loader(null))).verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void findById_ShouldNotCacheErrors() {
+        Function<String, Mono<DistributionRoute>> failing = id -> {
+            loads.incrementAndGet();
+            return Mono.error(new IllegalStateException("timeout"));
+        };
+
+        StepVerifier.create(cache.findById(DistributionRoute.class, ID, failing)).expectError().verify();
+        StepVerifier.create(cache.findById(DistributionRoute.class, ID, failing)).expectError().verify();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void applyChange_ShouldInvalidateOnlyChangedDocument() {
+        String other = new ObjectId().toHexString();
+        DistributionRoute route = DistributionRoute.builder().id(ID).build();
+        cache.findById(DistributionRoute.class, ID, loader(route)).block();
+        cache.findById(DistributionRoute.class, other, loader(route)).block();
+
+        cache.applyChange(DistributionRoute.class, OperationType.UPDATE,
+                new BsonDocument("_id", new BsonObjectId(new ObjectId(ID))));
+        cache.findById(DistributionRoute.class, ID, loader(route)).block();
+        cache.findById(DistributionRoute.class, other, loader(route)).block();
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void onFareChanged_ShouldInvalidateAllFares() {
+        Fare fare = Fare.builder().id(ID).build();
+        cache.findById(Fare.class, ID, loader(fare)).block();
+
+        cache.onFareChanged(new FareChangedEvent("other-fare", "org-1"));
+        cache.findById(Fare.class, ID, loader(fare)).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    private <T> Function<String, Mono<T>> loader(T value) {
+        return id -> {
+            loads.incrementAndGet();
+            return Mono.justOrEmpty(value);
+        };
+    }
+}
@@ -0,0 +1,124 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalOrganization;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalUser;
+import pe.edu.vallegrande.msdistribution.infrastructure.client.dto.ExternalZone;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.enriched.EnrichedDistributionProgramResponse;
+import pe.edu.vallegrande.msdistribution.infrastructure.service.ExternalServiceClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ExternalReferenceEnricher.
+ * Verifica que cada id distinto se consulta una sola vez en toda la respuesta (aunque aparezca en
+ * varias ventanas), que se respeta el orden y que los ids no encontrados quedan en null.
+ */
+public class ExternalReferenceEnricherTest {
+
+    private static final ExternalReferenceEnricher.Binding<EnrichedDistributionProgramResponse> BINDING =
+            ExternalReferenceEnricher.<EnrichedDistributionProgramResponse>binding()
+                    .organization(EnrichedDistributionProgramResponse::getOrganizationId,
+                            EnrichedDistributionProgramResponse::setOrganization)
+                    .user(EnrichedDistributionProgramResponse::getResponsibleUserId,
+                            EnrichedDistributionProgramResponse::setResponsibleUser)
+                    .zone(EnrichedDistributionProgramResponse::getZoneId,
+                            EnrichedDistributionProgramResponse::setZone);
+
+    @Mock
+    private ExternalServiceClient externalServiceClient;
+
+    private ExternalReferenceEnricher enricher;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        enricher = new ExternalReferenceEnricher(externalServiceClient);
+        when(externalServiceClient.getOrganizationById(anyString()))
+                .thenAnswer(invocation -> Mono.just(organization(invocation.getArgument(0))));
+        when(externalServiceClient.getUserById(anyString()))
+                .thenAnswer(invocation -> Mono.just(user(invocation.getArgument(0))));
+        when(externalServiceClient.getZoneById(anyString()))
+                .thenAnswer(invocation -> Mono.just(zone(invocation.getArgument(0))));
+    }
+
+    @Test
+    void enrich_ShouldFetchEachDistinctIdOnce_AcrossWindows() {
+        // Arrange - 1000 programas con 2 organizaciones, 5 responsables y 3 zonas
+        List<EnrichedDistributionProgramResponse> programs = IntStream.range(0, 1000)
+                .mapToObj(i -> program("program-" + i, "org-" + (i % 2), "user-" + (i % 5), "zone-" + (i % 3)))
+                .toList();
+
+        // Act & Assert
+        StepVerifier.create(enricher.enrich(Flux.fromIterable(programs), BINDING).collectList())
+                .assertNext(enriched -> {
+                    assertEquals(programs, enriched);
+                    EnrichedDistributionProgramResponse last = enriched.get(999);
+                    assertEquals("org-1", last.getOrganization().getOrganizationId());
+                    assertEquals("user-4", last.getResponsibleUser().getId());
+                    assertEquals("zone-0", last.getZone().getZoneId());
+                })
+                .verifyComplete();
+
+        verify(externalServiceClient, times(2)).getOrganizationById(anyString());
+        verify(externalServiceClient, times(5)).getUserById(anyString());
+        verify(externalServiceClient, times(3)).getZoneById(anyString());
+    }
+
+    @Test
+    void enrich_ShouldLeaveNull_WhenReferenceNotFound() {
+        // Arrange
+        when(externalServiceClient.getUserById("user-gone")).thenReturn(Mono.empty());
+        EnrichedDistributionProgramResponse program = program("program-1", "org-1", "user-gone", null);
+
+        // Act & Assert
+        StepVerifier.create(enricher.enrich(Mono.just(program), BINDING))
+                .assertNext(enriched -> {
+                    assertNotNull(enriched.getOrganization());
+                    assertNull(enriched.getResponsibleUser());
+                    assertNull(enriched.getZone());
+                })
+                .verifyComplete();
+
+        verify(externalServiceClient, never()).getZoneById(anyString());
+    }
+
+    private EnrichedDistributionProgramResponse program(String id, String organizationId, String userId,
+            String zoneId) {
+        return EnrichedDistributionProgramResponse.builder()
+                .id(id)
+                .organizationId(organizationId)
+                .responsibleUserId(userId)
+                .zoneId(zoneId)
+                .build();
+    }
+
+    private ExternalOrganization organization(String id) {
+        ExternalOrganization organization = new ExternalOrganization();
+        organization.setOrganizationId(id);
+        return organization;
+    }
+
+    private ExternalUser user(String id) {
+        ExternalUser user = new ExternalUser();
+        user.setId(id);
+        return user;
+    }
+
+    private ExternalZone zone(String id) {
+        ExternalZone zone = new ExternalZone();
+        zone.setZoneId(id);
+        return zone;
+    }
+}
@@ -0,0 +1,114 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.FareService;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import pe.edu.vallegrande.msdistribution.infrastructure.dto.response.FareTransitionResponse;
+import reactor.core.publisher.Mono;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para FareSchedulerService.
+ * Verifica que el temporizador se programa para la próxima fecha de vigencia
+ * y que solo entonces se ejecuta la transición (sin escaneos periódicos).
+ */
+public class FareSchedulerServiceTest {
+
+    @Mock
+    private FareService fareService;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private FareSchedulerService schedulerService;
+
+    private VirtualTimeScheduler virtualTime;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        virtualTime = VirtualTimeScheduler.getOrSet();
+        when(fareService.triggerFareTransitions())
+                .thenReturn(Mono.just(new FareTransitionResponse(1, 0, LocalDateTime.now())));
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulerService.stop();
+        VirtualTimeScheduler.reset();
+    }
+
+    @Test
+    void onFareChanged_ShouldArmTimer_ForNextEffectiveDate() {
+        // Arrange - la próxima vigencia es dentro de 2 horas
+        Date boundary = new Date(System.currentTimeMillis() + Duration.ofHours(2).toMillis());
+        when(mongoTemplate.findOne(any(Query.class), eq(Fare.class)))
+                .thenReturn(Mono.just(Fare.builder().effectiveDate(boundary).build()), Mono.empty());
+
+        // Act
+        schedulerService.onFareChanged(new FareChangedEvent("fare-1", "org-1"));
+
+        // Assert - no se ejecuta antes de tiempo
+        assertEquals(boundary, schedulerService.getArmedBoundary());
+        virtualTime.advanceTimeBy(Duration.ofHours(1));
+        verify(fareService, never()).triggerFareTransitions();
+
+        // Al llegar a la fecha se ejecuta una vez y se reprograma (sin más fechas pendientes)
+        virtualTime.advanceTimeBy(Duration.ofHours(1).plusSeconds(1));
+        verify(fareService, times(1)).triggerFareTransitions();
+        assertNull(schedulerService.getArmedBoundary());
+    }
+
+    @Test
+    void onFareChanged_ShouldReplaceTimer_WhenEarlierBoundaryAppears() {
+        // Arrange - primero una vigencia a 10 días, luego se crea otra a 1 hora
+        long now = System.currentTimeMillis();
+        Date later = new Date(now + Duration.ofDays(10).toMillis());
+        Date sooner = new Date(now + Duration.ofHours(1).toMillis());
+        when(mongoTemplate.findOne(any(Query.class), eq(Fare.class)))
+                .thenReturn(Mono.just(Fare.builder().effectiveDate(later).build()),
+                        Mono.just(Fare.builder().effectiveDate(sooner).build()),
+                        Mono.just(Fare.builder().effectiveDate(later).build()));
+
+        // Act
+        schedulerService.onFareChanged(new FareChangedEvent("fare-1", "org-1"));
+        schedulerService.onFareChanged(new FareChangedEvent("fare-2", "org-1"));
+        virtualTime.advanceTimeBy(Duration.ofHours(1).plusSeconds(1));
+
+        // Assert - se ejecutó en la fecha más próxima y el temporizador volvió a la siguiente
+        verify(fareService, times(1)).triggerFareTransitions();
+        assertEquals(later, schedulerService.getArmedBoundary());
+    }
+
+    @Test
+    void start_ShouldOnlyArmNextBoundary_WithoutCatchUpPass() {
+        // Arrange
+        when(mongoTemplate.findOne(any(Query.class), eq(Fare.class))).thenReturn(Mono.empty());
+
+        // Act
+        schedulerService.start();
+
+        // Assert
+        verify(fareService, never()).triggerFareTransitions();
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(Fare.class));
+        assertNull(schedulerService.getArmedBoundary());
+    }
+}
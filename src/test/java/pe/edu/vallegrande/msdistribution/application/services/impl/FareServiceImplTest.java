@@ -1,15 +1,26 @@
 package pe.edu.vallegrande.msdistribution.application.services.impl;
 
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.Arguments;
-import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
 import pe.edu.vallegrande.msdistribution.domain.models.Fare;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.FareCreateRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
@@ -19,12 +30,17 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.Instant;
-import java.util.stream.Stream;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -41,6 +57,26 @@ public class FareServiceImplTest {
     @Mock
     private FareRepository fareRepository;
 
+    // Se simula el generador de códigos (contador atómico en MongoDB)
+    @Mock
+    private CodeSequenceService codeSequenceService;
+
+    // Se simula el template para las transiciones masivas de tarifas
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    // Se simula el publicador de eventos (reprogramación de transiciones)
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // Se simula el índice en memoria de tarifas vigentes
+    @Mock
+    private FareTimelineIndex fareTimelineIndex;
+
+    // Caché por id real (sin change streams); cada prueba parte de una caché vacía
+    @Spy
+    private EntityCache entityCache = new EntityCache(mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+
     // Se inyecta el mock dentro del servicio a probar
     @InjectMocks
     private FareServiceImpl fareService;
@@ -116,8 +152,9 @@ public class FareServiceImplTest {
 
         // Configuración del mock: primero encuentra, luego guarda
         when(fareRepository.findById(id)).thenReturn(Mono.just(existing));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
+        // Reemplazo de tarifas activas de la organización (updateMany)
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
         when(fareRepository.save(any(Fare.class))).thenReturn(Mono.just(saved));
 
         // Act & Assert
@@ -164,6 +201,9 @@ public class FareServiceImplTest {
         // Act & Assert
         StepVerifier.create(fareService.deleteF(id))
             .verifyComplete();
+
+        // Se avisa al scheduler para recalcular la próxima transición
+        verify(eventPublisher).publishEvent(new FareChangedEvent(id, existing.getOrganizationId()));
     }
 
     // ============================================================
@@ -215,12 +255,11 @@ public class FareServiceImplTest {
     // ============================================================
     @Test
     void saveF_ShouldGenerateSequentialCode_FromLastFare() {
-        // Arrange: último código TAR099 -> siguiente TAR100
-        Fare last = Fare.builder().fareCode("TAR099").build();
-        when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.just(last));
-        when(fareRepository.existsByFareCode("TAR100")).thenReturn(Mono.just(false));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
+        // Arrange: el contador ya entregó TAR099 -> siguiente TAR100
+        when(codeSequenceService.nextCode("TAR")).thenReturn(Mono.just("TAR100"));
+        // Reemplazo de tarifas activas de la organización (updateMany)
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
 
         FareCreateRequest request = FareCreateRequest.builder()
                 .organizationId("org-1")
@@ -256,157 +295,6 @@ public class FareServiceImplTest {
         assertEquals("TAR100", captor.getValue().getFareCode());
     }
 
-    // ============================================================
-    // 🔹 TEST PARAMETRIZADO: Casos donde el último código es inválido
-    // ============================================================
-
-    /**
-     * Test parametrizado que verifica el fallback a TAR001 en diferentes escenarios de código inválido.
-     * Reemplaza 3 tests individuales similares para mejorar la mantenibilidad.
-     */
-    @ParameterizedTest
-    @MethodSource("provideInvalidFareCodeScenarios")
-    void saveF_ShouldFallbackToInitialCode_WhenLastFareCodeInvalid(String testName, String invalidFareCode, String expectedFareCode) {
-        // Arrange: código inválido -> fallback TAR001
-        // Handle null case specially
-        if (invalidFareCode == null) {
-            when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.empty());
-        } else {
-            Fare last = Fare.builder().fareCode(invalidFareCode).build();
-            when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.just(last));
-        }
-        when(fareRepository.existsByFareCode(expectedFareCode)).thenReturn(Mono.just(false));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
-
-        FareCreateRequest request = FareCreateRequest.builder()
-                .organizationId("org-1")
-                .fareName("Tarifa Test")
-                .fareType("MENSUAL")
-                .fareAmount(new BigDecimal("30"))
-                .build();
-
-        // Simulación del guardado
-        when(fareRepository.save(any(Fare.class)))
-                .thenAnswer(inv -> {
-                    Fare arg = inv.getArgument(0);
-                    return Mono.just(Fare.builder()
-                            .id("id-test")
-                            .organizationId(arg.getOrganizationId())
-                            .fareCode(arg.getFareCode())
-                            .fareName(arg.getFareName())
-                            .fareType(arg.getFareType())
-                            .fareAmount(arg.getFareAmount())
-                            .status(arg.getStatus())
-                            .createdAt(arg.getCreatedAt())
-                            .build());
-                });
-
-        // Act & Assert
-        // Se espera que se genere TAR001
-        StepVerifier.create(fareService.saveF(request))
-            .assertNext(resp -> {
-                assertEquals(expectedFareCode, resp.getFareCode());
-                System.out.println("✅ " + testName + " - Código generado: " + resp.getFareCode());
-            })
-            .verifyComplete();
-    }
-
-    /**
-     * Proporciona los datos para el test parametrizado de códigos de tarifa inválidos.
-     */
-    private static Stream<Arguments> provideInvalidFareCodeScenarios() {
-        return Stream.of(
-            Arguments.of("Código inválido", "BAD_CODE", "TAR001"),
-            Arguments.of("Código null", null, "TAR001"),
-            Arguments.of("Número demasiado grande", "TAR9999999999999999999999999", "TAR001")
-        );
-    }
-
-    // ============================================================
-    // 🔹 Otros casos adicionales de fallback
-    // ============================================================
-    @Test
-    void saveF_ShouldFallbackToInitialCode_WhenNumericPartEmpty() {
-        // Arrange: código "TAR" -> parte numérica vacía => 0 => TAR001
-        Fare last = Fare.builder().fareCode("TAR").build();
-        when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.just(last));
-        when(fareRepository.existsByFareCode("TAR001")).thenReturn(Mono.just(false));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
-
-        FareCreateRequest request = FareCreateRequest.builder()
-                .organizationId("org-1")
-                .fareName("Tarifa Empty")
-                .fareType("MENSUAL")
-                .fareAmount(new BigDecimal("30"))
-                .build();
-
-        when(fareRepository.save(any(Fare.class)))
-                .thenAnswer(inv -> Mono.just(Fare.builder().id("id-6").fareCode("TAR001").build()));
-
-        // Act & Assert
-        StepVerifier.create(fareService.saveF(request))
-            .assertNext(resp -> assertEquals("TAR001", resp.getFareCode()))
-            .verifyComplete();
-    }
-
-    // ============================================================
-    // 🔹 TEST: Parte numérica con letras (debe resetear a TAR001)
-    // ============================================================
-    @Test
-    void saveF_ShouldFallbackToInitialCode_WhenNumericPartNonDigits() {
-        // Arrange: código con letras tras prefijo => no dígitos => 0 => TAR001
-        Fare last = Fare.builder().fareCode("TARABC").build();
-        when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.just(last));
-        when(fareRepository.existsByFareCode("TAR001")).thenReturn(Mono.just(false));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
-
-        FareCreateRequest request = FareCreateRequest.builder()
-                .organizationId("org-1")
-                .fareName("Tarifa NonDigits")
-                .fareType("MENSUAL")
-                .fareAmount(new BigDecimal("30"))
-                .build();
-
-        when(fareRepository.save(any(Fare.class)))
-                .thenAnswer(inv -> Mono.just(Fare.builder().id("id-7").fareCode("TAR001").build()));
-
-        // Act & Assert
-        StepVerifier.create(fareService.saveF(request))
-            .assertNext(resp -> assertEquals("TAR001", resp.getFareCode()))
-            .verifyComplete();
-    }
-
-    // ============================================================
-    // 🔹 TEST: Manejo de excepción al obtener código → fallback
-    // ============================================================
-    @Test
-    void saveF_ShouldFallback_WhenGetFareCodeThrows() {
-        // Arrange: Simulate the service handling the exception and falling back to TAR001
-        Fare last = Fare.builder().fareCode("TARINVALID").build();
-        when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.just(last));
-        when(fareRepository.existsByFareCode("TAR001")).thenReturn(Mono.just(false));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
-
-        FareCreateRequest request = FareCreateRequest.builder()
-                .organizationId("org-1")
-                .fareName("Tarifa Boom")
-                .fareType("MENSUAL")
-                .fareAmount(new BigDecimal("30"))
-                .build();
-
-        when(fareRepository.save(any(Fare.class)))
-                .thenAnswer(inv -> Mono.just(Fare.builder().id("id-8").fareCode("TAR001").build()));
-
-        // Act & Assert
-        StepVerifier.create(fareService.saveF(request))
-            .assertNext(resp -> assertEquals("TAR001", resp.getFareCode()))
-            .verifyComplete();
-    }
-
     // ============================================================
     // 🔹 TEST: Desactivar tarifa correctamente
     // ============================================================
@@ -527,6 +415,8 @@ public class FareServiceImplTest {
     @Test
     void saveF_ShouldCreateFare_WhenRequestIsValid() {
         System.out.println("Starting test: Creating valid fare");
+        // Antes del 1 de noviembre de 2025 la tarifa nueva nace activa
+        fareService.clock = Clock.fixed(Instant.parse("2025-10-01T12:00:00Z"), ZoneId.systemDefault());
         // Request válido
         FareCreateRequest request = FareCreateRequest.builder()
                 .organizationId("6896b2ecf3e398570ffd99d3")
@@ -535,11 +425,11 @@ public class FareServiceImplTest {
                 .fareAmount(new BigDecimal("15"))
                 .build();
 
-        // No hay tarifas previas → genera TAR001
-        when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.empty());
-        when(fareRepository.existsByFareCode("TAR001")).thenReturn(Mono.just(false));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
+        // Primer código del contador → TAR001
+        when(codeSequenceService.nextCode("TAR")).thenReturn(Mono.just("TAR001"));
+        // Reemplazo de tarifas activas de la organización (updateMany)
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
 
         // Captura de lo que se va a guardar
         ArgumentCaptor<Fare> fareCaptor = ArgumentCaptor.forClass(Fare.class);
@@ -575,8 +465,7 @@ public class FareServiceImplTest {
                 .verifyComplete();
 
         // Se verifican las llamadas al repositorio
-        verify(fareRepository).findTopByOrderByFareCodeDesc();
-        verify(fareRepository).existsByFareCode("TAR001");
+        verify(codeSequenceService).nextCode("TAR");
         verify(fareRepository).save(fareCaptor.capture());
 
         // Validación del objeto capturado
@@ -601,11 +490,11 @@ public class FareServiceImplTest {
     }
 
     // ============================================================
-    // 🔹 TEST NEGATIVO: No crear si el código ya existe
+    // 🔹 TEST NEGATIVO: No crear si el contador falla
     // ============================================================
     @Test
-    void saveF_ShouldReturnError_WhenFareCodeAlreadyExists() {
-        System.out.println("Starting negative test: Fare code already exists");
+    void saveF_ShouldReturnError_WhenCodeSequenceFails() {
+        System.out.println("Starting negative test: Code sequence unavailable");
         // Arrange
         FareCreateRequest request = FareCreateRequest.builder()
                 .organizationId("6896b2ecf3e398570ffd99d3")
@@ -614,23 +503,181 @@ public class FareServiceImplTest {
                 .fareAmount(new BigDecimal("20"))
                 .build();
 
-        // Simula que TAR001 ya existe
-        when(fareRepository.findTopByOrderByFareCodeDesc()).thenReturn(Mono.empty());
-        when(fareRepository.existsByFareCode("TAR001")).thenReturn(Mono.just(true));
-        // Fix: Mock findAllByStatus to return empty Flux to avoid null pointer
-        when(fareRepository.findAllByStatus(anyString())).thenReturn(Flux.empty());
+        // Simula que el findAndModify del contador falla
+        when(codeSequenceService.nextCode("TAR")).thenReturn(Mono.error(new RuntimeException("Counter unavailable")));
 
         // Act & Assert
         StepVerifier.create(fareService.saveF(request))
-                .expectErrorSatisfies(error -> {
-                    assertTrue(error instanceof CustomException);
-                    CustomException ce = (CustomException) error;
-                    assertEquals("Conflicto", ce.getErrorMessage().getMessage());
-                    assertEquals("Fare code already exists", ce.getErrorMessage().getDetails());
-                    System.out.println("Expected error: " + ce.getErrorMessage().getMessage());
-                })
+                .expectErrorMessage("Counter unavailable")
                 .verify();
 
+        // No se intenta guardar una tarifa sin código
+        verify(fareRepository, never()).save(any(Fare.class));
+
         System.out.println("Negative test completed successfully\n");
     }
-}
\ No newline at end of file
+
+    // ============================================================
+    // 🔹 TEST: Transiciones de tarifas con operaciones masivas
+    // ============================================================
+    @Test
+    void triggerFareTransitions_ShouldActivateLatestFarePerOrganization_AndCountEachFareOnce() {
+        // Arrange - org-1 tiene dos tarifas que empezaron en la ventana; fare-2 cambió antes de activarse
+        Instant from = Instant.parse("2025-10-31T00:00:00Z");
+        fareService.transitionsAppliedUntil.set(from);
+        fareService.clock = Clock.fixed(Instant.parse("2025-11-01T00:00:01Z"), ZoneId.of("UTC"));
+        Fare older = Fare.builder().id("fare-1").organizationId("org-1")
+                .effectiveDate(Date.from(from.plusSeconds(60))).build();
+        Fare latest = Fare.builder().id("fare-3").organizationId("org-1")
+                .effectiveDate(Date.from(from.plusSeconds(3600))).build();
+        Fare otherOrg = Fare.builder().id("fare-2").organizationId("org-2")
+                .effectiveDate(Date.from(from.plusSeconds(60))).build();
+        // Primera consulta: tarifas que empiezan en la ventana; segunda: cuáles quedaron ACTIVE
+        when(mongoTemplate.find(any(Query.class), eq(Fare.class)))
+                .thenReturn(Flux.just(older, latest, otherOrg), Flux.just(latest));
+        // Primera escritura: tarifas vencidas; segunda: activación
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)),
+                        Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        ReactiveBulkOperations bulk = mock(ReactiveBulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Fare.class)).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of())));
+
+        // Act & Assert
+        StepVerifier.create(fareService.triggerFareTransitions())
+                .assertNext(result -> {
+                    assertEquals(1L, result.getActivated());
+                    assertEquals(2L, result.getDeactivated());
+                })
+                .verifyComplete();
+
+        // Se activa solo la más reciente de cada organización
+        ArgumentCaptor<Query> updates = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).updateMulti(updates.capture(), any(UpdateDefinition.class), eq(Fare.class));
+        Document activation = updates.getAllValues().get(1).getQueryObject();
+        assertEquals(Set.of("fare-3", "fare-2"),
+                Set.copyOf(((Document) activation.get("_id")).getList("$in", String.class)));
+        // org-2 no se reemplaza: su tarifa no quedó ACTIVE
+        verify(bulk, times(1)).updateMulti(any(Query.class), any(UpdateDefinition.class));
+        verify(fareRepository, never()).save(any(Fare.class));
+        assertEquals(Instant.parse("2025-11-01T00:00:01Z"), fareService.transitionsAppliedUntil.get());
+    }
+
+    @Test
+    void triggerFareTransitions_ShouldOnlyCoverWindowSinceLastPass() {
+        // Arrange
+        Instant from = Instant.parse("2025-10-31T00:00:00Z");
+        Instant now = Instant.parse("2025-11-01T00:00:00Z");
+        fareService.transitionsAppliedUntil.set(from);
+        fareService.clock = Clock.fixed(now, ZoneId.of("UTC"));
+        when(mongoTemplate.find(any(Query.class), eq(Fare.class))).thenReturn(Flux.empty());
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(0, 0L, null)));
+
+        // Act
+        StepVerifier.create(fareService.triggerFareTransitions()).expectNextCount(1).verifyComplete();
+
+        // Assert - vencen las de [desde, ahora) y empiezan las de (desde, ahora]: una tarifa en el
+        // límite cambia una sola vez
+        ArgumentCaptor<Query> expired = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(expired.capture(), any(UpdateDefinition.class), eq(Fare.class));
+        assertEquals(new Document("$gte", Date.from(from)).append("$lt", Date.from(now)),
+                expired.getValue().getQueryObject().get("effectiveDate"));
+        ArgumentCaptor<Query> started = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(started.capture(), eq(Fare.class));
+        assertEquals(new Document("$gt", Date.from(from)).append("$lte", Date.from(now)),
+                started.getValue().getQueryObject().get("effectiveDate"));
+        assertEquals(now, fareService.transitionsAppliedUntil.get());
+    }
+
+    @Test
+    void triggerFareTransitions_ShouldOnlyExpire_WhenNothingToActivate() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(Fare.class))).thenReturn(Flux.empty());
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(5, 5L, null)));
+
+        // Act & Assert
+        StepVerifier.create(fareService.triggerFareTransitions())
+                .assertNext(result -> {
+                    assertEquals(0L, result.getActivated());
+                    assertEquals(5L, result.getDeactivated());
+                })
+                .verifyComplete();
+
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Fare.class));
+    }
+
+    // ============================================================
+    // 🔹 TEST: Tarifas por organización con consulta indexada
+    // ============================================================
+    @Test
+    void getByOrganizationId_ShouldQueryByOrganization_WithoutFullScan() {
+        // Arrange
+        Fare fare = Fare.builder().id("fare-1").organizationId("org-1").build();
+        when(fareRepository.findAllByOrganizationId("org-1")).thenReturn(Flux.just(fare));
+
+        // Act & Assert
+        StepVerifier.create(fareService.getByOrganizationId("org-1"))
+                .expectNext(fare)
+                .verifyComplete();
+
+        verify(fareRepository, never()).findAll();
+    }
+
+    // ============================================================
+    // 🔹 TEST: Reemplazo de tarifas activas con un solo updateMany
+    // ============================================================
+    @Test
+    void saveF_ShouldSupersedeOtherActiveFares_WithSingleUpdateMany() {
+        // Arrange
+        when(codeSequenceService.nextCode("TAR")).thenReturn(Mono.just("TAR007"));
+        when(fareRepository.save(any(Fare.class))).thenAnswer(inv -> {
+            Fare arg = inv.getArgument(0);
+            arg.setId("fare-new");
+            return Mono.just(arg);
+        });
+        when(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq(Fare.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(3, 3L, null)));
+
+        FareCreateRequest request = FareCreateRequest.builder()
+                .organizationId("org-1")
+                .fareName("Tarifa Nueva")
+                .fareType("SEMANAL")
+                .fareAmount(new BigDecimal("10"))
+                .build();
+
+        // Act & Assert
+        StepVerifier.create(fareService.saveF(request))
+                .assertNext(resp -> assertEquals("fare-new", resp.getId()))
+                .verifyComplete();
+
+        // Filtro: misma organización, ACTIVE y distinta de la nueva tarifa
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).updateMulti(captor.capture(), any(UpdateDefinition.class), eq(Fare.class));
+        Document filter = captor.getValue().getQueryObject();
+        assertEquals("org-1", filter.get("organizationId"));
+        assertEquals(Constants.ACTIVE.name(), filter.get("status"));
+        assertEquals(new Document("$ne", "fare-new"), filter.get("_id"));
+        verify(fareRepository, never()).findAllByStatus(anyString());
+    }
+
+    // ============================================================
+    // 🔹 TEST: Paginación por cursor (keyset sobre _id)
+    // ============================================================
+    @Test
+    void getPageF_ShouldContinueAfterCursor() {
+        // Arrange
+        Fare next = Fare.builder().id("65a000000000000000000003").fareCode("TAR003").build();
+        when(fareRepository.findByIdGreaterThanOrderByIdAsc("65a000000000000000000002", Limit.of(11)))
+                .thenReturn(Flux.just(next));
+
+        // Act & Assert
+        StepVerifier.create(fareService.getPageF("65a000000000000000000002", 11))
+                .assertNext(resp -> assertEquals("TAR003", resp.getFareCode()))
+                .verifyComplete();
+
+        verify(fareRepository, never()).findAll();
+    }
+}
@@ -0,0 +1,124 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.events.FareChangedEvent;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import pe.edu.vallegrande.msdistribution.infrastructure.repository.FareRepository;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para FareTimelineIndex.
+ * Verifica que la tarifa vigente se resuelve en memoria tras la primera carga
+ * y que los cambios de tarifas descartan la línea de tiempo afectada.
+ */
+public class FareTimelineIndexTest {
+
+    private static final String ORG = "org-1";
+
+    @Mock
+    private FareRepository fareRepository;
+
+    private MeterRegistry meterRegistry;
+
+    private FareTimelineIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new FareTimelineIndex(fareRepository, meterRegistry);
+    }
+
+    @Test
+    void currentFare_ShouldLoadOnce_AndServeFromMemory() {
+        // Arrange
+        Fare nov = fare("fare-nov", 1_000L);
+        Fare dec = fare("fare-dec", 2_000L);
+        when(fareRepository.findByOrganizationIdAndStatusOrderByEffectiveDateDesc(ORG, Constants.ACTIVE.name()))
+                .thenReturn(Flux.just(dec, nov));
+
+        // Act & Assert - se elige la vigencia más reciente que aún no ha pasado
+        StepVerifier.create(index.currentFare(ORG, new Date(500L))).expectNext(dec).verifyComplete();
+        StepVerifier.create(index.currentFare(ORG, new Date(1_500L))).expectNext(dec).verifyComplete();
+        StepVerifier.create(index.currentFare(ORG, new Date(2_500L))).verifyComplete();
+
+        verify(fareRepository, times(1)).findByOrganizationIdAndStatusOrderByEffectiveDateDesc(ORG,
+                Constants.ACTIVE.name());
+        assertEquals(2.0, lookups("hit"));
+        assertEquals(1.0, lookups("miss"));
+    }
+
+    @Test
+    void currentFare_ShouldFallBackToUndatedFare() {
+        // Arrange
+        Fare undated = fare("fare-undated", null);
+        when(fareRepository.findByOrganizationIdAndStatusOrderByEffectiveDateDesc(ORG, Constants.ACTIVE.name()))
+                .thenReturn(Flux.just(fare("fare-old", 1_000L), undated));
+
+        // Act & Assert
+        StepVerifier.create(index.currentFare(ORG, new Date(5_000L))).expectNext(undated).verifyComplete();
+    }
+
+    @Test
+    void onFareChanged_ShouldReloadOnlyAffectedOrganization() {
+        // Arrange
+        when(fareRepository.findByOrganizationIdAndStatusOrderByEffectiveDateDesc(anyString(), anyString()))
+                .thenReturn(Flux.just(fare("fare-1", 1_000L)));
+        index.currentFare(ORG, new Date(0L)).block();
+        index.currentFare("org-2", new Date(0L)).block();
+
+        // Act
+        index.onFareChanged(new FareChangedEvent("fare-1", ORG));
+        index.currentFare(ORG, new Date(0L)).block();
+        index.currentFare("org-2", new Date(0L)).block();
+
+        // Assert
+        verify(fareRepository, times(2)).findByOrganizationIdAndStatusOrderByEffectiveDateDesc(ORG,
+                Constants.ACTIVE.name());
+        verify(fareRepository, times(1)).findByOrganizationIdAndStatusOrderByEffectiveDateDesc("org-2",
+                Constants.ACTIVE.name());
+    }
+
+    @Test
+    void onFareChanged_ShouldClearAll_AfterBulkTransition() {
+        // Arrange
+        when(fareRepository.findByOrganizationIdAndStatusOrderByEffectiveDateDesc(anyString(), anyString()))
+                .thenReturn(Flux.empty());
+        index.currentFare(ORG, new Date()).block();
+
+        // Act
+        index.onFareChanged(FareChangedEvent.allOrganizations());
+        index.currentFare(ORG, new Date()).block();
+
+        // Assert
+        verify(fareRepository, times(2)).findByOrganizationIdAndStatusOrderByEffectiveDateDesc(ORG,
+                Constants.ACTIVE.name());
+        assertEquals(2.0, lookups("miss"));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("fare.timeline.lookups").tag("result", result).counter().count();
+    }
+
+    private Fare fare(String id, Long effectiveDate) {
+        return Fare.builder()
+                .id(id)
+                .organizationId(ORG)
+                .status(Constants.ACTIVE.name())
+                .effectiveDate(effectiveDate != null ? new Date(effectiveDate) : null)
+                .build();
+    }
+}
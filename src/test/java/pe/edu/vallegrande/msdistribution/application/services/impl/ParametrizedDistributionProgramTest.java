@@ -1,5 +1,7 @@
 package pe.edu.vallegrande.msdistribution.application.services.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -9,7 +11,11 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionProgramCreateRequest;
 import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionProgramRepository;
@@ -41,9 +47,28 @@ public class ParametrizedDistributionProgramTest {
     @Mock
     private DistributionProgramRepository programRepository;
 
+    @Mock
+    private CodeSequenceService codeSequenceService;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    // Caché por id real (sin change streams); cada prueba parte de una caché vacía
+    @Spy
+    private EntityCache entityCache = new EntityCache(mock(ReactiveMongoTemplate.class), new SimpleMeterRegistry());
+
+    // Detección de cruces; por defecto no encuentra ninguno
+    @Mock
+    private ConflictDetector conflictDetector;
+
     @InjectMocks
     private DistributionProgramServiceImpl distributionProgramService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(conflictDetector.verify(any(DistributionProgram.class))).thenReturn(Mono.empty());
+    }
+
     /**
      * Prueba parametrizada que valida la creación de programas por diferentes tipos de participantes
      * 
@@ -83,8 +108,7 @@ public class ParametrizedDistributionProgramTest {
         DistributionProgram savedProgram = createValidProgram();
         savedProgram.setResponsibleUserId("user-" + participantType.toLowerCase());
 
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         
         if (expectedSuccess) {
             when(programRepository.save(any(DistributionProgram.class)))
@@ -168,8 +192,7 @@ public class ParametrizedDistributionProgramTest {
         savedProgram.setPlannedStartTime(startTime);
         savedProgram.setPlannedEndTime(endTime);
         
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         when(programRepository.save(any(DistributionProgram.class)))
             .thenReturn(Mono.just(savedProgram));
         
@@ -205,8 +228,7 @@ public class ParametrizedDistributionProgramTest {
             .observations("Programa con tarifa tipo: " + fareType)
             .build();
             
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         when(programRepository.save(any(DistributionProgram.class)))
             .thenReturn(Mono.just(createValidProgram()));
         
@@ -240,8 +262,7 @@ public class ParametrizedDistributionProgramTest {
             .observations("Programa para " + dayName)
             .build();
             
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         when(programRepository.save(any(DistributionProgram.class)))
             .thenReturn(Mono.just(createValidProgram()));
         
@@ -262,8 +283,7 @@ public class ParametrizedDistributionProgramTest {
         // Arrange
         DistributionProgramCreateRequest request = createValidRequest();
         
-        // Fix: Mock findTopByOrderByProgramCodeDesc to avoid null pointer
-        when(programRepository.findTopByOrderByProgramCodeDesc()).thenReturn(Mono.empty());
+        when(codeSequenceService.nextCode("PRG")).thenReturn(Mono.just("PRG001"));
         when(programRepository.save(any(DistributionProgram.class)))
             .thenReturn(Mono.error(new RuntimeException(errorMessage)));
         
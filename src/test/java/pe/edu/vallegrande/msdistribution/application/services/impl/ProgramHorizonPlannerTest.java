@@ -0,0 +1,225 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import pe.edu.vallegrande.msdistribution.domain.models.PlanningWatermark;
+import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionScheduleRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ProgramHorizonPlanner.
+ * Verifica que cada noche solo se genera el día que entra al horizonte, que la marca avanza después de
+ * generar y no si la generación falla, que sin el lease no se planifica y que el cambio de un horario solo
+ * toca sus programas PLANNED planificados y vacía la caché de programas.
+ */
+public class ProgramHorizonPlannerTest {
+
+    // 12:00 UTC = 07:00 en Lima: hoy es el lunes 2024-01-01 y el horizonte (30 días) llega al 2024-01-30
+    private static final LocalDate TODAY = LocalDate.of(2024, 1, 1);
+    private static final LocalDate HORIZON_END = LocalDate.of(2024, 1, 30);
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private DistributionScheduleRepository scheduleRepository;
+
+    @Mock
+    private ProgramMaterializer materializer;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    @Mock
+    private EntityCache entityCache;
+
+    private ProgramHorizonPlanner planner;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        planner = new ProgramHorizonPlanner(mongoTemplate, scheduleRepository, materializer, collectionVersions,
+                entityCache);
+        planner.clock = Clock.fixed(Instant.parse("2024-01-01T12:00:00Z"), ZoneOffset.UTC);
+        when(scheduleRepository.findAllByOrganizationIdAndStatus("org-1", Constants.ACTIVE.name()))
+                .thenReturn(Flux.just(schedule()));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(PlanningWatermark.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PlanningWatermark.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        planner.stop();
+    }
+
+    @Test
+    void extend_ShouldPlanOnlyTheNewDay_WhenHorizonWasPlannedYesterday() {
+        // Arrange - ayer se planificó hasta el 2024-01-29
+        watermark(HORIZON_END.minusDays(1));
+        when(materializer.materialize(eq("org-1"), anyList(), eq(HORIZON_END), eq(HORIZON_END), isNull(), isNull()))
+                .thenReturn(Mono.just(new ProgramMaterializer.Result(1, 0, 0)));
+
+        // Act & Assert
+        StepVerifier.create(planner.extend("org-1")).expectNext(1L).verifyComplete();
+
+        // Lease, generación, marca y liberación del lease, en ese orden
+        InOrder order = inOrder(mongoTemplate, materializer);
+        order.verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq(PlanningWatermark.class));
+        order.verify(materializer).materialize(eq("org-1"), anyList(), eq(HORIZON_END), eq(HORIZON_END), isNull(), isNull());
+        assertEquals(List.of(HORIZON_END), plannedThroughUpdates(2));
+    }
+
+    @Test
+    void extend_ShouldDoNothing_WhenHorizonIsAlreadyPlanned() {
+        watermark(HORIZON_END);
+
+        StepVerifier.create(planner.extend("org-1")).expectNext(0L).verifyComplete();
+
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(PlanningWatermark.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PlanningWatermark.class));
+        verifyNoInteractions(materializer);
+    }
+
+    @Test
+    void extend_ShouldSkip_WhenAnotherInstanceHoldsTheLease() {
+        // Arrange - el documento existe con un lease vigente: el upsert choca con el mismo _id
+        watermark(HORIZON_END.minusDays(1));
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(PlanningWatermark.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key")));
+
+        // Act & Assert
+        StepVerifier.create(planner.extend("org-1")).expectNext(0L).verifyComplete();
+
+        verifyNoInteractions(materializer);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PlanningWatermark.class));
+    }
+
+    @Test
+    void extend_ShouldPlanWholeHorizon_ForNewOrganization() {
+        // Arrange
+        when(mongoTemplate.findById("org-1", PlanningWatermark.class)).thenReturn(Mono.empty());
+        when(materializer.materialize(eq("org-1"), anyList(), eq(TODAY), eq(HORIZON_END), isNull(), isNull()))
+                .thenReturn(Mono.just(new ProgramMaterializer.Result(9, 0, 0)));
+
+        // Act & Assert
+        StepVerifier.create(planner.extend("org-1")).expectNext(9L).verifyComplete();
+
+        assertEquals(List.of(HORIZON_END), plannedThroughUpdates(2));
+    }
+
+    @Test
+    void extend_ShouldKeepWatermark_AndReleaseLease_WhenMaterializationFails() {
+        // Arrange
+        watermark(HORIZON_END.minusDays(1));
+        when(materializer.materialize(eq("org-1"), anyList(), any(), any(), isNull(), isNull()))
+                .thenReturn(Mono.error(new IllegalStateException("bulk write failed")));
+
+        // Act & Assert
+        StepVerifier.create(planner.extend("org-1")).expectError(IllegalStateException.class).verify();
+
+        // Solo se libera el lease: la marca sigue en el día anterior y el próximo intento lo repite
+        assertEquals(List.of(), plannedThroughUpdates(1));
+    }
+
+    @Test
+    void patch_ShouldDiscardPlannedPrograms_WhenScheduleIsInactive() {
+        // Arrange
+        DistributionSchedule inactive = schedule();
+        inactive.setStatus(Constants.INACTIVE.name());
+        when(scheduleRepository.findById("schedule-1")).thenReturn(Mono.just(inactive));
+        watermark(HORIZON_END);
+        when(mongoTemplate.remove(any(Query.class), eq(DistributionProgram.class)))
+                .thenReturn(Mono.just(DeleteResult.acknowledged(8)));
+
+        // Act & Assert
+        StepVerifier.create(planner.patch("schedule-1", "org-1")).expectNext(8L).verifyComplete();
+
+        verify(collectionVersions).bump(DistributionProgram.class, "org-1");
+        verify(entityCache).invalidateAll(DistributionProgram.class);
+        verifyNoInteractions(materializer);
+    }
+
+    @Test
+    void patch_ShouldRemoveStaleDates_UpdateTheRest_AndCreateMissing() {
+        // Arrange - el horario pasa a lunes y jueves
+        when(scheduleRepository.findById("schedule-1")).thenReturn(Mono.just(schedule()));
+        watermark(HORIZON_END);
+        when(mongoTemplate.remove(any(Query.class), eq(DistributionProgram.class)))
+                .thenReturn(Mono.just(DeleteResult.acknowledged(4)));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(DistributionProgram.class)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(5, 5L, null)));
+        when(materializer.materialize(eq("org-1"), anyList(), eq(TODAY), eq(HORIZON_END), isNull(), isNull()))
+                .thenReturn(Mono.just(new ProgramMaterializer.Result(4, 5, 0)));
+
+        // Act & Assert
+        StepVerifier.create(planner.patch("schedule-1", "org-1")).expectNext(13L).verifyComplete();
+
+        verify(collectionVersions).bump(DistributionProgram.class, "org-1");
+        verify(entityCache).invalidateAll(DistributionProgram.class);
+        // Se ajusta con el lease tomado; la marca ya cubre el horizonte y no se mueve
+        verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq(PlanningWatermark.class));
+        assertEquals(List.of(), plannedThroughUpdates(1));
+    }
+
+    // Valores de plannedThrough escritos en la marca entre las expected actualizaciones de planning_watermarks
+    private List<Object> plannedThroughUpdates(int expected) {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(expected)).updateFirst(any(Query.class), captor.capture(), eq(PlanningWatermark.class));
+        return captor.getAllValues().stream()
+                .map(update -> update.getUpdateObject().get("$set", Document.class))
+                .filter(set -> set != null && set.containsKey("plannedThrough"))
+                .map(set -> set.get("plannedThrough"))
+                .toList();
+    }
+
+    private void watermark(LocalDate plannedThrough) {
+        when(mongoTemplate.findById("org-1", PlanningWatermark.class))
+                .thenReturn(Mono.just(PlanningWatermark.builder()
+                        .organizationId("org-1").plannedThrough(plannedThrough).updatedAt(Instant.now()).build()));
+    }
+
+    private DistributionSchedule schedule() {
+        return DistributionSchedule.builder()
+                .id("schedule-1")
+                .organizationId("org-1")
+                .zoneId("zone-1")
+                .daysOfWeek(List.of("LUNES", "JUEVES"))
+                .startTime("06:00")
+                .endTime("10:00")
+                .status(Constants.ACTIVE.name())
+                .build();
+    }
+}
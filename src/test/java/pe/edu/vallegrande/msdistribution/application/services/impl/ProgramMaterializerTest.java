@@ -0,0 +1,207 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.CodeSequenceService;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ProgramMaterializer.
+ * Verifica que cada horario se expande en un programa por fecha de sus días, que no se duplican
+ * las fechas ya planificadas (ni las que otra generación inserta a la vez), que los programas que se cruzan
+ * con otros no se insertan y que los códigos se reservan en una sola operación.
+ */
+public class ProgramMaterializerTest {
+
+    // 2024-01-01 es lunes: LUNES y JUEVES en dos semanas = 4 fechas
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 1, 14);
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private CodeSequenceService codeSequenceService;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    @Mock
+    private ConflictDetector conflictDetector;
+
+    @Mock
+    private ReactiveBulkOperations bulk;
+
+    private ProgramMaterializer materializer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        materializer = new ProgramMaterializer(mongoTemplate, codeSequenceService, collectionVersions,
+                conflictDetector);
+        when(conflictDetector.admissible(eq("org-1"), anyList()))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(1)));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DistributionProgram.class)).thenReturn(bulk);
+        when(codeSequenceService.nextCodes(eq("PRG"), anyInt())).thenAnswer(invocation -> Flux.fromStream(
+                IntStream.rangeClosed(1, invocation.<Integer>getArgument(1)).mapToObj(i -> "PRG" + i)));
+    }
+
+    @Test
+    void materialize_ShouldCreateOneProgramPerMatchingDate_AndSkipPlannedOnes() {
+        // Arrange - el lunes 2024-01-08 ya tiene programa
+        DistributionProgram planned = DistributionProgram.builder()
+                .scheduleId("schedule-1").programDate(LocalDate.of(2024, 1, 8)).build();
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class))).thenReturn(Flux.just(planned));
+        when(bulk.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(3, 0, 0, 0, List.of(), List.of())));
+
+        // Act & Assert
+        StepVerifier.create(materializer.materialize("org-1", List.of(schedule()), FROM, TO, "route-1", "user-1"))
+                .assertNext(result -> {
+                    assertEquals(3, result.created());
+                    assertEquals(1, result.skipped());
+                })
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DistributionProgram>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        List<DistributionProgram> programs = inserted.getValue();
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 11)),
+                programs.stream().map(DistributionProgram::getProgramDate).toList());
+        assertEquals(List.of("PRG1", "PRG2", "PRG3"), programs.stream().map(DistributionProgram::getProgramCode).toList());
+        DistributionProgram first = programs.get(0);
+        assertEquals("zone-1", first.getZoneId());
+        assertEquals("06:00", first.getPlannedStartTime());
+        assertEquals("route-1", first.getRouteId());
+        assertEquals("PLANNED", first.getStatus());
+        assertTrue(first.getGenerated());
+        verify(codeSequenceService, times(1)).nextCodes("PRG", 3);
+        verify(collectionVersions).bump(DistributionProgram.class, "org-1");
+    }
+
+    @Test
+    void materialize_ShouldNotWrite_WhenEverythingIsPlanned() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class))).thenReturn(Flux.fromStream(
+                ScheduleCalendar.dates(ScheduleCalendar.days(schedule().getDaysOfWeek()), FROM, TO).stream()
+                        .map(date -> DistributionProgram.builder().scheduleId("schedule-1").programDate(date).build())));
+
+        // Act & Assert
+        StepVerifier.create(materializer.materialize("org-1", List.of(schedule()), FROM, TO, null, null))
+                .assertNext(result -> {
+                    assertEquals(0, result.created());
+                    assertEquals(4, result.skipped());
+                })
+                .verifyComplete();
+
+        verify(bulk, never()).insert(anyList());
+        verify(codeSequenceService, never()).nextCodes(anyString(), anyInt());
+        verify(collectionVersions, never()).bump(any(), any());
+    }
+
+    @Test
+    void materialize_ShouldNotInsertConflictingPrograms_AndReportThem() {
+        // Arrange - el lunes 2024-01-08 se cruza con otro programa del responsable
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class))).thenReturn(Flux.empty());
+        when(conflictDetector.admissible(eq("org-1"), anyList())).thenAnswer(invocation -> Mono.just(
+                invocation.<List<DistributionProgram>>getArgument(1).stream()
+                        .filter(program -> !LocalDate.of(2024, 1, 8).equals(program.getProgramDate()))
+                        .toList()));
+        when(bulk.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(3, 0, 0, 0, List.of(), List.of())));
+
+        // Act & Assert
+        StepVerifier.create(materializer.materialize("org-1", List.of(schedule()), FROM, TO, null, "user-1"))
+                .assertNext(result -> {
+                    assertEquals(3, result.created());
+                    assertEquals(0, result.skipped());
+                    assertEquals(1, result.conflicts());
+                })
+                .verifyComplete();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DistributionProgram>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 11)),
+                inserted.getValue().stream().map(DistributionProgram::getProgramDate).toList());
+        verify(codeSequenceService, times(1)).nextCodes("PRG", 3);
+    }
+
+    @Test
+    void materialize_ShouldCountDuplicateSlotsAsSkipped_WhenAnotherRunInsertedThem() {
+        // Arrange - entre la lectura y el bulk otra generación insertó el jueves 2024-01-04
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class))).thenReturn(Flux.empty());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error collection: program index: "
+                + DistributionProgram.GENERATED_SLOT_INDEX + " dup key", new BsonDocument(), 1);
+        MongoBulkWriteException bulkError = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(3, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null,
+                new ServerAddress(), Set.of());
+        when(bulk.execute()).thenReturn(Mono.error(new DuplicateKeyException(bulkError.getMessage(), bulkError)));
+
+        // Act & Assert
+        StepVerifier.create(materializer.materialize("org-1", List.of(schedule()), FROM, TO, null, null))
+                .assertNext(result -> {
+                    assertEquals(3, result.created());
+                    assertEquals(1, result.skipped());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void materialize_ShouldFail_WhenBulkFailsForOtherReasons() {
+        // Arrange - clave duplicada en otro índice (programCode): no es una fecha ya generada
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class))).thenReturn(Flux.empty());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error collection: program index: "
+                + "programCode dup key", new BsonDocument(), 0);
+        MongoBulkWriteException bulkError = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(3, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null,
+                new ServerAddress(), Set.of());
+        when(bulk.execute()).thenReturn(Mono.error(new DuplicateKeyException(bulkError.getMessage(), bulkError)));
+
+        // Act & Assert
+        StepVerifier.create(materializer.materialize("org-1", List.of(schedule()), FROM, TO, null, null))
+                .expectError(DuplicateKeyException.class)
+                .verify();
+    }
+
+    private DistributionSchedule schedule() {
+        return DistributionSchedule.builder()
+                .id("schedule-1")
+                .organizationId("org-1")
+                .zoneId("zone-1")
+                .streetId("street-1")
+                .daysOfWeek(List.of("LUNES", "JUEVES"))
+                .startTime("06:00")
+                .endTime("10:00")
+                .status("ACTIVE")
+                .build();
+    }
+}
@@ -0,0 +1,92 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import org.junit.jupiter.api.Test;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ScheduleCalendar.
+ * Verifica que se reconocen los días en inglés y español (con o sin tilde, abreviados o separados
+ * por comas) y los formatos de hora usados en los horarios, y que la forma compilada responde
+ * qué horarios están vigentes un día a una hora, incluidos los que cruzan la medianoche.
+ */
+public class ScheduleCalendarTest {
+
+    @Test
+    void days_ShouldAcceptSpanishEnglishAndAbbreviations() {
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY),
+                ScheduleCalendar.days(List.of("LUNES", "MIÉRCOLES", "viernes")));
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.SATURDAY),
+                ScheduleCalendar.days(List.of("MONDAY,TUESDAY", "Sáb")));
+        assertEquals(EnumSet.of(DayOfWeek.WEDNESDAY, DayOfWeek.SUNDAY),
+                ScheduleCalendar.days(List.of("MIE", "DOM")));
+    }
+
+    @Test
+    void days_ShouldIgnoreUnknownOrAmbiguousNames() {
+        assertEquals(EnumSet.noneOf(DayOfWeek.class), ScheduleCalendar.days(Arrays.asList("M", "feriado", null)));
+        assertTrue(ScheduleCalendar.days(null).isEmpty());
+    }
+
+    @Test
+    void minuteOfDay_ShouldParseCommonFormats() {
+        assertEquals(390, ScheduleCalendar.minuteOfDay("06:30"));
+        assertEquals(390, ScheduleCalendar.minuteOfDay("6:30"));
+        assertEquals(390, ScheduleCalendar.minuteOfDay("06:30:00"));
+        assertEquals(1110, ScheduleCalendar.minuteOfDay("6:30 pm"));
+        assertNull(ScheduleCalendar.minuteOfDay("mañana"));
+        assertNull(ScheduleCalendar.minuteOfDay(null));
+    }
+
+    @Test
+    void dates_ShouldReturnMatchingDaysInRange() {
+        // 2024-01-01 es lunes
+        List<LocalDate> dates = ScheduleCalendar.dates(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 14));
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 4),
+                LocalDate.of(2024, 1, 8), LocalDate.of(2024, 1, 11)), dates);
+    }
+
+    @Test
+    void compile_ShouldStoreMaskAndMinutes() {
+        DistributionSchedule schedule = ScheduleCalendar.compile(schedule(List.of("LUNES", "Miércoles"), "06:30", "10:00"));
+
+        assertEquals(0b0000101, schedule.getDayMask());
+        assertEquals(390, schedule.getStartMinute());
+        assertEquals(600, schedule.getEndMinute());
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY), ScheduleCalendar.daysOf(schedule));
+    }
+
+    @Test
+    void activeAt_ShouldMatchDayAndTime() {
+        DistributionSchedule schedule = ScheduleCalendar.compile(schedule(List.of("MARTES"), "06:00", "08:00"));
+
+        assertTrue(ScheduleCalendar.activeAt(schedule, DayOfWeek.TUESDAY, 390));
+        assertFalse(ScheduleCalendar.activeAt(schedule, DayOfWeek.TUESDAY, 480));
+        assertFalse(ScheduleCalendar.activeAt(schedule, DayOfWeek.WEDNESDAY, 390));
+    }
+
+    @Test
+    void activeAt_ShouldContinueIntoNextDay_WhenScheduleCrossesMidnight() {
+        // Viernes de 22:00 a 02:00
+        DistributionSchedule schedule = ScheduleCalendar.compile(schedule(List.of("VIERNES"), "22:00", "02:00"));
+
+        assertEquals(1560, schedule.getEndMinute());
+        assertTrue(ScheduleCalendar.activeAt(schedule, DayOfWeek.FRIDAY, 23 * 60));
+        assertTrue(ScheduleCalendar.activeAt(schedule, DayOfWeek.SATURDAY, 60));
+        assertFalse(ScheduleCalendar.activeAt(schedule, DayOfWeek.SATURDAY, 23 * 60));
+        assertFalse(ScheduleCalendar.activeAt(schedule, DayOfWeek.FRIDAY, 60));
+    }
+
+    private DistributionSchedule schedule(List<String> days, String start, String end) {
+        return DistributionSchedule.builder().daysOfWeek(days).startTime(start).endTime(end).build();
+    }
+}
@@ -0,0 +1,151 @@
+package pe.edu.vallegrande.msdistribution.application.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import pe.edu.vallegrande.msdistribution.application.services.CollectionVersionService;
+import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para SupplyWindowIndex.
+ * Verifica que se devuelven la ventana en curso y las siguientes de una calle (más las de toda la
+ * zona), que un programa reemplaza o anula la ventana del horario en esa fecha, que se consideran los
+ * horarios que cruzan la medianoche y que el índice solo se reconstruye cuando cambia la versión.
+ */
+public class SupplyWindowIndexTest {
+
+    // 2024-01-02 es martes
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate UNTIL = LocalDate.of(2024, 1, 20);
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private ActiveReferenceSnapshot activeSnapshot;
+
+    @Mock
+    private CollectionVersionService collectionVersions;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void lookup_ShouldReturnCurrentAndNextWindows_ForStreetAndWholeZone() {
+        // Arrange - calle 1: martes y jueves 06:00-08:00; toda la zona: martes 07:00-09:00
+        SupplyWindowIndex.Index index = SupplyWindowIndex.Index.build(List.of(
+                        schedule("schedule-1", "street-1", List.of("MARTES", "JUEVES"), "06:00", "08:00"),
+                        schedule("schedule-2", null, List.of("MARTES"), "07:00", "09:00"),
+                        schedule("schedule-3", "street-2", List.of("MARTES"), "07:00", "09:00")),
+                List.of(), FROM, UNTIL);
+
+        // Act
+        SupplyWindowIndex.Lookup lookup = index.lookup("zone-1", "street-1", at(2024, 1, 2, 7, 30), 2);
+
+        // Assert
+        assertEquals(List.of("schedule-1", "schedule-2"),
+                lookup.current().stream().map(SupplyWindowIndex.Window::scheduleId).toList());
+        assertEquals(2, lookup.next().size());
+        assertEquals(at(2024, 1, 4, 6, 0), lookup.next().get(0).start());
+        assertEquals(at(2024, 1, 9, 6, 0), lookup.next().get(1).start());
+        assertEquals("schedule-1", lookup.next().get(0).scheduleId());
+    }
+
+    @Test
+    void lookup_ShouldPreferProgram_AndSkipCancelledDates() {
+        // Arrange - el martes 2 se reprogramó a 10:00-12:00 y el martes 9 se anuló
+        DistributionProgram moved = program("program-1", LocalDate.of(2024, 1, 2), "10:00", "12:00", "PLANNED");
+        DistributionProgram cancelled = program("program-2", LocalDate.of(2024, 1, 9), "06:00", "08:00",
+                Constants.INACTIVE.name());
+        SupplyWindowIndex.Index index = SupplyWindowIndex.Index.build(
+                List.of(schedule("schedule-1", "street-1", List.of("MARTES"), "06:00", "08:00")),
+                List.of(moved, cancelled), FROM, UNTIL);
+
+        // Act
+        SupplyWindowIndex.Lookup lookup = index.lookup("zone-1", "street-1", at(2024, 1, 2, 6, 30), 5);
+
+        // Assert
+        assertTrue(lookup.current().isEmpty());
+        assertEquals(Arrays.asList("program-1", null),
+                lookup.next().stream().map(SupplyWindowIndex.Window::programId).toList());
+        assertEquals(at(2024, 1, 2, 10, 0), lookup.next().get(0).start());
+        assertEquals(SupplyWindowIndex.SCHEDULE, lookup.next().get(1).source());
+    }
+
+    @Test
+    void lookup_ShouldIncludeWindowsCrossingMidnight() {
+        SupplyWindowIndex.Index index = SupplyWindowIndex.Index.build(
+                List.of(schedule("schedule-1", null, List.of("LUNES"), "22:00", "02:00")),
+                List.of(), FROM, UNTIL);
+
+        SupplyWindowIndex.Lookup lookup = index.lookup("zone-1", null, at(2024, 1, 2, 1, 0), 1);
+
+        assertEquals(1, lookup.current().size());
+        assertEquals(at(2024, 1, 2, 2, 0), lookup.current().get(0).end());
+        assertEquals(at(2024, 1, 8, 22, 0), lookup.next().get(0).start());
+    }
+
+    @Test
+    void indexOf_ShouldBuildOnce_UntilVersionChanges() {
+        // Arrange
+        SupplyWindowIndex supplyIndex = new SupplyWindowIndex(mongoTemplate, activeSnapshot, collectionVersions,
+                new SimpleMeterRegistry());
+        supplyIndex.clock = Clock.fixed(Instant.parse("2024-01-02T12:00:00Z"), ZoneOffset.UTC);
+        when(collectionVersions.current(any(), anyString()))
+                .thenReturn(new CollectionVersionService.Version("v1", Instant.EPOCH));
+        when(mongoTemplate.find(any(Query.class), eq(DistributionSchedule.class))).thenReturn(Flux.empty());
+        when(mongoTemplate.find(any(Query.class), eq(DistributionProgram.class))).thenReturn(Flux.empty());
+
+        // Act & Assert
+        StepVerifier.create(supplyIndex.indexOf("org-1")).expectNextCount(1).verifyComplete();
+        StepVerifier.create(supplyIndex.indexOf("org-1")).expectNextCount(1).verifyComplete();
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(DistributionProgram.class));
+
+        when(collectionVersions.current(eq(DistributionProgram.class), anyString()))
+                .thenReturn(new CollectionVersionService.Version("v2", Instant.EPOCH));
+        StepVerifier.create(supplyIndex.indexOf("org-1")).expectNextCount(1).verifyComplete();
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(DistributionProgram.class));
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        return SupplyWindowIndex.minuteOf(LocalDateTime.of(year, month, day, hour, minute));
+    }
+
+    private DistributionSchedule schedule(String id, String streetId, List<String> days, String start, String end) {
+        return DistributionSchedule.builder()
+                .id(id).organizationId("org-1").zoneId("zone-1").streetId(streetId)
+                .daysOfWeek(days).startTime(start).endTime(end).status(Constants.ACTIVE.name())
+                .build();
+    }
+
+    private DistributionProgram program(String id, LocalDate date, String start, String end, String status) {
+        return DistributionProgram.builder()
+                .id(id).organizationId("org-1").scheduleId("schedule-1").zoneId("zone-1").streetId("street-1")
+                .programDate(date).plannedStartTime(start).plannedEndTime(end).status(status)
+                .build();
+    }
+}
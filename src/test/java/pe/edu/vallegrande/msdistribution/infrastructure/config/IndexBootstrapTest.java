@@ -0,0 +1,73 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IndexBootstrap.
+ * Verifica que se intentan crear todos los índices declarados en los modelos y que uno que falla
+ * (por ejemplo un índice único sobre códigos duplicados) no impide crear los demás.
+ */
+public class IndexBootstrapTest {
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoConverter converter;
+
+    @Mock
+    private ReactiveIndexOperations indexOperations;
+
+    private IndexBootstrap indexBootstrap;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        mappingContext.getPersistentEntity(Fare.class);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        doReturn(mappingContext).when(converter).getMappingContext();
+        when(mongoTemplate.indexOps(Fare.class)).thenReturn(indexOperations);
+        when(mongoTemplate.getCollectionName(Fare.class)).thenReturn("fare");
+        indexBootstrap = new IndexBootstrap(mongoTemplate);
+    }
+
+    @Test
+    void ensureIndexes_ShouldCreateDeclaredIndexes_AndSkipTheOnesThatFail() {
+        // Arrange - el índice único de fareCode falla como lo haría con códigos duplicados
+        when(indexOperations.ensureIndex(any(IndexDefinition.class))).thenAnswer(invocation -> {
+            IndexDefinition index = invocation.getArgument(0);
+            return index.getIndexKeys().containsKey("fareCode")
+                    ? Mono.error(new IllegalStateException("E11000 duplicate key"))
+                    : Mono.just(index.getIndexOptions().getString("name"));
+        });
+
+        // Act & Assert
+        StepVerifier.create(indexBootstrap.ensureIndexes().collectList())
+                .assertNext(names -> assertEquals(
+                        Set.of("status_effectiveDate", "organizationId_status_effectiveDate"),
+                        Set.copyOf(names)))
+                .verifyComplete();
+        verify(indexOperations, times(3)).ensureIndex(any(IndexDefinition.class));
+    }
+}
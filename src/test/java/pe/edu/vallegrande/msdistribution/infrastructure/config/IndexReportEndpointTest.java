@@ -0,0 +1,77 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.config;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.query.parser.PartTree;
+import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
+import pe.edu.vallegrande.msdistribution.domain.models.Fare;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para IndexReportEndpoint.
+ * Verifica la forma del filtro y del orden derivados del nombre de los métodos de repositorio
+ * (incluida la propiedad id, que se guarda como _id) y la lectura de etapas del plan ganador.
+ */
+public class IndexReportEndpointTest {
+
+    @Test
+    void filterOf_ShouldUseEqualityForSimpleProperties_AndExistsForOtherOperators() {
+        // Act
+        Document filter = IndexReportEndpoint.filterOf(
+                new PartTree("findByIdGreaterThanOrderByIdAsc", Fare.class));
+        Document equality = IndexReportEndpoint.filterOf(
+                new PartTree("findByOrganizationIdAndStatusOrderByEffectiveDateDesc", Fare.class));
+
+        // Assert
+        assertEquals(new Document("_id", new Document("$exists", true)), filter);
+        assertEquals(new Document("organizationId", "").append("status", ""), equality);
+    }
+
+    @Test
+    void filterOf_ShouldCombineOrParts() {
+        // Act
+        Document filter = IndexReportEndpoint.filterOf(
+                new PartTree("findByStatusOrProgramCode", DistributionProgram.class));
+
+        // Assert
+        assertEquals(new Document("$or", List.of(new Document("status", ""), new Document("programCode", ""))),
+                filter);
+        assertTrue(IndexReportEndpoint.filterOf(new PartTree("findAllByOrderByIdAsc", Fare.class)).isEmpty());
+    }
+
+    @Test
+    void sortOf_ShouldMapIdToUnderscoreId_AndKeepDirection() {
+        // Act
+        Document byId = IndexReportEndpoint.sortOf(new PartTree("findAllByOrderByIdAsc", Fare.class).getSort());
+        Document byDate = IndexReportEndpoint.sortOf(
+                new PartTree("findByOrganizationIdAndStatusOrderByEffectiveDateDesc", Fare.class).getSort());
+
+        // Assert
+        assertEquals(new Document("_id", 1), byId);
+        assertEquals(new Document("effectiveDate", -1), byDate);
+    }
+
+    @Test
+    void collectStages_ShouldWalkNestedPlans() {
+        // Arrange - plan clásico con inputStage y plan SBE con queryPlan/inputStages
+        Document classic = new Document("stage", "LIMIT")
+                .append("inputStage", new Document("stage", "FETCH")
+                        .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "_id_")));
+        Document sbe = new Document("queryPlan", new Document("stage", "OR")
+                .append("inputStages", List.of(new Document("stage", "COLLSCAN"), new Document("stage", "IXSCAN"))));
+        List<String> classicStages = new ArrayList<>();
+        List<String> sbeStages = new ArrayList<>();
+
+        // Act
+        IndexReportEndpoint.collectStages(classic, classicStages);
+        IndexReportEndpoint.collectStages(sbe, sbeStages);
+
+        // Assert
+        assertEquals(List.of("LIMIT", "FETCH", "IXSCAN"), classicStages);
+        assertEquals(List.of("OR", "COLLSCAN", "IXSCAN"), sbeStages);
+    }
+}
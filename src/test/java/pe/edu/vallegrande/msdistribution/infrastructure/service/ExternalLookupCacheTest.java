@@ -0,0 +1,121 @@
+package pe.edu.vallegrande.msdistribution.infrastructure.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para ExternalLookupCache.
+ * Verifica que las consultas concurrentes comparten una llamada, que los ids inexistentes se
+ * recuerdan, que los errores no se guardan, que ante un fallo se usa el último valor bueno y que
+ * las llamadas se cuentan por resultado.
+ */
+public class ExternalLookupCacheTest {
+
+    private static final ExternalLookupCache.Settings SETTINGS = new ExternalLookupCache.Settings(
+            100, Duration.ofMinutes(10), Duration.ofMinutes(1), Duration.ofSeconds(30), Duration.ofHours(24));
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void get_ShouldShareOneCall_ForConcurrentLookups() {
+        Sinks.One<String> response = Sinks.one();
+        ExternalLookupCache<String> cache = cache(id -> {
+            calls.incrementAndGet();
+            return response.asMono();
+        });
+
+        Mono<String> first = cache.get("user-1");
+        Mono<String> second = cache.get("user-1");
+        StepVerifier.create(first.zipWith(second))
+                .then(() -> response.tryEmitValue("Juan"))
+                .assertNext(both -> {
+                    assertEquals("Juan", both.getT1());
+                    assertEquals("Juan", both.getT2());
+                })
+                .verifyComplete();
+
+        StepVerifier.create(cache.get("user-1")).expectNext("Juan").verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.counter("external.calls", "client", "users", "outcome", "success").count());
+    }
+
+    @Test
+    void get_ShouldRememberMissingIds() {
+        ExternalLookupCache<String> cache = cache(id -> {
+            calls.incrementAndGet();
+            return Mono.empty();
+        });
+
+        StepVerifier.create(cache.get("missing")).verifyComplete();
+        StepVerifier.create(cache.get("missing")).verifyComplete();
+
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.counter("external.calls", "client", "users", "outcome", "not_found").count());
+    }
+
+    @Test
+    void get_ShouldNotCacheErrors() {
+        ExternalLookupCache<String> cache = cache(id -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("timeout"));
+        });
+
+        StepVerifier.create(cache.get("user-1")).expectError(IllegalStateException.class).verify();
+        StepVerifier.create(cache.get("user-1")).expectError(IllegalStateException.class).verify();
+
+        assertEquals(2, calls.get());
+        assertEquals(2.0, meterRegistry.counter("external.calls", "client", "users", "outcome", "error").count());
+    }
+
+    @Test
+    void get_ShouldServeLastKnownValue_WhenLoadFails() {
+        // Arrange - la entrada vence al instante, el último valor bueno se conserva 24 h
+        ExternalLookupCache<String> cache = new ExternalLookupCache<>("users", id -> calls.incrementAndGet() == 1
+                        ? Mono.just("Juan")
+                        : Mono.error(new IllegalStateException("circuit open")),
+                new ExternalLookupCache.Settings(100, Duration.ofNanos(1), Duration.ofMinutes(1),
+                        Duration.ofSeconds(30), Duration.ofHours(24)),
+                meterRegistry);
+        StepVerifier.create(cache.get("user-1")).expectNext("Juan").verifyComplete();
+
+        // Act & Assert
+        StepVerifier.create(cache.get("user-1")).expectNext("Juan").verifyComplete();
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.counter("external.calls", "client", "users", "outcome", "stale").count());
+        assertEquals(0.0, meterRegistry.counter("external.calls", "client", "users", "outcome", "error").count());
+    }
+
+    @Test
+    void put_ShouldServeSeededValue_WithoutCalling() {
+        ExternalLookupCache<String> cache = cache(id -> {
+            calls.incrementAndGet();
+            return Mono.just("remote");
+        });
+
+        cache.put("user-1", "seeded");
+
+        StepVerifier.create(cache.get("user-1")).expectNext("seeded").verifyComplete();
+        assertEquals(0, calls.get());
+    }
+
+    private ExternalLookupCache<String> cache(Function<String, Mono<String>> fetch) {
+        return new ExternalLookupCache<>("users", fetch, SETTINGS, meterRegistry);
+    }
+}
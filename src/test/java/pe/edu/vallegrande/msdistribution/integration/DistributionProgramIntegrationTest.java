@@ -8,6 +8,7 @@ import org.springframework.test.context.TestPropertySource;
 import pe.edu.vallegrande.msdistribution.application.services.DistributionProgramService;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionProgram;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionProgramCreateRequest;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
 import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionProgramRepository;
 import pe.edu.vallegrande.msdistribution.infrastructure.service.ExternalServiceClient;
 import reactor.core.publisher.Mono;
@@ -15,6 +16,7 @@ import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
 import java.time.Instant;
+import java.time.ZoneId;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
@@ -28,7 +30,8 @@ import static org.mockito.Mockito.when;
 })
 @TestPropertySource(properties = {
     "de.flapdoodle.mongodb.embedded.version=5.0.5",
-    "spring.data.mongodb.auto-index-creation=true"
+    "spring.data.mongodb.auto-index-creation=true",
+    "app.program-planner.enabled=false"
 })
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class DistributionProgramIntegrationTest {
@@ -435,4 +438,55 @@ public class DistributionProgramIntegrationTest {
         System.out.println("=== [FIN IT-07] ===\n");
     }
 
-}
\ No newline at end of file
+    // ==================== CONFLICT TESTS ====================
+
+    @Test
+    @Order(8)
+    @DisplayName("IT-08: Rechazar programa que se cruza con otro de la misma calle")
+    void createDistributionProgram_ShouldReturnConflict_WhenOverlapsAnotherOnSameStreet() {
+        // Arrange - fecha futura (el índice de cruces cubre desde ayer) y organización propia
+        LocalDate date = LocalDate.now(ZoneId.of("America/Lima")).plusDays(7);
+        DistributionProgramCreateRequest existing = DistributionProgramCreateRequest.builder()
+                .organizationId("org-conflicts")
+                .zoneId("zone-1")
+                .streetId("street-1")
+                .programDate(date)
+                .plannedStartTime("08:00")
+                .plannedEndTime("12:00")
+                .responsibleUserId("user-1")
+                .build();
+        distributionProgramService.save(existing).block();
+
+        DistributionProgramCreateRequest overlapping = DistributionProgramCreateRequest.builder()
+                .organizationId("org-conflicts")
+                .zoneId("zone-1")
+                .streetId("street-1")
+                .programDate(date)
+                .plannedStartTime("10:00")
+                .plannedEndTime("11:00")
+                .responsibleUserId("user-2")
+                .build();
+
+        DistributionProgramCreateRequest afterwards = DistributionProgramCreateRequest.builder()
+                .organizationId("org-conflicts")
+                .zoneId("zone-1")
+                .streetId("street-1")
+                .programDate(date)
+                .plannedStartTime("12:00")
+                .plannedEndTime("14:00")
+                .responsibleUserId("user-2")
+                .build();
+
+        // Act & Assert - 10:00-11:00 se cruza con 08:00-12:00; 12:00-14:00 empieza cuando el otro termina
+        StepVerifier.create(distributionProgramService.save(overlapping))
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(CustomException.class, error);
+                    assertEquals(409, ((CustomException) error).getErrorMessage().getErrorCode());
+                })
+                .verify();
+        StepVerifier.create(distributionProgramService.save(afterwards))
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+}
@@ -30,7 +30,8 @@ import static org.mockito.Mockito.when;
 })
 @TestPropertySource(properties = {
     "de.flapdoodle.mongodb.embedded.version=5.0.5",
-    "spring.data.mongodb.auto-index-creation=true"
+    "spring.data.mongodb.auto-index-creation=true",
+    "app.program-planner.enabled=false"
 })
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class DistributionRouteIntegrationTest {
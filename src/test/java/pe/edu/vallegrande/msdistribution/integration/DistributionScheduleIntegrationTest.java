@@ -9,6 +9,7 @@ import pe.edu.vallegrande.msdistribution.application.services.DistributionSchedu
 import pe.edu.vallegrande.msdistribution.domain.enums.Constants;
 import pe.edu.vallegrande.msdistribution.domain.models.DistributionSchedule;
 import pe.edu.vallegrande.msdistribution.infrastructure.dto.request.DistributionScheduleCreateRequest;
+import pe.edu.vallegrande.msdistribution.infrastructure.exception.CustomException;
 import pe.edu.vallegrande.msdistribution.infrastructure.repository.DistributionScheduleRepository;
 import pe.edu.vallegrande.msdistribution.infrastructure.service.ExternalServiceClient;
 import reactor.core.publisher.Mono;
@@ -30,7 +31,8 @@ import static org.mockito.Mockito.when;
 })
 @TestPropertySource(properties = {
     "de.flapdoodle.mongodb.embedded.version=5.0.5",
-    "spring.data.mongodb.auto-index-creation=true"
+    "spring.data.mongodb.auto-index-creation=true",
+    "app.program-planner.enabled=false"
 })
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class DistributionScheduleIntegrationTest {
@@ -558,4 +560,54 @@ public class DistributionScheduleIntegrationTest {
         System.out.println("✅ Verificación completada: el horario fue eliminado correctamente.");
         System.out.println("✅ IT-10 completada con éxito.\n");
     }
+
+    // ==================== CONFLICT TESTS ====================
+
+    @Test
+    @Order(11)
+    @DisplayName("IT-11: Rechazar horario que se cruza con otro de la misma zona")
+    void createDistributionSchedule_ShouldReturnConflict_WhenOverlapsAnotherInSameZone() {
+        // Arrange - organización propia: ninguna prueba anterior dejó su índice de cruces en memoria
+        DistributionScheduleCreateRequest existing = new DistributionScheduleCreateRequest();
+        existing.setOrganizationId("org-conflicts");
+        existing.setZoneId("zone-1");
+        existing.setScheduleName("Lunes mañana");
+        existing.setDaysOfWeek(Arrays.asList("LUNES"));
+        existing.setStartTime("06:00");
+        existing.setEndTime("12:00");
+        existing.setDurationHours(6);
+        distributionScheduleService.save(existing).block();
+
+        DistributionScheduleCreateRequest overlapping = new DistributionScheduleCreateRequest();
+        overlapping.setOrganizationId("org-conflicts");
+        overlapping.setZoneId("zone-1");
+        overlapping.setScheduleName("Lunes mediodía");
+        overlapping.setDaysOfWeek(Arrays.asList("LUNES"));
+        overlapping.setStartTime("10:00");
+        overlapping.setEndTime("14:00");
+        overlapping.setDurationHours(4);
+
+        DistributionScheduleCreateRequest otherDay = new DistributionScheduleCreateRequest();
+        otherDay.setOrganizationId("org-conflicts");
+        otherDay.setZoneId("zone-1");
+        otherDay.setScheduleName("Martes mediodía");
+        otherDay.setDaysOfWeek(Arrays.asList("MARTES"));
+        otherDay.setStartTime("10:00");
+        otherDay.setEndTime("14:00");
+        otherDay.setDurationHours(4);
+
+        // Act & Assert - el lunes 10:00-14:00 se cruza con 06:00-12:00; el martes a la misma hora no
+        StepVerifier.create(distributionScheduleService.save(overlapping))
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(CustomException.class, error);
+                    assertEquals(409, ((CustomException) error).getErrorMessage().getErrorCode());
+                })
+                .verify();
+        StepVerifier.create(distributionScheduleService.save(otherDay))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(distributionScheduleRepository.findAll().filter(s -> "org-conflicts".equals(s.getOrganizationId())))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
 }
\ No newline at end of file